@@ -0,0 +1,68 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量提交：同一流程定义1000个执行，executeBatch与逐个execute的对比（吞吐按单个执行计）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class BatchSubmissionBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private FlowDefinition flow;
+    private List<Map<String, Serializable>> paramsList;
+
+    @Setup
+    public void setUpBatch() {
+        flow = BenchmarkFlows.linear(3);
+        paramsList = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            paramsList.add(Map.of("index", i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<FlowResult> executeBatch(FlowEngineState state) {
+        return state.engine.executeBatch(flow, paramsList).getCompletion().join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<FlowResult> executeEach(FlowEngineState state) {
+        List<CompletableFuture<FlowResult>> futures = new ArrayList<>(BATCH_SIZE);
+        for (Map<String, Serializable> params : paramsList) {
+            futures.add(state.engine.execute(flow, params));
+        }
+        List<FlowResult> results = new ArrayList<>(BATCH_SIZE);
+        for (CompletableFuture<FlowResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+}
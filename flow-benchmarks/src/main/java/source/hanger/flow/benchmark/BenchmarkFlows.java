@@ -0,0 +1,169 @@
+package source.hanger.flow.benchmark;
+
+import groovy.lang.GroovyShell;
+import source.hanger.flow.completable.runtime.context.CompletableFlowRuntimePredicateAccessContext;
+import source.hanger.flow.completable.runtime.context.CompletableFlowTaskRunAccessContext;
+import source.hanger.flow.contract.model.Branch;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.contract.model.ParallelStepDefinition;
+import source.hanger.flow.contract.model.TaskStepDefinition;
+import source.hanger.flow.contract.model.Transition;
+import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicate;
+import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable;
+
+import java.util.Arrays;
+
+/**
+ * 基准测试使用的流程定义
+ * <p>
+ * 任务体只写入一个参数，测量结果反映引擎自身的调度、状态和回调开销。
+ */
+public final class BenchmarkFlows {
+
+    /** 路由参数名 */
+    public static final String ROUTE_PARAM = "route";
+
+    private static final FlowTaskRunnable TOUCH = access -> {
+        if (access.getContext() instanceof CompletableFlowTaskRunAccessContext ctx) {
+            ctx.getParams().put("last", ctx.getStepName());
+        }
+    };
+
+    private BenchmarkFlows() {
+    }
+
+    /**
+     * 线性链：step0 → step1 → ... → step(n-1)
+     */
+    public static FlowDefinition linear(int steps) {
+        FlowDefinition flow = newFlow("linear-" + steps);
+        for (int i = 0; i < steps; i++) {
+            TaskStepDefinition task = task("step" + i);
+            if (i + 1 < steps) {
+                task.addTransition(new Transition(null, "step" + (i + 1)));
+            }
+            flow.addStep(task);
+        }
+        return flow;
+    }
+
+    /**
+     * 宽并行：一个并行节点扇出width个分支，全部汇合到join
+     */
+    public static FlowDefinition fanOut(int width) {
+        FlowDefinition flow = newFlow("fan-out-" + width);
+        ParallelStepDefinition parallel = new ParallelStepDefinition();
+        parallel.setName("parallel");
+        String[] branchNames = new String[width];
+        for (int i = 0; i < width; i++) {
+            branchNames[i] = "branch" + i;
+            parallel.addBranch(new Branch(null, branchNames[i]));
+        }
+        parallel.setJoinBranchNames(Arrays.asList(branchNames));
+        parallel.addTransition(new Transition(null, "join"));
+        flow.addStep(parallel);
+        for (String branchName : branchNames) {
+            TaskStepDefinition branch = task(branchName);
+            branch.addTransition(new Transition(null, "join"));
+            flow.addStep(branch);
+        }
+        flow.addStep(task("join"));
+        return flow;
+    }
+
+    /**
+     * 深层嵌套：第i层并行节点有一个叶子分支和一个指向第i+1层并行节点的分支，逐层汇合
+     */
+    public static FlowDefinition nested(int depth) {
+        FlowDefinition flow = newFlow("nested-" + depth);
+        for (int level = 0; level < depth; level++) {
+            boolean deepest = level == depth - 1;
+            String leaf = "leaf" + level;
+            String inner = deepest ? "leafB" + level : "parallel" + (level + 1);
+            String join = "join" + level;
+
+            ParallelStepDefinition parallel = new ParallelStepDefinition();
+            parallel.setName("parallel" + level);
+            parallel.addBranch(new Branch(null, leaf));
+            parallel.addBranch(new Branch(null, inner));
+            parallel.setJoinBranchNames(Arrays.asList(leaf, inner));
+            parallel.addTransition(new Transition(null, join));
+            flow.addStep(parallel);
+
+            TaskStepDefinition leafTask = task(leaf);
+            leafTask.addTransition(new Transition(null, join));
+            flow.addStep(leafTask);
+            if (deepest) {
+                TaskStepDefinition leafB = task(inner);
+                leafB.addTransition(new Transition(null, join));
+                flow.addStep(leafB);
+            }
+
+            TaskStepDefinition joinTask = task(join);
+            if (level > 0) {
+                joinTask.addTransition(new Transition(null, "join" + (level - 1)));
+            }
+            flow.addStep(joinTask);
+        }
+        return flow;
+    }
+
+    /**
+     * 条件路由：routers个路由节点串联，每个节点有predicates条流转，只有最后一条成立
+     */
+    public static FlowDefinition routing(int routers, int predicates) {
+        FlowDefinition flow = newFlow("routing-" + routers + "x" + predicates);
+        for (int r = 0; r < routers; r++) {
+            TaskStepDefinition router = task("router" + r);
+            String next = r + 1 < routers ? "router" + (r + 1) : "done";
+            for (int p = 0; p < predicates; p++) {
+                int expected = p == predicates - 1 ? 0 : p + 1;
+                router.addTransition(new Transition(routeEquals(expected), p == predicates - 1 ? next : "miss"));
+            }
+            flow.addStep(router);
+        }
+        flow.addStep(task("done"));
+        flow.addStep(task("miss"));
+        return flow;
+    }
+
+    /**
+     * 由DSL脚本构建的线性链，与linear(steps)结构相同
+     */
+    public static FlowDefinition dslLinear(int steps) {
+        StringBuilder script = new StringBuilder()
+            .append("import static source.hanger.flow.dsl.FlowDslEntry.*\n")
+            .append("flow {\n")
+            .append("    name 'dsl-linear-").append(steps).append("'\n")
+            .append("    version '1.0.0'\n")
+            .append("    start 'step0'\n");
+        for (int i = 0; i < steps; i++) {
+            script.append("    task {\n")
+                .append("        name 'step").append(i).append("'\n")
+                .append("        run { context.params.last = 'step").append(i).append("' }\n")
+                .append("        nextTo ").append(i + 1 < steps ? "'step" + (i + 1) + "'" : "END").append('\n')
+                .append("    }\n");
+        }
+        script.append("}\n");
+        return (FlowDefinition) new GroovyShell().evaluate(script.toString());
+    }
+
+    private static FlowRuntimePredicate routeEquals(int expected) {
+        return access -> access.getContext() instanceof CompletableFlowRuntimePredicateAccessContext ctx
+            && ctx.getParams().get(ROUTE_PARAM) instanceof Integer route && route == expected;
+    }
+
+    private static FlowDefinition newFlow(String name) {
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName(name);
+        flow.setVersion("1.0.0");
+        return flow;
+    }
+
+    private static TaskStepDefinition task(String name) {
+        TaskStepDefinition task = new TaskStepDefinition();
+        task.setName(name);
+        task.setTaskRunnable(TOUCH);
+        return task;
+    }
+}
@@ -0,0 +1,46 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流程定义来源：DSL构建（Groovy闭包）与Java构建（lambda）的同结构线性链执行吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class DefinitionSourceBenchmark {
+
+    private static final int STEPS = 10;
+
+    @Param({"java", "dsl"})
+    public String source;
+
+    private FlowDefinition flow;
+
+    @Setup
+    public void setUpFlow() {
+        flow = "dsl".equals(source) ? BenchmarkFlows.dslLinear(STEPS) : BenchmarkFlows.linear(STEPS);
+    }
+
+    @Benchmark
+    public FlowResult execute(FlowEngineState state) {
+        return state.engine.execute(flow).join();
+    }
+}
@@ -0,0 +1,58 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import source.hanger.flow.completable.runtime.CompletableFlowEngine;
+import source.hanger.flow.core.runtime.FlowExecutionRetentionPolicy;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试共享的引擎状态
+ * <p>
+ * executor参数：
+ * - direct：在调用线程上直接推进和执行，gc分析器的每次操作分配量（gc.alloc.rate.norm）只在此模式下完整，
+ *   其余模式下分配发生在线程池线程上，不计入基准线程
+ * - single：单线程池推进和执行，衡量纯调度开销
+ * - pooled：按CPU核数的固定线程池，衡量线程切换和并发下的开销
+ */
+@State(Scope.Benchmark)
+public class FlowEngineState {
+
+    @Param({"direct", "single", "pooled"})
+    public String executor;
+
+    public CompletableFlowEngine engine;
+
+    private ExecutorService executorService;
+
+    @Setup
+    public void setUpEngine() {
+        switch (executor) {
+            case "direct" -> engine = new CompletableFlowEngine(Runnable::run);
+            case "single" -> executorService = Executors.newSingleThreadExecutor();
+            case "pooled" -> executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            default -> throw new IllegalArgumentException("未知的executor: " + executor);
+        }
+        if (executorService != null) {
+            engine = new CompletableFlowEngine(executorService);
+        }
+        // 只保留少量已结束执行，避免执行状态的累积影响测量
+        engine.getExecutionManager().setRetentionPolicy(
+            new FlowExecutionRetentionPolicy(256, Duration.ofMinutes(1), 0));
+    }
+
+    @TearDown
+    public void tearDownEngine() throws InterruptedException {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import source.hanger.flow.core.plan.FlowParamLayout;
+import source.hanger.flow.core.runtime.FlowParams;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行参数表：ConcurrentHashMap、按名访问的FlowParams、按槽位访问的FlowParams，
+ * 每次操作模拟一次执行——以N个初始参数建表，再逐个读取并改写每个参数
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class FlowParamsBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int keys;
+
+    /** map：ConcurrentHashMap；named：FlowParams按参数名读写；slot：FlowParams按槽位读写 */
+    @Param({"map", "named", "slot"})
+    public String store;
+
+    private String[] names;
+
+    private int[] slots;
+
+    private FlowParamLayout layout;
+
+    private Map<String, Serializable> initialParams;
+
+    @Setup
+    public void setUpParams() {
+        List<String> declared = new ArrayList<>();
+        initialParams = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            // 运行时拼接，与DSL中读写参数时的键一样不是布局中的同一个字符串实例
+            String name = new StringBuilder("param").append(i).toString();
+            declared.add(name);
+            initialParams.put(name, i);
+        }
+        layout = FlowParamLayout.of(declared);
+        names = new String[keys];
+        slots = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = new StringBuilder("param").append(i).toString();
+            slots[i] = layout.slotOf(names[i]);
+        }
+    }
+
+    @Benchmark
+    public void execute(Blackhole blackhole) {
+        switch (store) {
+            case "map" -> {
+                Map<String, Serializable> params = new ConcurrentHashMap<>(initialParams);
+                for (String name : names) {
+                    blackhole.consume(params.get(name));
+                    params.put(name, name);
+                }
+                blackhole.consume(params);
+            }
+            case "named" -> {
+                FlowParams params = new FlowParams(layout, initialParams);
+                for (String name : names) {
+                    blackhole.consume(params.get(name));
+                    params.put(name, name);
+                }
+                blackhole.consume(params);
+            }
+            default -> {
+                FlowParams params = new FlowParams(layout, initialParams);
+                for (int i = 0; i < slots.length; i++) {
+                    blackhole.consume(params.getSlot(slots[i]));
+                    params.setSlot(slots[i], names[i]);
+                }
+                blackhole.consume(params);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线性链：N个任务串行执行的吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class LinearChainBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int steps;
+
+    private FlowDefinition flow;
+
+    @Setup
+    public void setUpFlow() {
+        flow = BenchmarkFlows.linear(steps);
+    }
+
+    @Benchmark
+    public FlowResult execute(FlowEngineState state) {
+        return state.engine.execute(flow).join();
+    }
+}
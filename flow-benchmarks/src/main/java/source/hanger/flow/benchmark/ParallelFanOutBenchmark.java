@@ -0,0 +1,44 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 宽并行：一个并行节点扇出N个分支并汇合的吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class ParallelFanOutBenchmark {
+
+    @Param({"2", "16", "64"})
+    public int width;
+
+    private FlowDefinition flow;
+
+    @Setup
+    public void setUpFlow() {
+        flow = BenchmarkFlows.fanOut(width);
+    }
+
+    @Benchmark
+    public FlowResult execute(FlowEngineState state) {
+        return state.engine.execute(flow).join();
+    }
+}
@@ -0,0 +1,51 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件路由：10个路由节点串联，每个节点逐条计算N个流转条件的吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class PredicateRoutingBenchmark {
+
+    private static final int ROUTERS = 10;
+
+    @Param({"1", "8", "32"})
+    public int predicates;
+
+    private Map<String, Serializable> params;
+
+    private FlowDefinition flow;
+
+    @Setup
+    public void setUpFlow() {
+        flow = BenchmarkFlows.routing(ROUTERS, predicates);
+        params = Map.of(BenchmarkFlows.ROUTE_PARAM, 0);
+    }
+
+    @Benchmark
+    public FlowResult execute(FlowEngineState state) {
+        return state.engine.execute(flow, params).join();
+    }
+}
@@ -0,0 +1,38 @@
+package source.hanger.flow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单步延迟：64步线性链的平均耗时按步骤数均摊，结果为每个步骤的平均开销（纳秒）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-Dfile.encoding=UTF-8"})
+public class StepLatencyBenchmark {
+
+    private static final int STEPS = 64;
+
+    private final FlowDefinition flow = BenchmarkFlows.linear(STEPS);
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public FlowResult perStep(FlowEngineState state) {
+        return state.engine.execute(flow).join();
+    }
+}
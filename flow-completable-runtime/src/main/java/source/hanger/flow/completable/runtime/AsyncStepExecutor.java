@@ -2,49 +2,111 @@ package source.hanger.flow.completable.runtime;
 
 import source.hanger.flow.contract.model.AsyncStepDefinition;
 import source.hanger.flow.contract.model.StepDefinition;
+import source.hanger.flow.core.plan.FlowExecutionPlan;
 import source.hanger.flow.core.runtime.FlowExecutionContext;
 import source.hanger.flow.core.runtime.FlowResult;
-import source.hanger.flow.core.runtime.FlowStatus;
 import source.hanger.flow.core.runtime.StepExecutor;
 import source.hanger.flow.core.util.FlowLogger;
-import source.hanger.flow.completable.runtime.context.CompletableFlowRuntimePredicateAccessContext;
-import source.hanger.flow.completable.runtime.access.CompletableFlowRuntimePredicateAccess;
 
-import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 
 /**
  * 异步节点执行器
  * <p>
- * 专门负责AsyncStepDefinition的执行逻辑。
+ * 专门负责AsyncStepDefinition的分支触发：
+ * - 每个分支提交到DetachedBranchExecutor，在独立的有界线程池上推进到流程终点
+ * - 主流程不等待分支完成，异步节点提交后立即成功
+ * - 分支异常或因溢出被丢弃只记录日志，不影响主流程
+ * <p>
+ * 仍实现StepExecutor以兼容按该接口使用本类的调用方，但引擎不再经由该接口执行异步节点，见{@link #execute(StepDefinition, FlowExecutionContext, Executor)}。
  */
 public class AsyncStepExecutor implements StepExecutor {
+
+    /**
+     * 分支启动器，由引擎提供
+     */
+    @FunctionalInterface
+    public interface BranchLauncher {
+        /**
+         * 在当前线程上启动一个异步分支，推进到流程终点时完成
+         *
+         * @param branchStepId 分支起始步骤ID
+         * @return 分支最后一个步骤的执行结果
+         */
+        CompletableFuture<FlowResult> launch(int branchStepId);
+    }
+
+    private final DetachedBranchExecutor detachedBranchExecutor;
+
+    public AsyncStepExecutor(DetachedBranchExecutor detachedBranchExecutor) {
+        this.detachedBranchExecutor = detachedBranchExecutor;
+    }
+
+    /**
+     * 执行异步步骤
+     *
+     * @param plan     执行计划
+     * @param stepId   异步步骤ID
+     * @param context  执行上下文
+     * @param launcher 分支启动器
+     * @return 所有分支提交后立即完成的结果
+     */
+    public CompletableFuture<FlowResult> execute(FlowExecutionPlan plan, int stepId, FlowExecutionContext context,
+        BranchLauncher launcher) {
+        int branchCount = plan.asyncBranchCount(stepId);
+        for (int i = 0; i < branchCount; i++) {
+            if (plan.asyncBranchTarget(stepId, i) == FlowExecutionPlan.UNRESOLVED) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "找不到异步分支步骤, async=" + plan.stepName(stepId)));
+            }
+        }
+        for (int i = 0; i < branchCount; i++) {
+            int targetStepId = plan.asyncBranchTarget(stepId, i);
+            if (targetStepId < 0) {
+                continue;
+            }
+            String branchName = plan.stepName(targetStepId);
+            if (FlowLogger.isEnabled(FlowLogger.Level.DEBUG)) {
+                FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(plan.stepName(stepId)),
+                    "⚡ 异步分支提交: {}", branchName);
+            }
+            detachedBranchExecutor.submit(context.getExecutionId(), branchName, () -> launcher.launch(targetStepId))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    String pattern = cause instanceof CancellationException ? "异步分支被丢弃: {}" : "异步分支执行异常: {}";
+                    FlowLogger.log(FlowLogger.Level.ERROR, context.getLogContext(branchName), pattern, cause.getMessage());
+                });
+        }
+        return CompletableFuture.completedFuture(FlowResult.STEP_SUCCESS);
+    }
+
+    /**
+     * StepExecutor兼容入口：只记录异步分支，不启动分支
+     * <p>
+     * 分支需要由引擎推进（见{@link #execute(FlowExecutionPlan, int, FlowExecutionContext, BranchLauncher)}），
+     * 单独的步骤执行器无法调度分支步骤；本方法保持原StepExecutor实现的行为，立即成功
+     *
+     * @deprecated 引擎不再经由StepExecutor执行异步节点，改用带执行计划和BranchLauncher的execute
+     */
+    @Deprecated
     @Override
     public CompletableFuture<FlowResult> execute(StepDefinition step, FlowExecutionContext context, Executor executor) {
-        if (!(step instanceof AsyncStepDefinition)) {
+        if (!(step instanceof AsyncStepDefinition asyncStep)) {
             throw new IllegalArgumentException("AsyncStepExecutor只支持AsyncStepDefinition类型");
         }
-        AsyncStepDefinition asyncStep = (AsyncStepDefinition) step;
-        String stepName = asyncStep.getName();
-        String executionId = context.getExecutionId();
-        
-        // FlowLogger.log(FlowLogger.Level.INFO, ctx, "⚡ 异步执行 [" + asyncStep.getBranchNames().size() + " 个分支]");
-
-        // 异步执行分支，不等待完成
-        List<String> branchNames = asyncStep.getBranchNames();
-        for (String branchName : branchNames) {
-            CompletableFuture.runAsync(() -> {
-                // 实际分支节点执行需由主引擎调度，这里仅做占位
-                CompletableFlowRuntimePredicateAccessContext predicateContext = new CompletableFlowRuntimePredicateAccessContext(context);
-                CompletableFlowRuntimePredicateAccess predicateAccess = new CompletableFlowRuntimePredicateAccess(predicateContext);
-                FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(
-                    context.getFlowDefinition().getName(),
-                    context.getFlowDefinition().getVersion(),
-                    "ASYNC_BRANCH", stepName),
-                    "异步分支执行: " + branchName);
-            }, executor);
+        if (FlowLogger.isEnabled(FlowLogger.Level.DEBUG)) {
+            for (String branchName : asyncStep.getBranchNames()) {
+                FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(asyncStep.getName()), "异步分支执行: {}",
+                    branchName);
+            }
         }
-        return CompletableFuture.completedFuture(new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams()));
+        return CompletableFuture.completedFuture(FlowResult.STEP_SUCCESS);
     }
-} 
\ No newline at end of file
+}
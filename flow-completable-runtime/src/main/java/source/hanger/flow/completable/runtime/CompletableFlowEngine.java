@@ -1,38 +1,54 @@
 package source.hanger.flow.completable.runtime;
 
-import source.hanger.flow.completable.runtime.access.CompletableFlowTaskRunAccess;
-import source.hanger.flow.completable.runtime.context.CompletableFlowTaskRunAccessContext;
 import source.hanger.flow.contract.model.*;
 import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicate;
-import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable;
 import source.hanger.flow.core.runtime.FlowLifecycleHandler;
 import source.hanger.flow.core.runtime.StepLifecycleHandler;
 import source.hanger.flow.completable.runtime.lifecycle.DefaultFlowLifecycleHandler;
 import source.hanger.flow.completable.runtime.lifecycle.DefaultStepLifecycleHandler;
+import source.hanger.flow.completable.runtime.inspect.FlowExecutionInspector;
+import source.hanger.flow.completable.runtime.metrics.FlowMetrics;
+import source.hanger.flow.completable.runtime.trace.FlowSpan;
+import source.hanger.flow.completable.runtime.trace.FlowTracer;
 import source.hanger.flow.core.util.FlowLogger;
 import source.hanger.flow.core.runtime.FlowExecutionContext;
+import source.hanger.flow.core.runtime.FlowExecutionId;
+import source.hanger.flow.core.runtime.FlowExecutionIdGenerator;
 import source.hanger.flow.core.runtime.FlowExecutionState;
 import source.hanger.flow.core.runtime.FlowExecutionManager;
+import source.hanger.flow.core.runtime.FlowExecutionSummary;
+import source.hanger.flow.core.runtime.FlowParamsSnapshot;
 import source.hanger.flow.core.runtime.FlowResult;
 import source.hanger.flow.core.runtime.FlowStatus;
-import source.hanger.flow.core.runtime.FlowStepStatus;
+import source.hanger.flow.core.runtime.FlowEventType;
+import source.hanger.flow.core.runtime.MonotonicFlowExecutionIdGenerator;
 import source.hanger.flow.core.runtime.StepExecutor;
 import source.hanger.flow.core.runtime.StepErrorHandler;
 import source.hanger.flow.core.runtime.FlowErrorHandler;
+import source.hanger.flow.core.plan.FlowExecutionPlan;
+import source.hanger.flow.core.plan.FlowPlanCompiler;
 import source.hanger.flow.completable.runtime.access.CompletableFlowRuntimePredicateAccess;
 import source.hanger.flow.completable.runtime.context.CompletableFlowRuntimePredicateAccessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.stream.Collectors;
-import java.util.logging.Level;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
 
 /**
  * CompletableFuture流程引擎
@@ -45,7 +61,10 @@ import java.util.logging.Level;
  * 设计特点：
  * - 完全异步执行，支持高并发
  * - 基于CompletableFuture的链式调用
- * - 支持流程状态跟踪和监控
+ * - 支持流程状态跟踪和监控，可通过setMetrics开启按流程、步骤的耗时分布与计数收集（FlowMetrics）
+ * - 可通过setTracer开启跨度追踪（FlowTracer）：执行、步骤、分支各对应一个跨度
+ * - 步骤开始、完成、失败及选中的流转发布到执行事件日志（FlowEventJournal），执行状态由其消费方异步更新，
+ *   可通过getExecutionManager().getEventJournal()注册监听器
  * - 提供丰富的执行上下文和访问接口
  * <p>
  * 典型用法：
@@ -59,28 +78,78 @@ public class CompletableFlowEngine {
     private static final Logger log = LoggerFactory.getLogger(CompletableFlowEngine.class);
 
     /**
-     * 默认线程池
+     * 步骤完成回调状态：注册中 / 已挂起（异步完成）/ 注册时已完成（同步完成）
      */
-    private final Executor executor;
+    private static final int REGISTERING = 0;
+    private static final int SUSPENDED = 1;
+    private static final int COMPLETED_INLINE = 2;
+    /**
+     * 主路径推进（不属于任何并行分支）
+     */
+    private static final int NO_JOIN = -1;
+    /**
+     * 线程切换用的空回调
+     */
+    private static final BiConsumer<FlowResult, Throwable> NO_OP_CALLBACK = (result, error) -> { };
+    /**
+     * 批量执行默认每块启动的执行数
+     */
+    private static final int DEFAULT_BATCH_CHUNK_SIZE = 64;
 
     /**
-     * 流程执行状态跟踪
+     * 默认线程池（流程推进：步骤衔接、条件计算、分支调度）
      */
-    private final Map<String, FlowExecutionState> executionStates = new ConcurrentHashMap<>();
+    private final Executor executor;
 
     /**
-     * 流程执行结果缓存
+     * 任务体执行线程池，默认与推进线程池相同；可指定为虚拟线程执行器以承载阻塞型任务
      */
-    private final Map<String, FlowResult> resultCache = new ConcurrentHashMap<>();
+    private final Executor taskExecutor;
 
     /**
      * 步骤类型到执行器的映射
      */
     private final Map<Class<?>, StepExecutor> stepExecutors = new ConcurrentHashMap<>();
+    /**
+     * 并行节点执行器（分支扇出与汇合，由引擎直接调度）
+     */
+    private final ParallelStepExecutor parallelStepExecutor = new ParallelStepExecutor();
+    /**
+     * 异步分支执行池（独立、有界，分支与主流程解耦）
+     */
+    private final DetachedBranchExecutor detachedBranchExecutor;
+    /**
+     * 异步节点执行器（分支提交到异步分支执行池，由引擎直接调度）
+     */
+    private final AsyncStepExecutor asyncStepExecutor;
     /**
      * 流程执行管理器
      */
     private final FlowExecutionManager executionManager = new FlowExecutionManager();
+    /**
+     * 运行中执行的实时查询
+     */
+    private final FlowExecutionInspector inspector = new FlowExecutionInspector(executionManager);
+    /**
+     * 准入控制器（默认不限制）
+     */
+    private final FlowAdmissionController admissionController;
+    /**
+     * 执行ID生成策略（默认按时间单调递增、节点内唯一）
+     */
+    private volatile FlowExecutionIdGenerator executionIdGenerator = MonotonicFlowExecutionIdGenerator.getDefault();
+    /**
+     * 执行指标收集器，为null时不收集
+     */
+    private volatile FlowMetrics metrics;
+    /**
+     * 执行追踪器，为null时不追踪
+     */
+    private volatile FlowTracer tracer;
+    /**
+     * 流程执行计划缓存（按流程定义实例弱引用缓存，定义被回收后计划随之释放）
+     */
+    private final Map<FlowDefinition, FlowExecutionPlan> planCache = Collections.synchronizedMap(new WeakHashMap<>());
     /**
      * 步骤错误处理策略
      */
@@ -114,20 +183,38 @@ public class CompletableFlowEngine {
         this(executor, new DefaultStepErrorHandler(), new DefaultFlowErrorHandler());
     }
 
+    /**
+     * 使用指定线程池和异步分支执行池创建引擎
+     *
+     * @param executor               线程池
+     * @param detachedBranchExecutor 异步分支执行池
+     */
+    public CompletableFlowEngine(Executor executor, DetachedBranchExecutor detachedBranchExecutor) {
+        this(executor, new DefaultStepErrorHandler(), new DefaultFlowErrorHandler(), new DefaultFlowLifecycleHandler(),
+            new DefaultStepLifecycleHandler(), detachedBranchExecutor);
+    }
+
+    /**
+     * 使用独立的推进线程池和任务线程池创建引擎
+     * <p>
+     * 任务体（run/onEnter/onError）在taskExecutor上执行，完成后切回executor继续推进。
+     * 典型用法是以少量平台线程推进流程、以虚拟线程执行阻塞型任务，见java21构建配置下的VirtualThreadFlowEngines。
+     *
+     * @param executor     推进线程池
+     * @param taskExecutor 任务体执行线程池
+     */
+    public CompletableFlowEngine(Executor executor, Executor taskExecutor) {
+        this(executor, taskExecutor, new DefaultStepErrorHandler(), new DefaultFlowErrorHandler(),
+            new DefaultFlowLifecycleHandler(), new DefaultStepLifecycleHandler(), new DetachedBranchExecutor());
+    }
+
     /**
      * 使用自定义错误处理策略创建引擎
      */
     public CompletableFlowEngine(Executor executor, StepErrorHandler stepErrorHandler,
         FlowErrorHandler flowErrorHandler) {
-        this.executor = executor;
-        this.stepErrorHandler = stepErrorHandler;
-        this.flowErrorHandler = flowErrorHandler;
-        flowLifecycleHandler = new DefaultFlowLifecycleHandler();
-        stepLifecycleHandler = new DefaultStepLifecycleHandler();
-        // 注册执行器
-        stepExecutors.put(TaskStepDefinition.class, new TaskStepExecutor());
-        stepExecutors.put(ParallelStepDefinition.class, new ParallelStepExecutor());
-        stepExecutors.put(AsyncStepDefinition.class, new AsyncStepExecutor());
+        this(executor, stepErrorHandler, flowErrorHandler, new DefaultFlowLifecycleHandler(),
+            new DefaultStepLifecycleHandler());
     }
 
     /**
@@ -136,15 +223,39 @@ public class CompletableFlowEngine {
     public CompletableFlowEngine(Executor executor, StepErrorHandler stepErrorHandler,
         FlowErrorHandler flowErrorHandler,
         FlowLifecycleHandler flowLifecycleHandler, StepLifecycleHandler stepLifecycleHandler) {
+        this(executor, stepErrorHandler, flowErrorHandler, flowLifecycleHandler, stepLifecycleHandler,
+            new DetachedBranchExecutor());
+    }
+
+    /**
+     * 使用自定义生命周期处理器和异步分支执行池创建引擎
+     */
+    public CompletableFlowEngine(Executor executor, StepErrorHandler stepErrorHandler,
+        FlowErrorHandler flowErrorHandler,
+        FlowLifecycleHandler flowLifecycleHandler, StepLifecycleHandler stepLifecycleHandler,
+        DetachedBranchExecutor detachedBranchExecutor) {
+        this(executor, executor, stepErrorHandler, flowErrorHandler, flowLifecycleHandler, stepLifecycleHandler,
+            detachedBranchExecutor);
+    }
+
+    /**
+     * 使用全部自定义组件创建引擎
+     */
+    public CompletableFlowEngine(Executor executor, Executor taskExecutor, StepErrorHandler stepErrorHandler,
+        FlowErrorHandler flowErrorHandler,
+        FlowLifecycleHandler flowLifecycleHandler, StepLifecycleHandler stepLifecycleHandler,
+        DetachedBranchExecutor detachedBranchExecutor) {
         this.executor = executor;
+        this.taskExecutor = taskExecutor;
+        this.admissionController = new FlowAdmissionController(executor);
         this.stepErrorHandler = stepErrorHandler;
         this.flowErrorHandler = flowErrorHandler;
         this.flowLifecycleHandler = flowLifecycleHandler;
         this.stepLifecycleHandler = stepLifecycleHandler;
+        this.detachedBranchExecutor = detachedBranchExecutor;
+        this.asyncStepExecutor = new AsyncStepExecutor(detachedBranchExecutor);
         // 注册执行器
         stepExecutors.put(TaskStepDefinition.class, new TaskStepExecutor());
-        stepExecutors.put(ParallelStepDefinition.class, new ParallelStepExecutor());
-        stepExecutors.put(AsyncStepDefinition.class, new AsyncStepExecutor());
     }
 
     /**
@@ -154,11 +265,14 @@ public class CompletableFlowEngine {
      * @return 流程执行结果
      */
     public CompletableFuture<FlowResult> execute(FlowDefinition flowDefinition) {
-        return execute(flowDefinition, new HashMap<>());
+        return execute(flowDefinition, Collections.emptyMap());
     }
 
     /**
      * 执行流程（带初始参数）
+     * <p>
+     * 执行先经过准入控制：超出准入策略的运行数上限时排队，队列已满时按过载策略处理，
+     * 被拒绝时返回的future以FlowRejectedException异常完成
      *
      * @param flowDefinition 流程定义
      * @param initialParams  初始参数
@@ -166,27 +280,235 @@ public class CompletableFlowEngine {
      */
     public CompletableFuture<FlowResult> execute(FlowDefinition flowDefinition,
         Map<String, Serializable> initialParams) {
-        String executionId = generateExecutionId(flowDefinition);
-        FlowExecutionContext context = new FlowExecutionContext(executionId, flowDefinition, initialParams);
+        return admissionController.admit(flowDefinition.getName(), () -> launch(flowDefinition, initialParams), true);
+    }
+
+    /**
+     * 启动一次已通过准入的执行
+     */
+    private CompletableFuture<FlowResult> launch(FlowDefinition flowDefinition, Map<String, Serializable> initialParams) {
+        FlowExecutionId executionId = executionIdGenerator.nextId(flowDefinition);
+        // 上下文按计划的参数槽位布局创建，计划在首次执行后即已缓存
+        FlowExecutionPlan plan = getExecutionPlan(flowDefinition);
+        FlowExecutionContext context = new FlowExecutionContext(executionId, flowDefinition, initialParams,
+            plan.getParamLayout());
+        FlowExecutionState state = executionManager.startExecution(executionId, flowDefinition.getName());
+        context.setExecutionState(state);
 
-        FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "流程开始执行"), "🚀 流程开始执行");
+        FlowLogger.log(FlowLogger.Level.INFO, context.getLogContext(), "🚀 流程开始执行");
+        FlowTracer currentTracer = tracer;
+        FlowSpan rootSpan = currentTracer != null ? currentTracer.startExecution(context) : null;
 
-        return CompletableFuture.supplyAsync(() -> {
+        // 执行流程进入回调
+        return finishExecution(flowDefinition, context,
+            () -> CompletableFuture.runAsync(() -> executeFlowEnter(flowDefinition, context), executor)
+                // 执行所有步骤：步骤间以回调推进，不占用等待线程
+                .thenCompose(ignored -> executeSteps(plan, context, state, currentTracer, rootSpan)),
+            currentTracer, rootSpan);
+    }
+
+    /**
+     * 批量执行同一流程定义
+     *
+     * @param flowDefinition 流程定义
+     * @param paramsList     每个执行的初始参数，结果顺序与之一致
+     * @return 批量执行句柄
+     * @see #executeBatch(FlowDefinition, List, int, ObjIntConsumer)
+     */
+    public FlowBatchExecution executeBatch(FlowDefinition flowDefinition, List<Map<String, Serializable>> paramsList) {
+        return executeBatch(flowDefinition, paramsList, DEFAULT_BATCH_CHUNK_SIZE, null);
+    }
+
+    /**
+     * 批量执行同一流程定义
+     * <p>
+     * 与逐个调用execute相比：
+     * - 执行计划只解析一次，编译失败时聚合future直接以异常完成
+     * - 按chunkSize分块提交到线程池，每块一次调度，块内依次启动执行（启动不阻塞，步骤仍并发推进）
+     * - 结果写入预分配数组，不为每个执行组合future
+     * - 同样经过准入控制，但不会阻塞线程池线程：BLOCK策略下队列已满的执行直接以FlowRejectedException结束
+     *
+     * @param flowDefinition 流程定义
+     * @param paramsList     每个执行的初始参数，结果顺序与之一致
+     * @param chunkSize      每次调度启动的执行数
+     * @param resultListener 每个执行结束时的回调（结果, 下标），可为null
+     * @return 批量执行句柄
+     */
+    public FlowBatchExecution executeBatch(FlowDefinition flowDefinition, List<Map<String, Serializable>> paramsList,
+        int chunkSize, ObjIntConsumer<FlowResult> resultListener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize必须大于0");
+        }
+        int total = paramsList.size();
+        FlowBatchExecution batch = new FlowBatchExecution(flowDefinition.getName(), total, resultListener);
+        if (total == 0) {
+            return batch;
+        }
+        FlowExecutionPlan plan;
+        try {
+            plan = getExecutionPlan(flowDefinition);
+        } catch (RuntimeException e) {
+            batch.fail(e);
+            return batch;
+        }
+        log.info("📦 批量执行开始: flow={}, total={}, chunkSize={}", flowDefinition.getName(), total, chunkSize);
+        for (int from = 0; from < total; from += chunkSize) {
+            int start = from;
+            int end = Math.min(total, from + chunkSize);
             try {
-                // 执行流程进入回调
-                executeFlowEnter(flowDefinition, context);
+                executor.execute(() -> {
+                    for (int i = start; i < end; i++) {
+                        admitBatchItem(batch, i, plan, flowDefinition, paramsList.get(i));
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 线程池拒绝：该块的执行以错误结果结束
+                for (int i = start; i < end; i++) {
+                    batch.onResult(i, new FlowResult(null, FlowStatus.ERROR, null, e));
+                }
+            }
+        }
+        return batch;
+    }
 
-                // 执行所有步骤
-                FlowResult result = executeSteps(flowDefinition, context);
+    /**
+     * 批次中的一个执行申请准入，结束（或被拒绝）时记录结果
+     * <p>
+     * 未能启动或被拒绝的执行以不带参数的错误结果记录：原始参数可能含有null值（这也可能正是启动失败的原因），
+     * 不对其做快照，保证每个执行都会记录结果，批次总能完成
+     */
+    private void admitBatchItem(FlowBatchExecution batch, int index, FlowExecutionPlan plan,
+        FlowDefinition flowDefinition, Map<String, Serializable> initialParams) {
+        admissionController.admit(flowDefinition.getName(),
+                () -> launchBatchItem(batch, plan, flowDefinition, initialParams), false)
+            .whenComplete((result, error) -> batch.onResult(index,
+                error == null ? result : new FlowResult(null, FlowStatus.ERROR, null, unwrap(error))));
+    }
+
+    /**
+     * 启动批次中的一个执行：在当前线程上完成进入回调并推进到第一个异步边界
+     */
+    private CompletableFuture<FlowResult> launchBatchItem(FlowBatchExecution batch, FlowExecutionPlan plan,
+        FlowDefinition flowDefinition, Map<String, Serializable> initialParams) {
+        FlowExecutionId executionId = executionIdGenerator.nextId(flowDefinition);
+        FlowExecutionContext context = new FlowExecutionContext(executionId, flowDefinition, initialParams,
+            plan.getParamLayout());
+        FlowExecutionState state = executionManager.startExecution(executionId, flowDefinition.getName());
+        context.setExecutionState(state);
+        batch.onStarted();
 
-                FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "流程执行完成"), "🎉 流程执行完成");
-                return result;
+        FlowLogger.log(FlowLogger.Level.INFO, context.getLogContext(), "🚀 流程开始执行");
+        FlowTracer currentTracer = tracer;
+        FlowSpan rootSpan = currentTracer != null ? currentTracer.startExecution(context) : null;
 
+        return finishExecution(flowDefinition, context, () -> {
+            try {
+                executeFlowEnter(flowDefinition, context);
+                return executeSteps(plan, context, state, currentTracer, rootSpan);
             } catch (Exception e) {
-                FlowLogger.log(FlowLogger.Level.ERROR, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "流程执行错误: " + e.getMessage()), "💥 流程执行错误: " + e.getMessage());
-                return handleFlowError(flowDefinition, context, e);
+                return CompletableFuture.failedFuture(e);
             }
-        }, executor);
+        }, currentTracer, rootSpan);
+    }
+
+    /**
+     * 启动步骤并收尾：记录完成日志或执行流程错误处理，然后记录终态，已结束的执行按保留策略淘汰
+     * <p>
+     * 返回的future被取消或流程超时时取消本次执行（见{@link #cancelExecution}），不等待正在运行的步骤返回
+     *
+     * @param steps    启动进入回调和步骤，返回步骤全部结束时完成的future；在开始计时之后调用
+     * @param tracer   执行追踪器，未追踪时为null
+     * @param rootSpan 执行的根跨度，在终态时结束；未追踪时为null
+     */
+    private CompletableFuture<FlowResult> finishExecution(FlowDefinition flowDefinition, FlowExecutionContext context,
+        Supplier<CompletableFuture<FlowResult>> steps, FlowTracer tracer, FlowSpan rootSpan) {
+        FlowMetrics.FlowRecorder flowRecorder = metricsRecorder(context);
+        long startNanos = System.nanoTime();
+        if (flowRecorder != null) {
+            flowRecorder.executionStarted();
+        }
+        CompletableFuture<FlowResult> guarded = new CompletableFuture<>();
+        Duration timeout = flowDefinition.getTimeout();
+        ScheduledFuture<?> timer = timeout == null ? null : FlowTimeoutScheduler.schedule(() -> cancelExecution(
+            context, guarded, new FlowTimeoutException(flowDefinition.getName(), null, timeout)), timeout);
+        // 先开始计时再启动步骤：在调用线程上推进时，步骤在steps返回前就已执行
+        steps.get().whenComplete((result, error) -> {
+            if (context.isCancelled()) {
+                // 已取消或超时：被中断的步骤以步骤错误结束本路径，流程结果仍以取消原因为准
+                guarded.completeExceptionally(context.getCancellationCause());
+            } else if (error != null) {
+                guarded.completeExceptionally(error);
+            } else {
+                guarded.complete(result);
+            }
+        });
+
+        CompletableFuture<FlowResult> execution = new CompletableFuture<>();
+        guarded
+            .handle((result, error) -> {
+                if (error == null) {
+                    FlowLogger.log(FlowLogger.Level.INFO, context.getLogContext(), "🎉 流程执行完成");
+                    return terminalResult(context, result);
+                }
+                Exception e = unwrap(error);
+                FlowLogger.log(FlowLogger.Level.ERROR, context.getLogContext(), "💥 流程执行错误: {}", e.getMessage());
+                return terminalResult(context, handleFlowError(flowDefinition, context, e));
+            })
+            .whenComplete((result, error) -> {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                executionManager.completeExecution(context.getId(), result);
+                if (flowRecorder != null) {
+                    flowRecorder.executionFinished(error == null && result != null && result.isSuccess(),
+                        System.nanoTime() - startNanos);
+                }
+                if (rootSpan != null) {
+                    tracer.end(rootSpan, context, result, error);
+                }
+                if (error != null) {
+                    execution.completeExceptionally(error);
+                } else {
+                    execution.complete(result);
+                }
+            });
+        execution.whenComplete((result, error) -> {
+            if (execution.isCancelled()) {
+                cancelExecution(context, guarded, new CancellationException("流程执行被取消"));
+            }
+        });
+        return execution;
+    }
+
+    /**
+     * 生成最终结果：以最后一个步骤（或流程错误处理）的状态和错误，加上冻结的参数快照
+     * <p>
+     * 步骤结果不携带参数（或携带执行上下文的实时参数表）时取执行上下文的参数
+     */
+    private static FlowResult terminalResult(FlowExecutionContext context, FlowResult result) {
+        if (result == null) {
+            result = FlowResult.STEP_SUCCESS;
+        }
+        Map<String, Serializable> params = result.getParams() != null ? result.getParams() : context.getParams();
+        return new FlowResult(context.getExecutionId(), result.getStatus(), FlowParamsSnapshot.of(params),
+            result.getError());
+    }
+
+    /**
+     * 取消执行：标记取消并中断正在执行任务体的线程，之后不再启动新的步骤；
+     * 执行立即以取消原因进入流程错误处理（经FlowTimeoutScheduler#handOff在线程池上进行，
+     * 流程超时时也不占用定时线程），正在运行的步骤结果被忽略
+     */
+    private void cancelExecution(FlowExecutionContext context, CompletableFuture<FlowResult> guarded, Exception cause) {
+        if (!context.cancel(cause)) {
+            return;
+        }
+        FlowLogger.log(FlowLogger.Level.WARNING, context.getLogContext(), "⛔ 流程执行取消: {}", cause.getMessage());
+        try {
+            FlowTimeoutScheduler.handOff(executor, () -> guarded.completeExceptionally(cause));
+        } catch (RuntimeException e) {
+            guarded.completeExceptionally(cause);
+        }
     }
 
     /**
@@ -199,36 +521,47 @@ public class CompletableFlowEngine {
     /**
      * 执行所有步骤
      */
-    private FlowResult executeSteps(FlowDefinition flowDefinition, FlowExecutionContext context) {
-        List<StepDefinition> steps = flowDefinition.getStepDefinitions();
-        if (steps == null || steps.isEmpty()) {
-            return new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams());
+    private CompletableFuture<FlowResult> executeSteps(FlowExecutionPlan plan, FlowExecutionContext context,
+        FlowExecutionState state, FlowTracer tracer, FlowSpan rootSpan) {
+        int startStepId = plan.startStepId();
+        if (startStepId == FlowExecutionPlan.END) {
+            return CompletableFuture.completedFuture(FlowResult.STEP_SUCCESS);
         }
 
-        // 用stream查找 __START__ 节点
-        StepDefinition startStep = steps.stream()
-            .filter(step -> "__START__".equals(step.getName()))
-            .findFirst()
-            .orElse(steps.get(0));
-
-        // __START__ 节点的第一个Transition的目标为实际业务第一个节点
-        StepDefinition firstStep = startStep;
-        if ("__START__".equals(startStep.getName()) && startStep instanceof AbstractStepDefinition) {
-            List<Transition> transitions = ((AbstractStepDefinition)startStep).getTransitions();
-            if (transitions != null && !transitions.isEmpty()) {
-                String nextStepName = transitions.get(0).nextStepName();
-                firstStep = steps.stream()
-                    .filter(step -> nextStepName.equals(step.getName()))
-                    .findFirst()
-                    .orElse(startStep);
+        // 创建步骤执行器
+        long rootSpanId = rootSpan != null ? rootSpan.getSpanId() : FlowSpan.NO_PARENT;
+        InternalStepExecutor stepExecutor = new InternalStepExecutor(context, state, plan, executor, taskExecutor,
+            tracer, rootSpanId, rootSpanId);
+        return stepExecutor.runFrom(startStepId);
+    }
+
+    /**
+     * 获取流程执行计划，首次执行时编译并缓存
+     * <p>
+     * 流程定义在首次执行后即视为冻结；若需修改已执行过的定义，需先调用{@link #invalidatePlan(FlowDefinition)}
+     *
+     * @param flowDefinition 流程定义
+     * @return 编译后的执行计划
+     */
+    public FlowExecutionPlan getExecutionPlan(FlowDefinition flowDefinition) {
+        FlowExecutionPlan plan = planCache.get(flowDefinition);
+        if (plan == null) {
+            plan = FlowPlanCompiler.compile(flowDefinition);
+            FlowExecutionPlan existing = planCache.putIfAbsent(flowDefinition, plan);
+            if (existing != null) {
+                plan = existing;
             }
         }
+        return plan;
+    }
 
-        // 创建步骤执行器
-        InternalStepExecutor stepExecutor = new InternalStepExecutor(context, executor);
-        CompletableFuture<FlowResult> future = stepExecutor.executeStep(firstStep);
-        // 等待所有步骤完成
-        return future.join();
+    /**
+     * 使流程定义的缓存计划失效，下次执行时重新编译
+     *
+     * @param flowDefinition 流程定义
+     */
+    public void invalidatePlan(FlowDefinition flowDefinition) {
+        planCache.remove(flowDefinition);
     }
 
     /**
@@ -243,10 +576,106 @@ public class CompletableFlowEngine {
     }
 
     /**
-     * 生成执行ID
+     * 查找步骤执行器：优先精确匹配步骤类型，其次沿父类查找并缓存结果
+     */
+    private StepExecutor resolveStepExecutor(Class<?> stepType) {
+        StepExecutor executorImpl = stepExecutors.get(stepType);
+        if (executorImpl != null) {
+            return executorImpl;
+        }
+        for (Class<?> type = stepType.getSuperclass(); type != null; type = type.getSuperclass()) {
+            executorImpl = stepExecutors.get(type);
+            if (executorImpl != null) {
+                stepExecutors.putIfAbsent(stepType, executorImpl);
+                return executorImpl;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解开CompletableFuture包装的异常，得到原始异常
      */
-    private String generateExecutionId(FlowDefinition flowDefinition) {
-        return flowDefinition.getName() + "_" + System.currentTimeMillis() + "_" + Thread.currentThread().getId();
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception)cause : new RuntimeException(cause);
+    }
+
+    /**
+     * 获取异步分支执行池
+     */
+    public DetachedBranchExecutor getDetachedBranchExecutor() {
+        return detachedBranchExecutor;
+    }
+
+    /**
+     * 获取指定执行尚未完成的异步分支数（主流程结束后仍可能大于0）
+     */
+    public int getOutstandingAsyncBranches(String executionId) {
+        return detachedBranchExecutor.getOutstandingCount(executionId);
+    }
+
+    /**
+     * 关闭引擎的异步分支执行池，等待未完成的异步分支排空
+     *
+     * @return true表示全部异步分支已完成
+     */
+    public boolean shutdownAsyncBranches(long timeout, TimeUnit unit) throws InterruptedException {
+        return detachedBranchExecutor.shutdown(timeout, unit);
+    }
+
+    /**
+     * 设置执行ID生成策略，对之后启动的执行生效
+     * @param executionIdGenerator 执行ID生成策略
+     */
+    public void setExecutionIdGenerator(FlowExecutionIdGenerator executionIdGenerator) {
+        if (executionIdGenerator == null) {
+            throw new IllegalArgumentException("executionIdGenerator不能为空");
+        }
+        this.executionIdGenerator = executionIdGenerator;
+    }
+
+    public FlowExecutionIdGenerator getExecutionIdGenerator() {
+        return executionIdGenerator;
+    }
+
+    /**
+     * 设置执行指标收集器，对之后启动的执行生效
+     * @param metrics 指标收集器，为null时停止收集
+     */
+    public void setMetrics(FlowMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public FlowMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置执行追踪器，对之后启动的执行生效
+     * @param tracer 追踪器，为null时停止追踪
+     */
+    public void setTracer(FlowTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public FlowTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * 查找执行所属流程的指标记录器，未设置收集器时返回null
+     */
+    private FlowMetrics.FlowRecorder metricsRecorder(FlowExecutionContext context) {
+        FlowMetrics current = metrics;
+        if (current == null) {
+            return null;
+        }
+        FlowDefinition flowDefinition = context.getFlowDefinition();
+        return current.flow(flowDefinition.getName(), flowDefinition.getVersion());
     }
 
     /**
@@ -263,192 +692,306 @@ public class CompletableFlowEngine {
         return executionManager.getExecutionResult(executionId);
     }
 
+    /**
+     * 获取已淘汰执行的摘要（需在保留策略中开启摘要）
+     */
+    public FlowExecutionSummary getExecutionSummary(String executionId) {
+        return executionManager.getExecutionSummary(executionId);
+    }
+
+    /**
+     * 获取准入控制器（可调整准入策略，查询运行数和排队数）
+     */
+    public FlowAdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * 运行中执行的实时查询（当前步骤、停留时长、所属线程），配合FlowWatchdog可定期检测慢执行
+     */
+    public FlowExecutionInspector getInspector() {
+        return inspector;
+    }
+
+    /**
+     * 获取流程执行管理器（可调整保留策略）
+     */
+    public FlowExecutionManager getExecutionManager() {
+        return executionManager;
+    }
+
     /**
      * 步骤执行器
+     * <p>
+     * 基于编译后的执行计划推进流程，步骤以整数ID寻址，每一跳为数组访问。
+     * <p>
+     * 推进方式：
+     * - 步骤之间通过完成回调衔接，引擎内不调用join()，等待中的流程不占用线程
+     * - 同步完成的步骤在同一循环中继续推进（trampoline），调用栈深度与流程长度无关
+     * - 异步完成的步骤由完成线程接续推进，并回到同一循环
+     * - 并行分支各自以独立的推进循环在线程池上运行，到达所属并行节点的汇合点即停止
      */
     private class InternalStepExecutor {
         private final FlowExecutionContext context;
+        private final FlowExecutionState state;
+        private final FlowExecutionPlan plan;
         private final Executor executor;
-        private final Map<String, CompletableFuture<FlowResult>> stepFutures = new ConcurrentHashMap<>();
+        private final Executor taskExecutor;
+        /** 流程指标记录器，未设置收集器时为null */
+        private final FlowMetrics.FlowRecorder flowRecorder;
+        /** 执行追踪器，未追踪时为null */
+        private final FlowTracer tracer;
+        /** 执行的根跨度ID */
+        private final long rootSpanId;
+        /** 本推进器执行的步骤的父跨度ID（主路径为根跨度，分支为分支跨度） */
+        private final long parentSpanId;
 
-        public InternalStepExecutor(FlowExecutionContext context, Executor executor) {
+        public InternalStepExecutor(FlowExecutionContext context, FlowExecutionState state, FlowExecutionPlan plan,
+            Executor executor, Executor taskExecutor, FlowTracer tracer, long rootSpanId, long parentSpanId) {
             this.context = context;
+            this.state = state;
+            this.plan = plan;
             this.executor = executor;
+            this.taskExecutor = taskExecutor;
+            this.flowRecorder = metricsRecorder(context);
+            this.tracer = tracer;
+            this.rootSpanId = rootSpanId;
+            this.parentSpanId = parentSpanId;
         }
 
         /**
-         * 执行单个步骤
+         * 从指定步骤开始推进，直到没有可用的后续步骤
+         *
+         * @param stepId 起始步骤ID
+         * @return 最后一个步骤的执行结果
          */
-        public CompletableFuture<FlowResult> executeStep(StepDefinition step) {
-            String stepName = step.getName();
-            String stepType = getStepType(step);
-            String executionId = context.getExecutionId();
-
-            FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "步骤开始执行"), "▶️ 步骤开始执行");
-
-            // 步骤开始生命周期
-            stepLifecycleHandler.onStepStart(step, context);
-
-            // 优先通过stepExecutors分发
-            StepExecutor executorImpl = stepExecutors.get(step.getClass());
-            if (executorImpl != null) {
-                // 只处理Task节点，其他类型暂时走原有逻辑
-                return executorImpl.execute(step, context, executor)
-                    .thenApply(result -> {
-                        updateExecutionState(stepName, FlowStepStatus.COMPLETED);
-                        FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "步骤执行完成"), "✅ 步骤执行完成");
-                        // 步骤完成生命周期
-                        stepLifecycleHandler.onStepComplete(step, context);
-                        return executeNextSteps(step, result);
-                    })
-                    .exceptionally(e -> {
-                        FlowLogger.log(FlowLogger.Level.ERROR, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "步骤执行错误 : " + e.getMessage()), "❌ 步骤执行错误 : " + e.getMessage());
-                        updateExecutionState(stepName, FlowStepStatus.ERROR);
-                        // 步骤错误生命周期
-                        stepLifecycleHandler.onStepError(step, context,
-                            e instanceof Exception ? (Exception)e : new RuntimeException(e));
-                        return handleStepError(step, e instanceof Exception ? (Exception)e : new RuntimeException(e));
-                    });
-            }
-            // 其他类型暂时走原有逻辑
-            return CompletableFuture.supplyAsync(() -> {
-                try {
-                    updateExecutionState(stepName, FlowStepStatus.RUNNING);
-                    FlowResult result = executeStepByType(step);
-                    updateExecutionState(stepName, FlowStepStatus.COMPLETED);
-                    FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "步骤执行完成"), "✅ 步骤执行完成");
-                    // 步骤完成生命周期
-                    stepLifecycleHandler.onStepComplete(step, context);
-                    return executeNextSteps(step, result);
-                } catch (Exception e) {
-                    FlowLogger.log(FlowLogger.Level.ERROR, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "步骤执行错误 : " + e.getMessage()), "❌ 步骤执行错误 : " + e.getMessage());
-                    updateExecutionState(stepName, FlowStepStatus.ERROR);
-                    // 步骤错误生命周期
-                    stepLifecycleHandler.onStepError(step, context, e);
-                    return handleStepError(step, e);
-                }
-            }, executor);
+        public CompletableFuture<FlowResult> runFrom(int stepId) {
+            CompletableFuture<FlowResult> completion = new CompletableFuture<>();
+            advance(stepId, NO_JOIN, completion);
+            return completion;
         }
 
         /**
-         * 获取步骤类型名称
+         * 在线程池上启动并行分支，推进到并行节点的汇合点或流程终点时完成
+         *
+         * @param branchStepId   分支起始步骤ID
+         * @param parallelStepId 所属并行步骤ID
+         * @param branchContext  分支执行上下文，与当前上下文不同时（参数隔离的分支）以独立的推进器执行
+         * @param parallelSpanId 并行步骤的跨度ID，追踪时分支跨度为其子跨度
+         * @return 分支最后一个步骤的执行结果
          */
-        private String getStepType(StepDefinition step) {
-            if (step instanceof TaskStepDefinition) {
-                return "TASK";
-            } else if (step instanceof ParallelStepDefinition) {
-                return "PARALLEL";
-            } else if (step instanceof AsyncStepDefinition) {
-                return "ASYNC";
+        private CompletableFuture<FlowResult> launchBranch(int branchStepId, int parallelStepId,
+            FlowExecutionContext branchContext, long parallelSpanId) {
+            CompletableFuture<FlowResult> completion = new CompletableFuture<>();
+            FlowSpan branchSpan = null;
+            InternalStepExecutor branchExecutor;
+            if (tracer != null) {
+                // 追踪时每个分支使用独立的推进器，分支内步骤的父跨度为分支跨度
+                branchSpan = tracer.startBranch(branchContext, parallelSpanId, plan.stepName(branchStepId),
+                    FlowTracer.BRANCH_TYPE_PARALLEL, FlowSpan.NO_PARENT);
+                branchSpan.setAttribute(FlowTracer.ATTR_BRANCH_JOIN, plan.isJoinBranch(parallelStepId, branchStepId));
+                branchExecutor = new InternalStepExecutor(branchContext, state, plan, executor, taskExecutor, tracer,
+                    rootSpanId, branchSpan.getSpanId());
             } else {
-                return "UNKNOWN";
+                branchExecutor = branchContext == context ? this : new InternalStepExecutor(branchContext, state, plan,
+                    executor, taskExecutor, null, rootSpanId, parentSpanId);
+            }
+            try {
+                executor.execute(() -> branchExecutor.advance(branchStepId, parallelStepId, completion));
+            } catch (Throwable e) {
+                completion.completeExceptionally(e);
             }
+            return branchSpan == null ? completion : endSpanOnCompletion(completion, branchSpan, branchContext);
         }
 
         /**
-         * 根据步骤类型执行
+         * 在当前线程（异步分支执行池线程）上启动异步分支，分支后续步骤同样在异步分支执行池上执行
+         *
+         * @param branchStepId 分支起始步骤ID
+         * @param asyncSpanId  异步步骤的跨度ID，追踪时分支跨度为根跨度的子跨度并关联该跨度
+         * @return 分支推进到流程终点时完成
          */
-        private FlowResult executeStepByType(StepDefinition step) {
-            if (step instanceof TaskStepDefinition) {
-                return executeTaskStep((TaskStepDefinition)step);
-            } else if (step instanceof ParallelStepDefinition) {
-                return executeParallelStep((ParallelStepDefinition)step);
-            } else if (step instanceof AsyncStepDefinition) {
-                return executeAsyncStep((AsyncStepDefinition)step);
-            } else {
-                throw new UnsupportedOperationException("不支持的步骤类型: " + step.getClass().getSimpleName());
+        private CompletableFuture<FlowResult> launchDetachedBranch(int branchStepId, long asyncSpanId) {
+            if (tracer == null) {
+                return new InternalStepExecutor(context, state, plan, detachedBranchExecutor, detachedBranchExecutor,
+                    null, rootSpanId, parentSpanId).runFrom(branchStepId);
             }
+            FlowSpan branchSpan = tracer.startBranch(context, rootSpanId, plan.stepName(branchStepId),
+                FlowTracer.BRANCH_TYPE_ASYNC, asyncSpanId);
+            return endSpanOnCompletion(new InternalStepExecutor(context, state, plan, detachedBranchExecutor,
+                detachedBranchExecutor, tracer, rootSpanId, branchSpan.getSpanId()).runFrom(branchStepId),
+                branchSpan, context);
         }
 
         /**
-         * 执行任务步骤
+         * 分支完成时先结束分支跨度再向汇合点（或异步分支登记）报告完成，保证父跨度晚于子跨度结束
          */
-        private FlowResult executeTaskStep(TaskStepDefinition taskStep) {
-            String stepName = taskStep.getName();
-
-            // 执行任务进入回调
-            executeTaskEnter(taskStep);
-
-            // 执行任务主体
-            FlowTaskRunnable taskRunnable = taskStep.getTaskRunnable();
-            if (taskRunnable != null) {
-                // 创建正确的访问上下文
-                CompletableFlowTaskRunAccessContext accessContext
-                    = new CompletableFlowTaskRunAccessContext(context, stepName);
-                CompletableFlowTaskRunAccess access = new CompletableFlowTaskRunAccess(accessContext);
-                taskRunnable.run(access);
-            }
-
-            return new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams());
+        private CompletableFuture<FlowResult> endSpanOnCompletion(CompletableFuture<FlowResult> completion,
+            FlowSpan span, FlowExecutionContext spanContext) {
+            return completion.whenComplete((result, error) -> tracer.end(span, spanContext, result, error));
         }
 
         /**
-         * 执行并行步骤
+         * 推进循环：同步完成的步骤直接进入下一轮，未完成的步骤挂起并由回调接续
+         *
+         * @param stepId      起始步骤ID
+         * @param joinStepId  分支所属并行步骤ID，其流转目标为本次推进的停止点；主路径为NO_JOIN
+         * @param completion  推进结束时完成
          */
-        private FlowResult executeParallelStep(ParallelStepDefinition parallelStep) {
-            String stepName = parallelStep.getName();
-            FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "执行并行步骤: " + stepName), "执行并行步骤: " + stepName);
-
-            // 收集所有分支的Future
-            Map<String, CompletableFuture<FlowResult>> branchFutures = new HashMap<>();
-
-            // 执行所有分支
-            Map<String, Branch> branches = parallelStep.getBranches();
-            for (Map.Entry<String, Branch> entry : branches.entrySet()) {
-                String targetStepName = entry.getKey();
-                Branch branch = entry.getValue();
-                FlowRuntimePredicate predicate = branch.flowRuntimePredicate();
-
-                // 执行分支条件
-                boolean condition = false;
-                if (predicate != null) {
-                    CompletableFlowRuntimePredicateAccessContext predicateContext
-                        = new CompletableFlowRuntimePredicateAccessContext(context);
-                    CompletableFlowRuntimePredicateAccess predicateAccess = new CompletableFlowRuntimePredicateAccess(
-                        predicateContext);
-                    condition = predicate.test(predicateAccess);
-                } else {
-                    condition = true;
+        private void advance(int stepId, int joinStepId, CompletableFuture<FlowResult> completion) {
+            int currentStepId = stepId;
+            while (true) {
+                StepContinuation continuation = new StepContinuation(currentStepId, joinStepId, completion);
+                try {
+                    executeStep(currentStepId, continuation).whenComplete(continuation);
+                } catch (Throwable e) {
+                    completion.completeExceptionally(e);
+                    return;
                 }
-                if (condition) {
-                    CompletableFuture<FlowResult> branchFuture = executeStepByName(targetStepName);
-                    branchFutures.put(targetStepName, branchFuture);
+                if (continuation.suspend()) {
+                    // 步骤尚未完成，由完成线程接续
+                    return;
                 }
+                if (continuation.error != null) {
+                    completion.completeExceptionally(continuation.error);
+                    return;
+                }
+                if (continuation.stepFailed) {
+                    // 步骤执行异常：以步骤错误处理的结果结束本路径，不再按流转推进
+                    completion.complete(continuation.result);
+                    return;
+                }
+                int nextStepId = selectNextStep(currentStepId);
+                if (isStopPoint(nextStepId, joinStepId)) {
+                    completion.complete(continuation.result);
+                    return;
+                }
+                currentStepId = nextStepId;
             }
+        }
 
-            // 等待所有分支完成
-            CompletableFuture.allOf(branchFutures.values().toArray(new CompletableFuture[0])).join();
+        /**
+         * 挂起后由完成线程接续推进
+         */
+        private void resume(int stepId, int joinStepId, FlowResult result, Throwable error, boolean stepFailed,
+            CompletableFuture<FlowResult> completion) {
+            try {
+                if (error != null) {
+                    completion.completeExceptionally(error);
+                    return;
+                }
+                if (stepFailed) {
+                    completion.complete(result);
+                    return;
+                }
+                int nextStepId = selectNextStep(stepId);
+                if (isStopPoint(nextStepId, joinStepId)) {
+                    completion.complete(result);
+                } else {
+                    advance(nextStepId, joinStepId, completion);
+                }
+            } catch (Throwable e) {
+                completion.completeExceptionally(e);
+            }
+        }
 
-            return new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams());
+        /**
+         * 判断推进是否应在此停止：流程终点，或分支到达所属并行节点的汇合点
+         */
+        private boolean isStopPoint(int nextStepId, int joinStepId) {
+            return nextStepId < 0 || (joinStepId != NO_JOIN && plan.isTransitionTarget(joinStepId, nextStepId));
         }
 
         /**
-         * 执行异步步骤
+         * 执行单个步骤（不包含后续推进）
+         * <p>
+         * 步骤异常完成时交给步骤错误处理，并标记continuation，推进在此结束而不再按流转继续
          */
-        private FlowResult executeAsyncStep(AsyncStepDefinition asyncStep) {
-            String stepName = asyncStep.getName();
-            FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "执行异步步骤: " + stepName), "执行异步步骤: " + stepName);
-
-            // 异步执行分支，不等待完成
-            List<String> branchNames = asyncStep.getBranchNames();
-            for (String branchName : branchNames) {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        executeStepByName(branchName).join();
-                    } catch (Exception e) {
-                        FlowLogger.log(FlowLogger.Level.ERROR, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "异步分支执行异常: " + e.getMessage()), "异步分支执行异常: " + e.getMessage());
-                    }
-                }, executor);
+        private CompletableFuture<FlowResult> executeStep(int stepId, StepContinuation continuation) {
+            StepDefinition step = plan.step(stepId);
+            String stepName = step.getName();
+
+            if (context.isCancelled()) {
+                // 执行已取消或超时，不再启动新的步骤
+                return CompletableFuture.failedFuture(context.getCancellationCause());
+            }
+
+            if (FlowLogger.isEnabled(FlowLogger.Level.INFO)) {
+                FlowLogger.log(FlowLogger.Level.INFO, context.getLogContext(stepName), "▶️ 步骤开始执行");
             }
 
-            return new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams());
+            // 步骤开始生命周期
+            stepLifecycleHandler.onStepStart(step, context);
+            state.publishStepEvent(FlowEventType.STEP_STARTED, stepName, null);
+            // 并行节点的耗时由其分支步骤体现，只跟踪分支步骤，避免并行节点以推进线程为所属线程被误报
+            FlowExecutionState.ActiveStep activeStep = step instanceof ParallelStepDefinition ? null
+                : state.stepStarted(stepName, Thread.currentThread());
+            FlowMetrics.StepRecorder stepRecorder = flowRecorder != null ? flowRecorder.step(stepName) : null;
+            if (stepRecorder != null) {
+                stepRecorder.started();
+            }
+            FlowSpan span = tracer != null ? tracer.startStep(context, parentSpanId, step) : null;
+            long startNanos = System.nanoTime();
+
+            CompletableFuture<FlowResult> stepFuture;
+            try {
+                stepFuture = dispatchStep(stepId, step, span != null ? span.getSpanId() : FlowSpan.NO_PARENT);
+            } catch (Exception e) {
+                stepFuture = CompletableFuture.failedFuture(e);
+            }
+            return stepFuture.handle((result, error) -> {
+                long durationNanos = System.nanoTime() - startNanos;
+                if (activeStep != null) {
+                    state.stepFinished(activeStep);
+                }
+                if (stepRecorder != null) {
+                    stepRecorder.finished(durationNanos, error != null || (result != null && result.isError()));
+                }
+                if (span != null) {
+                    tracer.end(span, context, result, error);
+                }
+                if (error == null) {
+                    state.publishStepEvent(FlowEventType.STEP_COMPLETED, stepName, null);
+                    if (FlowLogger.isEnabled(FlowLogger.Level.INFO)) {
+                        FlowLogger.log(FlowLogger.Level.INFO, context.getLogContext(stepName), "✅ 步骤执行完成");
+                    }
+                    // 步骤完成生命周期
+                    stepLifecycleHandler.onStepComplete(step, context, durationNanos);
+                    return result;
+                }
+                Exception e = unwrap(error);
+                FlowLogger.log(FlowLogger.Level.ERROR, context.getLogContext(stepName), "❌ 步骤执行错误 : {}", e.getMessage());
+                state.publishStepEvent(FlowEventType.STEP_ERROR, stepName, e);
+                // 步骤错误生命周期
+                stepLifecycleHandler.onStepError(step, context, e, durationNanos);
+                continuation.stepFailed = true;
+                return handleStepError(step, e);
+            });
         }
 
         /**
-         * 执行任务进入回调
+         * 按步骤类型分发：并行、异步节点由引擎调度分支，其余类型交给注册的步骤执行器
          */
-        private void executeTaskEnter(TaskStepDefinition taskStep) {
-            FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "[TASK ENTER] 任务进入回调: " + taskStep.getName()), "[TASK ENTER] 任务进入回调: " + taskStep.getName());
+        private CompletableFuture<FlowResult> dispatchStep(int stepId, StepDefinition step, long stepSpanId) {
+            if (step instanceof ParallelStepDefinition) {
+                return parallelStepExecutor.execute(plan, stepId, context,
+                    (branchStepId, parallelStepId, branchContext) ->
+                        launchBranch(branchStepId, parallelStepId, branchContext, stepSpanId));
+            }
+            if (step instanceof AsyncStepDefinition) {
+                return asyncStepExecutor.execute(plan, stepId, context,
+                    branchStepId -> launchDetachedBranch(branchStepId, stepSpanId));
+            }
+            StepExecutor executorImpl = resolveStepExecutor(step.getClass());
+            if (executorImpl == null) {
+                return CompletableFuture.failedFuture(
+                    new UnsupportedOperationException("不支持的步骤类型: " + step.getClass().getSimpleName()));
+            }
+            if (taskExecutor == executor) {
+                return executorImpl.execute(step, context, executor);
+            }
+            // 任务体在任务线程池上执行，完成后切回推进线程池，避免在任务线程上推进流程
+            return executorImpl.execute(step, context, taskExecutor).whenCompleteAsync(NO_OP_CALLBACK, executor);
         }
 
         /**
@@ -459,100 +1002,77 @@ public class CompletableFlowEngine {
         }
 
         /**
-         * 执行后续步骤
+         * 选择后续步骤：返回第一个条件成立且可解析的流转目标，没有时返回END
          */
-        private FlowResult executeNextSteps(StepDefinition currentStep, FlowResult currentResult) {
-            // 1. 获取当前节点的 transitions
-            List<Transition> transitions = null;
-            try {
-                var method = currentStep.getClass().getMethod("getTransitions");
-                transitions = (List<Transition>) method.invoke(currentStep);
-            } catch (Exception e) {
-                // 没有transitions方法，说明是终止节点
-                return currentResult;
-            }
-            if (transitions == null || transitions.isEmpty()) {
-                return currentResult;
-            }
-            // 2. 遍历所有transition，找到第一个条件成立的下一个节点
-            for (Transition t : transitions) {
+        private int selectNextStep(int stepId) {
+            int transitionCount = plan.transitionCount(stepId);
+            for (int i = 0; i < transitionCount; i++) {
+                FlowRuntimePredicate predicate = plan.transitionPredicate(stepId, i);
+                int nextStepId = plan.transitionTarget(stepId, i);
                 boolean matched = true;
-                String predicateDesc = (t.flowRuntimePredicate() != null) ? t.flowRuntimePredicate().getClass().getSimpleName() : "ALWAYS_TRUE";
-                if (t.flowRuntimePredicate() != null) {
+                if (predicate != null) {
                     try {
                         CompletableFlowRuntimePredicateAccessContext predicateContext = new CompletableFlowRuntimePredicateAccessContext(context);
                         CompletableFlowRuntimePredicateAccess predicateAccess = new CompletableFlowRuntimePredicateAccess(predicateContext);
-                        matched = t.flowRuntimePredicate().test(predicateAccess);
+                        matched = predicate.test(predicateAccess);
                     } catch (Exception ex) {
                         matched = false;
                     }
                 }
-                FlowLogger.log(FlowLogger.Level.INFO, new FlowLogger.FlowLogContext(context.getFlowDefinition().getName(), context.getFlowDefinition().getVersion(), context.getExecutionId(), "Transition] nextStep='" + t.nextStepName() + "', predicate='" + predicateDesc + "', matched=" + matched), "[Transition] nextStep='" + t.nextStepName() + "', predicate='" + predicateDesc + "', matched=" + matched);
-                if (matched) {
-                    String nextStepName = t.nextStepName();
-                    if ("__END__".equals(nextStepName)) {
-                        return currentResult;
-                    }
-                    StepDefinition nextStep = findStepByName(nextStepName);
-                    if (nextStep != null) {
-                        // 递归推进到下一个节点
-                        return executeStep(nextStep).join();
-                    }
+                if (FlowLogger.isEnabled(FlowLogger.Level.INFO)) {
+                    String predicateDesc = predicate != null ? predicate.getClass().getSimpleName() : "ALWAYS_TRUE";
+                    FlowLogger.log(FlowLogger.Level.INFO, context.getLogContext(plan.stepName(stepId)),
+                        "[Transition] nextStep='{}', predicate='{}', matched={}",
+                        plan.targetName(nextStepId), predicateDesc, matched);
+                }
+                if (matched && nextStepId != FlowExecutionPlan.UNRESOLVED) {
+                    state.publishTransition(plan.stepName(stepId), plan.targetName(nextStepId));
+                    return nextStepId;
                 }
             }
             // 没有可用的transition，流程结束
-            return currentResult;
+            return FlowExecutionPlan.END;
         }
 
         /**
-         * 根据步骤名称执行步骤
+         * 单个步骤的完成回调
+         * <p>
+         * 注册回调时步骤可能已经完成（回调在注册线程上同步执行），此时只记录结果，
+         * 由推进循环继续处理；若注册后才完成，则由完成线程调用resume接续推进。
          */
-        private CompletableFuture<FlowResult> executeStepByName(String stepName) {
-            StepDefinition step = findStepByName(stepName);
-            if (step != null) {
-                return executeStep(step);
-            } else {
-                throw new IllegalArgumentException("找不到步骤: " + stepName);
-            }
-        }
+        private final class StepContinuation extends AtomicInteger implements BiConsumer<FlowResult, Throwable> {
+            private final int stepId;
+            private final int joinStepId;
+            private final CompletableFuture<FlowResult> completion;
+            private FlowResult result;
+            private Throwable error;
+            /** 步骤异常完成、结果来自步骤错误处理，在完成回调之前写入 */
+            private boolean stepFailed;
 
-        /**
-         * 根据名称查找步骤
-         */
-        private StepDefinition findStepByName(String stepName) {
-            List<StepDefinition> steps = context.getFlowDefinition().getStepDefinitions();
-            for (StepDefinition step : steps) {
-                if (stepName.equals(step.getName())) {
-                    return step;
-                }
+            StepContinuation(int stepId, int joinStepId, CompletableFuture<FlowResult> completion) {
+                super(REGISTERING);
+                this.stepId = stepId;
+                this.joinStepId = joinStepId;
+                this.completion = completion;
             }
-            return null;
-        }
 
-        /**
-         * 查找下一个步骤
-         */
-        private StepDefinition findNextStep(StepDefinition currentStep) {
-            List<StepDefinition> steps = context.getFlowDefinition().getStepDefinitions();
-            int currentIndex = -1;
-            for (int i = 0; i < steps.size(); i++) {
-                if (steps.get(i) == currentStep) {
-                    currentIndex = i;
-                    break;
+            @Override
+            public void accept(FlowResult result, Throwable error) {
+                this.result = result;
+                this.error = error;
+                if (!compareAndSet(REGISTERING, COMPLETED_INLINE)) {
+                    resume(stepId, joinStepId, result, error, stepFailed, completion);
                 }
             }
-            if (currentIndex >= 0 && currentIndex < steps.size() - 1) {
-                return steps.get(currentIndex + 1);
-            }
-            return null;
-        }
 
-        /**
-         * 更新执行状态
-         */
-        private void updateExecutionState(String stepName, FlowStepStatus status) {
-            executionManager.updateStepStatus(context.getExecutionId(), context.getFlowDefinition().getName(), stepName,
-                status);
+            /**
+             * 尝试挂起推进循环
+             *
+             * @return true表示步骤尚未完成，推进循环应退出
+             */
+            boolean suspend() {
+                return compareAndSet(REGISTERING, SUSPENDED);
+            }
         }
     }
-} 
\ No newline at end of file
+}
@@ -15,10 +15,7 @@ import source.hanger.flow.core.util.FlowLogger;
 public class DefaultFlowErrorHandler implements FlowErrorHandler {
     @Override
     public FlowResult handleError(FlowDefinition flowDefinition, FlowExecutionContext context, Exception error) {
-        String flowName = flowDefinition.getName();
-        String executionId = context.getExecutionId();
-        
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(flowName, flowDefinition.getVersion(), executionId, null), "流程错误处理: " + error.getMessage());
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(), "流程错误处理: {}", error.getMessage());
         
         // 执行流程错误处理回调
         executeFlowErrorCallback(flowDefinition, context, error);
@@ -32,9 +29,9 @@ public class DefaultFlowErrorHandler implements FlowErrorHandler {
     private void executeFlowErrorCallback(FlowDefinition flowDefinition, FlowExecutionContext context, Exception error) {
         try {
             // 这里可以调用流程定义中的错误处理回调
-            FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(flowDefinition.getName(), flowDefinition.getVersion(), context.getExecutionId(), null), "流程错误处理回调执行: " + error.getMessage());
+            FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(), "流程错误处理回调执行: {}", error.getMessage());
         } catch (Exception e) {
-            FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(flowDefinition.getName(), flowDefinition.getVersion(), context.getExecutionId(), null), "流程错误处理回调异常: " + e.getMessage());
+            FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(), "流程错误处理回调异常: {}", e.getMessage());
         }
     }
 } 
\ No newline at end of file
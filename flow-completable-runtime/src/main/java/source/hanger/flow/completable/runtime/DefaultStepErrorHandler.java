@@ -17,9 +17,8 @@ public class DefaultStepErrorHandler implements StepErrorHandler {
     @Override
     public FlowResult handleError(StepDefinition step, FlowExecutionContext context, Exception error) {
         String stepName = step.getName();
-        String executionId = context.getExecutionId();
         
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext("ERROR_HANDLER", null, executionId, stepName), "步骤错误处理: " + error.getMessage());
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(stepName), "步骤错误处理: {}", error.getMessage());
         
         // 根据步骤类型进行差异化处理
         if (step instanceof TaskStepDefinition) {
@@ -33,7 +32,7 @@ public class DefaultStepErrorHandler implements StepErrorHandler {
      * 处理任务步骤错误
      */
     private FlowResult handleTaskStepError(TaskStepDefinition taskStep, FlowExecutionContext context, Exception error) {
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext("ERROR_HANDLER", null, context.getExecutionId(), taskStep.getName()), "任务步骤错误处理");
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(taskStep.getName()), "任务步骤错误处理");
         // 可以在这里添加任务特定的错误处理逻辑
         return new FlowResult(context.getExecutionId(), FlowStatus.ERROR, context.getParams(), error);
     }
@@ -42,7 +41,7 @@ public class DefaultStepErrorHandler implements StepErrorHandler {
      * 处理通用步骤错误
      */
     private FlowResult handleGenericStepError(StepDefinition step, FlowExecutionContext context, Exception error) {
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext("ERROR_HANDLER", null, context.getExecutionId(), step.getName()), "通用步骤错误处理");
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(step.getName()), "通用步骤错误处理");
         return new FlowResult(context.getExecutionId(), FlowStatus.ERROR, context.getParams(), error);
     }
 } 
\ No newline at end of file
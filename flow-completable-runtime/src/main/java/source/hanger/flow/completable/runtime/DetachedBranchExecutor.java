@@ -0,0 +1,303 @@
+package source.hanger.flow.completable.runtime;
+
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 异步分支（detached）执行池
+ * <p>
+ * 作用：
+ * - 以独立、有界的线程池运行AsyncStepDefinition触发的分支，不占用主流程线程池
+ * - 分支提交后主流程立即继续，分支与主流程生命周期解耦
+ * - 按执行ID跟踪尚未完成的分支，便于观察和在关闭时排空
+ * <p>
+ * 溢出策略（线程全忙且队列已满时，队列容量对所有策略生效）：
+ * - QUEUE：有界排队，队列已满时拒绝新分支（分支结果以CancellationException完成）
+ * - DROP_OLDEST：丢弃队列中最早等待的分支，为新分支腾出位置
+ * - CALLER_RUNS：在提交线程上直接启动分支
+ * <p>
+ * 设计说明：
+ * - 溢出策略只作用于分支的启动；已启动分支的后续步骤在溢出时于当前线程继续，保证已接收的分支不会中途丢失
+ * - 关闭时先停止接收新分支，待已接收的分支排空后再关闭线程池；线程池关闭后提交的任何任务都被拒绝，不会在提交线程上运行
+ * - 线程为守护线程，按需创建
+ */
+public class DetachedBranchExecutor implements Executor {
+
+    /**
+     * 溢出策略
+     */
+    public enum OverflowPolicy {
+        /** 有界排队，队列已满时拒绝新分支 */
+        QUEUE,
+        /** 丢弃最早排队的分支 */
+        DROP_OLDEST,
+        /** 在提交线程上运行 */
+        CALLER_RUNS
+    }
+
+    /** 默认队列容量 */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+    private final ThreadPoolExecutor pool;
+    private final OverflowPolicy overflowPolicy;
+    /** 执行ID到未完成分支的映射 */
+    private final Map<String, Set<DetachedBranch>> outstanding = new ConcurrentHashMap<>();
+    /** 因溢出或关闭被丢弃的分支数 */
+    private final AtomicLong droppedCount = new AtomicLong();
+    /** 是否已开始关闭，开始关闭后不再接收新分支 */
+    private volatile boolean closed;
+
+    /**
+     * 使用默认配置创建：线程数为CPU核数，队列容量为DEFAULT_QUEUE_CAPACITY，队列已满时拒绝新分支
+     */
+    public DetachedBranchExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, OverflowPolicy.QUEUE);
+    }
+
+    /**
+     * @param poolSize       线程数上限
+     * @param queueCapacity  队列容量
+     * @param overflowPolicy 溢出策略
+     */
+    public DetachedBranchExecutor(int poolSize, int queueCapacity, OverflowPolicy overflowPolicy) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize必须大于0: " + poolSize);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity必须大于0: " + queueCapacity);
+        }
+        this.overflowPolicy = overflowPolicy;
+        BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+        int poolId = POOL_SEQUENCE.incrementAndGet();
+        AtomicInteger threadSequence = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "flow-detached-" + poolId + "-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new OverflowHandler());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交一个异步分支
+     *
+     * @param executionId 所属流程执行ID
+     * @param branchName  分支起始步骤名称
+     * @param branch      分支启动逻辑，在池线程上调用
+     * @return 分支完成时完成；被丢弃或执行池已关闭时以CancellationException完成
+     */
+    public CompletableFuture<FlowResult> submit(String executionId, String branchName,
+        Supplier<CompletableFuture<FlowResult>> branch) {
+        DetachedBranch detached = new DetachedBranch(executionId, branchName, branch);
+        // 在compute内登记，避免与同一执行下其他分支完成时移除空集合发生竞争
+        outstanding.compute(executionId, (key, branches) -> {
+            Set<DetachedBranch> registered = branches != null ? branches : ConcurrentHashMap.newKeySet();
+            registered.add(detached);
+            return registered;
+        });
+        if (closed) {
+            detached.drop(new CancellationException("异步分支执行池已关闭"));
+            return detached.completion;
+        }
+        pool.execute(detached);
+        return detached.completion;
+    }
+
+    /**
+     * 池内执行（供已启动分支的后续步骤使用）
+     *
+     * @throws java.util.concurrent.RejectedExecutionException 线程池已关闭
+     */
+    @Override
+    public void execute(Runnable command) {
+        pool.execute(command);
+    }
+
+    /**
+     * 获取指定执行尚未完成的分支数
+     */
+    public int getOutstandingCount(String executionId) {
+        Set<DetachedBranch> branches = outstanding.get(executionId);
+        return branches != null ? branches.size() : 0;
+    }
+
+    /**
+     * 获取指定执行尚未完成的分支名称
+     */
+    public List<String> getOutstandingBranches(String executionId) {
+        Set<DetachedBranch> branches = outstanding.get(executionId);
+        if (branches == null) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(branches.size());
+        for (DetachedBranch branch : branches) {
+            names.add(branch.branchName);
+        }
+        return names;
+    }
+
+    /**
+     * 获取所有执行尚未完成的分支总数
+     */
+    public int getOutstandingCount() {
+        int count = 0;
+        for (Set<DetachedBranch> branches : outstanding.values()) {
+            count += branches.size();
+        }
+        return count;
+    }
+
+    /**
+     * 获取因溢出或关闭被丢弃的分支数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * 关闭执行池：不再接收新分支，等待未完成分支排空后关闭线程池
+     * <p>
+     * 排空期间已接收分支的后续步骤仍在池内运行；超时后线程池同样关闭，此后提交的后续步骤被拒绝
+     *
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     * @return true表示全部分支已完成；false表示超时，仍有分支未完成（可通过getOutstandingBranches查看）
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        closed = true;
+        List<CompletableFuture<FlowResult>> pending = new ArrayList<>();
+        for (Set<DetachedBranch> branches : outstanding.values()) {
+            for (DetachedBranch branch : branches) {
+                pending.add(branch.completion);
+            }
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]))
+                .handle((ignored, error) -> null)
+                .get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            pool.shutdown();
+            return false;
+        } catch (ExecutionException e) {
+            // handle已吞掉分支异常，不会到达这里
+        }
+        pool.shutdown();
+        return pool.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void finish(DetachedBranch branch) {
+        outstanding.computeIfPresent(branch.executionId, (key, branches) -> {
+            branches.remove(branch);
+            return branches.isEmpty() ? null : branches;
+        });
+    }
+
+    /**
+     * 溢出处理：线程池已关闭时拒绝所有任务；否则分支启动按策略处理，已启动分支的后续步骤在当前线程继续
+     */
+    private final class OverflowHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                if (runnable instanceof DetachedBranch branch) {
+                    branch.drop(new CancellationException("异步分支执行池已关闭"));
+                    return;
+                }
+                throw new RejectedExecutionException("异步分支执行池已关闭");
+            }
+            if (!(runnable instanceof DetachedBranch branch)) {
+                runnable.run();
+                return;
+            }
+            switch (overflowPolicy) {
+                case CALLER_RUNS -> branch.run();
+                case DROP_OLDEST -> {
+                    DetachedBranch oldest = pollOldestBranch(executor.getQueue());
+                    if (oldest == null) {
+                        branch.drop(new CancellationException("异步分支队列已满"));
+                    } else {
+                        oldest.drop(new CancellationException("异步分支队列已满，丢弃最早排队的分支"));
+                        executor.execute(branch);
+                    }
+                }
+                default -> branch.drop(new CancellationException("异步分支队列已满"));
+            }
+        }
+
+        private DetachedBranch pollOldestBranch(BlockingQueue<Runnable> queue) {
+            Iterator<Runnable> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                Runnable queued = iterator.next();
+                if (queued instanceof DetachedBranch branch && queue.remove(branch)) {
+                    return branch;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 单个异步分支
+     */
+    private final class DetachedBranch implements Runnable {
+        private final String executionId;
+        private final String branchName;
+        private final Supplier<CompletableFuture<FlowResult>> branch;
+        private final CompletableFuture<FlowResult> completion = new CompletableFuture<>();
+
+        DetachedBranch(String executionId, String branchName, Supplier<CompletableFuture<FlowResult>> branch) {
+            this.executionId = executionId;
+            this.branchName = branchName;
+            this.branch = branch;
+            completion.whenComplete((result, error) -> finish(this));
+        }
+
+        @Override
+        public void run() {
+            try {
+                branch.get().whenComplete((result, error) -> {
+                    if (error != null) {
+                        completion.completeExceptionally(error);
+                    } else {
+                        completion.complete(result);
+                    }
+                });
+            } catch (Throwable e) {
+                completion.completeExceptionally(e);
+            }
+        }
+
+        void drop(CancellationException reason) {
+            droppedCount.incrementAndGet();
+            completion.completeExceptionally(reason);
+        }
+    }
+}
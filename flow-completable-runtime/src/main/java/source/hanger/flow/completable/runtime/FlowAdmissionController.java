@@ -0,0 +1,447 @@
+package source.hanger.flow.completable.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 流程执行准入控制器
+ * <p>
+ * 作用：
+ * - 按FlowAdmissionPolicy限制同时运行的执行数（全局 + 按流程名称）
+ * - 超限的执行进入有界等待队列，运行中的执行结束时按到达顺序启动
+ * - 等待队列已满时按过载策略拒绝、阻塞或丢弃最早的等待者，突发流量下运行中的执行延迟保持稳定
+ * - 提供运行数、排队数、拒绝数等指标
+ * <p>
+ * 设计说明：
+ * - 计数和队列由一把锁保护，启动执行和完成等待者都在锁外进行
+ * - 同一流程名称的执行严格按到达顺序启动；不同流程之间，某个流程达到自身上限不会阻挡其他流程
+ * - 排队的执行在引擎线程池上启动；线程池直接在调用线程上运行任务时（如默认引擎的Runnable::run），
+ *   启动排队执行过程中结束的执行再触发的启动先记入本线程的待启动列表，由最外层依次启动，
+ *   不会在完成回调中层层嵌套，排队再多也不会耗尽调用栈
+ * - 被拒绝的执行不会启动，也不会登记执行状态
+ * - 取消返回的future：排队中的执行直接出队，已启动的执行随之取消
+ */
+public class FlowAdmissionController {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowAdmissionController.class);
+
+    /** 当前线程正在启动排队执行时的待启动列表，期间嵌套触发的启动只追加到此列表 */
+    private static final ThreadLocal<ArrayDeque<Runnable>> DEFERRED_STARTS = new ThreadLocal<>();
+
+    private final Executor executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** 有执行结束或出队时通知阻塞等待的调用方 */
+    private final Condition spaceAvailable = lock.newCondition();
+    private final ArrayDeque<PendingExecution> pending = new ArrayDeque<>();
+    /** 按流程名称的运行数和排队数，两者均为0时移除 */
+    private final Map<String, FlowCounts> flowCounts = new HashMap<>();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong shedCount = new AtomicLong();
+
+    private volatile FlowAdmissionPolicy admissionPolicy = FlowAdmissionPolicy.UNLIMITED;
+    private volatile int inFlight;
+    private volatile int pendingCount;
+
+    /**
+     * @param executor 启动排队执行的线程池
+     */
+    public FlowAdmissionController(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 申请启动一个执行
+     *
+     * @param flowName 流程名称
+     * @param starter  启动执行，返回执行结果
+     * @param mayBlock 是否允许阻塞调用线程（BLOCK策略）；不允许时按拒绝处理
+     * @return 执行结果；被拒绝或丢弃时以FlowRejectedException异常完成
+     */
+    public CompletableFuture<FlowResult> admit(String flowName, Supplier<CompletableFuture<FlowResult>> starter,
+        boolean mayBlock) {
+        FlowAdmissionPolicy policy = admissionPolicy;
+        PendingExecution entry;
+        PendingExecution shed = null;
+        lock.lock();
+        try {
+            if (tryAcquire(flowName, policy)) {
+                entry = null;
+            } else {
+                if (pending.size() >= policy.getMaxPending()) {
+                    switch (policy.getOverloadPolicy()) {
+                        case REJECT -> {
+                            return reject(flowName, FlowRejectedException.Reason.QUEUE_FULL);
+                        }
+                        case SHED_OLDEST -> {
+                            if (policy.getMaxPending() == 0) {
+                                return reject(flowName, FlowRejectedException.Reason.QUEUE_FULL);
+                            }
+                            shed = pending.pollFirst();
+                            countsOf(shed.flowName).pending--;
+                            releaseCountsIfIdle(shed.flowName);
+                        }
+                        case BLOCK -> {
+                            if (!mayBlock) {
+                                return reject(flowName, FlowRejectedException.Reason.QUEUE_FULL);
+                            }
+                            if (!awaitSpace(flowName, policy)) {
+                                return reject(flowName, FlowRejectedException.Reason.TIMEOUT);
+                            }
+                        }
+                    }
+                }
+                if (tryAcquire(flowName, policy)) {
+                    // 阻塞等待期间已有名额空出
+                    entry = null;
+                } else {
+                    entry = new PendingExecution(flowName, starter);
+                    PendingExecution queued = entry;
+                    entry.future.whenComplete((result, error) -> {
+                        if (queued.future.isCancelled()) {
+                            cancelPending(queued);
+                        }
+                    });
+                    pending.addLast(entry);
+                    countsOf(flowName).pending++;
+                }
+            }
+        } finally {
+            // 丢弃最早的等待者后无论重试直接启动还是入队，排队数都已变化
+            pendingCount = pending.size();
+            lock.unlock();
+        }
+        if (shed != null) {
+            shedCount.incrementAndGet();
+            shed.future.completeExceptionally(new FlowRejectedException(shed.flowName,
+                FlowRejectedException.Reason.SHED, "排队中的执行被丢弃: flow=" + shed.flowName));
+        }
+        return entry != null ? entry.future : start(flowName, starter);
+    }
+
+    /**
+     * 当前策略下能否立即启动：全局和流程均未达上限，且同名流程没有排队者
+     */
+    private boolean tryAcquire(String flowName, FlowAdmissionPolicy policy) {
+        if (inFlight >= policy.getMaxInFlight()) {
+            return false;
+        }
+        FlowCounts counts = flowCounts.get(flowName);
+        if (counts != null && (counts.pending > 0 || counts.inFlight >= policy.getMaxInFlightPerFlow())) {
+            return false;
+        }
+        acquire(flowName);
+        return true;
+    }
+
+    private void acquire(String flowName) {
+        inFlight++;
+        countsOf(flowName).inFlight++;
+    }
+
+    /**
+     * BLOCK策略：等待队列空位或直接启动的名额，超时或中断返回false
+     */
+    private boolean awaitSpace(String flowName, FlowAdmissionPolicy policy) {
+        long remaining = policy.getBlockTimeout().toNanos();
+        while (pending.size() >= policy.getMaxPending() && !canAcquire(flowName, policy)) {
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                remaining = spaceAvailable.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean canAcquire(String flowName, FlowAdmissionPolicy policy) {
+        if (inFlight >= policy.getMaxInFlight()) {
+            return false;
+        }
+        FlowCounts counts = flowCounts.get(flowName);
+        return counts == null || (counts.pending == 0 && counts.inFlight < policy.getMaxInFlightPerFlow());
+    }
+
+    private CompletableFuture<FlowResult> reject(String flowName, FlowRejectedException.Reason reason) {
+        rejectedCount.incrementAndGet();
+        return CompletableFuture.failedFuture(new FlowRejectedException(flowName, reason,
+            "流程执行被拒绝(" + reason + "): flow=" + flowName + ", inFlight=" + inFlight + ", pending=" + pending.size()));
+    }
+
+    /**
+     * 启动已获得名额的执行，结束时归还名额；返回的future被取消时取消执行本身
+     */
+    private CompletableFuture<FlowResult> start(String flowName, Supplier<CompletableFuture<FlowResult>> starter) {
+        CompletableFuture<FlowResult> future;
+        try {
+            future = starter.get();
+        } catch (RuntimeException e) {
+            release(flowName);
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<FlowResult> admitted = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            // 先归还名额再完成返回的future，调用方看到结果时计数已更新
+            release(flowName);
+            if (error != null) {
+                admitted.completeExceptionally(error);
+            } else {
+                admitted.complete(result);
+            }
+        });
+        admitted.whenComplete((result, error) -> {
+            if (admitted.isCancelled()) {
+                future.cancel(false);
+            }
+        });
+        return admitted;
+    }
+
+    private void startPending(PendingExecution entry) {
+        if (entry.future.isDone()) {
+            // 出队后、启动前被取消
+            release(entry.flowName);
+            return;
+        }
+        CompletableFuture<FlowResult> started = start(entry.flowName, entry.starter);
+        entry.started = started;
+        started.whenComplete((result, error) -> {
+            if (error != null) {
+                entry.future.completeExceptionally(error);
+            } else {
+                entry.future.complete(result);
+            }
+        });
+        if (entry.future.isCancelled()) {
+            started.cancel(false);
+        }
+    }
+
+    /**
+     * 排队中的执行被调用方取消：仍在队列中则移除，已启动则取消执行
+     */
+    private void cancelPending(PendingExecution entry) {
+        boolean removed;
+        lock.lock();
+        try {
+            removed = pending.remove(entry);
+            if (removed) {
+                countsOf(entry.flowName).pending--;
+                releaseCountsIfIdle(entry.flowName);
+                pendingCount = pending.size();
+                spaceAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture<FlowResult> started = entry.started;
+        if (!removed && started != null) {
+            started.cancel(false);
+        }
+    }
+
+    /**
+     * 归还名额，并启动可以启动的排队执行
+     */
+    private void release(String flowName) {
+        List<PendingExecution> ready;
+        lock.lock();
+        try {
+            inFlight--;
+            countsOf(flowName).inFlight--;
+            releaseCountsIfIdle(flowName);
+            ready = drain(admissionPolicy);
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(ready);
+    }
+
+    /**
+     * 按到达顺序取出可以启动的排队执行并占用名额（调用方持有锁）
+     */
+    private List<PendingExecution> drain(FlowAdmissionPolicy policy) {
+        List<PendingExecution> ready = null;
+        Iterator<PendingExecution> iterator = pending.iterator();
+        while (inFlight < policy.getMaxInFlight() && iterator.hasNext()) {
+            PendingExecution entry = iterator.next();
+            FlowCounts counts = countsOf(entry.flowName);
+            if (counts.inFlight >= policy.getMaxInFlightPerFlow()) {
+                continue;
+            }
+            iterator.remove();
+            counts.pending--;
+            acquire(entry.flowName);
+            if (ready == null) {
+                ready = new ArrayList<>();
+            }
+            ready.add(entry);
+        }
+        pendingCount = pending.size();
+        return ready;
+    }
+
+    private void dispatch(List<PendingExecution> ready) {
+        if (ready == null) {
+            return;
+        }
+        for (PendingExecution entry : ready) {
+            try {
+                executor.execute(() -> runDeferred(() -> startPending(entry)));
+            } catch (RuntimeException e) {
+                log.warn("排队执行启动失败: flow={}", entry.flowName, e);
+                release(entry.flowName);
+                entry.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 启动排队执行：本线程已在启动排队执行时只追加到待启动列表并返回，
+     * 否则在此依次运行本次及期间追加的启动，调用栈深度与排队数无关
+     */
+    private static void runDeferred(Runnable startTask) {
+        ArrayDeque<Runnable> deferred = DEFERRED_STARTS.get();
+        if (deferred != null) {
+            deferred.addLast(startTask);
+            return;
+        }
+        deferred = new ArrayDeque<>();
+        DEFERRED_STARTS.set(deferred);
+        try {
+            Runnable next = startTask;
+            while (next != null) {
+                try {
+                    next.run();
+                } catch (RuntimeException e) {
+                    log.warn("排队执行启动异常", e);
+                }
+                next = deferred.pollFirst();
+            }
+        } finally {
+            DEFERRED_STARTS.remove();
+        }
+    }
+
+    private FlowCounts countsOf(String flowName) {
+        return flowCounts.computeIfAbsent(flowName, name -> new FlowCounts());
+    }
+
+    private void releaseCountsIfIdle(String flowName) {
+        FlowCounts counts = flowCounts.get(flowName);
+        if (counts != null && counts.inFlight == 0 && counts.pending == 0) {
+            flowCounts.remove(flowName);
+        }
+    }
+
+    private int inFlightOf(String flowName) {
+        FlowCounts counts = flowCounts.get(flowName);
+        return counts != null ? counts.inFlight : 0;
+    }
+
+    /**
+     * 设置准入策略；放宽限制时立即启动可以启动的排队执行
+     * @param admissionPolicy 准入策略
+     */
+    public void setAdmissionPolicy(FlowAdmissionPolicy admissionPolicy) {
+        if (admissionPolicy == null) {
+            throw new IllegalArgumentException("admissionPolicy不能为空");
+        }
+        List<PendingExecution> ready;
+        lock.lock();
+        try {
+            this.admissionPolicy = admissionPolicy;
+            ready = drain(admissionPolicy);
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(ready);
+    }
+
+    public FlowAdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    /**
+     * 当前运行中（已启动未结束）的执行数
+     */
+    public int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * 指定流程当前运行中的执行数
+     */
+    public int getInFlightCount(String flowName) {
+        lock.lock();
+        try {
+            return inFlightOf(flowName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前排队等待的执行数
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 累计被拒绝的执行数（队列已满或阻塞超时）
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 累计因SHED_OLDEST被丢弃的排队执行数
+     */
+    public long getShedCount() {
+        return shedCount.get();
+    }
+
+    /**
+     * 排队中的执行
+     */
+    private static final class PendingExecution {
+        private final String flowName;
+        private final Supplier<CompletableFuture<FlowResult>> starter;
+        private final CompletableFuture<FlowResult> future = new CompletableFuture<>();
+        /** 出队启动后的执行 */
+        private volatile CompletableFuture<FlowResult> started;
+
+        private PendingExecution(String flowName, Supplier<CompletableFuture<FlowResult>> starter) {
+            this.flowName = flowName;
+            this.starter = starter;
+        }
+    }
+
+    /**
+     * 单个流程名称的计数（由锁保护）
+     */
+    private static final class FlowCounts {
+        private int inFlight;
+        private int pending;
+    }
+}
@@ -0,0 +1,104 @@
+package source.hanger.flow.completable.runtime;
+
+import java.time.Duration;
+
+/**
+ * 流程执行准入策略
+ * <p>
+ * 作用：
+ *   - 限制同时运行（已启动未结束）的执行数，全局和按流程名称分别限制
+ *   - 超出限制的执行进入有界等待队列，运行中的执行结束时按到达顺序启动
+ *   - 等待队列已满时按过载策略处理
+ * <p>
+ * 过载策略：
+ *   - REJECT：新执行立即以FlowRejectedException失败
+ *   - BLOCK：阻塞调用线程等待队列空位，超过blockTimeout后以FlowRejectedException失败
+ *   - SHED_OLDEST：丢弃等待最久的执行（以FlowRejectedException失败），为新执行腾出位置
+ */
+public final class FlowAdmissionPolicy {
+
+    /**
+     * 过载策略
+     */
+    public enum OverloadPolicy {
+        /** 拒绝新执行 */
+        REJECT,
+        /** 阻塞调用线程直到有空位或超时 */
+        BLOCK,
+        /** 丢弃等待最久的执行 */
+        SHED_OLDEST
+    }
+
+    /** 不限制：任意执行立即启动 */
+    public static final FlowAdmissionPolicy UNLIMITED
+        = new FlowAdmissionPolicy(Integer.MAX_VALUE, Integer.MAX_VALUE, 0, OverloadPolicy.REJECT, Duration.ZERO);
+
+    /** 全局同时运行的执行数上限 */
+    private final int maxInFlight;
+    /** 单个流程名称同时运行的执行数上限 */
+    private final int maxInFlightPerFlow;
+    /** 等待队列容量 */
+    private final int maxPending;
+    /** 过载策略 */
+    private final OverloadPolicy overloadPolicy;
+    /** BLOCK策略下的最长等待时间 */
+    private final Duration blockTimeout;
+
+    /**
+     * @param maxInFlight        全局同时运行的执行数上限
+     * @param maxInFlightPerFlow 单个流程名称同时运行的执行数上限
+     * @param maxPending         等待队列容量，0表示不排队
+     * @param overloadPolicy     等待队列已满时的过载策略
+     * @param blockTimeout       BLOCK策略下的最长等待时间
+     */
+    public FlowAdmissionPolicy(int maxInFlight, int maxInFlightPerFlow, int maxPending, OverloadPolicy overloadPolicy,
+        Duration blockTimeout) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight必须大于0: " + maxInFlight);
+        }
+        if (maxInFlightPerFlow <= 0) {
+            throw new IllegalArgumentException("maxInFlightPerFlow必须大于0: " + maxInFlightPerFlow);
+        }
+        if (maxPending < 0) {
+            throw new IllegalArgumentException("maxPending不能为负数: " + maxPending);
+        }
+        if (overloadPolicy == null) {
+            throw new IllegalArgumentException("overloadPolicy不能为空");
+        }
+        if (blockTimeout == null || blockTimeout.isNegative()) {
+            throw new IllegalArgumentException("blockTimeout不能为空或负数: " + blockTimeout);
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerFlow = maxInFlightPerFlow;
+        this.maxPending = maxPending;
+        this.overloadPolicy = overloadPolicy;
+        this.blockTimeout = blockTimeout;
+    }
+
+    /**
+     * 只限制全局运行数，等待队列满时拒绝
+     */
+    public static FlowAdmissionPolicy rejecting(int maxInFlight, int maxPending) {
+        return new FlowAdmissionPolicy(maxInFlight, Integer.MAX_VALUE, maxPending, OverloadPolicy.REJECT, Duration.ZERO);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxInFlightPerFlow() {
+        return maxInFlightPerFlow;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public OverloadPolicy getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    public Duration getBlockTimeout() {
+        return blockTimeout;
+    }
+}
@@ -0,0 +1,141 @@
+package source.hanger.flow.completable.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 批量执行句柄
+ * <p>
+ * 作用：
+ * - 汇总同一流程定义的一批执行，全部结束后以输入顺序完成聚合future
+ * - 提供批次进度（已启动、已完成、错误数），可在执行过程中随时查询
+ * - 可选的结果监听器在每个执行结束时收到结果及其下标，用于流式消费结果
+ * <p>
+ * 设计说明：
+ * - 结果写入预分配的数组，计数器归零时一次性完成聚合future，不为每个执行组合future
+ * - 监听器在执行结束的线程上调用，应保持轻量；监听器异常只记录日志，不影响批次
+ */
+public class FlowBatchExecution {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowBatchExecution.class);
+
+    private final String flowName;
+    private final FlowResult[] results;
+    private final ObjIntConsumer<FlowResult> resultListener;
+    private final AtomicInteger startedCount = new AtomicInteger();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final CompletableFuture<List<FlowResult>> completion = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    FlowBatchExecution(String flowName, int total, ObjIntConsumer<FlowResult> resultListener) {
+        this.flowName = flowName;
+        this.results = new FlowResult[total];
+        this.resultListener = resultListener;
+        if (total == 0) {
+            endNanos = startNanos;
+            completion.complete(Collections.emptyList());
+        }
+    }
+
+    void onStarted() {
+        startedCount.incrementAndGet();
+    }
+
+    /**
+     * 记录一个执行的结果
+     */
+    void onResult(int index, FlowResult result) {
+        results[index] = result;
+        if (result.isError()) {
+            errorCount.incrementAndGet();
+        }
+        if (resultListener != null) {
+            try {
+                resultListener.accept(result, index);
+            } catch (RuntimeException e) {
+                log.warn("批量执行结果监听器异常: flow={}, index={}", flowName, index, e);
+            }
+        }
+        // 计数器的原子递增保证最后一个结果写入对完成线程可见
+        if (completedCount.incrementAndGet() == results.length) {
+            endNanos = System.nanoTime();
+            log.info("📦 批量执行完成: flow={}, total={}, errors={}, elapsed={}ms", flowName, results.length,
+                errorCount.get(), TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+            completion.complete(Collections.unmodifiableList(Arrays.asList(results)));
+        }
+    }
+
+    /**
+     * 批次启动失败（如流程定义无法编译），聚合future以异常完成
+     */
+    void fail(Throwable error) {
+        endNanos = System.nanoTime();
+        completion.completeExceptionally(error);
+    }
+
+    /**
+     * 聚合结果：全部执行结束后完成，结果顺序与输入参数顺序一致
+     */
+    public CompletableFuture<List<FlowResult>> getCompletion() {
+        return completion;
+    }
+
+    public String getFlowName() {
+        return flowName;
+    }
+
+    public int getTotal() {
+        return results.length;
+    }
+
+    /**
+     * 已启动的执行数
+     */
+    public int getStartedCount() {
+        return startedCount.get();
+    }
+
+    /**
+     * 已结束的执行数（含失败）
+     */
+    public int getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * 结果为错误状态的执行数
+     */
+    public int getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * 完成进度，取值0~1
+     */
+    public double getProgress() {
+        return results.length == 0 ? 1.0 : (double) completedCount.get() / results.length;
+    }
+
+    /**
+     * 批次已耗时（结束后为总耗时）
+     */
+    public long getElapsedMillis() {
+        long end = endNanos;
+        return TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - startNanos);
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+}
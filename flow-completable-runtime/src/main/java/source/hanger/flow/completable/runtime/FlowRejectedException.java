@@ -0,0 +1,38 @@
+package source.hanger.flow.completable.runtime;
+
+/**
+ * 流程执行被准入控制拒绝
+ * <p>
+ * 执行未启动（未调用任何回调、未登记执行状态），调用方可按原因决定重试或降级。
+ */
+public class FlowRejectedException extends RuntimeException {
+
+    /**
+     * 拒绝原因
+     */
+    public enum Reason {
+        /** 等待队列已满（REJECT策略） */
+        QUEUE_FULL,
+        /** 阻塞等待超时或被中断（BLOCK策略） */
+        TIMEOUT,
+        /** 排队期间被更新的执行挤出（SHED_OLDEST策略） */
+        SHED
+    }
+
+    private final String flowName;
+    private final Reason reason;
+
+    public FlowRejectedException(String flowName, Reason reason, String message) {
+        super(message);
+        this.flowName = flowName;
+        this.reason = reason;
+    }
+
+    public String getFlowName() {
+        return flowName;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
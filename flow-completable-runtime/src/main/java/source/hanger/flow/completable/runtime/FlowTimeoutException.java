@@ -0,0 +1,39 @@
+package source.hanger.flow.completable.runtime;
+
+import java.time.Duration;
+
+/**
+ * 步骤或流程执行超时
+ * <p>
+ * 步骤超时时stepName为超时的步骤名称；整个执行超时时stepName为null。
+ */
+public class FlowTimeoutException extends RuntimeException {
+
+    private final String flowName;
+    private final String stepName;
+    private final Duration timeout;
+
+    public FlowTimeoutException(String flowName, String stepName, Duration timeout) {
+        super(stepName != null
+            ? "步骤执行超时: flow=" + flowName + ", step=" + stepName + ", timeout=" + timeout.toMillis() + "ms"
+            : "流程执行超时: flow=" + flowName + ", timeout=" + timeout.toMillis() + "ms");
+        this.flowName = flowName;
+        this.stepName = stepName;
+        this.timeout = timeout;
+    }
+
+    public String getFlowName() {
+        return flowName;
+    }
+
+    /**
+     * 超时的步骤名称，整个执行超时时为null
+     */
+    public String getStepName() {
+        return stepName;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,101 @@
+package source.hanger.flow.completable.runtime;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 超时与重试定时器
+ * <p>
+ * 所有引擎共享一个守护线程，步骤和流程超时、任务重试间隔以及执行巡检（FlowWatchdog）都在其上计时，不为每个步骤占用线程。
+ * <p>
+ * 设计说明：
+ * - 定时任务只做标记、中断和转交，耗时逻辑（任务重试、错误回调、后续推进）经{@link #handOff}切回线程池执行；
+ *   线程池直接在调用线程上运行任务时（如默认引擎的Runnable::run）改由共享的后备线程池执行，
+ *   一个缓慢的步骤不会拖住所有超时、重试和巡检
+ * - 取消的定时任务立即从队列移除，正常结束的步骤不会在队列中积压
+ */
+public final class FlowTimeoutScheduler {
+
+    private FlowTimeoutScheduler() {
+    }
+
+    /**
+     * 在指定时长后运行任务
+     *
+     * @param task    超时任务
+     * @param timeout 时长
+     * @return 可取消的定时任务
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, Duration timeout) {
+        return Holder.SCHEDULER.schedule(task, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 按固定间隔重复运行任务（上一次结束后间隔interval再运行），任务抛出异常后不再运行
+     *
+     * @param task     周期任务，应快速返回
+     * @param interval 间隔
+     * @return 可取消的定时任务
+     */
+    public static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Duration interval) {
+        long nanos = interval.toNanos();
+        return Holder.SCHEDULER.scheduleWithFixedDelay(task, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 把定时任务到期后的工作交给线程池执行
+     * <p>
+     * executor在定时线程上直接运行任务时，任务改由后备线程池执行，不占用定时线程
+     *
+     * @param executor 执行任务的线程池
+     * @param task     任务
+     * @throws java.util.concurrent.RejectedExecutionException executor拒绝任务
+     */
+    public static void handOff(Executor executor, Runnable task) {
+        executor.execute(() -> {
+            if (Thread.currentThread() instanceof TimerThread) {
+                Holder.HANDOFF.execute(task);
+            } else {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * 当前等待中的定时任务数
+     */
+    public static int getPendingCount() {
+        return Holder.SCHEDULER.getQueue().size();
+    }
+
+    private static final class Holder {
+        private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+        /** 后备线程池：按需创建守护线程，空闲后回收 */
+        private static final ExecutorService HANDOFF = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "flow-timeout-handoff");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private static ScheduledThreadPoolExecutor createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, TimerThread::new);
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    /**
+     * 定时线程，用于识别在定时线程上直接运行的任务
+     */
+    private static final class TimerThread extends Thread {
+        private TimerThread(Runnable runnable) {
+            super(runnable, "flow-timeout");
+            setDaemon(true);
+        }
+    }
+}
@@ -2,9 +2,13 @@ package source.hanger.flow.completable.runtime;
 
 import source.hanger.flow.contract.model.Branch;
 import source.hanger.flow.contract.model.ParallelStepDefinition;
+import source.hanger.flow.contract.model.ParamMergeStrategy;
+import source.hanger.flow.contract.model.ParamMerger;
 import source.hanger.flow.contract.model.StepDefinition;
 import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicate;
+import source.hanger.flow.core.plan.FlowExecutionPlan;
 import source.hanger.flow.core.runtime.FlowExecutionContext;
+import source.hanger.flow.core.runtime.FlowParamsOverlay;
 import source.hanger.flow.core.runtime.FlowResult;
 import source.hanger.flow.core.runtime.FlowStatus;
 import source.hanger.flow.core.runtime.StepExecutor;
@@ -12,61 +16,265 @@ import source.hanger.flow.core.util.FlowLogger;
 import source.hanger.flow.completable.runtime.context.CompletableFlowRuntimePredicateAccessContext;
 import source.hanger.flow.completable.runtime.access.CompletableFlowRuntimePredicateAccess;
 
-import java.util.HashMap;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 并行节点执行器
  * <p>
- * 专门负责ParallelStepDefinition的执行逻辑。
+ * 专门负责ParallelStepDefinition的分支扇出与汇合：
+ * - 计算每个分支的条件，条件满足的分支通过BranchLauncher交由引擎并发推进
+ * - 分支推进到并行节点的汇合点（waitFor ... nextTo 的目标）或流程终点即视为到达汇合点
+ * - 汇合集合（waitFor声明的分支，未声明时为全部激活分支）全部到达后完成，且只完成一次
+ * - 不在汇合集合中的分支照常执行，但不阻塞汇合
+ * - 参数合并策略不是SHARED时，每个汇合分支在自己的分支上下文（写时复制参数）中执行，
+ *   汇合时按分支声明顺序把各分支的修改合并回并行节点的上下文：只被一个分支修改的参数直接写回，
+ *   被多个分支修改的参数按策略取最后一个分支的值、判定冲突失败或交给ParamMerger；
+ *   不在汇合集合中的分支没有合并时机，始终共享并行节点的上下文
+ * <p>
+ * 汇合完成后由引擎按并行节点的流转继续推进，因此汇合目标步骤只会被执行一次。
+ * <p>
+ * 仍实现StepExecutor以兼容按该接口使用本类的调用方，但引擎不再经由该接口执行并行节点，见{@link #execute(StepDefinition, FlowExecutionContext, Executor)}。
  */
 public class ParallelStepExecutor implements StepExecutor {
+
+    /**
+     * 分支启动器，由引擎提供
+     */
+    @FunctionalInterface
+    public interface BranchLauncher {
+        /**
+         * 启动一个分支，推进到汇合点或流程终点时完成
+         *
+         * @param branchStepId   分支起始步骤ID
+         * @param parallelStepId 所属并行步骤ID（其流转目标即汇合点）
+         * @param branchContext  分支使用的执行上下文（共享参数时即并行节点的上下文）
+         * @return 分支最后一个步骤的执行结果
+         */
+        CompletableFuture<FlowResult> launch(int branchStepId, int parallelStepId, FlowExecutionContext branchContext);
+    }
+
+    /**
+     * 执行并行步骤
+     *
+     * @param plan     执行计划
+     * @param stepId   并行步骤ID
+     * @param context  执行上下文
+     * @param launcher 分支启动器
+     * @return 汇合集合全部到达后完成的结果
+     */
+    public CompletableFuture<FlowResult> execute(FlowExecutionPlan plan, int stepId, FlowExecutionContext context,
+        BranchLauncher launcher) {
+        int branchCount = plan.branchCount(stepId);
+        // 先计算全部分支条件，再统一启动，保证汇合计数在任何分支完成前已确定
+        boolean[] activated = new boolean[branchCount];
+        int joinCount = 0;
+        for (int i = 0; i < branchCount; i++) {
+            int targetStepId = plan.branchTarget(stepId, i);
+            boolean condition = evaluate(plan.branchPredicate(stepId, i), context);
+            if (FlowLogger.isEnabled(FlowLogger.Level.DEBUG)) {
+                FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(plan.stepName(stepId)), "🌿 分支 [{}] {}",
+                    plan.targetName(targetStepId), condition ? "✅ 条件满足" : "❌ 条件不满足");
+            }
+            if (condition && targetStepId == FlowExecutionPlan.UNRESOLVED) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "找不到分支步骤, parallel=" + plan.stepName(stepId)));
+            }
+            activated[i] = condition && targetStepId >= 0;
+            if (activated[i] && plan.isJoinBranch(stepId, targetStepId)) {
+                joinCount++;
+            }
+        }
+
+        ParallelStepDefinition parallelStep = (ParallelStepDefinition) plan.step(stepId);
+        ParamMergeStrategy strategy = parallelStep.getParamMergeStrategy();
+        boolean isolated = strategy != ParamMergeStrategy.SHARED && joinCount > 0;
+        JoinBarrier barrier = new JoinBarrier(context, joinCount,
+            isolated ? new ParamMerge(strategy, parallelStep.getParamMerger(), joinCount) : null);
+        int joinIndex = 0;
+        for (int i = 0; i < branchCount; i++) {
+            if (!activated[i]) {
+                continue;
+            }
+            int targetStepId = plan.branchTarget(stepId, i);
+            if (plan.isJoinBranch(stepId, targetStepId)) {
+                FlowExecutionContext branchContext = context;
+                if (isolated) {
+                    branchContext = context.forBranch();
+                    barrier.merge.overlays[joinIndex] = (FlowParamsOverlay) branchContext.getParams();
+                }
+                joinIndex++;
+                launcher.launch(targetStepId, stepId, branchContext).whenComplete(barrier::arrive);
+            } else {
+                CompletableFuture<FlowResult> branchFuture = launcher.launch(targetStepId, stepId, context);
+                branchFuture.whenComplete((result, error) -> {
+                    if (error != null) {
+                        FlowLogger.log(FlowLogger.Level.ERROR, context.getLogContext(plan.stepName(targetStepId)),
+                            "非汇合分支执行异常: {}", error.getMessage());
+                    }
+                });
+            }
+        }
+        return barrier.future;
+    }
+
+    /**
+     * StepExecutor兼容入口：只计算分支条件，不启动分支
+     * <p>
+     * 分支需要由引擎推进（见{@link #execute(FlowExecutionPlan, int, FlowExecutionContext, BranchLauncher)}），
+     * 单独的步骤执行器无法调度分支步骤；本方法保持原StepExecutor实现的行为，条件计算后立即成功
+     *
+     * @deprecated 引擎不再经由StepExecutor执行并行节点，改用带执行计划和BranchLauncher的execute
+     */
+    @Deprecated
     @Override
     public CompletableFuture<FlowResult> execute(StepDefinition step, FlowExecutionContext context, Executor executor) {
-        if (!(step instanceof ParallelStepDefinition)) {
+        if (!(step instanceof ParallelStepDefinition parallelStep)) {
             throw new IllegalArgumentException("ParallelStepExecutor只支持ParallelStepDefinition类型");
         }
-        ParallelStepDefinition parallelStep = (ParallelStepDefinition)step;
-        String stepName = parallelStep.getName();
-        String executionId = context.getExecutionId();
-
-        // FlowLogger.log(FlowLogger.Level.INFO, ctx, "🔄 并行执行 [" + parallelStep.getBranches().size() + " 个分支]");
-
-        // 收集所有分支的Future
-        Map<String, CompletableFuture<FlowResult>> branchFutures = new HashMap<>();
-        Map<String, Branch> branches = parallelStep.getBranches();
-        for (Map.Entry<String, Branch> entry : branches.entrySet()) {
-            String targetStepName = entry.getKey();
-            Branch branch = entry.getValue();
-            FlowRuntimePredicate predicate = branch.flowRuntimePredicate();
-            // 执行分支条件
-            boolean condition = false;
-            if (predicate != null) {
-                CompletableFlowRuntimePredicateAccessContext predicateContext
-                    = new CompletableFlowRuntimePredicateAccessContext(context);
-                CompletableFlowRuntimePredicateAccess predicateAccess = new CompletableFlowRuntimePredicateAccess(
-                    predicateContext);
-                condition = predicate.test(predicateAccess);
-            } else {
-                condition = true;
+        for (Map.Entry<String, Branch> entry : parallelStep.getBranches().entrySet()) {
+            boolean condition = evaluate(entry.getValue().flowRuntimePredicate(), context);
+            if (FlowLogger.isEnabled(FlowLogger.Level.DEBUG)) {
+                FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(parallelStep.getName()), "🌿 分支 [{}] {}",
+                    entry.getKey(), condition ? "✅ 条件满足" : "❌ 条件不满足");
+            }
+        }
+        return CompletableFuture.completedFuture(FlowResult.STEP_SUCCESS);
+    }
+
+    private boolean evaluate(FlowRuntimePredicate predicate, FlowExecutionContext context) {
+        if (predicate == null) {
+            return true;
+        }
+        CompletableFlowRuntimePredicateAccessContext predicateContext
+            = new CompletableFlowRuntimePredicateAccessContext(context);
+        CompletableFlowRuntimePredicateAccess predicateAccess = new CompletableFlowRuntimePredicateAccess(
+            predicateContext);
+        return predicate.test(predicateAccess);
+    }
+
+    /**
+     * 汇合分支的参数合并，overlays按分支声明顺序排列
+     */
+    private static final class ParamMerge {
+        private final ParamMergeStrategy strategy;
+        private final ParamMerger merger;
+        private final FlowParamsOverlay[] overlays;
+
+        ParamMerge(ParamMergeStrategy strategy, ParamMerger merger, int joinCount) {
+            this.strategy = strategy;
+            this.merger = merger;
+            this.overlays = new FlowParamsOverlay[joinCount];
+        }
+
+        /**
+         * 把各分支的修改合并回目标参数表；判定冲突时不写入任何参数
+         *
+         * @throws IllegalStateException FAIL_ON_CONFLICT策略下多个分支把同一参数修改为不同的值
+         */
+        void apply(Map<String, Serializable> target) {
+            Map<String, List<Serializable>> changes = new LinkedHashMap<>();
+            for (FlowParamsOverlay overlay : overlays) {
+                overlay.forEachChange((key, value) -> changes.computeIfAbsent(key, k -> new ArrayList<>(2)).add(value));
+            }
+            Map<String, Serializable> merged = new LinkedHashMap<>(changes.size() * 2);
+            List<String> conflicts = null;
+            for (Map.Entry<String, List<Serializable>> entry : changes.entrySet()) {
+                String key = entry.getKey();
+                List<Serializable> values = entry.getValue();
+                Serializable value = values.get(values.size() - 1);
+                if (values.size() > 1) {
+                    if (strategy == ParamMergeStrategy.CUSTOM) {
+                        value = merger.merge(key, target.get(key), values);
+                    } else if (strategy == ParamMergeStrategy.FAIL_ON_CONFLICT && !allEqual(values)) {
+                        if (conflicts == null) {
+                            conflicts = new ArrayList<>();
+                        }
+                        conflicts.add(key);
+                    }
+                }
+                merged.put(key, value);
+            }
+            if (conflicts != null) {
+                throw new IllegalStateException("并行分支参数冲突: " + conflicts);
+            }
+            merged.forEach((key, value) -> {
+                if (value == null) {
+                    target.remove(key);
+                } else {
+                    target.put(key, value);
+                }
+            });
+        }
+
+        private static boolean allEqual(List<Serializable> values) {
+            Serializable first = values.get(0);
+            for (int i = 1; i < values.size(); i++) {
+                Serializable value = values.get(i);
+                if (first == null ? value != null : !first.equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 汇合屏障：记录到达的分支数，最后一个到达者完成汇合
+     */
+    private static final class JoinBarrier {
+        private final FlowExecutionContext context;
+        private final ParamMerge merge;
+        private final AtomicInteger remaining;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicReference<FlowResult> errorResult = new AtomicReference<>();
+        private final CompletableFuture<FlowResult> future = new CompletableFuture<>();
+
+        JoinBarrier(FlowExecutionContext context, int joinCount, ParamMerge merge) {
+            this.context = context;
+            this.merge = merge;
+            this.remaining = new AtomicInteger(joinCount);
+            if (joinCount == 0) {
+                complete();
+            }
+        }
+
+        void arrive(FlowResult result, Throwable error) {
+            if (error != null) {
+                failure.compareAndSet(null, error);
+            } else if (result != null && result.isError()) {
+                errorResult.compareAndSet(null, result);
+            }
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            Throwable error = failure.get();
+            if (error != null) {
+                future.completeExceptionally(error);
+                return;
             }
-            FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(
-                context.getFlowDefinition().getName(),
-                context.getFlowDefinition().getVersion(),
-                parallelStep.getName(), targetStepName),
-                "🌿 分支 [" + targetStepName + "] " + (condition ? "✅ 条件满足" : "❌ 条件不满足"));
-
-            if (condition) {
-                // 这里只负责分支调度，实际分支节点执行需由主引擎调度
-                // 这里直接返回已完成的Future作为占位，实际可通过回调主引擎执行分支
-                branchFutures.put(targetStepName, CompletableFuture.completedFuture(
-                    new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams())));
+            if (merge != null) {
+                try {
+                    merge.apply(context.getParams());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
             }
+            FlowResult branchError = errorResult.get();
+            future.complete(branchError != null
+                ? new FlowResult(context.getExecutionId(), FlowStatus.ERROR, context.getParams(), branchError.getError())
+                : FlowResult.STEP_SUCCESS);
         }
-        // 等待所有分支完成
-        return CompletableFuture.allOf(branchFutures.values().toArray(new CompletableFuture[0]))
-            .thenApply(v -> new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams()));
     }
-} 
\ No newline at end of file
+}
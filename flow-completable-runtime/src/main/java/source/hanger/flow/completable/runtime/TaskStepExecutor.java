@@ -1,7 +1,9 @@
 package source.hanger.flow.completable.runtime;
 
 import source.hanger.flow.contract.model.StepDefinition;
+import source.hanger.flow.contract.model.TaskRetryPolicy;
 import source.hanger.flow.contract.model.TaskStepDefinition;
+import source.hanger.flow.contract.runtime.task.function.AsyncFlowTaskRunnable;
 import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable;
 import source.hanger.flow.core.runtime.FlowExecutionContext;
 import source.hanger.flow.core.runtime.FlowResult;
@@ -15,13 +17,39 @@ import source.hanger.flow.completable.runtime.context.CompletableFlowTaskErrorHa
 import source.hanger.flow.completable.runtime.access.CompletableFlowTaskEnterHandingAccess;
 import source.hanger.flow.completable.runtime.access.CompletableFlowTaskErrorHandlingAccess;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 任务节点执行器
  * <p>
  * 专门负责TaskStepDefinition的执行逻辑。
+ * <p>
+ * 同步任务（run）在线程池上执行任务体；异步任务（runAsync）在线程池上发起调用后，
+ * 以返回的CompletionStage衔接后续，等待结果期间不占用线程；CompletionStage在其他线程上完成时，
+ * 成功和失败都切回线程池再推进后续步骤，不在客户端的完成线程上执行。
+ * <p>
+ * 超时与取消：
+ * - 设置了timeout的任务到期后以FlowTimeoutException失败结束，不等待任务体返回；
+ *   同步任务体的线程被中断，异步任务返回的future被取消
+ * - 所属执行被取消时，执行同步任务体的线程被中断，尚未开始的任务直接以取消原因失败
+ * - 任务体可通过FlowTaskRunAccess#isCancelled检查是否应停止
+ * - 计时使用共享的FlowTimeoutScheduler，超时结果经FlowTimeoutScheduler#handOff切回线程池交付，
+ *   步骤错误处理和后续步骤不在定时线程上执行
+ * <p>
+ * 重试：
+ * - 设置了retryPolicy的任务在任务体失败后于步骤内部重试，onEnter只执行一次，onError只在最终失败后执行
+ * - 重试间隔由FlowTimeoutScheduler计时，到期后经FlowTimeoutScheduler#handOff提交到线程池，
+ *   等待期间不占用线程，重试的任务体和后续步骤也不在定时线程上执行
+ * - timeout限制的是包含所有重试在内的整个步骤；超时时取消等待中的重试，
+ *   每次尝试开始前也会检查是否已超时或已取消，超时后任务体不会再次执行
  */
 public class TaskStepExecutor implements StepExecutor {
     @Override
@@ -30,36 +58,397 @@ public class TaskStepExecutor implements StepExecutor {
             throw new IllegalArgumentException("TaskStepExecutor只支持TaskStepDefinition类型");
         }
         TaskStepDefinition taskStep = (TaskStepDefinition) step;
-        String stepName = taskStep.getName();
-        String executionId = context.getExecutionId();
-        
+
         // FlowLogger.log(FlowLogger.Level.INFO, ctx, "⚡ 任务执行: 开始执行任务逻辑");
 
-        return CompletableFuture.supplyAsync(() -> {
-            // 执行任务进入回调（onEnter）
-            if (taskStep.getEnterHandingRunnable() != null) {
-                var accessContext = new CompletableFlowTaskEnterHandingAccessContext(context, stepName);
-                var access = new CompletableFlowTaskEnterHandingAccess(accessContext);
-                taskStep.getEnterHandingRunnable().handle(access);
+        TaskRun run = taskStep.getAsyncTaskRunnable() != null
+            ? new AsyncTaskRun(taskStep, context, executor)
+            : new SyncTaskRun(taskStep, context, executor);
+        Duration timeout = taskStep.getTimeout();
+        // 先开始计时再提交：在调用线程上直接执行的线程池中，任务体在submit返回前就已运行
+        CompletableFuture<FlowResult> result = timeout == null ? run.future : withTimeout(run, timeout);
+        run.submit(1);
+        return result;
+    }
+
+    /**
+     * 为任务加上超时：到期时标记超时、中断或取消任务体，并在线程池上以FlowTimeoutException结束步骤；
+     * 须在提交第一次尝试之前调用
+     */
+    private CompletableFuture<FlowResult> withTimeout(TaskRun run, Duration timeout) {
+        CompletableFuture<FlowResult> timed = new CompletableFuture<>();
+        ScheduledFuture<?> timer = FlowTimeoutScheduler.schedule(() -> {
+            if (timed.isDone()) {
+                return;
             }
+            FlowTimeoutException timeoutException = new FlowTimeoutException(
+                run.context.getFlowDefinition().getName(), run.taskStep.getName(), timeout);
+            run.timeOut(timeoutException);
             try {
-                // 执行任务主体
-                FlowTaskRunnable taskRunnable = taskStep.getTaskRunnable();
-                if (taskRunnable != null) {
-                    CompletableFlowTaskRunAccessContext accessContext = new CompletableFlowTaskRunAccessContext(context, stepName);
-                    CompletableFlowTaskRunAccess access = new CompletableFlowTaskRunAccess(accessContext);
-                    taskRunnable.run(access);
+                FlowTimeoutScheduler.handOff(run.executor, () -> timed.completeExceptionally(timeoutException));
+            } catch (RejectedExecutionException e) {
+                timed.completeExceptionally(timeoutException);
+            }
+        }, timeout);
+        run.future.whenComplete((result, error) -> {
+            timer.cancel(false);
+            if (run.timeoutCause != null) {
+                // 已超时：结果由定时任务切回线程池交付；被中断或取消的任务体的结果不作为步骤结果，
+                // 异步任务被取消时本回调运行在定时线程上，也不在此推进
+                return;
+            }
+            if (error != null) {
+                timed.completeExceptionally(error);
+            } else {
+                timed.complete(result);
+            }
+        });
+        return timed;
+    }
+
+    /**
+     * 执行任务进入回调（onEnter）
+     */
+    private void handleEnter(TaskStepDefinition taskStep, FlowExecutionContext context) {
+        if (taskStep.getEnterHandingRunnable() != null) {
+            var accessContext = new CompletableFlowTaskEnterHandingAccessContext(context, taskStep.getName());
+            var access = new CompletableFlowTaskEnterHandingAccess(accessContext);
+            taskStep.getEnterHandingRunnable().handle(access);
+        }
+    }
+
+    /**
+     * 执行任务错误回调（onError），返回错误结果
+     */
+    private FlowResult handleError(TaskStepDefinition taskStep, FlowExecutionContext context, Exception e) {
+        if (taskStep.getErrorHandingRunnable() != null) {
+            var accessContext = new CompletableFlowTaskErrorHandingAccessContext(context, taskStep.getName(), e);
+            var access = new CompletableFlowTaskErrorHandlingAccess(accessContext);
+            taskStep.getErrorHandingRunnable().handle(access);
+        }
+        return new FlowResult(context.getExecutionId(), FlowStatus.ERROR, context.getParams(), e);
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+
+    private static void cancelStage(CompletionStage<?> stage) {
+        try {
+            stage.toCompletableFuture().cancel(true);
+        } catch (UnsupportedOperationException e) {
+            // 不支持转换为CompletableFuture的实现，只能等待其自然结束
+        }
+    }
+
+    /**
+     * 一次任务步骤的执行：管理尝试次数、重试调度和步骤结果
+     */
+    private abstract class TaskRun {
+        final TaskStepDefinition taskStep;
+        final FlowExecutionContext context;
+        final Executor executor;
+        final CompletableFlowTaskRunAccessContext accessContext;
+        final CompletableFuture<FlowResult> future = new CompletableFuture<>();
+        /** 等待中的重试 */
+        private volatile ScheduledFuture<?> retryTimer;
+        /** 超时原因，未超时为null */
+        volatile FlowTimeoutException timeoutCause;
+
+        TaskRun(TaskStepDefinition taskStep, FlowExecutionContext context, Executor executor) {
+            this.taskStep = taskStep;
+            this.context = context;
+            this.executor = executor;
+            this.accessContext = new CompletableFlowTaskRunAccessContext(context, taskStep.getName());
+        }
+
+        /**
+         * 在线程池上进行第attempt次尝试
+         */
+        void submit(int attempt) {
+            try {
+                executor.execute(() -> run(attempt));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 重试到期：从定时线程把第attempt次尝试转交给线程池
+         */
+        void resubmit(int attempt) {
+            try {
+                FlowTimeoutScheduler.handOff(executor, () -> run(attempt));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 进行第attempt次尝试，结束时完成future或安排重试
+         */
+        abstract void run(int attempt);
+
+        /**
+         * 超时时中断或取消正在进行的尝试
+         */
+        abstract void interrupt();
+
+        /**
+         * 步骤超时：标记超时、取消等待中的重试并中断或取消正在进行的尝试
+         */
+        void timeOut(FlowTimeoutException cause) {
+            timeoutCause = cause;
+            accessContext.markTimedOut();
+            cancelRetry();
+            interrupt();
+        }
+
+        /**
+         * 尝试开始前检查：已超时或所属执行已取消时以其原因结束，不再执行任务体
+         *
+         * @return 是否应继续本次尝试
+         */
+        boolean beginAttempt() {
+            if (!accessContext.isCancelled()) {
+                return true;
+            }
+            FlowTimeoutException cause = timeoutCause;
+            future.completeExceptionally(cause != null ? cause : context.getCancellationCause());
+            return false;
+        }
+
+        /**
+         * 第attempt次尝试失败后是否重试：未超时、未取消且重试策略允许
+         */
+        boolean shouldRetry(int attempt, Throwable error) {
+            TaskRetryPolicy retryPolicy = taskStep.getRetryPolicy();
+            return retryPolicy != null && !accessContext.isCancelled() && retryPolicy.shouldRetry(attempt, error);
+        }
+
+        /**
+         * 按退避间隔安排下一次尝试
+         */
+        void scheduleRetry(int attempt, Throwable error) {
+            long delayNanos = taskStep.getRetryPolicy().backoffNanos(attempt, ThreadLocalRandom.current().nextDouble());
+            FlowLogger.log(FlowLogger.Level.WARNING, context.getLogContext(taskStep.getName()),
+                "🔁 任务第{}次执行失败，{}ms后重试: {}", attempt, TimeUnit.NANOSECONDS.toMillis(delayNanos),
+                error.getMessage());
+            try {
+                retryTimer = FlowTimeoutScheduler.schedule(() -> resubmit(attempt + 1), Duration.ofNanos(delayNanos));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (accessContext.isCancelled()) {
+                // 安排重试期间超时：超时回调可能未看到本次的定时任务
+                cancelRetry();
+            }
+        }
+
+        private void cancelRetry() {
+            ScheduledFuture<?> timer = retryTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 同步任务：任务体在线程池线程上执行，运行期间登记线程以便超时或取消时中断
+     */
+    private final class SyncTaskRun extends TaskRun {
+        private Thread thread;
+
+        SyncTaskRun(TaskStepDefinition taskStep, FlowExecutionContext context, Executor executor) {
+            super(taskStep, context, executor);
+        }
+
+        @Override
+        void run(int attempt) {
+            if (!beginAttempt()) {
+                return;
+            }
+            Thread current = Thread.currentThread();
+            if (!context.enterTask(current)) {
+                future.completeExceptionally(context.getCancellationCause());
+                return;
+            }
+            setThread(current);
+            context.taskStarted(taskStep.getName(), current);
+            FlowResult result = null;
+            Throwable failure = null;
+            Exception retryError = null;
+            try {
+                if (attempt == 1) {
+                    // 执行任务进入回调（onEnter）
+                    handleEnter(taskStep, context);
                 }
-                return new FlowResult(context.getExecutionId(), FlowStatus.SUCCESS, context.getParams());
-            } catch (Exception e) {
-                // 执行任务错误回调（onError）
-                if (taskStep.getErrorHandingRunnable() != null) {
-                    var accessContext = new CompletableFlowTaskErrorHandingAccessContext(context, stepName, e);
-                    var access = new CompletableFlowTaskErrorHandlingAccess(accessContext);
-                    taskStep.getErrorHandingRunnable().handle(access);
+                try {
+                    // 执行任务主体
+                    FlowTaskRunnable taskRunnable = taskStep.getTaskRunnable();
+                    if (taskRunnable != null) {
+                        taskRunnable.run(new CompletableFlowTaskRunAccess(accessContext));
+                    }
+                    result = FlowResult.STEP_SUCCESS;
+                } catch (Exception e) {
+                    if (accessContext.isCancelled()) {
+                        // 已超时或已取消：结果已由超时/取消交付，不再执行错误回调
+                        failure = e;
+                    } else if (shouldRetry(attempt, e)) {
+                        retryError = e;
+                    } else {
+                        result = handleError(taskStep, context, e);
+                    }
+                }
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                setThread(null);
+                context.exitTask(current);
+                if (accessContext.isCancelled()) {
+                    // 清除超时或取消留下的中断标记，避免影响线程池中的后续任务
+                    Thread.interrupted();
+                }
+            }
+            // 线程退出登记后再交付结果，后续推进不会被本步骤的超时或取消中断
+            if (retryError != null) {
+                scheduleRetry(attempt, retryError);
+            } else if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        private synchronized void setThread(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        synchronized void interrupt() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 异步任务：任务体返回的CompletionStage完成时本次尝试结束，错误回调（onError）切回线程池执行
+     */
+    private final class AsyncTaskRun extends TaskRun {
+        /** 当前尝试的完成信号 */
+        private volatile CompletableFuture<Object> attemptFuture;
+
+        AsyncTaskRun(TaskStepDefinition taskStep, FlowExecutionContext context, Executor executor) {
+            super(taskStep, context, executor);
+        }
+
+        @Override
+        void run(int attempt) {
+            if (!beginAttempt()) {
+                return;
+            }
+            try {
+                if (context.isCancelled()) {
+                    throw context.getCancellationCause();
+                }
+                if (attempt == 1) {
+                    // 执行任务进入回调（onEnter）
+                    handleEnter(taskStep, context);
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            context.taskStarted(taskStep.getName(), Thread.currentThread());
+            CompletableFuture<Object> taskFuture = runAsyncTask();
+            attemptFuture = taskFuture;
+            boolean completedOnSubmit = taskFuture.isDone();
+            taskFuture.whenComplete((value, error) -> {
+                if (error == null) {
+                    completeWithSuccess(completedOnSubmit);
+                } else if (accessContext.isCancelled()) {
+                    future.completeExceptionally(error);
+                } else if (shouldRetry(attempt, unwrap(error))) {
+                    scheduleRetry(attempt, unwrap(error));
+                } else {
+                    // 完成线程可能是客户端的I/O线程，错误回调切回线程池执行
+                    try {
+                        Exception cause = unwrap(error);
+                        executor.execute(() -> completeWithError(cause));
+                    } catch (RejectedExecutionException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        }
+
+        /**
+         * 任务成功：任务体同步完成时仍在线程池线程上，直接交付；否则完成线程可能是客户端的I/O线程，
+         * 与错误回调一样切回线程池再推进后续步骤
+         */
+        private void completeWithSuccess(boolean completedOnSubmit) {
+            if (completedOnSubmit) {
+                future.complete(FlowResult.STEP_SUCCESS);
+                return;
+            }
+            try {
+                executor.execute(() -> future.complete(FlowResult.STEP_SUCCESS));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void completeWithError(Exception error) {
+            try {
+                future.complete(handleError(taskStep, context, error));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 发起异步任务主体，返回任务完成信号；任务体同步抛出的异常同样以异常完成。
+         * 完成信号被取消（任务超时）时尝试取消任务体返回的future
+         */
+        private CompletableFuture<Object> runAsyncTask() {
+            CompletableFuture<Object> taskFuture = new CompletableFuture<>();
+            try {
+                AsyncFlowTaskRunnable asyncTaskRunnable = taskStep.getAsyncTaskRunnable();
+                CompletionStage<?> stage = asyncTaskRunnable.run(new CompletableFlowTaskRunAccess(accessContext));
+                if (stage == null) {
+                    taskFuture.complete(null);
+                } else {
+                    stage.whenComplete((value, error) -> {
+                        if (error != null) {
+                            taskFuture.completeExceptionally(error);
+                        } else {
+                            taskFuture.complete(value);
+                        }
+                    });
+                    taskFuture.whenComplete((value, error) -> {
+                        if (taskFuture.isCancelled()) {
+                            cancelStage(stage);
+                        }
+                    });
                 }
-                return new FlowResult(context.getExecutionId(), FlowStatus.ERROR, context.getParams(), e);
+            } catch (Exception e) {
+                taskFuture.completeExceptionally(e);
+            }
+            return taskFuture;
+        }
+
+        @Override
+        void interrupt() {
+            CompletableFuture<Object> current = attemptFuture;
+            if (current != null) {
+                current.cancel(true);
             }
-        }, executor);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -23,11 +23,6 @@ public class CompletableFlowEnterHandlingAccess implements FlowEnterHandlingAcce
     @Override
     public void log(String message) {
         var ctx = (source.hanger.flow.completable.runtime.context.CompletableFlowEnterHandingAccessContext) getContext();
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(
-            ctx.getFlowContext().getFlowDefinition().getName(),
-            ctx.getFlowContext().getFlowDefinition().getVersion(),
-            ctx.getExecutionId(),
-            ctx.getStepName()
-        ), message);
+        FlowLogger.log(FlowLogger.Level.INFO, ctx.getFlowContext().getLogContext(ctx.getStepName()), message);
     }
 }
\ No newline at end of file
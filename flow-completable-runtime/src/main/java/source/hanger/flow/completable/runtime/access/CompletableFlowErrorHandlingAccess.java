@@ -23,12 +23,7 @@ public class CompletableFlowErrorHandlingAccess implements FlowErrorHandlingAcce
     @Override
     public void log(String message) {
         var ctx = (source.hanger.flow.completable.runtime.context.CompletableFlowErrorHandingAccessContext) getContext();
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(
-            ctx.getFlowContext().getFlowDefinition().getName(),
-            ctx.getFlowContext().getFlowDefinition().getVersion(),
-            ctx.getExecutionId(),
-            ctx.getStepName()
-        ), message);
+        FlowLogger.log(FlowLogger.Level.INFO, ctx.getFlowContext().getLogContext(ctx.getStepName()), message);
     }
 
     @Override
@@ -23,14 +23,9 @@ public class CompletableFlowTaskEnterHandingAccess implements FlowTaskEnterHandi
     @Override
     public void log(String message) {
         if (context instanceof source.hanger.flow.completable.runtime.context.CompletableFlowTaskEnterHandingAccessContext ctx) {
-            FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(
-                ctx.getFlowContext().getFlowDefinition().getName(),
-                ctx.getFlowContext().getFlowDefinition().getVersion(),
-                ctx.getExecutionId(),
-                ctx.getStepName()
-            ), message);
+            FlowLogger.log(FlowLogger.Level.INFO, ctx.getFlowContext().getLogContext(ctx.getStepName()), message);
         } else {
-            FlowLogger.log(FlowLogger.Level.DEBUG,
+            FlowLogger.log(FlowLogger.Level.INFO,
                 new FlowLogger.FlowLogContext("-", "-", context.getExecutionId(), context.getStepName()), message);
         }
     }
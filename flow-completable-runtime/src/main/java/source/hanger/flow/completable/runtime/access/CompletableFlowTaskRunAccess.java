@@ -20,14 +20,14 @@ public class CompletableFlowTaskRunAccess implements FlowTaskRunAccess {
         return context;
     }
 
+    @Override
+    public boolean isCancelled() {
+        return ((source.hanger.flow.completable.runtime.context.CompletableFlowTaskRunAccessContext) context).isCancelled();
+    }
+
     @Override
     public void log(String message) {
         var ctx = (source.hanger.flow.completable.runtime.context.CompletableFlowTaskRunAccessContext) getContext();
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(
-            ctx.getFlowContext().getFlowDefinition().getName(),
-            ctx.getFlowContext().getFlowDefinition().getVersion(),
-            ctx.getExecutionId(),
-            ctx.getStepName()
-        ), message);
+        FlowLogger.log(FlowLogger.Level.INFO, ctx.getFlowContext().getLogContext(ctx.getStepName()), message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,424 @@
+package source.hanger.flow.completable.runtime.analysis;
+
+import source.hanger.flow.completable.runtime.analysis.CriticalPathReport.BranchSlack;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathReport.PathSegment;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathReport.StepAttribution;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathStatistics.BranchStatistics;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathStatistics.FlowStatistics;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathStatistics.StepStatistics;
+import source.hanger.flow.completable.runtime.trace.FlowSpan;
+import source.hanger.flow.completable.runtime.trace.FlowSpanData;
+import source.hanger.flow.completable.runtime.trace.FlowSpanExporter;
+import source.hanger.flow.completable.runtime.trace.FlowTracer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 关键路径分析器
+ * <p>
+ * 作用：
+ *   - 以执行追踪记录的各步骤起止时间和跨度树（执行 -> 步骤 -> 并行分支 -> 步骤）还原每次执行的依赖结构，
+ *     计算关键路径、每个参与汇合的并行分支的松弛时间、每个步骤占端到端耗时的比例
+ *   - 跨多次执行按流程汇总，按关键路径耗时排序，第一个步骤即最值得优化的步骤
+ * <p>
+ * 使用方式：
+ * <pre>
+ * CriticalPathAnalyzer analyzer = new CriticalPathAnalyzer();
+ * engine.setTracer(new FlowTracer(analyzer));
+ * ...
+ * CriticalPathStatistics statistics = analyzer.snapshot();
+ * </pre>
+ * 也可对已导出的跨度调用{@link #analyze(List)}离线分析单次执行
+ * <p>
+ * 设计说明：
+ *   - 作为跨度导出器接入，按追踪ID暂存跨度，执行的根跨度到达时（根跨度晚于所有汇合分支结束）分析并汇总
+ *   - 同一容器（执行或分支）下的步骤依次执行；并行步骤的结束由最晚完成的汇合分支（关键分支）决定，
+ *     关键路径进入该分支；每个汇合分支的松弛时间为关键分支结束时间与其结束时间之差，
+ *     不在关键路径上的并行步骤同样记录（局部松弛）
+ *   - 分支是否参与汇合取自执行计划（引擎写入分支跨度的{@link FlowTracer#ATTR_BRANCH_JOIN}属性）；
+ *     不参与汇合的分支和异步分支不影响端到端耗时，只计入步骤的执行次数和累计耗时
+ *   - 根跨度之后才结束的跨度（不参与汇合的分支、异步分支）被丢弃，最近结束的追踪ID有界保留，用于识别这类迟到跨度；
+ *     超出该范围的迟到跨度会为已结束的执行建立暂存，暂存超过最长空闲时间（默认10分钟）没有新跨度到达时被清除，
+ *     不会长期占用暂存上限。执行中单个步骤的耗时超过该时间时，该执行的已暂存跨度被清除，不计入汇总
+ */
+public class CriticalPathAnalyzer implements FlowSpanExporter {
+
+    /** 默认最多暂存的未结束执行数 */
+    public static final int DEFAULT_MAX_PENDING_TRACES = 10_000;
+    /** 默认暂存的最长空闲时间 */
+    public static final Duration DEFAULT_MAX_PENDING_AGE = Duration.ofMinutes(10);
+    /** 保留的最近结束的追踪ID数 */
+    private static final int COMPLETED_TRACES = 4096;
+
+    private final int maxPendingTraces;
+    private final long maxPendingAgeNanos;
+    /** 两次清理暂存的最小间隔 */
+    private final long sweepIntervalNanos;
+    private final AtomicLong nextSweepNanos;
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final Queue<String> completedOrder = new ConcurrentLinkedQueue<>();
+    private final Map<FlowKey, FlowAggregate> flows = new ConcurrentHashMap<>();
+    private final AtomicLong droppedSpans = new AtomicLong();
+
+    public CriticalPathAnalyzer() {
+        this(DEFAULT_MAX_PENDING_TRACES);
+    }
+
+    /**
+     * @param maxPendingTraces 最多暂存的未结束执行数，超出时新执行的跨度被丢弃
+     */
+    public CriticalPathAnalyzer(int maxPendingTraces) {
+        this(maxPendingTraces, DEFAULT_MAX_PENDING_AGE);
+    }
+
+    /**
+     * @param maxPendingTraces 最多暂存的未结束执行数，超出时新执行的跨度被丢弃
+     * @param maxPendingAge    暂存的最长空闲时间，超过该时间没有新跨度到达的暂存被清除
+     */
+    public CriticalPathAnalyzer(int maxPendingTraces, Duration maxPendingAge) {
+        if (maxPendingTraces <= 0) {
+            throw new IllegalArgumentException("maxPendingTraces必须为正数: " + maxPendingTraces);
+        }
+        if (maxPendingAge.isNegative() || maxPendingAge.isZero()) {
+            throw new IllegalArgumentException("maxPendingAge必须为正数: " + maxPendingAge);
+        }
+        this.maxPendingTraces = maxPendingTraces;
+        this.maxPendingAgeNanos = maxPendingAge.toNanos();
+        this.sweepIntervalNanos = Math.max(1, maxPendingAgeNanos / 4);
+        this.nextSweepNanos = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+    }
+
+    @Override
+    public void export(FlowSpan span) {
+        FlowSpanData data = span.toData();
+        String traceId = data.traceId();
+        if (FlowTracer.SPAN_TYPE_EXECUTION.equals(data.attributes().get(FlowTracer.ATTR_SPAN_TYPE))) {
+            // 先登记为已结束再取出，之后到达的跨度不会再为该追踪建立暂存
+            boolean expired = !markCompleted(traceId);
+            PendingTrace trace = pending.remove(traceId);
+            if (trace == null && expired) {
+                // 暂存已因空闲过久被清除，只剩根跨度无法分析
+                droppedSpans.incrementAndGet();
+                return;
+            }
+            List<FlowSpanData> all = trace != null ? trace.spans : new ArrayList<>(1);
+            all.add(data);
+            record(analyze(all));
+            return;
+        }
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        pending.compute(traceId, (key, trace) -> {
+            if (trace == null) {
+                if (completed.contains(key) || pending.size() >= maxPendingTraces) {
+                    droppedSpans.incrementAndGet();
+                    return null;
+                }
+                trace = new PendingTrace();
+            }
+            trace.spans.add(data);
+            trace.lastUpdateNanos = now;
+            return trace;
+        });
+    }
+
+    /**
+     * 分析单次执行
+     *
+     * @param spans 同一追踪的跨度，需包含执行的根跨度
+     * @return 关键路径报告
+     * @throws IllegalArgumentException 没有根跨度
+     */
+    public static CriticalPathReport analyze(List<FlowSpanData> spans) {
+        FlowSpanData root = null;
+        Map<String, List<FlowSpanData>> children = new HashMap<>();
+        for (FlowSpanData span : spans) {
+            if (FlowTracer.SPAN_TYPE_EXECUTION.equals(span.attributes().get(FlowTracer.ATTR_SPAN_TYPE))) {
+                root = span;
+            } else if (span.parentSpanId() != null) {
+                children.computeIfAbsent(span.parentSpanId(), key -> new ArrayList<>()).add(span);
+            }
+        }
+        if (root == null) {
+            throw new IllegalArgumentException("缺少执行的根跨度");
+        }
+        for (List<FlowSpanData> list : children.values()) {
+            list.sort(Comparator.comparingLong(FlowSpanData::startEpochNanos));
+        }
+        Walk walk = new Walk(children);
+        walk.walk(root, "", true);
+        long attributed = 0;
+        for (PathSegment segment : walk.path) {
+            attributed += segment.selfNanos();
+        }
+        List<StepAttribution> steps = new ArrayList<>(walk.steps.size());
+        walk.steps.forEach((name, step) -> steps.add(
+            new StepAttribution(name, step.count, step.totalNanos, step.criticalNanos)));
+        steps.sort(Comparator.comparingLong(StepAttribution::criticalNanos).reversed());
+        return new CriticalPathReport(root.traceId(), root.name(),
+            (String) root.attributes().get(FlowTracer.ATTR_FLOW_VERSION), root.durationNanos(), walk.path, steps,
+            walk.branches, Math.max(0, root.durationNanos() - attributed));
+    }
+
+    /**
+     * 汇总报告（也可用于汇总离线分析的报告）
+     */
+    public void record(CriticalPathReport report) {
+        FlowAggregate aggregate = flows.computeIfAbsent(new FlowKey(report.flowName(), report.flowVersion()),
+            key -> new FlowAggregate());
+        synchronized (aggregate) {
+            aggregate.add(report);
+        }
+    }
+
+    /**
+     * 各流程汇总的快照
+     */
+    public CriticalPathStatistics snapshot() {
+        List<FlowStatistics> result = new ArrayList<>(flows.size());
+        flows.forEach((key, aggregate) -> {
+            synchronized (aggregate) {
+                result.add(aggregate.snapshot(key));
+            }
+        });
+        result.sort(Comparator.comparing(FlowStatistics::flowName)
+            .thenComparing(FlowStatistics::flowVersion, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return new CriticalPathStatistics(result);
+    }
+
+    /**
+     * 清空汇总和暂存的跨度
+     */
+    public void reset() {
+        flows.clear();
+        pending.clear();
+    }
+
+    /**
+     * 累计丢弃的跨度数（根跨度之后到达、超出暂存上限或暂存空闲过久被清除）
+     */
+    public long getDroppedSpans() {
+        return droppedSpans.get();
+    }
+
+    /**
+     * 当前暂存中的执行数
+     */
+    public int getPendingTraces() {
+        return pending.size();
+    }
+
+    /**
+     * @return 是否为新登记（false表示之前已结束或已清除）
+     */
+    private boolean markCompleted(String traceId) {
+        if (!completed.add(traceId)) {
+            return false;
+        }
+        completedOrder.offer(traceId);
+        if (completed.size() > COMPLETED_TRACES) {
+            String oldest = completedOrder.poll();
+            if (oldest != null) {
+                completed.remove(oldest);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 到达清理时间时清除空闲过久的暂存，同一时刻只有一个线程清理
+     */
+    private void sweepIfDue(long now) {
+        long next = nextSweepNanos.get();
+        if (now - next < 0 || !nextSweepNanos.compareAndSet(next, now + sweepIntervalNanos)) {
+            return;
+        }
+        for (String traceId : pending.keySet()) {
+            pending.computeIfPresent(traceId, (key, trace) -> {
+                if (now - trace.lastUpdateNanos < maxPendingAgeNanos) {
+                    return trace;
+                }
+                droppedSpans.addAndGet(trace.spans.size());
+                // 之后到达的跨度（含根跨度）直接丢弃
+                markCompleted(key);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 单次执行的跨度树遍历
+     */
+    private static final class Walk {
+        private final Map<String, List<FlowSpanData>> children;
+        private final List<PathSegment> path = new ArrayList<>();
+        private final List<BranchSlack> branches = new ArrayList<>();
+        /** 按首次出现顺序记录步骤 */
+        private final Map<String, StepAccumulator> steps = new LinkedHashMap<>();
+
+        Walk(Map<String, List<FlowSpanData>> children) {
+            this.children = children;
+        }
+
+        /**
+         * 遍历容器（执行或分支）：其下步骤依次执行，容器在关键路径上时这些步骤全部在关键路径上；
+         * 并行步骤的汇合分支无论是否在关键路径上都记录局部松弛时间
+         *
+         * @param container  容器跨度
+         * @param branchPath 容器所在分支路径，主路径为空字符串
+         * @param onPath     容器是否在关键路径上
+         */
+        void walk(FlowSpanData container, String branchPath, boolean onPath) {
+            for (FlowSpanData child : children(container)) {
+                if (isBranch(child)) {
+                    // 执行根跨度下的异步分支不在关键路径上
+                    walk(child, branchPath, false);
+                    continue;
+                }
+                StepAccumulator step = step(child);
+                List<FlowSpanData> joins = new ArrayList<>();
+                for (FlowSpanData branch : children(child)) {
+                    if (isJoinBranch(branch)) {
+                        joins.add(branch);
+                    } else {
+                        walk(branch, branchPath, false);
+                    }
+                }
+                if (joins.isEmpty()) {
+                    if (onPath) {
+                        step.criticalNanos += child.durationNanos();
+                        path.add(new PathSegment(child.name(), branchPath, child.durationNanos()));
+                    }
+                    continue;
+                }
+                FlowSpanData criticalBranch = joins.get(0);
+                for (FlowSpanData branch : joins) {
+                    if (branch.endEpochNanos() > criticalBranch.endEpochNanos()) {
+                        criticalBranch = branch;
+                    }
+                }
+                for (FlowSpanData branch : joins) {
+                    branches.add(new BranchSlack(child.name(), branch.name(), branch.durationNanos(),
+                        criticalBranch.endEpochNanos() - branch.endEpochNanos(), branch == criticalBranch));
+                }
+                if (onPath) {
+                    long selfNanos = Math.max(0, child.durationNanos() - criticalBranch.durationNanos());
+                    step.criticalNanos += selfNanos;
+                    path.add(new PathSegment(child.name(), branchPath, selfNanos));
+                }
+                String parallelPath = (branchPath.isEmpty() ? "" : branchPath + "/") + child.name() + "/";
+                for (FlowSpanData branch : joins) {
+                    walk(branch, parallelPath + branch.name(), onPath && branch == criticalBranch);
+                }
+            }
+        }
+
+        private StepAccumulator step(FlowSpanData span) {
+            StepAccumulator step = steps.computeIfAbsent(span.name(), name -> new StepAccumulator());
+            step.count++;
+            step.totalNanos += span.durationNanos();
+            return step;
+        }
+
+        private List<FlowSpanData> children(FlowSpanData span) {
+            return children.getOrDefault(span.spanId(), List.of());
+        }
+
+        private static boolean isBranch(FlowSpanData span) {
+            return FlowTracer.SPAN_TYPE_BRANCH.equals(span.attributes().get(FlowTracer.ATTR_SPAN_TYPE));
+        }
+
+        private static boolean isJoinBranch(FlowSpanData span) {
+            return isBranch(span)
+                && FlowTracer.BRANCH_TYPE_PARALLEL.equals(span.attributes().get(FlowTracer.ATTR_BRANCH_TYPE))
+                && !Boolean.FALSE.equals(span.attributes().get(FlowTracer.ATTR_BRANCH_JOIN));
+        }
+    }
+
+    private static final class StepAccumulator {
+        private int count;
+        private long totalNanos;
+        private long criticalNanos;
+    }
+
+    /**
+     * 单个执行暂存的跨度，由pending的compute加锁访问
+     */
+    private static final class PendingTrace {
+        private final List<FlowSpanData> spans = new ArrayList<>();
+        private long lastUpdateNanos;
+    }
+
+    private record FlowKey(String flowName, String flowVersion) {
+        FlowKey {
+            Objects.requireNonNull(flowName, "flowName");
+        }
+    }
+
+    /**
+     * 单个流程的累计值，由调用方加锁访问
+     */
+    private static final class FlowAggregate {
+        private long runs;
+        private long totalNanos;
+        private final Map<String, long[]> steps = new HashMap<>();
+        private final Map<String, Map<String, long[]>> branches = new HashMap<>();
+
+        void add(CriticalPathReport report) {
+            runs++;
+            totalNanos += report.totalNanos();
+            for (StepAttribution step : report.steps()) {
+                // executions, criticalRuns, totalNanos, criticalNanos
+                long[] values = steps.computeIfAbsent(step.stepName(), name -> new long[4]);
+                values[0] += step.count();
+                values[2] += step.totalNanos();
+                values[3] += step.criticalNanos();
+            }
+            // 循环中多次出现在关键路径上的步骤只计一次
+            Set<String> criticalSteps = new HashSet<>();
+            for (PathSegment segment : report.criticalPath()) {
+                if (criticalSteps.add(segment.stepName())) {
+                    steps.get(segment.stepName())[1]++;
+                }
+            }
+            for (BranchSlack branch : report.branches()) {
+                // runs, criticalRuns, totalSlackNanos, minSlackNanos
+                long[] values = branches.computeIfAbsent(branch.parallelStep(), name -> new HashMap<>())
+                    .computeIfAbsent(branch.branch(), name -> new long[]{0, 0, 0, Long.MAX_VALUE});
+                values[0]++;
+                values[1] += branch.critical() ? 1 : 0;
+                values[2] += branch.slackNanos();
+                values[3] = Math.min(values[3], branch.slackNanos());
+            }
+        }
+
+        FlowStatistics snapshot(FlowKey key) {
+            List<StepStatistics> stepStatistics = new ArrayList<>(steps.size());
+            steps.forEach((name, values) -> stepStatistics.add(
+                new StepStatistics(name, values[0], values[1], values[2], values[3])));
+            stepStatistics.sort(Comparator.comparingLong(StepStatistics::criticalNanos).reversed()
+                .thenComparing(StepStatistics::stepName));
+            List<BranchStatistics> branchStatistics = new ArrayList<>();
+            branches.forEach((parallelStep, byBranch) -> byBranch.forEach((branch, values) -> branchStatistics.add(
+                new BranchStatistics(parallelStep, branch, values[0], values[1], values[2], values[3]))));
+            branchStatistics.sort(Comparator.comparing(BranchStatistics::parallelStep)
+                .thenComparing(BranchStatistics::branch));
+            return new FlowStatistics(key.flowName(), key.flowVersion(), runs, totalNanos, stepStatistics,
+                branchStatistics);
+        }
+    }
+}
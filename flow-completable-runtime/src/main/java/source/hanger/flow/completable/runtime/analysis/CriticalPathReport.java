@@ -0,0 +1,84 @@
+package source.hanger.flow.completable.runtime.analysis;
+
+import java.util.List;
+
+/**
+ * 单次执行的关键路径报告（不可变）
+ * <p>
+ * 关键路径上各段的自身耗时与未归属耗时（步骤之间的调度、流转间隙）之和等于端到端耗时
+ *
+ * @param traceId           追踪ID（即执行ID的128位十六进制值）
+ * @param flowName          流程名称
+ * @param flowVersion       流程版本号，可为null
+ * @param totalNanos        端到端耗时（纳秒）
+ * @param criticalPath      关键路径，按执行顺序排列
+ * @param steps             各步骤的耗时归属，按关键路径耗时从多到少排列
+ * @param branches          各参与汇合的并行分支的松弛时间（含不在关键路径上的并行步骤），按出现顺序排列
+ * @param unattributedNanos 关键路径上不属于任何步骤的耗时（纳秒）
+ */
+public record CriticalPathReport(String traceId, String flowName, String flowVersion, long totalNanos,
+                                 List<PathSegment> criticalPath, List<StepAttribution> steps,
+                                 List<BranchSlack> branches, long unattributedNanos) {
+
+    public CriticalPathReport {
+        criticalPath = List.copyOf(criticalPath);
+        steps = List.copyOf(steps);
+        branches = List.copyOf(branches);
+    }
+
+    /**
+     * 查找步骤的耗时归属
+     *
+     * @return 耗时归属，步骤未执行时返回null
+     */
+    public StepAttribution step(String stepName) {
+        for (StepAttribution step : steps) {
+            if (step.stepName().equals(stepName)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 步骤占端到端耗时的比例（只计关键路径上的自身耗时）
+     */
+    public double share(String stepName) {
+        StepAttribution step = step(stepName);
+        return step == null || totalNanos == 0 ? 0 : (double) step.criticalNanos() / totalNanos;
+    }
+
+    /**
+     * 关键路径上的一段
+     *
+     * @param stepName   步骤名称
+     * @param branchPath 所在分支路径（并行步骤/分支起始步骤，多层以"/"连接），主路径为空字符串
+     * @param selfNanos  自身耗时（纳秒）；并行步骤为其耗时减去关键分支耗时，即扇出与汇合开销
+     */
+    public record PathSegment(String stepName, String branchPath, long selfNanos) {
+    }
+
+    /**
+     * 步骤的耗时归属
+     *
+     * @param stepName      步骤名称
+     * @param count         执行次数（含不在关键路径上的执行）
+     * @param totalNanos    累计耗时（纳秒）
+     * @param criticalNanos 关键路径上的自身耗时（纳秒），决定该步骤对端到端耗时的影响
+     */
+    public record StepAttribution(String stepName, int count, long totalNanos, long criticalNanos) {
+    }
+
+    /**
+     * 并行分支的松弛时间
+     *
+     * @param parallelStep  并行步骤名称
+     * @param branch        分支起始步骤名称
+     * @param durationNanos 分支耗时（纳秒）
+     * @param slackNanos    比关键分支早完成的时长（纳秒），关键分支为0；该分支变慢不超过此值时不影响端到端耗时
+     * @param critical      是否为关键分支（决定并行步骤何时结束的分支；并行步骤本身不一定在关键路径上）
+     */
+    public record BranchSlack(String parallelStep, String branch, long durationNanos, long slackNanos,
+                              boolean critical) {
+    }
+}
@@ -0,0 +1,128 @@
+package source.hanger.flow.completable.runtime.analysis;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 多次执行的关键路径汇总（不可变）
+ *
+ * @param flows 各流程的汇总，按流程名称、版本号排序
+ */
+public record CriticalPathStatistics(List<FlowStatistics> flows) {
+
+    public CriticalPathStatistics {
+        flows = List.copyOf(flows);
+    }
+
+    /**
+     * 查找流程汇总
+     *
+     * @param flowName    流程名称
+     * @param flowVersion 流程版本号，可为null
+     * @return 流程汇总，不存在时返回null
+     */
+    public FlowStatistics flow(String flowName, String flowVersion) {
+        for (FlowStatistics flow : flows) {
+            if (flow.flowName().equals(flowName) && Objects.equals(flow.flowVersion(), flowVersion)) {
+                return flow;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单个流程的汇总
+     *
+     * @param flowName    流程名称
+     * @param flowVersion 流程版本号，可为null
+     * @param runs        分析的执行次数
+     * @param totalNanos  端到端耗时之和（纳秒）
+     * @param steps       各步骤汇总，按关键路径耗时从多到少排列（第一个即最值得优化的步骤）
+     * @param branches    各并行分支汇总，按并行步骤、分支名称排序
+     */
+    public record FlowStatistics(String flowName, String flowVersion, long runs, long totalNanos,
+                                 List<StepStatistics> steps, List<BranchStatistics> branches) {
+
+        public FlowStatistics {
+            steps = List.copyOf(steps);
+            branches = List.copyOf(branches);
+        }
+
+        /**
+         * 平均端到端耗时（纳秒）
+         */
+        public long meanTotalNanos() {
+            return runs == 0 ? 0 : totalNanos / runs;
+        }
+
+        /**
+         * 查找步骤汇总
+         *
+         * @return 步骤汇总，不存在时返回null
+         */
+        public StepStatistics step(String stepName) {
+            for (StepStatistics step : steps) {
+                if (step.stepName().equals(stepName)) {
+                    return step;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 查找分支汇总
+         *
+         * @return 分支汇总，不存在时返回null
+         */
+        public BranchStatistics branch(String parallelStep, String branch) {
+            for (BranchStatistics statistics : branches) {
+                if (statistics.parallelStep().equals(parallelStep) && statistics.branch().equals(branch)) {
+                    return statistics;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 步骤占端到端耗时的比例（关键路径耗时之和 / 端到端耗时之和）
+         */
+        public double share(String stepName) {
+            StepStatistics step = step(stepName);
+            return step == null || totalNanos == 0 ? 0 : (double) step.criticalNanos() / totalNanos;
+        }
+    }
+
+    /**
+     * 单个步骤的汇总
+     *
+     * @param stepName      步骤名称
+     * @param executions    执行次数
+     * @param criticalRuns  出现在关键路径上的执行次数（按流程执行计）
+     * @param totalNanos    累计耗时（纳秒）
+     * @param criticalNanos 关键路径上的自身耗时之和（纳秒）
+     */
+    public record StepStatistics(String stepName, long executions, long criticalRuns, long totalNanos,
+                                 long criticalNanos) {
+    }
+
+    /**
+     * 单个并行分支的汇总
+     *
+     * @param parallelStep    并行步骤名称
+     * @param branch          分支起始步骤名称
+     * @param runs            执行次数
+     * @param criticalRuns    成为关键分支的次数
+     * @param totalSlackNanos 松弛时间之和（纳秒）
+     * @param minSlackNanos   最小松弛时间（纳秒），越接近0越容易成为瓶颈
+     */
+    public record BranchStatistics(String parallelStep, String branch, long runs, long criticalRuns,
+                                   long totalSlackNanos, long minSlackNanos) {
+
+        /**
+         * 平均松弛时间（纳秒）
+         */
+        public long meanSlackNanos() {
+            return runs == 0 ? 0 : totalSlackNanos / runs;
+        }
+    }
+}
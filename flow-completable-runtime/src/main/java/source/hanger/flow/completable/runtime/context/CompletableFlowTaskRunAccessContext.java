@@ -15,6 +15,8 @@ public class CompletableFlowTaskRunAccessContext extends FlowTaskRunAccessContex
     private static final long serialVersionUID = 693063723062384847L;
     private final FlowExecutionContext flowContext;
     private final String stepName;
+    /** 任务是否已超时 */
+    private volatile boolean timedOut;
 
     public CompletableFlowTaskRunAccessContext(FlowExecutionContext flowContext, String stepName) {
         this.flowContext = flowContext;
@@ -35,6 +37,24 @@ public class CompletableFlowTaskRunAccessContext extends FlowTaskRunAccessContex
         return stepName;
     }
 
+    /**
+     * 标记任务已超时
+     */
+    public void markTimedOut() {
+        timedOut = true;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 任务已超时或所属执行已取消
+     */
+    public boolean isCancelled() {
+        return timedOut || flowContext.isCancelled();
+    }
+
     public java.util.Map<String, java.io.Serializable> getParams() {
         return flowContext.getParams();
     }
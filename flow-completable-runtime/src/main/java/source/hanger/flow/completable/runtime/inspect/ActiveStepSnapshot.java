@@ -0,0 +1,18 @@
+package source.hanger.flow.completable.runtime.inspect;
+
+import java.time.Duration;
+
+/**
+ * 运行中执行的活动步骤快照
+ *
+ * @param stepName        步骤名称
+ * @param timeInStepNanos 在该步骤上已停留的时长（纳秒）
+ * @param ownerThread     所属线程名称（任务步骤为执行任务体的线程）
+ * @param ownerThreadId   所属线程ID
+ */
+public record ActiveStepSnapshot(String stepName, long timeInStepNanos, String ownerThread, long ownerThreadId) {
+
+    public Duration timeInStep() {
+        return Duration.ofNanos(timeInStepNanos);
+    }
+}
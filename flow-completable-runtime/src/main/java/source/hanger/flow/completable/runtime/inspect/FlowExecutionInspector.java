@@ -0,0 +1,155 @@
+package source.hanger.flow.completable.runtime.inspect;
+
+import source.hanger.flow.core.runtime.FlowExecutionManager;
+import source.hanger.flow.core.runtime.FlowExecutionState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * 运行中执行的实时查询
+ * <p>
+ * 作用：
+ *   - 列出运行中的执行及其活动步骤、在各活动步骤上的停留时长、运行时长和所属线程
+ *   - 查询运行最久的N个执行、在指定步骤上停留超过阈值的执行
+ * <p>
+ * 使用方式：
+ * <pre>
+ * // 当前在charge步骤上卡住超过30秒的执行
+ * engine.getInspector().getExecutionsInStep("charge", Duration.ofSeconds(30));
+ * </pre>
+ * <p>
+ * 设计说明：
+ *   - 数据来自执行状态中由执行线程直接写入的活动步骤记录（见{@link FlowExecutionState#stepStarted}），
+ *     查询只遍历运行中的执行并读取其不可变的活动步骤记录，不同步事件日志、不加锁
+ *   - 并行分支同时运行时每个分支的步骤都是活动步骤，可分别按步骤查询；并行节点本身不作为活动步骤
+ *   - 弱一致：快照期间开始或结束的执行、步骤可能出现也可能不出现
+ *   - 任务步骤的所属线程是执行任务体（异步任务为发起调用）的线程，可据此查看卡住的线程栈；
+ *     任务体开始运行前及其他类型的步骤为推进步骤的线程
+ */
+public class FlowExecutionInspector {
+
+    private static final Comparator<FlowExecutionState> BY_START =
+        Comparator.comparingLong(FlowExecutionState::getStartNanos);
+
+    private final FlowExecutionManager executionManager;
+
+    public FlowExecutionInspector(FlowExecutionManager executionManager) {
+        this.executionManager = Objects.requireNonNull(executionManager, "executionManager");
+    }
+
+    /**
+     * 所有运行中执行的快照
+     */
+    public List<RunningExecution> getRunningExecutions() {
+        long now = System.nanoTime();
+        List<RunningExecution> executions = new ArrayList<>();
+        executionManager.forEachRunningExecution(state -> executions.add(snapshot(state, now)));
+        return executions;
+    }
+
+    /**
+     * 运行最久的执行
+     *
+     * @param limit 最多返回的数量
+     * @return 按运行时长从长到短排列
+     */
+    public List<RunningExecution> getSlowestExecutions(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // 以开始时间为键的大顶堆：堆顶是已选出的执行中开始最晚的，遇到更早开始的执行时替换
+        PriorityQueue<FlowExecutionState> heap = new PriorityQueue<>(limit, BY_START.reversed());
+        executionManager.forEachRunningExecution(state -> {
+            if (heap.size() < limit) {
+                heap.add(state);
+            } else if (state.getStartNanos() < heap.peek().getStartNanos()) {
+                heap.poll();
+                heap.add(state);
+            }
+        });
+        long now = System.nanoTime();
+        List<RunningExecution> executions = new ArrayList<>(heap.size());
+        for (FlowExecutionState state : heap) {
+            executions.add(snapshot(state, now));
+        }
+        executions.sort(Comparator.comparingLong(RunningExecution::elapsedNanos).reversed());
+        return executions;
+    }
+
+    /**
+     * 指定步骤处于活动状态且停留时长不少于阈值的执行
+     *
+     * @param stepName      步骤名称
+     * @param minTimeInStep 停留时长阈值
+     * @return 按停留时长从长到短排列
+     */
+    public List<RunningExecution> getExecutionsInStep(String stepName, Duration minTimeInStep) {
+        long thresholdNanos = minTimeInStep.toNanos();
+        long now = System.nanoTime();
+        List<RunningExecution> executions = new ArrayList<>();
+        executionManager.forEachRunningExecution(state -> {
+            List<FlowExecutionState.ActiveStep> activeSteps = state.getActiveSteps();
+            for (FlowExecutionState.ActiveStep step : activeSteps) {
+                if (stepName.equals(step.stepName()) && now - step.startNanos() >= thresholdNanos) {
+                    executions.add(snapshot(state, activeSteps, step, now));
+                    break;
+                }
+            }
+        });
+        executions.sort(Comparator.comparingLong(RunningExecution::timeInStepNanos).reversed());
+        return executions;
+    }
+
+    /**
+     * 生成单个执行的快照，所关注的步骤为停留最久的活动步骤
+     *
+     * @param state 执行状态
+     * @param now   当前时间（System.nanoTime）
+     */
+    static RunningExecution snapshot(FlowExecutionState state, long now) {
+        List<FlowExecutionState.ActiveStep> activeSteps = state.getActiveSteps();
+        FlowExecutionState.ActiveStep longest = null;
+        for (FlowExecutionState.ActiveStep step : activeSteps) {
+            if (longest == null || step.startNanos() < longest.startNanos()) {
+                longest = step;
+            }
+        }
+        return snapshot(state, activeSteps, longest, now);
+    }
+
+    /**
+     * 按已读取的活动步骤记录生成快照，所关注步骤的名称、线程和开始时间取自同一条记录
+     *
+     * @param state       执行状态
+     * @param activeSteps 已读取的活动步骤记录
+     * @param focus       所关注的活动步骤，没有活动步骤时为null
+     * @param now         当前时间（System.nanoTime）
+     */
+    static RunningExecution snapshot(FlowExecutionState state, List<FlowExecutionState.ActiveStep> activeSteps,
+                                     FlowExecutionState.ActiveStep focus, long now) {
+        long elapsedNanos = Math.max(0, now - state.getStartNanos());
+        List<ActiveStepSnapshot> steps = new ArrayList<>(activeSteps.size());
+        for (FlowExecutionState.ActiveStep step : activeSteps) {
+            steps.add(snapshot(step, now));
+        }
+        steps.sort(Comparator.comparingLong(ActiveStepSnapshot::timeInStepNanos).reversed());
+        if (focus == null) {
+            return new RunningExecution(state.getExecutionId(), state.getFlowName(), null, elapsedNanos, elapsedNanos,
+                null, -1, List.copyOf(steps));
+        }
+        ActiveStepSnapshot current = snapshot(focus, now);
+        return new RunningExecution(state.getExecutionId(), state.getFlowName(), current.stepName(),
+            current.timeInStepNanos(), elapsedNanos, current.ownerThread(), current.ownerThreadId(), List.copyOf(steps));
+    }
+
+    private static ActiveStepSnapshot snapshot(FlowExecutionState.ActiveStep step, long now) {
+        Thread thread = step.thread();
+        return new ActiveStepSnapshot(step.stepName(), Math.max(0, now - step.startNanos()),
+            thread != null ? thread.getName() : null, thread != null ? thread.getId() : -1);
+    }
+}
@@ -0,0 +1,157 @@
+package source.hanger.flow.completable.runtime.inspect;
+
+import source.hanger.flow.completable.runtime.FlowTimeoutScheduler;
+import source.hanger.flow.core.runtime.FlowExecutionManager;
+import source.hanger.flow.core.runtime.FlowExecutionState;
+import source.hanger.flow.core.util.FlowLogger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 慢执行巡检
+ * <p>
+ * 作用：
+ *   - 定期检查运行中的执行，活动步骤停留时长超过阈值时通知监听器（默认记录WARNING日志）；
+ *     并行分支同时运行时逐个检查各分支的活动步骤
+ *   - 阈值可按步骤名称单独设置，未单独设置的步骤使用默认阈值
+ * <p>
+ * 使用方式：
+ * <pre>
+ * FlowWatchdog watchdog = new FlowWatchdog(engine.getExecutionManager(), Duration.ofSeconds(30));
+ * watchdog.setStepThreshold("charge", Duration.ofSeconds(5));
+ * watchdog.start(Duration.ofSeconds(1));
+ * </pre>
+ * <p>
+ * 设计说明：
+ *   - 巡检在共享的定时线程（{@link FlowTimeoutScheduler}）上进行，只读取执行状态中的活动步骤记录，不影响执行；
+ *     监听器在该线程上回调，应快速返回
+ *   - 同一执行的同一次步骤停留只通知一次，步骤结束后不再参与巡检
+ *   - 只做检测和通知，不取消执行；需要强制结束时使用步骤或流程超时
+ */
+public class FlowWatchdog {
+
+    /**
+     * 慢执行监听器
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * 活动步骤停留时长超过阈值
+         *
+         * @param execution 执行快照，currentStep为超过阈值的步骤
+         * @param threshold 该步骤的阈值
+         */
+        void onSlowStep(RunningExecution execution, Duration threshold);
+    }
+
+    /** 默认监听器：记录WARNING日志 */
+    public static final Listener LOGGING_LISTENER = (execution, threshold) ->
+        FlowLogger.log(FlowLogger.Level.WARNING, new FlowLogger.FlowLogContext(execution.flowName(), null,
+                execution.executionId(), execution.currentStep()), "🐢 步骤停留 {}ms 超过阈值 {}ms，所属线程: {}",
+            execution.timeInStep().toMillis(), threshold.toMillis(), execution.ownerThread());
+
+    private final FlowExecutionManager executionManager;
+    private final long defaultThresholdNanos;
+    private final Map<String, Long> stepThresholdNanos = new ConcurrentHashMap<>();
+    /** 已通知的执行 -> (步骤名称 -> 通知时该步骤的开始时间)，仅在巡检线程上访问 */
+    private Map<String, Map<String, Long>> flagged = new HashMap<>();
+    private volatile Listener listener = LOGGING_LISTENER;
+    private ScheduledFuture<?> schedule;
+
+    /**
+     * @param executionManager 执行管理器
+     * @param defaultThreshold 默认步骤停留阈值
+     */
+    public FlowWatchdog(FlowExecutionManager executionManager, Duration defaultThreshold) {
+        this.executionManager = Objects.requireNonNull(executionManager, "executionManager");
+        this.defaultThresholdNanos = defaultThreshold.toNanos();
+    }
+
+    /**
+     * 设置指定步骤的阈值
+     *
+     * @param stepName  步骤名称
+     * @param threshold 阈值，为null时恢复使用默认阈值
+     */
+    public void setStepThreshold(String stepName, Duration threshold) {
+        if (threshold == null) {
+            stepThresholdNanos.remove(stepName);
+        } else {
+            stepThresholdNanos.put(stepName, threshold.toNanos());
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /**
+     * 开始定期巡检，已开始时先停止原有巡检
+     *
+     * @param interval 巡检间隔
+     */
+    public synchronized void start(Duration interval) {
+        stop();
+        schedule = FlowTimeoutScheduler.scheduleWithFixedDelay(this::checkSafely, interval);
+    }
+
+    /**
+     * 停止定期巡检
+     */
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            schedule = null;
+        }
+    }
+
+    /**
+     * 立即巡检一次（与定期巡检不要并发调用）
+     *
+     * @return 本次新通知的执行数
+     */
+    public int check() {
+        long now = System.nanoTime();
+        Map<String, Map<String, Long>> stillFlagged = new HashMap<>();
+        int[] notified = new int[1];
+        Listener target = listener;
+        executionManager.forEachRunningExecution(state -> {
+            List<FlowExecutionState.ActiveStep> activeSteps = state.getActiveSteps();
+            for (FlowExecutionState.ActiveStep step : activeSteps) {
+                long stepStartNanos = step.startNanos();
+                long thresholdNanos = stepThresholdNanos.getOrDefault(step.stepName(), defaultThresholdNanos);
+                if (now - stepStartNanos < thresholdNanos) {
+                    continue;
+                }
+                String executionId = state.getExecutionId();
+                stillFlagged.computeIfAbsent(executionId, id -> new HashMap<>()).put(step.stepName(), stepStartNanos);
+                Map<String, Long> flaggedSteps = flagged.get(executionId);
+                Long flaggedStart = flaggedSteps != null ? flaggedSteps.get(step.stepName()) : null;
+                if (flaggedStart == null || flaggedStart != stepStartNanos) {
+                    notified[0]++;
+                    target.onSlowStep(FlowExecutionInspector.snapshot(state, activeSteps, step, now),
+                        Duration.ofNanos(thresholdNanos));
+                }
+            }
+        });
+        // 只保留仍停留在超时步骤上的执行，已结束或已前进的步骤不再占用记录
+        flagged = stillFlagged;
+        return notified[0];
+    }
+
+    private void checkSafely() {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            // 吞掉异常：周期任务抛出异常会终止后续巡检
+            FlowLogger.log(FlowLogger.Level.WARNING, new FlowLogger.FlowLogContext(null, null, null, null),
+                "执行巡检异常: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package source.hanger.flow.completable.runtime.inspect;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 运行中执行的快照
+ * <p>
+ * currentStep及其停留时长、所属线程描述所关注的一个活动步骤：按执行查询时为停留最久的活动步骤，
+ * 按步骤查询或巡检通知时为命中的步骤；并行分支同时运行时全部活动步骤见activeSteps
+ *
+ * @param executionId     执行ID
+ * @param flowName        流程名称
+ * @param currentStep     所关注的活动步骤，没有活动步骤时为null
+ * @param timeInStepNanos 在所关注步骤上已停留的时长（纳秒），没有活动步骤时为自执行开始的时长
+ * @param elapsedNanos    自执行开始的时长（纳秒）
+ * @param ownerThread     所关注步骤的所属线程名称（任务步骤为执行任务体的线程），没有活动步骤时为null
+ * @param ownerThreadId   所关注步骤的所属线程ID，没有活动步骤时为-1
+ * @param activeSteps     全部活动步骤，按停留时长从长到短排列
+ */
+public record RunningExecution(String executionId, String flowName, String currentStep, long timeInStepNanos,
+                               long elapsedNanos, String ownerThread, long ownerThreadId,
+                               List<ActiveStepSnapshot> activeSteps) {
+
+    public Duration timeInStep() {
+        return Duration.ofNanos(timeInStepNanos);
+    }
+
+    public Duration elapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+}
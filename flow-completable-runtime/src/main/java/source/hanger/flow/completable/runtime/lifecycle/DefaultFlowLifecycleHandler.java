@@ -15,7 +15,7 @@ import source.hanger.flow.core.util.FlowLogger;
 public class DefaultFlowLifecycleHandler implements FlowLifecycleHandler {
     @Override
     public void onFlowStart(FlowDefinition flowDefinition, FlowExecutionContext context) {
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(flowDefinition.getName(), flowDefinition.getVersion(), context.getExecutionId(), null), "流程生命周期: 开始执行");
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(), "流程生命周期: 开始执行");
         // 调用DSL定义的流程进入回调
         if (flowDefinition.getEnterHandingRunnable() != null) {
             var accessContext = new CompletableFlowEnterHandingAccessContext(context);
@@ -26,12 +26,12 @@ public class DefaultFlowLifecycleHandler implements FlowLifecycleHandler {
 
     @Override
     public void onFlowComplete(FlowDefinition flowDefinition, FlowExecutionContext context) {
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(flowDefinition.getName(), flowDefinition.getVersion(), context.getExecutionId(), null), "流程生命周期: 执行完成");
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(), "流程生命周期: 执行完成");
     }
 
     @Override
     public void onFlowError(FlowDefinition flowDefinition, FlowExecutionContext context, Exception error) {
-        FlowLogger.log(FlowLogger.Level.DEBUG, new FlowLogger.FlowLogContext(flowDefinition.getName(), flowDefinition.getVersion(), context.getExecutionId(), null), "流程生命周期: 执行错误 - " + error.getMessage());
+        FlowLogger.log(FlowLogger.Level.DEBUG, context.getLogContext(), "流程生命周期: 执行错误 - {}", error.getMessage());
         // 调用DSL定义的流程错误回调
         if (flowDefinition.getErrorHandingRunnable() != null) {
             var accessContext
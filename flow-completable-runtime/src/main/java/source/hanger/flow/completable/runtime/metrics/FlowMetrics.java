@@ -0,0 +1,177 @@
+package source.hanger.flow.completable.runtime.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 引擎内置的执行指标收集器
+ * <p>
+ * 作用：
+ *   - 按流程（名称+版本）记录执行数、成功数、失败数、在途执行数及执行耗时分布
+ *   - 按流程内的步骤记录执行数、失败数、在途步骤数及步骤耗时分布，用于定位拖慢p99的步骤
+ *   - 通过{@link #snapshot()}取得当前指标的不可变快照，供本地采集
+ * <p>
+ * 使用方式：
+ * <pre>
+ * FlowMetrics metrics = new FlowMetrics();
+ * engine.setMetrics(metrics);
+ * ...
+ * FlowMetricsSnapshot snapshot = metrics.snapshot();
+ * </pre>
+ * <p>
+ * 设计说明：
+ *   - 记录器（FlowRecorder、StepRecorder）在流程、步骤首次出现时创建，之后的查找为ConcurrentHashMap的无锁读
+ *   - 记录只做原子累加和直方图计数，无锁、不分配对象；每个步骤的内存占用固定（见{@link LatencyHistogram}）
+ *   - 引擎在执行开始时查找流程记录器、在步骤开始时查找步骤记录器，结束时直接记录
+ *   - 指标只增不减，流程定义卸载后其指标仍保留，需要时调用{@link #reset()}
+ */
+public final class FlowMetrics {
+
+    /** 未设置版本号的流程使用的版本键 */
+    private static final String NO_VERSION = "";
+
+    /** 流程名称 -> 版本号 -> 流程记录器 */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, FlowRecorder>> flows = new ConcurrentHashMap<>();
+
+    /**
+     * 获取流程记录器，首次出现时创建
+     *
+     * @param flowName    流程名称
+     * @param flowVersion 流程版本号，可为null
+     * @return 流程记录器
+     */
+    public FlowRecorder flow(String flowName, String flowVersion) {
+        String name = flowName != null ? flowName : "";
+        String version = flowVersion != null ? flowVersion : NO_VERSION;
+        ConcurrentHashMap<String, FlowRecorder> versions = flows.get(name);
+        if (versions == null) {
+            versions = flows.computeIfAbsent(name, key -> new ConcurrentHashMap<>(4));
+        }
+        FlowRecorder recorder = versions.get(version);
+        if (recorder == null) {
+            recorder = versions.computeIfAbsent(version, key -> new FlowRecorder(name, flowVersion));
+        }
+        return recorder;
+    }
+
+    /**
+     * 当前指标的快照，按流程名称、版本号、步骤名称排序
+     */
+    public FlowMetricsSnapshot snapshot() {
+        List<FlowMetricsSnapshot.FlowSnapshot> snapshots = new ArrayList<>();
+        flows.forEach((name, versions) -> versions.forEach((version, recorder) -> snapshots.add(recorder.snapshot())));
+        snapshots.sort(FlowMetricsSnapshot.FlowSnapshot.ORDER);
+        return new FlowMetricsSnapshot(System.currentTimeMillis(), snapshots);
+    }
+
+    /**
+     * 清空所有指标；已被在途执行持有的记录器继续记录，但不再出现在快照中
+     */
+    public void reset() {
+        flows.clear();
+    }
+
+    /**
+     * 流程记录器
+     */
+    public static final class FlowRecorder {
+        private final String flowName;
+        private final String flowVersion;
+        private final LongAdder started = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final ConcurrentHashMap<String, StepRecorder> steps = new ConcurrentHashMap<>();
+
+        FlowRecorder(String flowName, String flowVersion) {
+            this.flowName = flowName;
+            this.flowVersion = flowVersion;
+        }
+
+        /**
+         * 获取步骤记录器，首次出现时创建
+         *
+         * @param stepName 步骤名称
+         * @return 步骤记录器
+         */
+        public StepRecorder step(String stepName) {
+            String name = stepName != null ? stepName : "";
+            StepRecorder recorder = steps.get(name);
+            if (recorder == null) {
+                recorder = steps.computeIfAbsent(name, StepRecorder::new);
+            }
+            return recorder;
+        }
+
+        /**
+         * 执行开始
+         */
+        public void executionStarted() {
+            started.increment();
+            inFlight.incrementAndGet();
+        }
+
+        /**
+         * 执行结束
+         *
+         * @param success 是否成功
+         * @param nanos   执行耗时（纳秒）
+         */
+        public void executionFinished(boolean success, long nanos) {
+            inFlight.decrementAndGet();
+            (success ? succeeded : failed).increment();
+            latency.record(nanos);
+        }
+
+        FlowMetricsSnapshot.FlowSnapshot snapshot() {
+            List<FlowMetricsSnapshot.StepSnapshot> stepSnapshots = new ArrayList<>(steps.size());
+            steps.forEach((name, recorder) -> stepSnapshots.add(recorder.snapshot()));
+            stepSnapshots.sort(FlowMetricsSnapshot.StepSnapshot.ORDER);
+            return new FlowMetricsSnapshot.FlowSnapshot(flowName, flowVersion, started.sum(), succeeded.sum(),
+                failed.sum(), inFlight.get(), latency.snapshot(), List.copyOf(stepSnapshots));
+        }
+    }
+
+    /**
+     * 步骤记录器
+     */
+    public static final class StepRecorder {
+        private final String stepName;
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        StepRecorder(String stepName) {
+            this.stepName = stepName;
+        }
+
+        /**
+         * 步骤开始
+         */
+        public void started() {
+            inFlight.incrementAndGet();
+        }
+
+        /**
+         * 步骤结束
+         *
+         * @param nanos 步骤耗时（纳秒）
+         * @param error 是否失败
+         */
+        public void finished(long nanos, boolean error) {
+            inFlight.decrementAndGet();
+            if (error) {
+                errors.increment();
+            }
+            latency.record(nanos);
+        }
+
+        FlowMetricsSnapshot.StepSnapshot snapshot() {
+            return new FlowMetricsSnapshot.StepSnapshot(stepName, errors.sum(), inFlight.get(), latency.snapshot());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package source.hanger.flow.completable.runtime.metrics;
+
+import source.hanger.flow.completable.runtime.metrics.LatencyHistogram.LatencySnapshot;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 执行指标快照（不可变）
+ * <p>
+ * 汇总值（总执行数、在途执行数等）由各流程的快照累加得到
+ *
+ * @param timestampMillis 快照时间（毫秒时间戳）
+ * @param flows           各流程的指标，按流程名称、版本号排序
+ */
+public record FlowMetricsSnapshot(long timestampMillis, List<FlowSnapshot> flows) {
+
+    public FlowMetricsSnapshot {
+        flows = List.copyOf(flows);
+    }
+
+    /**
+     * 所有流程的执行开始数
+     */
+    public long executionsStarted() {
+        return flows.stream().mapToLong(FlowSnapshot::started).sum();
+    }
+
+    /**
+     * 所有流程的执行失败数
+     */
+    public long executionsFailed() {
+        return flows.stream().mapToLong(FlowSnapshot::failed).sum();
+    }
+
+    /**
+     * 所有流程的在途执行数
+     */
+    public long executionsInFlight() {
+        return flows.stream().mapToLong(FlowSnapshot::inFlight).sum();
+    }
+
+    /**
+     * 所有流程的在途步骤数
+     */
+    public long stepsInFlight() {
+        return flows.stream().flatMap(flow -> flow.steps().stream()).mapToLong(StepSnapshot::inFlight).sum();
+    }
+
+    /**
+     * 查找流程指标
+     *
+     * @param flowName    流程名称
+     * @param flowVersion 流程版本号，可为null
+     * @return 流程指标，不存在时返回null
+     */
+    public FlowSnapshot flow(String flowName, String flowVersion) {
+        for (FlowSnapshot flow : flows) {
+            if (flow.flowName().equals(flowName) && Objects.equals(flow.flowVersion(), flowVersion)) {
+                return flow;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 流程指标
+     *
+     * @param flowName    流程名称
+     * @param flowVersion 流程版本号，未设置时为null
+     * @param started     执行开始数
+     * @param succeeded   执行成功数
+     * @param failed      执行失败数（含取消、超时）
+     * @param inFlight    在途执行数
+     * @param latency     执行耗时分布（从启动到终态）
+     * @param steps       各步骤的指标，按步骤名称排序
+     */
+    public record FlowSnapshot(String flowName, String flowVersion, long started, long succeeded, long failed,
+                               long inFlight, LatencySnapshot latency, List<StepSnapshot> steps) {
+
+        static final Comparator<FlowSnapshot> ORDER = Comparator.comparing(FlowSnapshot::flowName)
+            .thenComparing(FlowSnapshot::flowVersion, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        /**
+         * 查找步骤指标
+         *
+         * @param stepName 步骤名称
+         * @return 步骤指标，不存在时返回null
+         */
+        public StepSnapshot step(String stepName) {
+            for (StepSnapshot step : steps) {
+                if (step.stepName().equals(stepName)) {
+                    return step;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 步骤指标
+     *
+     * @param stepName 步骤名称
+     * @param errors   失败次数
+     * @param inFlight 在途数
+     * @param latency  耗时分布（次数即执行次数）
+     */
+    public record StepSnapshot(String stepName, long errors, long inFlight, LatencySnapshot latency) {
+
+        static final Comparator<StepSnapshot> ORDER = Comparator.comparing(StepSnapshot::stepName);
+    }
+}
@@ -0,0 +1,166 @@
+package source.hanger.flow.completable.runtime.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定内存的耗时直方图（纳秒）
+ * <p>
+ * 作用：
+ *   - 记录步骤、执行的耗时分布，快照时计算分位数
+ * <p>
+ * 设计说明：
+ *   - 对数-线性分桶：每个2的幂区间再均分为8个子桶，相对误差不超过12.5%；
+ *     小于8ns的值各占一个桶，超过{@link #MAX_TRACKABLE_NANOS}的值计入最后一个桶
+ *   - 桶数固定为{@link #BUCKET_COUNT}，每个直方图约2.5KB，与记录次数无关
+ *   - 记录只有一次数组下标计算和几次原子累加，无锁、不分配对象
+ *   - 快照先复制桶计数，计数与分位数基于同一份副本，与并发记录之间为弱一致
+ */
+public final class LatencyHistogram {
+
+    /** 每个2的幂区间的子桶数（2^SUB_BUCKET_BITS） */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /** 可精确分桶的最大指数：2^42ns约73分钟 */
+    private static final int MAX_EXPONENT = 41;
+    /** 可精确分桶的最大耗时 */
+    public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_EXPONENT + 1)) - 1;
+    /** 桶数 */
+    public static final int BUCKET_COUNT = ((MAX_EXPONENT - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒），负值按0记录
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.getAndIncrement(bucketIndex(value));
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 当前分布的快照
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new LatencySnapshot(counts, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        if (value > MAX_TRACKABLE_NANOS) {
+            return BUCKET_COUNT - 1;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) | (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * 桶的上界（含）；最后一个桶同时收纳超出范围的值，上界为Long.MAX_VALUE
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        if (index == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lower = (long) (SUB_BUCKET_COUNT | (index & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * 耗时分布快照（不可变）
+     */
+    public static final class LatencySnapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        private LatencySnapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * 记录次数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 耗时总和（纳秒）
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * 最大耗时（纳秒）
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * 平均耗时（纳秒），没有记录时为0
+         */
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * 分位数耗时（纳秒）：取所在桶的上界，不超过最大耗时
+         *
+         * @param percentile 分位（0~100），如99表示p99
+         * @return 分位数耗时，没有记录时为0
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile必须在0~100之间: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "LatencySnapshot{count=" + count + ", meanNanos=" + (long) getMeanNanos()
+                + ", p50Nanos=" + getPercentileNanos(50) + ", p99Nanos=" + getPercentileNanos(99)
+                + ", maxNanos=" + maxNanos + '}';
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package source.hanger.flow.completable.runtime.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 本地文件跨度导出器
+ * <p>
+ * 作用：
+ *   - 把结束的跨度以JSON Lines格式追加写入本地文件，每行一个跨度
+ *   - 字段命名参照OpenTelemetry的OTLP/JSON（traceId、spanId、parentSpanId、startTimeUnixNano等），便于离线导入
+ * <p>
+ * 设计说明：
+ *   - 在结束跨度的线程上格式化，写入时对文件加锁；写入缓冲，按{@link #flush()}或缓冲区满刷出
+ *   - 写入失败抛出UncheckedIOException，由追踪器记录日志，不影响流程执行
+ */
+public class FileFlowSpanExporter implements FlowSpanExporter, AutoCloseable {
+
+    private final BufferedWriter writer;
+
+    /**
+     * @param file 输出文件，不存在时创建，存在时追加
+     * @throws IOException 文件无法打开
+     */
+    public FileFlowSpanExporter(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void export(FlowSpan span) {
+        String line = toJson(span);
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        synchronized (writer) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (writer) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 格式化为一行JSON
+     */
+    static String toJson(FlowSpan span) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"traceId\":\"").append(span.getTraceIdHex())
+            .append("\",\"spanId\":\"").append(span.getSpanIdHex()).append('"');
+        if (span.getParentSpanId() != FlowSpan.NO_PARENT) {
+            json.append(",\"parentSpanId\":\"").append(FlowSpan.toHex(span.getParentSpanId())).append('"');
+        }
+        json.append(",\"name\":");
+        appendString(json, span.getName());
+        json.append(",\"kind\":\"INTERNAL\"")
+            .append(",\"startTimeUnixNano\":").append(span.getStartEpochNanos())
+            .append(",\"endTimeUnixNano\":").append(span.getEndEpochNanos())
+            .append(",\"status\":{\"code\":\"").append(span.getStatus()).append('"');
+        if (span.getStatusDescription() != null) {
+            json.append(",\"message\":");
+            appendString(json, span.getStatusDescription());
+        }
+        json.append("},\"attributes\":{");
+        for (int i = 0; i < span.getAttributeCount(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendString(json, span.getAttributeKey(i));
+            json.append(':');
+            Object value = span.getAttributeValue(i);
+            if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                appendString(json, String.valueOf(value));
+            }
+        }
+        json.append('}');
+        if (span.getLinkCount() > 0) {
+            json.append(",\"links\":[");
+            for (int i = 0; i < span.getLinkCount(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"spanId\":\"").append(FlowSpan.toHex(span.getLink(i))).append("\"}");
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
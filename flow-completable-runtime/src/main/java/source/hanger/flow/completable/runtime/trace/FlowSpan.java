@@ -0,0 +1,270 @@
+package source.hanger.flow.completable.runtime.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行跨度（可回收）
+ * <p>
+ * 作用：
+ *   - 记录一次执行、一个步骤或一个分支的起止时间、状态、属性和关联
+ *   - 语义与OpenTelemetry的Span一致：同一次执行的跨度共享追踪ID（即执行ID），
+ *     以父跨度ID组成树，异步分支通过关联（link）指向发起它的步骤
+ * <p>
+ * 设计说明：
+ *   - 由{@link FlowTracer}创建和结束，结束并导出后回收复用，属性和关联数组随之复用，不逐次分配
+ *   - 跨度之间只引用ID，不持有对象，子跨度可以晚于父跨度结束
+ *   - 一个跨度在同一时刻只由一个线程写入；结束之后不应再访问
+ *   - 时间使用System.nanoTime，纪元时间由追踪器创建时的时钟偏移换算
+ */
+public final class FlowSpan {
+
+    /** 无父跨度 */
+    public static final long NO_PARENT = 0L;
+
+    private static final int INITIAL_ATTRIBUTES = 8;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private long traceIdHigh;
+    private long traceIdLow;
+    private long spanId;
+    private long parentSpanId;
+    private String name;
+    private long startNanos;
+    private long endNanos;
+    private long epochOffsetNanos;
+    private FlowSpanStatus status = FlowSpanStatus.UNSET;
+    private String statusDescription;
+    private String[] attributeKeys = new String[INITIAL_ATTRIBUTES];
+    private Object[] attributeValues = new Object[INITIAL_ATTRIBUTES];
+    private int attributeCount;
+    private long[] links = new long[2];
+    private int linkCount;
+
+    FlowSpan() {
+    }
+
+    void start(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId, String name, long epochOffsetNanos) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.epochOffsetNanos = epochOffsetNanos;
+        this.startNanos = System.nanoTime();
+    }
+
+    void end(FlowSpanStatus status, String statusDescription) {
+        this.endNanos = System.nanoTime();
+        this.status = status;
+        this.statusDescription = statusDescription;
+    }
+
+    /**
+     * 清除内容以便复用
+     */
+    void reset() {
+        name = null;
+        status = FlowSpanStatus.UNSET;
+        statusDescription = null;
+        Arrays.fill(attributeValues, 0, attributeCount, null);
+        attributeCount = 0;
+        linkCount = 0;
+    }
+
+    /**
+     * 设置属性，已存在时覆盖；值为null时忽略
+     *
+     * @param key   属性名（建议使用常量，避免逐次拼接）
+     * @param value 属性值
+     * @return 本跨度
+     */
+    public FlowSpan setAttribute(String key, Object value) {
+        if (value == null) {
+            return this;
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributeKeys[i].equals(key)) {
+                attributeValues[i] = value;
+                return this;
+            }
+        }
+        if (attributeCount == attributeKeys.length) {
+            attributeKeys = Arrays.copyOf(attributeKeys, attributeCount * 2);
+            attributeValues = Arrays.copyOf(attributeValues, attributeCount * 2);
+        }
+        attributeKeys[attributeCount] = key;
+        attributeValues[attributeCount] = value;
+        attributeCount++;
+        return this;
+    }
+
+    /**
+     * 添加指向同一追踪内另一跨度的关联
+     *
+     * @param linkedSpanId 关联的跨度ID
+     * @return 本跨度
+     */
+    public FlowSpan addLink(long linkedSpanId) {
+        if (linkCount == links.length) {
+            links = Arrays.copyOf(links, linkCount * 2);
+        }
+        links[linkCount++] = linkedSpanId;
+        return this;
+    }
+
+    public long getTraceIdHigh() {
+        return traceIdHigh;
+    }
+
+    public long getTraceIdLow() {
+        return traceIdLow;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * 父跨度ID，根跨度为{@link #NO_PARENT}
+     */
+    public long getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 开始时间（System.nanoTime）
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * 结束时间（System.nanoTime）
+     */
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    /**
+     * 开始时间（纪元纳秒）
+     */
+    public long getStartEpochNanos() {
+        return startNanos + epochOffsetNanos;
+    }
+
+    /**
+     * 结束时间（纪元纳秒）
+     */
+    public long getEndEpochNanos() {
+        return endNanos + epochOffsetNanos;
+    }
+
+    public FlowSpanStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * 状态描述（失败原因），可为null
+     */
+    public String getStatusDescription() {
+        return statusDescription;
+    }
+
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    public String getAttributeKey(int index) {
+        return attributeKeys[index];
+    }
+
+    public Object getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    /**
+     * 按名称读取属性
+     *
+     * @return 属性值，不存在时返回null
+     */
+    public Object getAttribute(String key) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributeKeys[i].equals(key)) {
+                return attributeValues[i];
+            }
+        }
+        return null;
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    public long getLink(int index) {
+        return links[index];
+    }
+
+    /**
+     * 追踪ID（32位十六进制）
+     */
+    public String getTraceIdHex() {
+        char[] chars = new char[32];
+        writeHex(traceIdHigh, chars, 0);
+        writeHex(traceIdLow, chars, 16);
+        return new String(chars);
+    }
+
+    /**
+     * 跨度ID（16位十六进制）
+     */
+    public String getSpanIdHex() {
+        return toHex(spanId);
+    }
+
+    /**
+     * 复制为不可变数据
+     */
+    public FlowSpanData toData() {
+        Map<String, Object> attributes = new LinkedHashMap<>(attributeCount * 2);
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put(attributeKeys[i], attributeValues[i]);
+        }
+        List<String> linkIds = new ArrayList<>(linkCount);
+        for (int i = 0; i < linkCount; i++) {
+            linkIds.add(toHex(links[i]));
+        }
+        return new FlowSpanData(getTraceIdHex(), getSpanIdHex(), parentSpanId == NO_PARENT ? null : toHex(parentSpanId),
+            name, getStartEpochNanos(), getEndEpochNanos(), endNanos - startNanos, status, statusDescription,
+            Collections.unmodifiableMap(attributes), Collections.unmodifiableList(linkIds));
+    }
+
+    /**
+     * 64位ID的16位十六进制表示
+     */
+    public static String toHex(long id) {
+        char[] chars = new char[16];
+        writeHex(id, chars, 0);
+        return new String(chars);
+    }
+
+    private static void writeHex(long value, char[] chars, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FlowSpan{name=" + name + ", spanId=" + getSpanIdHex() + ", status=" + status + '}';
+    }
+}
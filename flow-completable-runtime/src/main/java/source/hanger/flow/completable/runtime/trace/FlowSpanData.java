@@ -0,0 +1,24 @@
+package source.hanger.flow.completable.runtime.trace;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨度数据的不可变副本，供导出器保留
+ *
+ * @param traceId           追踪ID（32位十六进制，即执行ID的128位值）
+ * @param spanId            跨度ID（16位十六进制）
+ * @param parentSpanId      父跨度ID，根跨度为null
+ * @param name              跨度名称
+ * @param startEpochNanos   开始时间（纪元纳秒）
+ * @param endEpochNanos     结束时间（纪元纳秒）
+ * @param durationNanos     耗时（纳秒，由nanoTime计算）
+ * @param status            状态
+ * @param statusDescription 状态描述（失败原因），可为null
+ * @param attributes        属性（按写入顺序）
+ * @param links             关联的跨度ID（同一追踪内）
+ */
+public record FlowSpanData(String traceId, String spanId, String parentSpanId, String name, long startEpochNanos,
+                           long endEpochNanos, long durationNanos, FlowSpanStatus status, String statusDescription,
+                           Map<String, Object> attributes, List<String> links) {
+}
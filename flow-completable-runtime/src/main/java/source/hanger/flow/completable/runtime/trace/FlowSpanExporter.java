@@ -0,0 +1,34 @@
+package source.hanger.flow.completable.runtime.trace;
+
+/**
+ * 跨度导出器
+ * <p>
+ * 作用：
+ *   - 接收结束的跨度，写入内存、文件或外部追踪系统
+ * <p>
+ * 设计说明：
+ *   - export在结束跨度的线程上同步调用，返回后跨度即被回收复用，需要保留的数据须在调用内复制
+ *     （如{@link FlowSpan#toData()}）
+ *   - 可能被多个线程并发调用，实现需线程安全；export抛出的异常只记录日志，不影响流程执行
+ */
+public interface FlowSpanExporter {
+
+    /**
+     * 导出一个已结束的跨度
+     *
+     * @param span 跨度，仅在本次调用内有效
+     */
+    void export(FlowSpan span);
+
+    /**
+     * 刷出缓冲的数据
+     */
+    default void flush() {
+    }
+
+    /**
+     * 关闭导出器，释放资源
+     */
+    default void close() {
+    }
+}
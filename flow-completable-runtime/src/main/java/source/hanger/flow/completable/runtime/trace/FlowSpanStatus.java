@@ -0,0 +1,13 @@
+package source.hanger.flow.completable.runtime.trace;
+
+/**
+ * 跨度状态，与OpenTelemetry的StatusCode一致
+ */
+public enum FlowSpanStatus {
+    /** 未设置 */
+    UNSET,
+    /** 成功 */
+    OK,
+    /** 失败 */
+    ERROR
+}
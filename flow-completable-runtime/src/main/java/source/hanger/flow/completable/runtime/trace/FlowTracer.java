@@ -0,0 +1,223 @@
+package source.hanger.flow.completable.runtime.trace;
+
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.contract.model.StepDefinition;
+import source.hanger.flow.core.runtime.FlowExecutionContext;
+import source.hanger.flow.core.runtime.FlowExecutionId;
+import source.hanger.flow.core.runtime.FlowResult;
+import source.hanger.flow.core.util.FlowLogger;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 执行追踪器
+ * <p>
+ * 作用：
+ *   - 为引擎生成跨度树：每次执行一个根跨度，每个步骤一个子跨度；
+ *     并行分支为并行步骤的子跨度，异步分支为根跨度的子跨度并关联（link）发起它的异步步骤
+ *   - 跨度结束时记录状态（失败时附带exception.type/exception.message）和选定参数，交给导出器
+ * <p>
+ * 使用方式：
+ * <pre>
+ * InMemoryFlowSpanExporter exporter = new InMemoryFlowSpanExporter(10_000);
+ * engine.setTracer(new FlowTracer(exporter, "orderId", "status"));
+ * </pre>
+ * <p>
+ * 设计说明：
+ *   - 追踪ID即执行ID的128位值，日志中的执行ID可直接用于检索追踪
+ *   - 跨度对象放回固定大小的回收池（按随机起点探测少量槽位的原子数组），池满时丢弃，池空时新建；
+ *     取用和归还都只有原子交换，不加锁
+ *   - 属性名均为常量，参数属性名在创建追踪器时预先拼接，记录跨度时不拼接字符串
+ */
+public final class FlowTracer {
+
+    /** 属性：流程名称 */
+    public static final String ATTR_FLOW_NAME = "flow.name";
+    /** 属性：流程版本号 */
+    public static final String ATTR_FLOW_VERSION = "flow.version";
+    /** 属性：执行ID */
+    public static final String ATTR_EXECUTION_ID = "flow.execution.id";
+    /** 属性：跨度类型（execution / step / branch） */
+    public static final String ATTR_SPAN_TYPE = "flow.span.type";
+    /** 属性：步骤类型（步骤定义的类名） */
+    public static final String ATTR_STEP_TYPE = "flow.step.type";
+    /** 属性：分支类型（parallel / async） */
+    public static final String ATTR_BRANCH_TYPE = "flow.branch.type";
+    /** 属性：并行分支是否参与汇合（true时分支的完成决定并行步骤何时结束） */
+    public static final String ATTR_BRANCH_JOIN = "flow.branch.join";
+    /** 属性：异常类型（OpenTelemetry语义约定） */
+    public static final String ATTR_EXCEPTION_TYPE = "exception.type";
+    /** 属性：异常信息（OpenTelemetry语义约定） */
+    public static final String ATTR_EXCEPTION_MESSAGE = "exception.message";
+    /** 选定参数的属性名前缀 */
+    public static final String ATTR_PARAM_PREFIX = "flow.param.";
+
+    /** 跨度类型 */
+    public static final String SPAN_TYPE_EXECUTION = "execution";
+    public static final String SPAN_TYPE_STEP = "step";
+    public static final String SPAN_TYPE_BRANCH = "branch";
+    /** 分支类型 */
+    public static final String BRANCH_TYPE_PARALLEL = "parallel";
+    public static final String BRANCH_TYPE_ASYNC = "async";
+
+    /** 默认回收池大小 */
+    public static final int DEFAULT_POOL_SIZE = 256;
+    /** 取用、归还时探测的槽位数 */
+    private static final int POOL_PROBES = 4;
+
+    private final FlowSpanExporter exporter;
+    private final String[] paramKeys;
+    private final String[] paramAttributeKeys;
+    private final AtomicReferenceArray<FlowSpan> pool;
+    private final int poolMask;
+    /** nanoTime到纪元纳秒的偏移 */
+    private final long epochOffsetNanos;
+
+    /**
+     * @param exporter  导出器
+     * @param paramKeys 跨度结束时记录的参数名
+     */
+    public FlowTracer(FlowSpanExporter exporter, String... paramKeys) {
+        this(exporter, DEFAULT_POOL_SIZE, paramKeys);
+    }
+
+    /**
+     * @param exporter  导出器
+     * @param poolSize  回收池大小，向上取整为2的幂，0表示不回收
+     * @param paramKeys 跨度结束时记录的参数名
+     */
+    public FlowTracer(FlowSpanExporter exporter, int poolSize, String... paramKeys) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("poolSize不能为负数: " + poolSize);
+        }
+        this.exporter = Objects.requireNonNull(exporter, "exporter");
+        this.paramKeys = paramKeys.clone();
+        this.paramAttributeKeys = new String[paramKeys.length];
+        for (int i = 0; i < paramKeys.length; i++) {
+            paramAttributeKeys[i] = ATTR_PARAM_PREFIX + Objects.requireNonNull(paramKeys[i], "paramKey");
+        }
+        int capacity = poolSize == 0 ? 0 : Integer.highestOneBit(Math.max(POOL_PROBES, poolSize) * 2 - 1);
+        this.pool = new AtomicReferenceArray<>(capacity);
+        this.poolMask = capacity - 1;
+        this.epochOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    }
+
+    public FlowSpanExporter getExporter() {
+        return exporter;
+    }
+
+    /**
+     * 开始执行的根跨度
+     */
+    public FlowSpan startExecution(FlowExecutionContext context) {
+        FlowDefinition flowDefinition = context.getFlowDefinition();
+        FlowSpan span = start(context, FlowSpan.NO_PARENT, flowDefinition.getName());
+        span.setAttribute(ATTR_SPAN_TYPE, SPAN_TYPE_EXECUTION);
+        span.setAttribute(ATTR_FLOW_NAME, flowDefinition.getName());
+        span.setAttribute(ATTR_FLOW_VERSION, flowDefinition.getVersion());
+        span.setAttribute(ATTR_EXECUTION_ID, context.getExecutionId());
+        return span;
+    }
+
+    /**
+     * 开始步骤跨度
+     *
+     * @param parentSpanId 父跨度（执行根跨度或分支跨度）
+     */
+    public FlowSpan startStep(FlowExecutionContext context, long parentSpanId, StepDefinition step) {
+        FlowSpan span = start(context, parentSpanId, step.getName());
+        span.setAttribute(ATTR_SPAN_TYPE, SPAN_TYPE_STEP);
+        span.setAttribute(ATTR_STEP_TYPE, step.getClass().getSimpleName());
+        return span;
+    }
+
+    /**
+     * 开始分支跨度
+     *
+     * @param parentSpanId 父跨度
+     * @param branchName   分支起始步骤名称
+     * @param branchType   {@link #BRANCH_TYPE_PARALLEL}或{@link #BRANCH_TYPE_ASYNC}
+     * @param linkedSpanId 关联的跨度（发起分支的步骤），{@link FlowSpan#NO_PARENT}表示不关联
+     */
+    public FlowSpan startBranch(FlowExecutionContext context, long parentSpanId, String branchName, String branchType,
+        long linkedSpanId) {
+        FlowSpan span = start(context, parentSpanId, branchName);
+        span.setAttribute(ATTR_SPAN_TYPE, SPAN_TYPE_BRANCH);
+        span.setAttribute(ATTR_BRANCH_TYPE, branchType);
+        if (linkedSpanId != FlowSpan.NO_PARENT) {
+            span.addLink(linkedSpanId);
+        }
+        return span;
+    }
+
+    /**
+     * 结束跨度：记录状态和选定参数，导出后回收
+     *
+     * @param span    跨度，结束后不可再访问
+     * @param context 执行上下文（读取选定参数）
+     * @param result  执行结果，为ERROR时跨度状态为ERROR；可为null
+     * @param error   异常，非null时跨度状态为ERROR
+     */
+    public void end(FlowSpan span, FlowExecutionContext context, FlowResult result, Throwable error) {
+        Throwable failure = error != null ? error : result != null && result.isError() ? result.getError() : null;
+        boolean failed = error != null || (result != null && result.isError());
+        if (failure != null) {
+            span.setAttribute(ATTR_EXCEPTION_TYPE, failure.getClass().getName());
+            span.setAttribute(ATTR_EXCEPTION_MESSAGE, failure.getMessage());
+        }
+        for (int i = 0; i < paramKeys.length; i++) {
+            span.setAttribute(paramAttributeKeys[i], context.getParam(paramKeys[i]));
+        }
+        span.end(failed ? FlowSpanStatus.ERROR : FlowSpanStatus.OK, failure != null ? failure.getMessage() : null);
+        try {
+            exporter.export(span);
+        } catch (RuntimeException e) {
+            FlowLogger.log(FlowLogger.Level.WARNING, context.getLogContext(), "跨度导出失败: {}", e.getMessage());
+        }
+        release(span);
+    }
+
+    private FlowSpan start(FlowExecutionContext context, long parentSpanId, String name) {
+        FlowExecutionId traceId = context.getId();
+        FlowSpan span = acquire();
+        span.start(traceId.getHigh(), traceId.getLow(), nextSpanId(), parentSpanId, name, epochOffsetNanos);
+        return span;
+    }
+
+    private static long nextSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == FlowSpan.NO_PARENT);
+        return id;
+    }
+
+    private FlowSpan acquire() {
+        if (poolMask >= 0) {
+            int index = ThreadLocalRandom.current().nextInt();
+            for (int i = 0; i < POOL_PROBES; i++) {
+                int slot = (index + i) & poolMask;
+                FlowSpan span = pool.get(slot);
+                if (span != null && pool.compareAndSet(slot, span, null)) {
+                    return span;
+                }
+            }
+        }
+        return new FlowSpan();
+    }
+
+    private void release(FlowSpan span) {
+        span.reset();
+        if (poolMask < 0) {
+            return;
+        }
+        int index = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < POOL_PROBES; i++) {
+            if (pool.compareAndSet((index + i) & poolMask, null, span)) {
+                return;
+            }
+        }
+    }
+}
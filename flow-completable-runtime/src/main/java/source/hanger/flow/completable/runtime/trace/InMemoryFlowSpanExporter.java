@@ -0,0 +1,92 @@
+package source.hanger.flow.completable.runtime.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 内存跨度导出器
+ * <p>
+ * 作用：
+ *   - 把结束的跨度复制为{@link FlowSpanData}保存在固定容量的环形缓冲中，供本地查看和测试
+ * <p>
+ * 设计说明：
+ *   - 写满后覆盖最早的跨度，内存占用与容量成正比
+ *   - 写入只有一次原子递增和一次数组写入，不加锁；读取为弱一致的快照
+ */
+public class InMemoryFlowSpanExporter implements FlowSpanExporter {
+
+    /** 默认容量 */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final AtomicReferenceArray<FlowSpanData> spans;
+    private final AtomicLong written = new AtomicLong();
+
+    public InMemoryFlowSpanExporter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 最多保留的跨度数
+     */
+    public InMemoryFlowSpanExporter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0: " + capacity);
+        }
+        this.spans = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void export(FlowSpan span) {
+        FlowSpanData data = span.toData();
+        spans.set((int) (written.getAndIncrement() % spans.length()), data);
+    }
+
+    /**
+     * 当前保留的跨度，按结束顺序排列
+     */
+    public List<FlowSpanData> getSpans() {
+        long end = written.get();
+        long start = Math.max(0, end - spans.length());
+        List<FlowSpanData> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            FlowSpanData data = spans.get((int) (i % spans.length()));
+            if (data != null) {
+                result.add(data);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 某次执行的跨度，按结束顺序排列
+     *
+     * @param traceId 追踪ID（32位十六进制）
+     */
+    public List<FlowSpanData> getSpans(String traceId) {
+        List<FlowSpanData> result = new ArrayList<>();
+        for (FlowSpanData data : getSpans()) {
+            if (data.traceId().equals(traceId)) {
+                result.add(data);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 累计导出的跨度数（含已被覆盖的）
+     */
+    public long getExportedCount() {
+        return written.get();
+    }
+
+    /**
+     * 清空保留的跨度
+     */
+    public void clear() {
+        for (int i = 0; i < spans.length(); i++) {
+            spans.set(i, null);
+        }
+    }
+}
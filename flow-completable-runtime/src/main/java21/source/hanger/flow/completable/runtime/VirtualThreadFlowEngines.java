@@ -0,0 +1,73 @@
+package source.hanger.flow.completable.runtime;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程执行模式（需要java21构建配置）
+ * <p>
+ * 作用：
+ * - 每个任务体（run/onEnter/onError）在独立的虚拟线程上执行，适合JDBC、HTTP等阻塞型任务
+ * - 流程推进（步骤衔接、条件计算、分支调度）保留在少量平台线程上
+ * - 数万个并发的I/O型流程只占用少量平台线程
+ * <p>
+ * 注意：
+ * - 任务体中的synchronized块在阻塞时会固定（pin）载体线程，可配合VirtualThreadPinningMonitor检测
+ * - 返回的VirtualThreadEngine持有推进线程池和虚拟线程执行器，使用完毕需调用close()
+ * <p>
+ * 典型用法：
+ * try (VirtualThreadFlowEngines.VirtualThreadEngine vt = VirtualThreadFlowEngines.create(4)) {
+ *     FlowResult result = vt.engine().execute(flowDef).get();
+ * }
+ */
+public final class VirtualThreadFlowEngines {
+
+    private static final AtomicInteger ENGINE_SEQUENCE = new AtomicInteger();
+
+    private VirtualThreadFlowEngines() {
+    }
+
+    /**
+     * 创建虚拟线程模式的引擎，推进线程数为CPU核数
+     */
+    public static VirtualThreadEngine create() {
+        return create(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 创建虚拟线程模式的引擎
+     *
+     * @param traversalThreads 推进线程数（平台线程）
+     */
+    public static VirtualThreadEngine create(int traversalThreads) {
+        int engineId = ENGINE_SEQUENCE.incrementAndGet();
+        AtomicInteger threadSequence = new AtomicInteger();
+        ThreadFactory traversalFactory = runnable -> {
+            Thread thread = new Thread(runnable, "flow-traversal-" + engineId + "-" + threadSequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ExecutorService traversalExecutor = Executors.newFixedThreadPool(traversalThreads, traversalFactory);
+        ExecutorService taskExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("flow-task-" + engineId + "-", 1).factory());
+        return new VirtualThreadEngine(new CompletableFlowEngine(traversalExecutor, taskExecutor), traversalExecutor,
+            taskExecutor);
+    }
+
+    /**
+     * 虚拟线程模式的引擎及其线程资源
+     */
+    public record VirtualThreadEngine(CompletableFlowEngine engine, ExecutorService traversalExecutor,
+                                      ExecutorService taskExecutor) implements AutoCloseable {
+        /**
+         * 关闭推进线程池和虚拟线程执行器（等待已提交的任务体结束）
+         */
+        @Override
+        public void close() {
+            taskExecutor.close();
+            traversalExecutor.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package source.hanger.flow.completable.runtime;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 虚拟线程固定（pinning）检测器（需要java21构建配置）
+ * <p>
+ * 作用：
+ * - 通过JFR事件流订阅jdk.VirtualThreadPinned事件
+ * - 虚拟线程在synchronized块或本地方法中阻塞超过阈值时记录告警，包含线程名、固定时长和调用栈
+ * - 统计固定次数，便于在测试或运行期发现任务闭包中的synchronized
+ * <p>
+ * 设计说明：
+ * - 事件流在后台线程异步消费，不影响任务执行路径
+ * - 只关注任务线程（VirtualThreadFlowEngines创建的虚拟线程以flow-task-为前缀），其他线程的事件同样计数但不告警
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    /** JFR事件名称 */
+    public static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    /** 任务虚拟线程名称前缀 */
+    private static final String TASK_THREAD_PREFIX = "flow-task-";
+    /** 告警中输出的调用栈帧数 */
+    private static final int MAX_FRAMES = 8;
+
+    private final RecordingStream stream;
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private final AtomicLong taskPinnedCount = new AtomicLong();
+    private final Consumer<RecordedEvent> listener;
+
+    /**
+     * 使用默认阈值（20ms）启动检测
+     */
+    public VirtualThreadPinningMonitor() {
+        this(Duration.ofMillis(20), null);
+    }
+
+    /**
+     * @param threshold 固定时长阈值，超过该值才产生事件
+     * @param listener  额外的事件监听器，可为null
+     */
+    public VirtualThreadPinningMonitor(Duration threshold, Consumer<RecordedEvent> listener) {
+        this.listener = listener;
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        RecordedThread thread = event.getThread();
+        String threadName = thread != null ? thread.getJavaName() : null;
+        if (threadName != null && threadName.startsWith(TASK_THREAD_PREFIX)) {
+            taskPinnedCount.incrementAndGet();
+            log.warn("⚠️ 任务虚拟线程被固定: thread={}, duration={}ms, stack:\n{}", threadName,
+                event.getDuration().toMillis(), describe(event.getStackTrace()));
+        }
+        if (listener != null) {
+            listener.accept(event);
+        }
+    }
+
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "    <no stack trace>";
+        }
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(MAX_FRAMES, frames.size()); i++) {
+            RecordedFrame frame = frames.get(i);
+            sb.append("    at ").append(frame.getMethod().getType().getName()).append('.')
+                .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 获取检测到的固定事件总数
+     */
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    /**
+     * 获取任务虚拟线程上的固定事件数
+     */
+    public long getTaskPinnedCount() {
+        return taskPinnedCount.get();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
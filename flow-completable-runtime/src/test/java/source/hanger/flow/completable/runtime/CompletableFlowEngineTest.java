@@ -1,15 +1,59 @@
 package source.hanger.flow.completable.runtime;
 
 import org.junit.Test;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathAnalyzer;
+import source.hanger.flow.completable.runtime.analysis.CriticalPathStatistics;
+import source.hanger.flow.completable.runtime.context.CompletableFlowTaskRunAccessContext;
+import source.hanger.flow.completable.runtime.inspect.ActiveStepSnapshot;
+import source.hanger.flow.completable.runtime.inspect.FlowWatchdog;
+import source.hanger.flow.completable.runtime.inspect.RunningExecution;
+import source.hanger.flow.completable.runtime.metrics.FlowMetrics;
+import source.hanger.flow.completable.runtime.metrics.FlowMetricsSnapshot;
+import source.hanger.flow.completable.runtime.metrics.LatencyHistogram;
+import source.hanger.flow.completable.runtime.trace.FlowSpan;
+import source.hanger.flow.completable.runtime.trace.FlowSpanData;
+import source.hanger.flow.completable.runtime.trace.FlowSpanStatus;
+import source.hanger.flow.completable.runtime.trace.FlowTracer;
+import source.hanger.flow.completable.runtime.trace.InMemoryFlowSpanExporter;
 import source.hanger.flow.contract.model.*;
 import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable;
+import source.hanger.flow.core.plan.FlowExecutionPlan;
+import source.hanger.flow.core.runtime.FlowEventJournal;
+import source.hanger.flow.core.runtime.FlowEventType;
+import source.hanger.flow.core.runtime.FlowExecutionContext;
+import source.hanger.flow.core.runtime.FlowExecutionId;
+import source.hanger.flow.core.runtime.FlowExecutionRetentionPolicy;
+import source.hanger.flow.core.runtime.FlowExecutionState;
+import source.hanger.flow.core.runtime.FlowExecutionSummary;
 import source.hanger.flow.core.runtime.FlowResult;
 import source.hanger.flow.core.runtime.FlowStatus;
+import source.hanger.flow.core.runtime.FlowStepStatus;
+import source.hanger.flow.core.runtime.MonotonicFlowExecutionIdGenerator;
+import source.hanger.flow.core.util.AsyncFlowLogSink;
+import source.hanger.flow.core.util.FlowLogSink;
+import source.hanger.flow.core.util.FlowLogger;
 
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.junit.Assert.*;
 
@@ -99,6 +143,65 @@ public class CompletableFlowEngineTest {
         assertEquals(FlowStatus.SUCCESS, result.getStatus());
     }
     
+    @Test
+    public void testParallelBranchesRunConcurrentlyAndJoinOnce() throws ExecutionException, InterruptedException, TimeoutException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(executor);
+            AtomicInteger joinRuns = new AtomicInteger();
+
+            FlowDefinition flow = new FlowDefinition();
+            flow.setName("并行汇合测试流程");
+
+            ParallelStepDefinition parallel = new ParallelStepDefinition();
+            parallel.setName("parallel");
+            parallel.addBranch(new Branch(null, "slowA"));
+            parallel.addBranch(new Branch(null, "slowB"));
+            parallel.addBranch(new Branch(access -> false, "skipped"));
+            parallel.setJoinBranchNames(java.util.Arrays.asList("slowA", "slowB"));
+            parallel.addTransition(new Transition(null, "join"));
+            flow.addStep(parallel);
+
+            TaskStepDefinition slowA = new TaskStepDefinition();
+            slowA.setName("slowA");
+            slowA.setTaskRunnable(createTaskHandler("slowA", 300));
+            slowA.addTransition(new Transition(null, "join"));
+            flow.addStep(slowA);
+
+            TaskStepDefinition slowB = new TaskStepDefinition();
+            slowB.setName("slowB");
+            slowB.setTaskRunnable(createTaskHandler("slowB", 300));
+            slowB.addTransition(new Transition(null, "afterB"));
+            flow.addStep(slowB);
+
+            TaskStepDefinition afterB = new TaskStepDefinition();
+            afterB.setName("afterB");
+            afterB.setTaskRunnable(createTaskHandler("afterB", 0));
+            afterB.addTransition(new Transition(null, "join"));
+            flow.addStep(afterB);
+
+            TaskStepDefinition skipped = new TaskStepDefinition();
+            skipped.setName("skipped");
+            skipped.setTaskRunnable(access -> fail("条件不满足的分支不应执行"));
+            flow.addStep(skipped);
+
+            TaskStepDefinition join = new TaskStepDefinition();
+            join.setName("join");
+            join.setTaskRunnable(access -> joinRuns.incrementAndGet());
+            flow.addStep(join);
+
+            long start = System.nanoTime();
+            FlowResult result = engine.execute(flow).get(10, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(FlowStatus.SUCCESS, result.getStatus());
+            assertEquals(1, joinRuns.get());
+            assertTrue("分支应并发执行，实际耗时 " + elapsedMillis + "ms", elapsedMillis < 550);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testAsyncExecution() throws ExecutionException, InterruptedException, TimeoutException {
         // 创建流程引擎
@@ -169,6 +272,1392 @@ public class CompletableFlowEngineTest {
         assertNotNull(result.getError());
     }
     
+    @Test
+    public void testExecutionPlanResolvesStartAndIsCached() throws ExecutionException, InterruptedException, TimeoutException {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName("计划编译测试流程");
+
+        TaskStepDefinition second = new TaskStepDefinition();
+        second.setName("second");
+        second.setTaskRunnable(access -> access.log("second"));
+        second.addTransition(new Transition(null, "__END__"));
+        flow.addStep(second);
+
+        TaskStepDefinition first = new TaskStepDefinition();
+        first.setName("first");
+        first.setTaskRunnable(access -> access.log("first"));
+        first.addTransition(new Transition(access -> false, "missing"));
+        first.addTransition(new Transition(null, "second"));
+        flow.addStep(first);
+
+        TaskStepDefinition start = new TaskStepDefinition();
+        start.setName("__START__");
+        start.addTransition(new Transition(null, "first"));
+        flow.addStep(start);
+
+        FlowExecutionPlan plan = engine.getExecutionPlan(flow);
+        assertSame(plan, engine.getExecutionPlan(flow));
+        assertEquals(1, plan.startStepId());
+        assertEquals(FlowExecutionPlan.UNRESOLVED, plan.transitionTarget(1, 0));
+        assertEquals(0, plan.transitionTarget(1, 1));
+        assertEquals(FlowExecutionPlan.END, plan.transitionTarget(0, 0));
+
+        FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, result.getStatus());
+        assertEquals(FlowStepStatus.COMPLETED,
+            engine.getExecutionState(result.getExecutionId()).getStepStatus("second"));
+    }
+
+    @Test
+    public void testLongLinearFlowDoesNotGrowStack() throws ExecutionException, InterruptedException, TimeoutException {
+        FlowDefinition flow = createLinearFlow("万步线性流程", 10_000, 0);
+
+        FlowResult inline = new CompletableFlowEngine().execute(flow).get(60, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, inline.getStatus());
+        assertEquals(10_000, inline.getParams().get("counter"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            FlowResult pooled = new CompletableFlowEngine(executor).execute(flow).get(60, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.SUCCESS, pooled.getStatus());
+            assertEquals(10_000, pooled.getParams().get("counter"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMoreFlowsInFlightThanPoolThreads() throws ExecutionException, InterruptedException, TimeoutException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(executor);
+            FlowDefinition flow = createLinearFlow("并发线性流程", 5, 10);
+            List<CompletableFuture<FlowResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(engine.execute(flow));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            for (CompletableFuture<FlowResult> future : futures) {
+                assertEquals(FlowStatus.SUCCESS, future.get().getStatus());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncBranchRunsDetachedAndDrainsOnShutdown() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger branchSteps = new AtomicInteger();
+        CompletableFlowEngine engine = new CompletableFlowEngine(Runnable::run,
+            new DetachedBranchExecutor(1, 4, DetachedBranchExecutor.OverflowPolicy.QUEUE));
+
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName("异步分支测试流程");
+
+        AsyncStepDefinition async = new AsyncStepDefinition();
+        async.setName("notify");
+        async.addBranchName("slowNotify");
+        async.addTransition(new Transition(null, "main"));
+        flow.addStep(async);
+
+        TaskStepDefinition main = new TaskStepDefinition();
+        main.setName("main");
+        main.setTaskRunnable(access -> { });
+        flow.addStep(main);
+
+        TaskStepDefinition slowNotify = new TaskStepDefinition();
+        slowNotify.setName("slowNotify");
+        slowNotify.setTaskRunnable(access -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            branchSteps.incrementAndGet();
+        });
+        slowNotify.addTransition(new Transition(null, "afterNotify"));
+        flow.addStep(slowNotify);
+
+        TaskStepDefinition afterNotify = new TaskStepDefinition();
+        afterNotify.setName("afterNotify");
+        afterNotify.setTaskRunnable(access -> branchSteps.incrementAndGet());
+        flow.addStep(afterNotify);
+
+        // 主流程不等待异步分支
+        FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, result.getStatus());
+        assertEquals(1, engine.getOutstandingAsyncBranches(result.getExecutionId()));
+        assertEquals(List.of("slowNotify"),
+            engine.getDetachedBranchExecutor().getOutstandingBranches(result.getExecutionId()));
+
+        release.countDown();
+        assertTrue(engine.shutdownAsyncBranches(10, TimeUnit.SECONDS));
+        assertEquals(2, branchSteps.get());
+        assertEquals(0, engine.getOutstandingAsyncBranches(result.getExecutionId()));
+    }
+
+    @Test
+    public void testDetachedBranchDropOldestOnOverflow() throws Exception {
+        DetachedBranchExecutor detached = new DetachedBranchExecutor(1, 1, DetachedBranchExecutor.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<FlowResult> running = detached.submit("exec", "running",
+            () -> CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }, Runnable::run));
+        // 等待第一个分支占用唯一线程
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<FlowResult> oldest = detached.submit("exec", "oldest", () -> CompletableFuture.completedFuture(null));
+        CompletableFuture<FlowResult> newest = detached.submit("exec", "newest", () -> CompletableFuture.completedFuture(null));
+
+        assertTrue(oldest.isCompletedExceptionally());
+        assertEquals(1, detached.getDroppedCount());
+        release.countDown();
+        newest.get(5, TimeUnit.SECONDS);
+        running.get(5, TimeUnit.SECONDS);
+        assertTrue(detached.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(0, detached.getOutstandingCount());
+    }
+
+    @Test
+    public void testDetachedBranchQueueIsBoundedAndRejectsAfterShutdown() throws Exception {
+        DetachedBranchExecutor detached = new DetachedBranchExecutor(1, 1, DetachedBranchExecutor.OverflowPolicy.QUEUE);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<FlowResult> running = detached.submit("exec", "running",
+            () -> CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }, Runnable::run));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<FlowResult> queued = detached.submit("exec", "queued", () -> CompletableFuture.completedFuture(null));
+        // 队列已满：QUEUE策略拒绝新分支而不是无界排队
+        CompletableFuture<FlowResult> overflow = detached.submit("exec", "overflow", () -> CompletableFuture.completedFuture(null));
+        assertTrue(overflow.isCompletedExceptionally());
+        assertEquals(1, detached.getDroppedCount());
+        assertEquals(2, detached.getOutstandingCount("exec"));
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+        running.get(5, TimeUnit.SECONDS);
+        assertTrue(detached.shutdown(5, TimeUnit.SECONDS));
+
+        // 关闭后新分支被丢弃，其他任务被拒绝而不在提交线程上运行
+        assertTrue(detached.submit("exec", "late", () -> CompletableFuture.completedFuture(null))
+            .isCompletedExceptionally());
+        AtomicInteger ran = new AtomicInteger();
+        try {
+            detached.execute(ran::incrementAndGet);
+            fail("线程池关闭后应拒绝任务");
+        } catch (java.util.concurrent.RejectedExecutionException expected) {
+            assertEquals(0, ran.get());
+        }
+        assertEquals(0, detached.getOutstandingCount());
+    }
+
+    @Test
+    public void testAsyncTaskDoesNotHoldThreadWhileWaiting() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "flow-worker"));
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(executor);
+            AtomicInteger errorHandled = new AtomicInteger();
+            Set<String> advanceThreads = ConcurrentHashMap.newKeySet();
+
+            FlowDefinition flow = new FlowDefinition();
+            flow.setName("异步任务测试流程");
+            TaskStepDefinition call = new TaskStepDefinition();
+            call.setName("remoteCall");
+            call.setAsyncTaskRunnable(access -> CompletableFuture.runAsync(() -> { },
+                CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)));
+            call.addTransition(new Transition(access -> advanceThreads.add(Thread.currentThread().getName()) || true,
+                "failingCall"));
+            flow.addStep(call);
+
+            TaskStepDefinition failing = new TaskStepDefinition();
+            failing.setName("failingCall");
+            failing.setAsyncTaskRunnable(access -> CompletableFuture.failedFuture(new IllegalStateException("远程调用失败")));
+            failing.setErrorHandingRunnable(access -> errorHandled.incrementAndGet());
+            flow.addStep(failing);
+
+            // 单线程池上并发50个流程，等待期间不占用线程，总耗时接近单次等待时间
+            long start = System.nanoTime();
+            List<CompletableFuture<FlowResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(engine.execute(flow));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            for (CompletableFuture<FlowResult> future : futures) {
+                FlowResult result = future.get();
+                assertEquals(FlowStatus.ERROR, result.getStatus());
+                assertTrue(result.getError() instanceof IllegalStateException);
+            }
+            assertEquals(50, errorHandled.get());
+            // remoteCall在延迟执行器的线程上完成，流转判断和后续推进仍切回线程池进行
+            assertEquals(Set.of("flow-worker"), advanceThreads);
+            assertTrue("实际耗时 " + elapsedMillis + "ms", elapsedMillis < 2000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompletedExecutionsAreEvictedIntoSummaries() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        engine.getExecutionManager().setRetentionPolicy(
+            new FlowExecutionRetentionPolicy(5, Duration.ofMinutes(5), 100));
+        FlowDefinition flow = createLinearFlow("保留策略测试流程", 3, 0);
+
+        List<String> executionIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            executionIds.add(engine.execute(flow).get(5, TimeUnit.SECONDS).getExecutionId());
+        }
+
+        assertEquals(5, engine.getExecutionManager().getTrackedExecutionCount());
+        assertEquals(45, engine.getExecutionManager().getEvictedCount());
+        String latest = executionIds.get(executionIds.size() - 1);
+        assertEquals(FlowStatus.SUCCESS, engine.getExecutionState(latest).getFinalStatus());
+        assertNotNull(engine.getExecutionResult(latest));
+
+        String first = executionIds.get(0);
+        assertNull(engine.getExecutionState(first));
+        assertNull(engine.getExecutionResult(first));
+        FlowExecutionSummary summary = engine.getExecutionSummary(first);
+        assertNotNull(summary);
+        assertEquals(FlowStatus.SUCCESS, summary.status());
+        assertEquals(3, summary.stepCount());
+
+        // TTL为0：结束即淘汰
+        engine.getExecutionManager().setRetentionPolicy(new FlowExecutionRetentionPolicy(5, Duration.ZERO, 0));
+        String expired = engine.execute(flow).get(5, TimeUnit.SECONDS).getExecutionId();
+        assertNull(engine.getExecutionState(expired));
+        assertEquals(0, engine.getExecutionManager().getTrackedExecutionCount());
+    }
+
+    @Test
+    public void testExecutionIdsAreUniqueAndTimeOrdered() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        FlowDefinition flow = createLinearFlow("执行ID测试流程", 1, 0);
+
+        List<CompletableFuture<FlowResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            futures.add(engine.execute(flow));
+        }
+        List<FlowExecutionId> ids = new ArrayList<>();
+        for (CompletableFuture<FlowResult> future : futures) {
+            ids.add(FlowExecutionId.parse(future.get(5, TimeUnit.SECONDS).getExecutionId()));
+        }
+        // 同一毫秒内的突发执行也不冲突，且按启动顺序递增
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+        FlowExecutionId last = ids.get(ids.size() - 1);
+        assertEquals(FlowExecutionId.TEXT_LENGTH, last.toString().length());
+        assertEquals(last, FlowExecutionId.parse(last.toString().toLowerCase()));
+        assertTrue(MonotonicFlowExecutionIdGenerator.timestampOf(last) <= System.currentTimeMillis());
+        assertNull(engine.getExecutionState("not-an-execution-id"));
+
+        // 自定义生成策略
+        AtomicInteger generated = new AtomicInteger();
+        engine.setExecutionIdGenerator(definition -> new FlowExecutionId(0, generated.incrementAndGet()));
+        FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+        assertEquals(new FlowExecutionId(0, 1).toString(), result.getExecutionId());
+        assertNotNull(engine.getExecutionState(result.getExecutionId()));
+    }
+
+    @Test
+    public void testFlowLoggerSkipsDisabledLevelsAndWritesAsync() throws Exception {
+        ConcurrentLinkedQueue<FlowLogger.LogRecord> records = new ConcurrentLinkedQueue<>();
+        FlowLogSink capture = new FlowLogSink() {
+            @Override
+            public boolean isEnabled(FlowLogger.Level level) {
+                return level != FlowLogger.Level.DEBUG;
+            }
+
+            @Override
+            public void write(FlowLogger.LogRecord record) {
+                records.add(record);
+            }
+        };
+        AsyncFlowLogSink asyncSink = new AsyncFlowLogSink(capture, 1024);
+        FlowLogSink previous = FlowLogger.setSink(asyncSink);
+        try {
+            FlowLogger.FlowLogContext ctx = new FlowLogger.FlowLogContext("日志测试流程", "1.0", "id", null);
+            FlowLogger.log(FlowLogger.Level.DEBUG, ctx, () -> {
+                throw new AssertionError("DEBUG关闭时不应构造消息");
+            });
+            FlowLogger.log(FlowLogger.Level.INFO, ctx.withStep("step"), "计数={}, 名称={}", 3, "a");
+
+            CompletableFlowEngine engine = new CompletableFlowEngine();
+            engine.execute(createLinearFlow("日志测试流程", 2, 0)).get(5, TimeUnit.SECONDS);
+        } finally {
+            FlowLogger.setSink(previous);
+            assertTrue(asyncSink.shutdown(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(0, asyncSink.getDroppedCount());
+        assertTrue(records.stream().noneMatch(r -> r.level() == FlowLogger.Level.DEBUG));
+        FlowLogger.LogRecord first = records.peek();
+        assertEquals("计数=3, 名称=a", first.message());
+        assertEquals("step", first.context().stepName());
+        assertTrue(first.format().contains("[日志测试流程@1.0] [id] [step]"));
+        // 引擎日志复用执行级上下文，步骤日志带步骤名
+        assertTrue(records.stream().anyMatch(r -> "step1".equals(r.context().stepName())));
+    }
+
+    @Test
+    public void testExecuteBatchReturnsResultsInOrderWithFewerSchedules() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicInteger schedules = new AtomicInteger();
+        Executor countingExecutor = command -> {
+            schedules.incrementAndGet();
+            pool.execute(command);
+        };
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(countingExecutor);
+            FlowDefinition flow = createLinearFlow("批量执行测试流程", 2, 0);
+            int total = 256;
+            List<Map<String, Serializable>> paramsList = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                paramsList.add(Map.of("counter", i * 10));
+            }
+
+            AtomicInteger streamed = new AtomicInteger();
+            FlowBatchExecution batch = engine.executeBatch(flow, paramsList, 64, (result, index) -> streamed.incrementAndGet());
+            List<FlowResult> results = batch.getCompletion().get(10, TimeUnit.SECONDS);
+            int batchSchedules = schedules.getAndSet(0);
+
+            assertEquals(total, results.size());
+            for (int i = 0; i < total; i++) {
+                assertEquals(FlowStatus.SUCCESS, results.get(i).getStatus());
+                assertEquals(i * 10 + 2, results.get(i).getParams().get("counter"));
+            }
+            assertEquals(total, streamed.get());
+            assertEquals(total, batch.getStartedCount());
+            assertEquals(1.0, batch.getProgress(), 0.0);
+            assertEquals(0, batch.getErrorCount());
+
+            // 逐个执行：每个执行额外一次进入调度
+            List<CompletableFuture<FlowResult>> futures = new ArrayList<>();
+            for (Map<String, Serializable> params : paramsList) {
+                futures.add(engine.execute(flow, params));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertTrue(batchSchedules + " vs " + schedules.get(), batchSchedules < schedules.get());
+
+            // 初始参数含null值：该执行以错误结果结束，批次仍然完成
+            Map<String, Serializable> withNull = new HashMap<>();
+            withNull.put("counter", null);
+            FlowBatchExecution mixed = engine.executeBatch(flow, List.of(Map.of("counter", 1), withNull), 1, null);
+            List<FlowResult> mixedResults = mixed.getCompletion().get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.SUCCESS, mixedResults.get(0).getStatus());
+            assertEquals(FlowStatus.ERROR, mixedResults.get(1).getStatus());
+            assertTrue(mixedResults.get(1).getError() instanceof NullPointerException);
+            assertEquals(1, mixed.getErrorCount());
+
+            assertTrue(engine.executeBatch(flow, List.of()).getCompletion().get().isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAdmissionControlQueuesRejectsAndSheds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch gate = new CountDownLatch(1);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(pool);
+            FlowAdmissionController admission = engine.getAdmissionController();
+            FlowDefinition flowA = createGatedFlow("准入测试流程A", gate);
+            FlowDefinition flowB = createGatedFlow("准入测试流程B", gate);
+
+            // 全局2个、单流程1个，排队1个，满时拒绝
+            admission.setAdmissionPolicy(new FlowAdmissionPolicy(2, 1, 1,
+                FlowAdmissionPolicy.OverloadPolicy.REJECT, Duration.ZERO));
+            CompletableFuture<FlowResult> a1 = engine.execute(flowA);
+            CompletableFuture<FlowResult> a2 = engine.execute(flowA);
+            CompletableFuture<FlowResult> b1 = engine.execute(flowB);
+            CompletableFuture<FlowResult> a3 = engine.execute(flowA);
+            assertEquals(2, admission.getInFlightCount());
+            assertEquals(1, admission.getInFlightCount("准入测试流程A"));
+            assertEquals(1, admission.getPendingCount());
+            assertRejected(a3, FlowRejectedException.Reason.QUEUE_FULL);
+
+            // 丢弃最早的排队者
+            admission.setAdmissionPolicy(new FlowAdmissionPolicy(2, 1, 1,
+                FlowAdmissionPolicy.OverloadPolicy.SHED_OLDEST, Duration.ZERO));
+            CompletableFuture<FlowResult> a4 = engine.execute(flowA);
+            assertRejected(a2, FlowRejectedException.Reason.SHED);
+            assertEquals(1, admission.getShedCount());
+
+            // 阻塞等待超时
+            admission.setAdmissionPolicy(new FlowAdmissionPolicy(2, 1, 1,
+                FlowAdmissionPolicy.OverloadPolicy.BLOCK, Duration.ofMillis(100)));
+            long start = System.nanoTime();
+            CompletableFuture<FlowResult> b2 = engine.execute(flowB);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+            assertRejected(b2, FlowRejectedException.Reason.TIMEOUT);
+            assertEquals(2, admission.getRejectedCount());
+
+            gate.countDown();
+            assertEquals(FlowStatus.SUCCESS, a1.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(FlowStatus.SUCCESS, b1.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(FlowStatus.SUCCESS, a4.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(0, admission.getInFlightCount());
+            assertEquals(0, admission.getPendingCount());
+        } finally {
+            gate.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueuedExecutionsOnInlineEngineStartWithoutNesting() throws Exception {
+        // 默认引擎在调用线程上推进：一个执行结束时启动的排队执行同步结束，又触发下一个启动
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        FlowAdmissionController admission = engine.getAdmissionController();
+        admission.setAdmissionPolicy(FlowAdmissionPolicy.rejecting(1, 100_000));
+
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        FlowDefinition gatedFlow = new FlowDefinition();
+        gatedFlow.setName("内联准入闸门流程");
+        TaskStepDefinition gated = new TaskStepDefinition();
+        gated.setName("gated");
+        gated.setAsyncTaskRunnable(access -> gate);
+        gatedFlow.addStep(gated);
+        CompletableFuture<FlowResult> first = engine.execute(gatedFlow);
+
+        FlowDefinition flow = createLinearFlow("内联准入排队流程", 1, 0);
+        List<CompletableFuture<FlowResult>> queued = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            queued.add(engine.execute(flow));
+        }
+        assertEquals(5_000, admission.getPendingCount());
+
+        // 排队的执行依次在本线程上启动，调用栈深度与排队数无关
+        gate.complete(null);
+        assertEquals(FlowStatus.SUCCESS, first.get(5, TimeUnit.SECONDS).getStatus());
+        for (CompletableFuture<FlowResult> future : queued) {
+            assertEquals(FlowStatus.SUCCESS, future.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(0, admission.getInFlightCount());
+        assertEquals(0, admission.getPendingCount());
+    }
+
+    @Test
+    public void testStepTimeoutAndCancellationInterruptRunningTask() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(pool);
+
+            // 任务超时：步骤以超时失败，任务线程被中断，流程以步骤错误结束，不再执行后续步骤
+            CountDownLatch stepInterrupted = new CountDownLatch(1);
+            FlowDefinition stepTimeoutFlow = createBlockingFlow("步骤超时流程", stepInterrupted);
+            ((TaskStepDefinition) stepTimeoutFlow.getStepDefinitions().get(0)).setTimeout(Duration.ofMillis(100));
+            long start = System.nanoTime();
+            FlowResult stepTimeoutResult = engine.execute(stepTimeoutFlow).get(5, TimeUnit.SECONDS);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+            assertEquals(FlowStepStatus.ERROR,
+                engine.getExecutionState(stepTimeoutResult.getExecutionId()).getStepStatus("blocking"));
+            assertEquals(FlowStatus.ERROR, stepTimeoutResult.getStatus());
+            assertTrue(stepTimeoutResult.getError() instanceof FlowTimeoutException);
+            assertNull(stepTimeoutResult.getParams().get("after"));
+            assertTrue(stepInterrupted.await(5, TimeUnit.SECONDS));
+
+            // 流程超时：执行被取消，正在运行的任务被中断
+            CountDownLatch flowInterrupted = new CountDownLatch(1);
+            FlowDefinition flowTimeoutFlow = createBlockingFlow("流程超时流程", flowInterrupted);
+            flowTimeoutFlow.setTimeout(Duration.ofMillis(100));
+            FlowResult flowTimeoutResult = engine.execute(flowTimeoutFlow).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.ERROR, flowTimeoutResult.getStatus());
+            assertTrue(flowTimeoutResult.getError() instanceof FlowTimeoutException);
+            assertNull(((FlowTimeoutException) flowTimeoutResult.getError()).getStepName());
+            assertTrue(flowInterrupted.await(5, TimeUnit.SECONDS));
+            // 取消后不再启动新的步骤
+            assertNull(flowTimeoutResult.getParams().get("after"));
+
+            // 取消返回的future：取消传递到正在运行的任务
+            CountDownLatch cancelInterrupted = new CountDownLatch(1);
+            FlowDefinition cancelFlow = createBlockingFlow("取消流程", cancelInterrupted);
+            CompletableFuture<FlowResult> cancelled = engine.execute(cancelFlow);
+            Thread.sleep(100);
+            assertTrue(cancelled.cancel(true));
+            assertTrue(cancelInterrupted.await(5, TimeUnit.SECONDS));
+
+            // 中断标记已清除，线程池线程可继续执行其他流程
+            FlowResult next = engine.execute(createLinearFlow("取消后流程", 2, 0)).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.SUCCESS, next.getStatus());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTaskRetryWithBackoffStaysInsideStep() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(pool);
+            AtomicInteger attempts = new AtomicInteger();
+            AtomicInteger enters = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+
+            FlowDefinition flow = new FlowDefinition();
+            flow.setName("重试测试流程");
+            TaskStepDefinition task = new TaskStepDefinition();
+            task.setName("flaky");
+            task.setRetryPolicy(new TaskRetryPolicy(3, Duration.ofMillis(50), Duration.ofSeconds(1), 2.0, 0.0,
+                List.of(java.io.IOException.class)));
+            task.setEnterHandingRunnable(access -> enters.incrementAndGet());
+            task.setErrorHandingRunnable(access -> errors.incrementAndGet());
+            task.setTaskRunnable(access -> {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new java.io.UncheckedIOException(new java.io.IOException("下游暂时不可用"));
+                }
+            });
+            flow.addStep(task);
+
+            // 前两次失败后分别等待50ms、100ms重试，第三次成功
+            long start = System.nanoTime();
+            FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.SUCCESS, result.getStatus());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+            assertEquals(3, attempts.get());
+            assertEquals(1, enters.get());
+            assertEquals(0, errors.get());
+            assertEquals(FlowStepStatus.COMPLETED,
+                engine.getExecutionState(result.getExecutionId()).getStepStatus("flaky"));
+
+            // 不可重试的异常：只尝试一次，onError执行一次
+            attempts.set(0);
+            task.setTaskRunnable(access -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("业务错误");
+            });
+            FlowResult failed = engine.execute(flow).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.ERROR, failed.getStatus());
+            assertEquals(1, attempts.get());
+            assertEquals(1, errors.get());
+
+            // 退避等待期间步骤超时：等待中的重试被取消，任务体不再执行
+            attempts.set(0);
+            task.setRetryPolicy(new TaskRetryPolicy(3, Duration.ofMillis(300), Duration.ofSeconds(1), 2.0, 0.0,
+                List.of(java.io.IOException.class)));
+            task.setTimeout(Duration.ofMillis(100));
+            task.setTaskRunnable(access -> {
+                attempts.incrementAndGet();
+                throw new java.io.UncheckedIOException(new java.io.IOException("下游暂时不可用"));
+            });
+            FlowResult timedOut = engine.execute(flow).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.ERROR, timedOut.getStatus());
+            assertTrue(timedOut.getError() instanceof FlowTimeoutException);
+            Thread.sleep(400);
+            assertEquals(1, attempts.get());
+
+            // 异步任务同样如此
+            attempts.set(0);
+            task.setTaskRunnable(null);
+            task.setAsyncTaskRunnable(access -> {
+                attempts.incrementAndGet();
+                return CompletableFuture.failedFuture(new java.io.IOException("下游暂时不可用"));
+            });
+            FlowResult asyncTimedOut = engine.execute(flow).get(5, TimeUnit.SECONDS);
+            assertTrue(asyncTimedOut.getError() instanceof FlowTimeoutException);
+            Thread.sleep(400);
+            assertEquals(1, attempts.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRetriedAttemptNeverRunsOnTimerThread() throws Exception {
+        // 默认引擎在调用线程上推进：到期的重试不能在定时线程上执行任务体和后续步骤
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        for (boolean async : new boolean[] {false, true}) {
+            Queue<String> threads = new ConcurrentLinkedQueue<>();
+            AtomicInteger attempts = new AtomicInteger();
+            FlowDefinition flow = new FlowDefinition();
+            flow.setName(async ? "异步重试线程流程" : "重试线程流程");
+            TaskStepDefinition flaky = new TaskStepDefinition();
+            flaky.setName("A");
+            flaky.setRetryPolicy(new TaskRetryPolicy(2, Duration.ofMillis(10), Duration.ofMillis(10), 1.0, 0.0, null));
+            if (async) {
+                flaky.setAsyncTaskRunnable(access -> {
+                    threads.add("A:" + Thread.currentThread().getName());
+                    return attempts.incrementAndGet() == 1
+                        ? CompletableFuture.failedFuture(new IllegalStateException("首次失败"))
+                        : CompletableFuture.completedFuture(null);
+                });
+            } else {
+                flaky.setTaskRunnable(access -> {
+                    threads.add("A:" + Thread.currentThread().getName());
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new IllegalStateException("首次失败");
+                    }
+                });
+            }
+            flaky.addTransition(new Transition(null, "B"));
+            TaskStepDefinition next = new TaskStepDefinition();
+            next.setName("B");
+            next.setTaskRunnable(access -> threads.add("B:" + Thread.currentThread().getName()));
+            flow.addStep(flaky);
+            flow.addStep(next);
+
+            FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.SUCCESS, result.getStatus());
+            assertEquals(3, threads.size());
+            assertEquals("A:" + Thread.currentThread().getName(), threads.peek());
+            for (String thread : threads) {
+                assertFalse(threads.toString(), thread.endsWith(":flow-timeout"));
+            }
+        }
+    }
+
+    @Test
+    public void testTimeoutHandlingNeverRunsOnTimerThread() throws Exception {
+        // 在调用线程上推进的引擎：步骤超时的步骤错误处理、流程超时的流程错误处理都不能在定时线程上执行
+        Queue<String> threads = new ConcurrentLinkedQueue<>();
+        DefaultStepErrorHandler stepErrors = new DefaultStepErrorHandler();
+        CompletableFlowEngine engine = new CompletableFlowEngine(Runnable::run, (step, context, error) -> {
+            threads.add("step:" + Thread.currentThread().getName());
+            return stepErrors.handleError(step, context, error);
+        }, new DefaultFlowErrorHandler());
+        for (int mode = 0; mode < 3; mode++) {
+            threads.clear();
+            FlowDefinition flow = createBlockingFlow("超时线程流程" + mode, new CountDownLatch(1));
+            flow.setErrorHandingRunnable(access -> threads.add("flow:" + Thread.currentThread().getName()));
+            TaskStepDefinition blocking = (TaskStepDefinition) flow.getStepDefinitions().get(0);
+            if (mode == 2) {
+                // 流程超时
+                flow.setTimeout(Duration.ofMillis(100));
+            } else {
+                blocking.setTimeout(Duration.ofMillis(100));
+                if (mode == 1) {
+                    // 异步任务不会自行完成，超时时在定时线程上被取消
+                    blocking.setTaskRunnable(null);
+                    blocking.setAsyncTaskRunnable(access -> new CompletableFuture<>());
+                }
+            }
+
+            FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+            assertEquals(FlowStatus.ERROR, result.getStatus());
+            assertTrue(result.getError() instanceof FlowTimeoutException);
+            assertNull(result.getParams().get("after"));
+            assertFalse(threads.isEmpty());
+            for (String thread : threads) {
+                assertFalse(threads.toString(), thread.endsWith(":flow-timeout"));
+            }
+        }
+    }
+
+    @Test
+    public void testDeclaredParamsUseSlotLayoutWithOverflow() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        FlowDefinition flow = createLinearFlow("槽位参数流程", 2, 0);
+        flow.setParamKeys(List.of("orderId", "status", "orderId"));
+        ((TaskStepDefinition) flow.getStepDefinitions().get(0)).setTaskRunnable(access -> {
+            Map<String, Serializable> params = ((CompletableFlowTaskRunAccessContext) access.getContext()).getParams();
+            params.put("status", "处理中");
+            params.put("extra", 1);
+            params.putIfAbsent("orderId", "ignored");
+            params.merge("count", 1, (a, b) -> (Integer) a + (Integer) b);
+            params.merge("count", 1, (a, b) -> (Integer) a + (Integer) b);
+        });
+
+        FlowExecutionPlan plan = engine.getExecutionPlan(flow);
+        assertNotNull(plan.getParamLayout());
+        assertEquals(2, plan.getParamLayout().size());
+        assertEquals(1, plan.getParamLayout().slotOf("status"));
+
+        FlowResult result = engine.execute(flow, new java.util.HashMap<>(Map.of("orderId", "O-1", "user", "u")))
+            .get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, result.getStatus());
+        // 结果参数为共享槽位布局的不可变快照
+        Map<String, Serializable> params = result.getParams();
+        assertTrue(params instanceof source.hanger.flow.core.runtime.FlowParamsSnapshot);
+        // 第二步（createLinearFlow的默认任务）写入未声明的counter
+        assertEquals(Map.of("orderId", "O-1", "status", "处理中", "user", "u", "extra", 1, "count", 2, "counter", 1),
+            new java.util.HashMap<>(params));
+        assertEquals(6, params.size());
+        assertEquals("处理中", params.get("status"));
+        assertNull(params.get("missing"));
+        assertThrows(UnsupportedOperationException.class, () -> params.put("status", "x"));
+        assertThrows(UnsupportedOperationException.class,
+            () -> params.keySet().removeIf(key -> key.startsWith("order")));
+
+        // 执行中的参数表仍可按ConcurrentMap语义修改
+        Map<String, Serializable> live = new source.hanger.flow.core.runtime.FlowParams(plan.getParamLayout(), params);
+        live.keySet().removeIf(key -> key.startsWith("order") || key.equals("extra"));
+        assertNull(live.get("orderId"));
+        assertEquals(Map.of("status", "处理中", "user", "u", "count", 2, "counter", 1), live);
+        assertThrows(NullPointerException.class, () -> live.put("status", null));
+
+        // 未声明参数名的流程冻结为不可变Map
+        flow.setParamKeys(null);
+        engine.invalidatePlan(flow);
+        FlowResult plain = engine.execute(flow).get(5, TimeUnit.SECONDS);
+        assertEquals(5, plain.getParams().size());
+        assertEquals("ignored", plain.getParams().get("orderId"));
+        assertThrows(UnsupportedOperationException.class, () -> plain.getParams().put("counter", 0));
+    }
+
+    @Test
+    public void testParallelBranchParamsMergeAtJoin() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName("分支参数合并流程");
+        ParallelStepDefinition parallel = new ParallelStepDefinition();
+        parallel.setName("parallel");
+        parallel.addBranch(new Branch(null, "slow"));
+        parallel.addBranch(new Branch(null, "fast"));
+        parallel.setParamMergeStrategy(ParamMergeStrategy.LAST_WINS);
+        parallel.addTransition(new Transition(null, "join"));
+        flow.addStep(parallel);
+
+        // 声明在前的分支后完成，LAST_WINS仍按声明顺序取fast的值
+        TaskStepDefinition slow = new TaskStepDefinition();
+        slow.setName("slow");
+        slow.setTaskRunnable(access -> {
+            Map<String, Serializable> params = ((CompletableFlowTaskRunAccessContext) access.getContext()).getParams();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 其他分支的写入在汇合前不可见
+            params.put("seenBySlow", params.get("shared"));
+            params.put("shared", "slow");
+            params.remove("removed");
+        });
+        slow.addTransition(new Transition(null, "join"));
+        flow.addStep(slow);
+
+        TaskStepDefinition fast = new TaskStepDefinition();
+        fast.setName("fast");
+        fast.setTaskRunnable(access -> ((CompletableFlowTaskRunAccessContext) access.getContext()).getParams()
+            .put("shared", "fast"));
+        fast.addTransition(new Transition(null, "join"));
+        flow.addStep(fast);
+
+        TaskStepDefinition join = new TaskStepDefinition();
+        join.setName("join");
+        join.setTaskRunnable(access -> {
+            Map<String, Serializable> params = ((CompletableFlowTaskRunAccessContext) access.getContext()).getParams();
+            params.put("joined", params.get("shared"));
+        });
+        flow.addStep(join);
+
+        FlowResult result = engine.execute(flow, new java.util.HashMap<>(Map.of("shared", "base", "removed", 1)))
+            .get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, result.getStatus());
+        assertEquals(Map.of("shared", "fast", "seenBySlow", "base", "joined", "fast"),
+            new java.util.HashMap<>(result.getParams()));
+
+        // 两个分支写入不同的值，FAIL_ON_CONFLICT使并行步骤失败且不写回任何修改
+        parallel.setParamMergeStrategy(ParamMergeStrategy.FAIL_ON_CONFLICT);
+        FlowResult conflict = engine.execute(flow, new java.util.HashMap<>(Map.of("shared", "base", "removed", 1)))
+            .get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStepStatus.ERROR,
+            engine.getExecutionState(conflict.getExecutionId()).getStepStatus("parallel"));
+        assertEquals(FlowStatus.ERROR, conflict.getStatus());
+        assertEquals(Map.of("shared", "base", "removed", 1), new java.util.HashMap<>(conflict.getParams()));
+
+        // 自定义合并函数拿到按声明顺序排列的分支值
+        parallel.setParamMerger((key, base, values) -> base + ":" + values);
+        FlowResult custom = engine.execute(flow, new java.util.HashMap<>(Map.of("shared", "base")))
+            .get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, custom.getStatus());
+        assertEquals("base:[slow, fast]", custom.getParams().get("shared"));
+    }
+
+    @Test
+    public void testMetricsRecordPerStepLatencyAndCounters() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        FlowMetrics metrics = new FlowMetrics();
+        engine.setMetrics(metrics);
+        FlowDefinition flow = createLinearFlow("指标流程", 2, 0);
+        flow.setVersion("1.0");
+        ((TaskStepDefinition) flow.getStepDefinitions().get(0)).setTaskRunnable(createTaskHandler("step0", 20));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(FlowStatus.SUCCESS, engine.execute(flow).get(5, TimeUnit.SECONDS).getStatus());
+        }
+        ((TaskStepDefinition) flow.getStepDefinitions().get(1)).setTaskRunnable(access -> {
+            throw new IllegalStateException("失败");
+        });
+        assertEquals(FlowStatus.ERROR, engine.execute(flow).get(5, TimeUnit.SECONDS).getStatus());
+
+        FlowMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(6, snapshot.executionsStarted());
+        assertEquals(1, snapshot.executionsFailed());
+        assertEquals(0, snapshot.executionsInFlight());
+        assertEquals(0, snapshot.stepsInFlight());
+        FlowMetricsSnapshot.FlowSnapshot flowSnapshot = snapshot.flow("指标流程", "1.0");
+        assertEquals(5, flowSnapshot.succeeded());
+        assertEquals(6, flowSnapshot.latency().getCount());
+
+        FlowMetricsSnapshot.StepSnapshot slow = flowSnapshot.step("step0");
+        assertEquals(6, slow.latency().getCount());
+        assertEquals(0, slow.errors());
+        long p50 = slow.latency().getPercentileNanos(50);
+        assertTrue("p50应不小于任务耗时: " + p50, p50 >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(p50 <= slow.latency().getMaxNanos());
+        assertEquals(1, flowSnapshot.step("step1").errors());
+
+        // 分桶相对误差不超过12.5%
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        LatencyHistogram.LatencySnapshot latency = histogram.snapshot();
+        assertEquals(1000, latency.getCount());
+        assertEquals(500_000, latency.getPercentileNanos(50), 500_000 * 0.125);
+        assertEquals(990_000, latency.getPercentileNanos(99), 990_000 * 0.125);
+        assertEquals(1_000_000, latency.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testTracerExportsSpanTreePerExecution() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        InMemoryFlowSpanExporter exporter = new InMemoryFlowSpanExporter();
+        engine.setTracer(new FlowTracer(exporter, "orderId"));
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName("追踪流程");
+        ParallelStepDefinition parallel = new ParallelStepDefinition();
+        parallel.setName("parallel");
+        parallel.addBranch(new Branch(null, "ok"));
+        parallel.addBranch(new Branch(null, "failing"));
+        parallel.setJoinBranchNames(java.util.Arrays.asList("ok", "failing"));
+        flow.addStep(parallel);
+        TaskStepDefinition ok = new TaskStepDefinition();
+        ok.setName("ok");
+        ok.setTaskRunnable(access -> ((CompletableFlowTaskRunAccessContext) access.getContext()).getParams()
+            .put("orderId", "A-1"));
+        flow.addStep(ok);
+        TaskStepDefinition failing = new TaskStepDefinition();
+        failing.setName("failing");
+        failing.setTaskRunnable(access -> {
+            throw new IllegalStateException("分支失败");
+        });
+        flow.addStep(failing);
+
+        FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+        FlowExecutionId id = FlowExecutionId.parse(result.getExecutionId());
+        List<FlowSpanData> spans = exporter.getSpans(FlowSpan.toHex(id.getHigh()) + FlowSpan.toHex(id.getLow()));
+        assertEquals(6, spans.size());
+        Map<String, FlowSpanData> byName = new java.util.HashMap<>();
+        for (FlowSpanData span : spans) {
+            byName.put(span.attributes().get(FlowTracer.ATTR_SPAN_TYPE) + ":" + span.name(), span);
+        }
+
+        // 根跨度最后结束，子跨度的父ID构成 执行 -> 并行步骤 -> 分支 -> 分支内步骤
+        FlowSpanData root = spans.get(spans.size() - 1);
+        assertEquals(byName.get("execution:追踪流程"), root);
+        assertNull(root.parentSpanId());
+        assertEquals("A-1", root.attributes().get("flow.param.orderId"));
+        FlowSpanData parallelSpan = byName.get("step:parallel");
+        assertEquals(root.spanId(), parallelSpan.parentSpanId());
+        assertEquals(parallelSpan.spanId(), byName.get("branch:ok").parentSpanId());
+        assertEquals(byName.get("branch:ok").spanId(), byName.get("step:ok").parentSpanId());
+        assertEquals(byName.get("branch:failing").spanId(), byName.get("step:failing").parentSpanId());
+
+        FlowSpanData failed = byName.get("step:failing");
+        assertEquals(FlowSpanStatus.ERROR, failed.status());
+        assertEquals(FlowSpanStatus.OK, byName.get("step:ok").status());
+        assertTrue(failed.endEpochNanos() >= failed.startEpochNanos());
+    }
+
+    @Test
+    public void testStepEventsFlowThroughJournal() throws Exception {
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        FlowEventJournal journal = engine.getExecutionManager().getEventJournal();
+        List<String> events = new ArrayList<>();
+        journal.addListener(event -> events.add(event.getType() + ":" + event.getStepName()
+            + (event.getTargetStepName() != null ? "->" + event.getTargetStepName() : "")));
+        FlowDefinition flow = createLinearFlow("事件日志流程", 2, 0);
+        FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+
+        // 查询状态前同步事件日志，状态不落后于已发生的步骤事件
+        FlowExecutionState state = engine.getExecutionState(result.getExecutionId());
+        assertEquals(FlowStepStatus.COMPLETED, state.getStepStatus("step1"));
+        assertEquals(List.of("STEP_STARTED:step0", "STEP_COMPLETED:step0", "TRANSITION_TAKEN:step0->step1",
+            "STEP_STARTED:step1", "STEP_COMPLETED:step1"), events);
+
+        // 容量远小于事件数时，多个生产者写满缓冲后等待消费，事件不丢失
+        FlowEventJournal small = new FlowEventJournal(4);
+        AtomicInteger seen = new AtomicInteger();
+        small.addListener(event -> seen.incrementAndGet());
+        FlowExecutionState target = new FlowExecutionState(FlowExecutionId.parse(result.getExecutionId()), "小容量", small);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                String stepName = "step" + p;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        target.publishStepEvent(FlowEventType.STEP_STARTED, stepName, null);
+                        target.publishStepEvent(FlowEventType.STEP_COMPLETED, stepName, null);
+                    }
+                }, producers));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } finally {
+            producers.shutdown();
+        }
+        assertEquals(FlowStepStatus.COMPLETED, target.getStepStatus("step3"));
+        assertEquals(8000, small.getConsumedCount());
+        assertEquals(8000, seen.get());
+    }
+
+    @Test
+    public void testFullJournalNeverRunsListenersOnProducerThreads() throws Exception {
+        // 缓冲写满时生产者只等待，慢监听器始终在消费线程上回调
+        FlowEventJournal journal = new FlowEventJournal(4);
+        Set<String> listenerThreads = ConcurrentHashMap.newKeySet();
+        journal.addListener(event -> {
+            listenerThreads.add(Thread.currentThread().getName());
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+        });
+        FlowExecutionState target = new FlowExecutionState(new FlowExecutionId(0, 1), "慢监听器", journal);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        target.publishStepEvent(FlowEventType.STEP_STARTED, "step", null);
+                    }
+                }, producers));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } finally {
+            producers.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (journal.getConsumedCount() < 400) {
+            assertTrue("事件未被消费完", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+        assertEquals(Set.of("flow-event-journal"), listenerThreads);
+
+        // 监听器回调中发布且缓冲已满时丢弃并计数，不会等待自己消费
+        FlowEventJournal reentrant = new FlowEventJournal(4);
+        AtomicInteger inner = new AtomicInteger();
+        FlowExecutionState state = new FlowExecutionState(new FlowExecutionId(0, 2), "重入发布", reentrant);
+        reentrant.addListener(event -> {
+            if ("outer".equals(event.getStepName())) {
+                for (int i = 0; i < 10; i++) {
+                    state.publishStepEvent(FlowEventType.STEP_STARTED, "inner", null);
+                }
+            } else {
+                inner.incrementAndGet();
+            }
+        });
+        state.publishStepEvent(FlowEventType.STEP_STARTED, "outer", null);
+        reentrant.sync();
+        assertEquals(3, inner.get());
+        assertEquals(7, reentrant.getDroppedCount());
+        assertEquals(4, reentrant.getConsumedCount());
+    }
+
+    @Test
+    public void testInspectorListsRunningExecutionsAndWatchdogFlagsSlowSteps() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CountDownLatch gate = new CountDownLatch(1);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(pool);
+            FlowDefinition flow = createGatedFlow("巡检流程", gate);
+            List<CompletableFuture<FlowResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(engine.execute(flow));
+                Thread.sleep(20);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            // 任务体开始运行后所属线程才更新为执行任务体的线程
+            while (engine.getInspector().getExecutionsInStep("gated", Duration.ZERO).stream()
+                .filter(execution -> execution.ownerThread().startsWith("pool-")).count() < 3) {
+                assertTrue("执行未全部进入gated任务体", System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+
+            List<RunningExecution> running = engine.getInspector().getRunningExecutions();
+            assertEquals(3, running.size());
+            Set<String> ownerThreads = new HashSet<>();
+            for (RunningExecution execution : running) {
+                assertEquals("巡检流程", execution.flowName());
+                // 所属线程是阻塞在任务体中的线程池线程，而非推进步骤的线程
+                assertTrue(execution.ownerThread(), execution.ownerThread().startsWith("pool-"));
+                ownerThreads.add(execution.ownerThread());
+                assertTrue(execution.elapsedNanos() >= execution.timeInStepNanos());
+            }
+            assertEquals(3, ownerThreads.size());
+            // 最早开始的执行运行最久
+            List<RunningExecution> slowest = engine.getInspector().getSlowestExecutions(2);
+            assertEquals(2, slowest.size());
+            assertTrue(slowest.get(0).elapsedNanos() >= slowest.get(1).elapsedNanos());
+            assertTrue(FlowExecutionId.parse(slowest.get(0).executionId())
+                .compareTo(FlowExecutionId.parse(slowest.get(1).executionId())) < 0);
+            assertTrue(engine.getInspector().getExecutionsInStep("gated", Duration.ofMinutes(1)).isEmpty());
+
+            // 同一次步骤停留只通知一次；未单独设置阈值的步骤使用默认阈值
+            List<RunningExecution> flagged = new ArrayList<>();
+            FlowWatchdog watchdog = new FlowWatchdog(engine.getExecutionManager(), Duration.ofMinutes(1));
+            watchdog.setListener((execution, threshold) -> flagged.add(execution));
+            assertEquals(0, watchdog.check());
+            watchdog.setStepThreshold("gated", Duration.ofMillis(1));
+            assertEquals(3, watchdog.check());
+            assertEquals(0, watchdog.check());
+            assertEquals("gated", flagged.get(0).currentStep());
+
+            gate.countDown();
+            for (CompletableFuture<FlowResult> future : futures) {
+                assertEquals(FlowStatus.SUCCESS, future.get(5, TimeUnit.SECONDS).getStatus());
+            }
+            assertTrue(engine.getInspector().getRunningExecutions().isEmpty());
+        } finally {
+            gate.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testWatchdogFlagsStuckParallelBranchNotLaterSibling() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch stuckEntered = new CountDownLatch(1);
+        String[] stuckThread = new String[1];
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(pool);
+            FlowDefinition flow = new FlowDefinition();
+            flow.setName("分支巡检流程");
+            ParallelStepDefinition parallel = new ParallelStepDefinition();
+            parallel.setName("parallel");
+            parallel.addBranch(new Branch(null, "stuck"));
+            parallel.addBranch(new Branch(null, "quick"));
+            parallel.addTransition(new Transition(null, "after"));
+            flow.addStep(parallel);
+
+            TaskStepDefinition stuck = new TaskStepDefinition();
+            stuck.setName("stuck");
+            stuck.setTaskRunnable(access -> {
+                stuckThread[0] = Thread.currentThread().getName();
+                stuckEntered.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            stuck.addTransition(new Transition(null, "after"));
+            flow.addStep(stuck);
+
+            // quick在stuck之后开始且先完成：完成后不再是活动步骤
+            TaskStepDefinition quick = new TaskStepDefinition();
+            quick.setName("quick");
+            quick.setTaskRunnable(access -> {
+                try {
+                    stuckEntered.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            quick.addTransition(new Transition(null, "after"));
+            flow.addStep(quick);
+
+            TaskStepDefinition after = new TaskStepDefinition();
+            after.setName("after");
+            after.setTaskRunnable(access -> { });
+            flow.addStep(after);
+
+            CompletableFuture<FlowResult> future = engine.execute(flow);
+            assertTrue(stuckEntered.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!engine.getInspector().getRunningExecutions().get(0).activeSteps().stream()
+                .map(ActiveStepSnapshot::stepName).toList().equals(List.of("stuck"))) {
+                assertTrue("quick分支未完成", System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+
+            RunningExecution running = engine.getInspector().getRunningExecutions().get(0);
+            assertEquals("stuck", running.currentStep());
+            assertEquals(stuckThread[0], running.ownerThread());
+            assertTrue(engine.getInspector().getExecutionsInStep("quick", Duration.ZERO).isEmpty());
+            assertEquals(1, engine.getInspector().getExecutionsInStep("stuck", Duration.ZERO).size());
+
+            // 巡检只通知卡住的分支步骤，所属线程为阻塞在该分支任务体中的线程；并行节点本身不参与巡检
+            List<RunningExecution> flagged = new ArrayList<>();
+            FlowWatchdog watchdog = new FlowWatchdog(engine.getExecutionManager(), Duration.ofMillis(1));
+            watchdog.setListener((execution, threshold) -> flagged.add(execution));
+            assertEquals(1, watchdog.check());
+            assertEquals(0, watchdog.check());
+            assertEquals("stuck", flagged.get(0).currentStep());
+            assertEquals(stuckThread[0], flagged.get(0).ownerThread());
+
+            gate.countDown();
+            assertEquals(FlowStatus.SUCCESS, future.get(5, TimeUnit.SECONDS).getStatus());
+            assertTrue(engine.getInspector().getRunningExecutions().isEmpty());
+        } finally {
+            gate.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCriticalPathFollowsSlowestJoinBranch() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFlowEngine engine = new CompletableFlowEngine(pool);
+            CriticalPathAnalyzer analyzer = new CriticalPathAnalyzer();
+            engine.setTracer(new FlowTracer(analyzer));
+            FlowDefinition flow = new FlowDefinition();
+            flow.setName("关键路径流程");
+            ParallelStepDefinition parallel = new ParallelStepDefinition();
+            parallel.setName("parallel");
+            parallel.addBranch(new Branch(null, "fast"));
+            parallel.addBranch(new Branch(null, "slow1"));
+            parallel.addTransition(new Transition(null, "after"));
+            flow.addStep(parallel);
+            String[][] tasks = {{"fast", "10", "after"}, {"slow1", "40", "slow2"}, {"slow2", "20", "after"},
+                {"after", "5", null}};
+            for (String[] definition : tasks) {
+                TaskStepDefinition task = new TaskStepDefinition();
+                task.setName(definition[0]);
+                task.setTaskRunnable(createTaskHandler(definition[0], Long.parseLong(definition[1])));
+                if (definition[2] != null) {
+                    task.addTransition(new Transition(null, definition[2]));
+                }
+                flow.addStep(task);
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(FlowStatus.SUCCESS, engine.execute(flow).get(5, TimeUnit.SECONDS).getStatus());
+            }
+
+            CriticalPathStatistics.FlowStatistics statistics = analyzer.snapshot().flow("关键路径流程", null);
+            assertEquals(3, statistics.runs());
+            // 慢分支中的slow1对端到端耗时影响最大；快分支不在关键路径上
+            assertEquals("slow1", statistics.steps().get(0).stepName());
+            assertEquals(3, statistics.step("slow2").criticalRuns());
+            CriticalPathStatistics.StepStatistics fast = statistics.step("fast");
+            assertEquals(3, fast.executions());
+            assertEquals(0, fast.criticalRuns());
+            assertEquals(0, fast.criticalNanos());
+            assertEquals(0, statistics.share("fast"), 0);
+            assertTrue(statistics.share("slow1") > statistics.share("slow2"));
+            assertTrue(statistics.share("slow1") + statistics.share("slow2") + statistics.share("after") <= 1);
+
+            CriticalPathStatistics.BranchStatistics slowBranch = statistics.branch("parallel", "slow1");
+            assertEquals(3, slowBranch.criticalRuns());
+            assertEquals(0, slowBranch.totalSlackNanos());
+            CriticalPathStatistics.BranchStatistics fastBranch = statistics.branch("parallel", "fast");
+            assertEquals(0, fastBranch.criticalRuns());
+            assertTrue("快分支松弛应接近50ms: " + fastBranch.minSlackNanos(),
+                fastBranch.minSlackNanos() >= TimeUnit.MILLISECONDS.toNanos(30));
+            assertEquals(0, analyzer.getDroppedSpans());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCriticalPathAnalyzerExpiresLateSpansBeyondCompletedWindow() throws Exception {
+        CriticalPathAnalyzer analyzer = new CriticalPathAnalyzer(100, Duration.ofMillis(50));
+        FlowTracer tracer = new FlowTracer(analyzer);
+        FlowDefinition lateFlow = createLinearFlow("迟到分支流程", 1, 0);
+        StepDefinition asyncStep = lateFlow.getStepDefinitions().get(0);
+
+        // 5000个执行各有一个在根跨度之后才结束的异步分支，超出保留的已结束追踪ID范围
+        List<FlowExecutionContext> contexts = new ArrayList<>();
+        List<FlowSpan> lateBranches = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            FlowExecutionContext context = new FlowExecutionContext(new FlowExecutionId(1, i), lateFlow, Map.of());
+            FlowSpan root = tracer.startExecution(context);
+            FlowSpan step = tracer.startStep(context, root.getSpanId(), asyncStep);
+            lateBranches.add(tracer.startBranch(context, step.getSpanId(), "late", FlowTracer.BRANCH_TYPE_ASYNC,
+                step.getSpanId()));
+            tracer.end(step, context, FlowResult.STEP_SUCCESS, null);
+            tracer.end(root, context, null, null);
+            contexts.add(context);
+        }
+        for (int i = 0; i < lateBranches.size(); i++) {
+            tracer.end(lateBranches.get(i), contexts.get(i), null, null);
+        }
+        assertTrue(analyzer.getPendingTraces() <= 100);
+        assertTrue(analyzer.getDroppedSpans() >= 4096);
+
+        // 迟到跨度的暂存空闲过久后被清除，不再挤占新执行的暂存
+        Thread.sleep(100);
+        CompletableFlowEngine engine = new CompletableFlowEngine();
+        engine.setTracer(tracer);
+        FlowResult result = engine.execute(createLinearFlow("迟到分支之后", 2, 0)).get(5, TimeUnit.SECONDS);
+        assertEquals(FlowStatus.SUCCESS, result.getStatus());
+        CriticalPathStatistics.FlowStatistics statistics = analyzer.snapshot().flow("迟到分支之后", null);
+        assertEquals(1, statistics.runs());
+        assertEquals(1, statistics.step("step0").criticalRuns());
+        assertEquals(1, statistics.step("step1").criticalRuns());
+        assertEquals(0, analyzer.getPendingTraces());
+    }
+
+    @Test
+    public void testThrowingCallbackEndsPathWithStepError() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // onEnter抛出：同步完成的步骤（调用线程推进）与线程池上完成的步骤（完成线程接续）都应在此结束
+            for (CompletableFlowEngine engine : List.of(new CompletableFlowEngine(), new CompletableFlowEngine(pool))) {
+                AtomicInteger nextRuns = new AtomicInteger();
+                FlowDefinition flow = createFailingCallbackFlow("onEnter异常流程", nextRuns, true);
+                FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+                assertEquals(FlowStatus.ERROR, result.getStatus());
+                assertTrue(result.getError() instanceof IllegalStateException);
+                assertEquals("onEnter失败", result.getError().getMessage());
+                assertEquals(0, nextRuns.get());
+            }
+            // onError抛出：任务失败后错误回调本身异常，同样不再推进到后续步骤
+            for (CompletableFlowEngine engine : List.of(new CompletableFlowEngine(), new CompletableFlowEngine(pool))) {
+                AtomicInteger nextRuns = new AtomicInteger();
+                FlowDefinition flow = createFailingCallbackFlow("onError异常流程", nextRuns, false);
+                FlowResult result = engine.execute(flow).get(5, TimeUnit.SECONDS);
+                assertEquals(FlowStatus.ERROR, result.getStatus());
+                assertEquals("onError失败", result.getError().getMessage());
+                assertEquals(0, nextRuns.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 创建两步流程：第一步的onEnter（或任务体失败后的onError）抛出异常，第二步执行时nextRuns加一
+     */
+    private FlowDefinition createFailingCallbackFlow(String name, AtomicInteger nextRuns, boolean failOnEnter) {
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName(name);
+        TaskStepDefinition first = new TaskStepDefinition();
+        first.setName("first");
+        if (failOnEnter) {
+            first.setEnterHandingRunnable(access -> {
+                throw new IllegalStateException("onEnter失败");
+            });
+            first.setTaskRunnable(access -> {
+            });
+        } else {
+            first.setTaskRunnable(access -> {
+                throw new IllegalArgumentException("任务失败");
+            });
+            first.setErrorHandingRunnable(access -> {
+                throw new IllegalStateException("onError失败");
+            });
+        }
+        first.addTransition(new Transition(null, "next"));
+        TaskStepDefinition next = new TaskStepDefinition();
+        next.setName("next");
+        next.setTaskRunnable(access -> nextRuns.incrementAndGet());
+        flow.addStep(first);
+        flow.addStep(next);
+        return flow;
+    }
+
+    /**
+     * 创建两步流程：第一步阻塞直到被中断（因超时或取消被中断时countDown），第二步写入after
+     */
+    private FlowDefinition createBlockingFlow(String name, CountDownLatch interrupted) {
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName(name);
+        TaskStepDefinition blocking = new TaskStepDefinition();
+        blocking.setName("blocking");
+        blocking.setTaskRunnable(access -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                if (access.isCancelled()) {
+                    interrupted.countDown();
+                }
+                throw new IllegalStateException("任务被中断", e);
+            }
+        });
+        blocking.addTransition(new Transition(null, "after"));
+        TaskStepDefinition after = new TaskStepDefinition();
+        after.setName("after");
+        after.setTaskRunnable(access -> ((CompletableFlowTaskRunAccessContext) access.getContext()).getParams()
+            .put("after", true));
+        flow.addStep(blocking);
+        flow.addStep(after);
+        return flow;
+    }
+
+    private static void assertRejected(CompletableFuture<FlowResult> future, FlowRejectedException.Reason reason)
+        throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("执行应被拒绝");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof FlowRejectedException);
+            assertEquals(reason, ((FlowRejectedException) e.getCause()).getReason());
+        }
+    }
+
+    /**
+     * 创建单任务流程：任务等待gate打开
+     */
+    private FlowDefinition createGatedFlow(String name, CountDownLatch gate) {
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName(name);
+        TaskStepDefinition task = new TaskStepDefinition();
+        task.setName("gated");
+        task.setTaskRunnable(access -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        flow.addStep(task);
+        return flow;
+    }
+
+    /**
+     * 创建线性流程：每个任务将counter加一
+     */
+    private FlowDefinition createLinearFlow(String name, int size, long sleepTime) {
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName(name);
+        for (int i = 0; i < size; i++) {
+            TaskStepDefinition task = new TaskStepDefinition();
+            task.setName("step" + i);
+            task.setTaskRunnable(access -> {
+                Map<String, Serializable> params = access.getContext() instanceof CompletableFlowTaskRunAccessContext ctx
+                    ? ctx.getParams() : null;
+                if (sleepTime > 0) {
+                    try {
+                        Thread.sleep(sleepTime);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                params.merge("counter", 1, (a, b) -> (Integer)a + (Integer)b);
+            });
+            if (i + 1 < size) {
+                task.addTransition(new Transition(null, "step" + (i + 1)));
+            }
+            flow.addStep(task);
+        }
+        return flow;
+    }
+
     /**
      * 创建任务处理器
      */
@@ -0,0 +1,191 @@
+package source.hanger.flow.completable.runtime;
+
+import org.junit.Test;
+import source.hanger.flow.core.runtime.FlowResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlowAdmissionController单元测试：排队启动、REJECT、BLOCK、SHED_OLDEST及指标
+ */
+public class FlowAdmissionControllerTest {
+
+    /** 已启动的执行，测试中手动完成 */
+    private final List<CompletableFuture<FlowResult>> started = new ArrayList<>();
+
+    private final Supplier<CompletableFuture<FlowResult>> starter = () -> {
+        CompletableFuture<FlowResult> future = new CompletableFuture<>();
+        synchronized (started) {
+            started.add(future);
+        }
+        return future;
+    };
+
+    @Test
+    public void testRejectWhenQueueFullAndStartPendingOnRelease() throws Exception {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(FlowAdmissionPolicy.rejecting(1, 1));
+
+        CompletableFuture<FlowResult> running = controller.admit("flow", starter, false);
+        CompletableFuture<FlowResult> queued = controller.admit("flow", starter, false);
+        assertEquals(1, controller.getInFlightCount());
+        assertEquals(1, controller.getPendingCount());
+        assertRejected(controller.admit("flow", starter, false), FlowRejectedException.Reason.QUEUE_FULL);
+        assertEquals(1, controller.getRejectedCount());
+        assertEquals(1, startedCount());
+
+        // 运行中的执行结束后按到达顺序启动排队的执行
+        startedAt(0).complete(FlowResult.STEP_SUCCESS);
+        assertSame(FlowResult.STEP_SUCCESS, running.get(1, TimeUnit.SECONDS));
+        assertEquals(2, startedCount());
+        assertEquals(1, controller.getInFlightCount());
+        assertEquals(0, controller.getPendingCount());
+
+        startedAt(1).complete(FlowResult.STEP_SUCCESS);
+        assertSame(FlowResult.STEP_SUCCESS, queued.get(1, TimeUnit.SECONDS));
+        assertEquals(0, controller.getInFlightCount());
+        assertEquals(0, controller.getInFlightCount("flow"));
+    }
+
+    @Test
+    public void testPerFlowLimitDoesNotBlockOtherFlows() {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(new FlowAdmissionPolicy(4, 1, 4, FlowAdmissionPolicy.OverloadPolicy.REJECT,
+            Duration.ZERO));
+
+        controller.admit("a", starter, false);
+        controller.admit("a", starter, false);
+        controller.admit("b", starter, false);
+        assertEquals(1, controller.getInFlightCount("a"));
+        assertEquals(1, controller.getInFlightCount("b"));
+        assertEquals(1, controller.getPendingCount());
+        assertEquals(2, startedCount());
+    }
+
+    @Test
+    public void testBlockRejectsWhenCallerMayNotBlockAndTimesOut() {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(new FlowAdmissionPolicy(1, Integer.MAX_VALUE, 1,
+            FlowAdmissionPolicy.OverloadPolicy.BLOCK, Duration.ofMillis(50)));
+
+        controller.admit("flow", starter, true);
+        controller.admit("flow", starter, true);
+        assertRejected(controller.admit("flow", starter, false), FlowRejectedException.Reason.QUEUE_FULL);
+        long begin = System.nanoTime();
+        assertRejected(controller.admit("flow", starter, true), FlowRejectedException.Reason.TIMEOUT);
+        assertTrue(System.nanoTime() - begin >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(2, controller.getRejectedCount());
+        assertEquals(1, controller.getPendingCount());
+    }
+
+    @Test
+    public void testBlockAdmitsOnceSpaceFrees() throws Exception {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(new FlowAdmissionPolicy(1, Integer.MAX_VALUE, 1,
+            FlowAdmissionPolicy.OverloadPolicy.BLOCK, Duration.ofSeconds(5)));
+
+        controller.admit("flow", starter, true);
+        controller.admit("flow", starter, true);
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            startedAt(0).complete(FlowResult.STEP_SUCCESS);
+        });
+        // 阻塞到运行中的执行结束、排队的执行启动后空出队列位置
+        CompletableFuture<FlowResult> blocked = controller.admit("flow", starter, true);
+        assertFalse(blocked.isCompletedExceptionally());
+        assertEquals(0, controller.getRejectedCount());
+        assertEquals(1, controller.getInFlightCount());
+        assertEquals(1, controller.getPendingCount());
+    }
+
+    @Test
+    public void testShedOldestDropsOldestWaiterAndKeepsPendingCount() throws Exception {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(new FlowAdmissionPolicy(1, Integer.MAX_VALUE, 2,
+            FlowAdmissionPolicy.OverloadPolicy.SHED_OLDEST, Duration.ZERO));
+
+        controller.admit("flow", starter, false);
+        CompletableFuture<FlowResult> oldest = controller.admit("old", starter, false);
+        CompletableFuture<FlowResult> second = controller.admit("flow", starter, false);
+        CompletableFuture<FlowResult> newest = controller.admit("flow", starter, false);
+
+        assertRejected(oldest, FlowRejectedException.Reason.SHED);
+        assertEquals(1, controller.getShedCount());
+        assertEquals(0, controller.getRejectedCount());
+        assertEquals(2, controller.getPendingCount());
+        assertEquals(0, controller.getInFlightCount("old"));
+
+        startedAt(0).complete(FlowResult.STEP_SUCCESS);
+        assertEquals(1, controller.getPendingCount());
+        startedAt(1).complete(FlowResult.STEP_SUCCESS);
+        assertSame(FlowResult.STEP_SUCCESS, second.get(1, TimeUnit.SECONDS));
+        assertEquals(0, controller.getPendingCount());
+        startedAt(2).complete(FlowResult.STEP_SUCCESS);
+        assertSame(FlowResult.STEP_SUCCESS, newest.get(1, TimeUnit.SECONDS));
+        assertEquals(0, controller.getInFlightCount());
+    }
+
+    @Test
+    public void testShedOldestWithoutQueueRejects() {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(new FlowAdmissionPolicy(1, Integer.MAX_VALUE, 0,
+            FlowAdmissionPolicy.OverloadPolicy.SHED_OLDEST, Duration.ZERO));
+
+        controller.admit("flow", starter, false);
+        assertRejected(controller.admit("flow", starter, false), FlowRejectedException.Reason.QUEUE_FULL);
+        assertEquals(0, controller.getShedCount());
+        assertEquals(0, controller.getPendingCount());
+    }
+
+    @Test
+    public void testCancelledPendingExecutionLeavesQueue() {
+        FlowAdmissionController controller = new FlowAdmissionController(Runnable::run);
+        controller.setAdmissionPolicy(FlowAdmissionPolicy.rejecting(1, 1));
+
+        controller.admit("flow", starter, false);
+        CompletableFuture<FlowResult> queued = controller.admit("flow", starter, false);
+        assertTrue(queued.cancel(false));
+        assertEquals(0, controller.getPendingCount());
+
+        // 已出队的执行不会再启动
+        startedAt(0).complete(FlowResult.STEP_SUCCESS);
+        assertEquals(1, startedCount());
+        assertEquals(0, controller.getInFlightCount());
+    }
+
+    private int startedCount() {
+        synchronized (started) {
+            return started.size();
+        }
+    }
+
+    private CompletableFuture<FlowResult> startedAt(int index) {
+        synchronized (started) {
+            return started.get(index);
+        }
+    }
+
+    private static void assertRejected(CompletableFuture<FlowResult> future, FlowRejectedException.Reason reason) {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("执行应被拒绝: " + reason);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof FlowRejectedException);
+            assertEquals(reason, ((FlowRejectedException) e.getCause()).getReason());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package source.hanger.flow.completable.runtime.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * LatencyHistogram单元测试：分桶边界、分位数计算、超出范围的值及并发记录
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesHaveExactBuckets() {
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.bucketIndex(value));
+            assertEquals(value, LatencyHistogram.bucketUpperBound(value));
+        }
+        // 8~15仍为每个值一个桶，16起每个桶覆盖2个以上的值
+        assertEquals(8, LatencyHistogram.bucketIndex(8));
+        assertEquals(15, LatencyHistogram.bucketIndex(15));
+        assertEquals(16, LatencyHistogram.bucketIndex(16));
+        assertEquals(16, LatencyHistogram.bucketIndex(17));
+        assertEquals(17, LatencyHistogram.bucketIndex(18));
+        assertEquals(17, LatencyHistogram.bucketUpperBound(16));
+    }
+
+    @Test
+    public void testBucketsAreContiguousAndWithinRelativeError() {
+        long previousUpper = -1;
+        for (int index = 0; index < LatencyHistogram.BUCKET_COUNT - 1; index++) {
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            long lower = previousUpper + 1;
+            // 桶首尾相接，上下界都落在本桶
+            assertEquals(index, LatencyHistogram.bucketIndex(lower));
+            assertEquals(index, LatencyHistogram.bucketIndex(upper));
+            // 桶宽不超过下界的1/8，即相对误差不超过12.5%
+            assertTrue("bucket " + index, upper - lower <= lower / 8);
+            previousUpper = upper;
+        }
+        // 最后一个桶从上一个桶之后开始，覆盖到可跟踪上限及以上
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(previousUpper + 1));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1,
+            LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_NANOS));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void testOutOfRangeAndNegativeValues() {
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1,
+            LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_NANOS + 1));
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(Long.MAX_VALUE, snapshot.getTotalNanos());
+        assertEquals(Long.MAX_VALUE, snapshot.getMaxNanos());
+        // 负值按0记录
+        assertEquals(0, snapshot.getPercentileNanos(50));
+        // 超出范围的值所在的最后一个桶没有上界，分位数取最大耗时
+        assertEquals(Long.MAX_VALUE, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testPercentilesUseBucketUpperBoundCappedByMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 7; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.LatencySnapshot exact = histogram.snapshot();
+        assertEquals(1, exact.getPercentileNanos(0));
+        assertEquals(4, exact.getPercentileNanos(50));
+        assertEquals(7, exact.getPercentileNanos(100));
+        assertEquals(4.0, exact.getMeanNanos(), 0);
+
+        LatencyHistogram skewed = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            skewed.record(1000);
+        }
+        skewed.record(1_000_000);
+        LatencyHistogram.LatencySnapshot snapshot = skewed.snapshot();
+        long p50 = snapshot.getPercentileNanos(50);
+        assertTrue("p50=" + p50, p50 >= 1000 && p50 <= 1000 + 1000 / 8);
+        assertEquals(p50, snapshot.getPercentileNanos(99));
+        // 最大值所在桶的上界超过最大耗时，取最大耗时
+        assertEquals(1_000_000, snapshot.getPercentileNanos(99.5));
+        assertEquals(1_000_000, snapshot.getPercentileNanos(100));
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+    }
+
+    @Test
+    public void testEmptySnapshotAndInvalidPercentile() {
+        LatencyHistogram.LatencySnapshot empty = new LatencyHistogram().snapshot();
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getPercentileNanos(99));
+        assertEquals(0.0, empty.getMeanNanos(), 0);
+        try {
+            empty.getPercentileNanos(100.1);
+            fail("percentile超出范围应被拒绝");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            empty.getPercentileNanos(-1);
+            fail("percentile超出范围应被拒绝");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConcurrentRecordsAreAllCounted() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                int thread = t;
+                futures[t] = CompletableFuture.runAsync(() -> {
+                    for (int i = 1; i <= 10_000; i++) {
+                        histogram.record(thread * 10_000L + i);
+                    }
+                }, pool);
+            }
+            CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        LatencyHistogram.LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(40_000, snapshot.getCount());
+        assertEquals(40_000L * 40_001 / 2, snapshot.getTotalNanos());
+        assertEquals(40_000, snapshot.getMaxNanos());
+    }
+}
@@ -0,0 +1,94 @@
+package source.hanger.flow.completable.runtime;
+
+import org.junit.Test;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.contract.model.TaskStepDefinition;
+import source.hanger.flow.contract.model.Transition;
+import source.hanger.flow.core.runtime.FlowResult;
+import source.hanger.flow.core.runtime.FlowStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 虚拟线程执行模式单元测试（java21构建配置）
+ */
+public class VirtualThreadFlowEnginesTest {
+
+    @Test
+    public void testBlockingTasksRunOnVirtualThreads() throws Exception {
+        AtomicInteger platformTaskThreads = new AtomicInteger();
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName("虚拟线程测试流程");
+        for (int i = 0; i < 2; i++) {
+            TaskStepDefinition task = new TaskStepDefinition();
+            task.setName("blocking" + i);
+            task.setTaskRunnable(access -> {
+                if (!Thread.currentThread().isVirtual()) {
+                    platformTaskThreads.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            if (i == 0) {
+                task.addTransition(new Transition(null, "blocking1"));
+            }
+            flow.addStep(task);
+        }
+
+        try (VirtualThreadFlowEngines.VirtualThreadEngine vt = VirtualThreadFlowEngines.create(2)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<FlowResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                futures.add(vt.engine().execute(flow));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            for (CompletableFuture<FlowResult> future : futures) {
+                assertEquals(FlowStatus.SUCCESS, future.get().getStatus());
+            }
+            assertEquals(0, platformTaskThreads.get());
+            // 5000个流程 × 2个阻塞步骤，两个推进线程上串行执行需要2000秒
+            assertTrue("实际耗时 " + elapsedMillis + "ms", elapsedMillis < 20_000);
+        }
+    }
+
+    @Test
+    public void testPinningInsideSynchronizedTaskIsDetected() throws Exception {
+        Object lock = new Object();
+        FlowDefinition flow = new FlowDefinition();
+        flow.setName("虚拟线程固定检测流程");
+        TaskStepDefinition task = new TaskStepDefinition();
+        task.setName("pinned");
+        task.setTaskRunnable(access -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        flow.addStep(task);
+
+        try (VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(20), null);
+             VirtualThreadFlowEngines.VirtualThreadEngine vt = VirtualThreadFlowEngines.create(1)) {
+            assertEquals(FlowStatus.SUCCESS, vt.engine().execute(flow).get(10, TimeUnit.SECONDS).getStatus());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (monitor.getTaskPinnedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(monitor.getTaskPinnedCount() > 0);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package source.hanger.flow.contract.model;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +23,8 @@ import source.hanger.flow.contract.runtime.flow.function.FlowErrorHandingRunnabl
  *   - enterHandingRunnable为流程进入时的全局回调
  *   - errorHandingRunnable为流程全局错误处理回调
  *   - stepDefinitions为流程的所有步骤节点（任务、并行、异步等）
+ *   - timeout为整个执行的超时时间，超时后执行被取消并以失败结束
+ *   - paramKeys为流程使用的已知参数名，编译执行计划时据此为参数分配数组槽位（可选）
  *   - 支持动态添加步骤
  */
 public class FlowDefinition {
@@ -45,6 +48,14 @@ public class FlowDefinition {
      * 流程步骤节点列表（任务、并行、异步等）
      */
     private List<StepDefinition> stepDefinitions;
+    /**
+     * 流程执行超时时间（从执行启动开始计时），为null时不限制
+     */
+    private Duration timeout;
+    /**
+     * 已知参数名（按声明顺序），为null时不使用槽位布局
+     */
+    private List<String> paramKeys;
 
     /**
      * 添加流程步骤节点
@@ -139,6 +150,41 @@ public class FlowDefinition {
         this.errorHandingRunnable = errorHandingRunnable;
     }
 
+    /**
+     * 获取流程执行超时时间
+     * @return 超时时间，未设置时为null
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 设置流程执行超时时间
+     * @param timeout 超时时间，为null时不限制
+     */
+    public void setTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout必须大于0");
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获取已知参数名
+     * @return 参数名列表，未声明时为null
+     */
+    public List<String> getParamKeys() {
+        return paramKeys;
+    }
+
+    /**
+     * 设置已知参数名
+     * @param paramKeys 参数名列表，为null时不使用槽位布局
+     */
+    public void setParamKeys(List<String> paramKeys) {
+        this.paramKeys = paramKeys;
+    }
+
     /**
      * 获取所有流程步骤节点
      * @return 步骤节点列表
@@ -1,6 +1,6 @@
 package source.hanger.flow.contract.model;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,15 +16,20 @@ import java.util.Map;
  *   - 每个分支由Branch对象描述，汇合点由joinBranchNames指定
  * <p>
  * 设计说明：
- *   - branches存储所有分支定义，key为分支目标节点名
+ *   - branches存储所有分支定义，key为分支目标节点名，按声明顺序排列
  *   - joinBranchNames指定哪些分支完成后进行汇合
+ *   - paramMergeStrategy指定汇合分支的参数隔离与合并方式，默认SHARED（分支共享执行参数）
  *   - 支持灵活的并行与汇合控制
  */
 public class ParallelStepDefinition extends AbstractStepDefinition {
     /** 并行分支映射，key为分支目标节点名，value为分支定义 */
-    private final Map<String, Branch> branches = new HashMap<>();
+    private final Map<String, Branch> branches = new LinkedHashMap<>();
     /** 汇合点分支名称列表，指定哪些分支完成后汇合 */
     private List<String> joinBranchNames;
+    /** 汇合分支的参数合并策略 */
+    private ParamMergeStrategy paramMergeStrategy = ParamMergeStrategy.SHARED;
+    /** CUSTOM策略下的参数合并函数 */
+    private ParamMerger paramMerger;
 
     /**
      * 添加并行分支
@@ -57,4 +62,46 @@ public class ParallelStepDefinition extends AbstractStepDefinition {
     public void setJoinBranchNames(List<String> joinBranchNames) {
         this.joinBranchNames = joinBranchNames;
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取汇合分支的参数合并策略
+     * @return 合并策略，默认SHARED
+     */
+    public ParamMergeStrategy getParamMergeStrategy() {
+        return paramMergeStrategy;
+    }
+
+    /**
+     * 设置汇合分支的参数合并策略
+     * @param paramMergeStrategy 合并策略，CUSTOM需通过{@link #setParamMerger(ParamMerger)}设置
+     */
+    public void setParamMergeStrategy(ParamMergeStrategy paramMergeStrategy) {
+        if (paramMergeStrategy == null) {
+            throw new IllegalArgumentException("paramMergeStrategy不能为空");
+        }
+        if (paramMergeStrategy == ParamMergeStrategy.CUSTOM && paramMerger == null) {
+            throw new IllegalArgumentException("CUSTOM合并策略需通过setParamMerger设置合并函数");
+        }
+        this.paramMergeStrategy = paramMergeStrategy;
+    }
+
+    /**
+     * 获取参数合并函数
+     * @return 合并函数，未设置时为null
+     */
+    public ParamMerger getParamMerger() {
+        return paramMerger;
+    }
+
+    /**
+     * 设置参数合并函数，同时将合并策略设为CUSTOM
+     * @param paramMerger 合并函数
+     */
+    public void setParamMerger(ParamMerger paramMerger) {
+        if (paramMerger == null) {
+            throw new IllegalArgumentException("paramMerger不能为空");
+        }
+        this.paramMerger = paramMerger;
+        this.paramMergeStrategy = ParamMergeStrategy.CUSTOM;
+    }
+}
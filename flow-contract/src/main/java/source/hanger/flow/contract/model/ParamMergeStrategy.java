@@ -0,0 +1,25 @@
+package source.hanger.flow.contract.model;
+
+/**
+ * 并行分支参数合并策略（ParamMergeStrategy）
+ * <p>
+ * 作用：
+ *   - 决定并行节点的汇合分支如何写入执行参数
+ * <p>
+ * 设计说明：
+ *   - SHARED：所有分支直接读写同一份执行参数（默认，与引入分支参数隔离前的行为一致）
+ *   - 其余策略下，每个汇合分支读写自己的写时复制参数视图（读取未写入的参数时回落到并行开始时的参数），
+ *     汇合时按分支声明顺序合并回执行参数；只被一个分支修改的参数直接写回，
+ *     被多个分支修改的参数按策略处理
+ *   - 不在汇合集合中的分支不参与合并，仍直接读写执行参数
+ */
+public enum ParamMergeStrategy {
+    /** 分支共享执行参数，不隔离 */
+    SHARED,
+    /** 多个分支修改同一参数时，声明顺序靠后的分支生效 */
+    LAST_WINS,
+    /** 多个分支把同一参数修改为不同的值时，汇合失败 */
+    FAIL_ON_CONFLICT,
+    /** 多个分支修改同一参数时，交给ParamMerger决定结果 */
+    CUSTOM
+}
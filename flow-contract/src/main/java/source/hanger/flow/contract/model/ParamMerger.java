@@ -0,0 +1,28 @@
+package source.hanger.flow.contract.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 并行分支参数合并函数（ParamMerger）
+ * <p>
+ * 作用：
+ *   - 在CUSTOM合并策略下，决定被多个汇合分支修改的参数在汇合后的值
+ * <p>
+ * 设计说明：
+ *   - 只对被两个及以上分支修改的参数调用，只被一个分支修改的参数直接写回
+ *   - 可能被多个执行并发调用，实现需无状态或线程安全
+ */
+@FunctionalInterface
+public interface ParamMerger {
+
+    /**
+     * 合并同一参数在多个分支中的值
+     *
+     * @param key          参数名
+     * @param baseValue    汇合时执行参数中的当前值，不存在时为null
+     * @param branchValues 修改了该参数的分支写入的值，按分支声明顺序；元素为null表示该分支删除了参数
+     * @return 汇合后的值，null表示删除该参数
+     */
+    Serializable merge(String key, Serializable baseValue, List<Serializable> branchValues);
+}
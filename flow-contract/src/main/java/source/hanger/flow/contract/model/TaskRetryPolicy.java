@@ -0,0 +1,150 @@
+package source.hanger.flow.contract.model;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 任务重试策略
+ * <p>
+ * 作用：
+ *   - 任务体失败后在步骤内部重试，不经过流转、不重新进入步骤调度
+ *   - 重试间隔按指数退避增长，可叠加随机抖动，避免大量执行同时重试
+ *   - 只重试指定类型的异常（含其cause链），未指定时重试所有异常
+ * <p>
+ * 设计说明：
+ *   - 不可变，可在多个任务间共享
+ *   - 第n次重试前的基础间隔为 initialDelay * multiplier^(n-1)，不超过maxDelay；
+ *     抖动系数jitter在基础间隔上下浮动 ±jitter 比例
+ *   - onEnter只在第一次尝试前执行；onError只在最终失败后执行
+ */
+public final class TaskRetryPolicy {
+
+    /** 默认首次重试间隔 */
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(100);
+    /** 默认最大重试间隔 */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+    /** 默认退避倍数 */
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+    /** 默认抖动系数 */
+    public static final double DEFAULT_JITTER = 0.2;
+
+    /** 最大尝试次数（含第一次） */
+    private final int maxAttempts;
+    /** 首次重试间隔 */
+    private final Duration initialDelay;
+    /** 最大重试间隔 */
+    private final Duration maxDelay;
+    /** 退避倍数 */
+    private final double multiplier;
+    /** 抖动系数，取值0~1 */
+    private final double jitter;
+    /** 可重试的异常类型，为空时重试所有异常 */
+    private final List<Class<? extends Throwable>> retryOn;
+
+    /**
+     * @param maxAttempts  最大尝试次数（含第一次），1表示不重试
+     * @param initialDelay 首次重试间隔
+     * @param maxDelay     最大重试间隔
+     * @param multiplier   退避倍数，不小于1
+     * @param jitter       抖动系数，取值0~1
+     * @param retryOn      可重试的异常类型，为null或空时重试所有异常
+     */
+    public TaskRetryPolicy(int maxAttempts, Duration initialDelay, Duration maxDelay, double multiplier, double jitter,
+        List<Class<? extends Throwable>> retryOn) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts必须大于0: " + maxAttempts);
+        }
+        if (initialDelay == null || initialDelay.isNegative()) {
+            throw new IllegalArgumentException("initialDelay不能为空或负数: " + initialDelay);
+        }
+        if (maxDelay == null || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("maxDelay不能为空或小于initialDelay: " + maxDelay);
+        }
+        if (!(multiplier >= 1.0)) {
+            throw new IllegalArgumentException("multiplier不能小于1: " + multiplier);
+        }
+        if (!(jitter >= 0.0 && jitter <= 1.0)) {
+            throw new IllegalArgumentException("jitter取值应在0~1之间: " + jitter);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.retryOn = retryOn != null ? List.copyOf(retryOn) : List.of();
+    }
+
+    /**
+     * 使用默认退避参数，重试所有异常
+     *
+     * @param maxAttempts 最大尝试次数（含第一次）
+     */
+    public static TaskRetryPolicy of(int maxAttempts) {
+        return new TaskRetryPolicy(maxAttempts, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, DEFAULT_MULTIPLIER,
+            DEFAULT_JITTER, null);
+    }
+
+    /**
+     * 第attempt次尝试失败后是否应重试
+     *
+     * @param attempt 已进行的尝试次数（从1开始）
+     * @param error   本次失败的异常
+     */
+    public boolean shouldRetry(int attempt, Throwable error) {
+        return attempt < maxAttempts && isRetryable(error);
+    }
+
+    /**
+     * 异常（或其cause链上的任一异常）是否属于可重试类型
+     */
+    public boolean isRetryable(Throwable error) {
+        if (retryOn.isEmpty()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            for (Class<? extends Throwable> type : retryOn) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第attempt次尝试失败后、下一次尝试前的等待时长（纳秒）
+     *
+     * @param attempt 已进行的尝试次数（从1开始）
+     * @param random  [0, 1)之间的随机数，用于抖动
+     */
+    public long backoffNanos(int attempt, double random) {
+        double base = initialDelay.toNanos() * Math.pow(multiplier, attempt - 1);
+        double capped = Math.min(base, maxDelay.toNanos());
+        double jittered = capped * (1.0 + jitter * (2.0 * random - 1.0));
+        return (long) Math.max(0.0, Math.min(jittered, maxDelay.toNanos()));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public List<Class<? extends Throwable>> getRetryOn() {
+        return retryOn;
+    }
+}
@@ -1,5 +1,8 @@
 package source.hanger.flow.contract.model;
 
+import java.time.Duration;
+
+import source.hanger.flow.contract.runtime.task.function.AsyncFlowTaskRunnable;
 import source.hanger.flow.contract.runtime.task.function.FlowTaskEnterHandingRunnable;
 import source.hanger.flow.contract.runtime.task.function.FlowTaskErrorHandingRunnable;
 import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable;
@@ -12,6 +15,11 @@ import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable;
 public class TaskStepDefinition extends AbstractStepDefinition {
     /** 任务执行逻辑 */
     private FlowTaskRunnable taskRunnable;
+    /**
+     * 异步任务执行逻辑
+     * 与taskRunnable互斥，设置后任务以非阻塞方式执行
+     */
+    private AsyncFlowTaskRunnable asyncTaskRunnable;
     /**
      * 任务进入时的逻辑
      * 只有一次
@@ -22,6 +30,16 @@ public class TaskStepDefinition extends AbstractStepDefinition {
      * 只有一次
      */
     private FlowTaskErrorHandingRunnable errorHandingRunnable;
+    /**
+     * 任务超时时间
+     * 超时后任务以失败结束，执行任务体的线程被中断；为null时不限制
+     */
+    private Duration timeout;
+    /**
+     * 任务重试策略
+     * 任务体失败后在步骤内部按退避间隔重试；为null时不重试
+     */
+    private TaskRetryPolicy retryPolicy;
 
     /**
      * 获取任务进入处理逻辑
@@ -78,4 +96,61 @@ public class TaskStepDefinition extends AbstractStepDefinition {
     public FlowTaskRunnable getTaskRunnable() {
         return taskRunnable;
     }
-}
\ No newline at end of file
+
+    /**
+     * 设置异步任务执行逻辑
+     * 
+     * @param asyncTaskRunnable 异步任务执行逻辑
+     */
+    public void setAsyncTaskRunnable(AsyncFlowTaskRunnable asyncTaskRunnable) {
+        this.asyncTaskRunnable = asyncTaskRunnable;
+    }
+
+    /**
+     * 获取异步任务执行逻辑
+     * 
+     * @return 异步任务执行逻辑，未设置时为null
+     */
+    public AsyncFlowTaskRunnable getAsyncTaskRunnable() {
+        return asyncTaskRunnable;
+    }
+
+    /**
+     * 设置任务超时时间
+     * 
+     * @param timeout 超时时间，为null时不限制
+     */
+    public void setTimeout(Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout必须大于0");
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获取任务超时时间
+     * 
+     * @return 超时时间，未设置时为null
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 设置任务重试策略
+     * 
+     * @param retryPolicy 重试策略，为null时不重试
+     */
+    public void setRetryPolicy(TaskRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * 获取任务重试策略
+     * 
+     * @return 重试策略，未设置时为null
+     */
+    public TaskRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+}
@@ -17,4 +17,16 @@ public interface FlowTaskRunAccess extends FlowRuntimeAccess<FlowTaskRunAccessCo
      * @return 任务执行上下文
      */
     FlowTaskRunAccessContext getContext();
+
+    /**
+     * 任务是否已被取消（任务超时或所属执行被取消/超时）
+     * <p>
+     * 长时间运行的任务应定期检查并尽快返回；阻塞调用会同时收到线程中断。
+     * 默认返回false，由支持取消的运行时覆盖
+     *
+     * @return true表示应停止执行
+     */
+    default boolean isCancelled() {
+        return false;
+    }
 }
\ No newline at end of file
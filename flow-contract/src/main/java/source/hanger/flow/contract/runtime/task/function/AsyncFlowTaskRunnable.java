@@ -0,0 +1,21 @@
+package source.hanger.flow.contract.runtime.task.function;
+
+import source.hanger.flow.contract.runtime.task.access.FlowTaskRunAccess;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步任务执行接口
+ * 与FlowTaskRunnable对应的非阻塞版本：任务发起调用后立即返回CompletionStage，
+ * 等待结果期间不占用任何线程，CompletionStage完成即视为任务完成
+ */
+@FunctionalInterface
+public interface AsyncFlowTaskRunnable {
+    /**
+     * 执行任务
+     *
+     * @param access 任务执行访问接口，提供任务执行过程中的上下文访问能力
+     * @return 任务完成信号，异常完成视为任务失败；返回null视为已同步完成
+     */
+    CompletionStage<?> run(FlowTaskRunAccess access);
+}
@@ -0,0 +1,242 @@
+package source.hanger.flow.core.plan;
+
+import source.hanger.flow.contract.model.StepDefinition;
+import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicate;
+
+import java.util.Map;
+
+/**
+ * 流程执行计划（编译后的只读结构）
+ * <p>
+ * 作用：
+ *   - 由FlowPlanCompiler将FlowDefinition编译得到，运行时只读
+ *   - 步骤以整数ID标识，流转、并行分支、汇合、异步分支均以数组邻接表存储
+ *   - 起始节点在编译期一次性解析，执行期每一跳都是O(1)的数组访问
+ *   - 流程声明了已知参数名时附带参数槽位布局，执行上下文据此以数组存放参数
+ * <p>
+ * 设计说明：
+ *   - 步骤ID即步骤在FlowDefinition中的声明顺序下标
+ *   - 目标为__END__的流转编译为END，目标不存在的流转编译为UNRESOLVED
+ *   - 计划不持有FlowDefinition引用，便于引擎以弱引用方式缓存
+ *   - 所有数组均不对外暴露，只提供按下标访问的方法
+ */
+public final class FlowExecutionPlan {
+
+    /** 流程起始虚拟节点名称 */
+    public static final String START_STEP_NAME = "__START__";
+    /** 流程结束虚拟节点名称 */
+    public static final String END_STEP_NAME = "__END__";
+    /** 流转目标为流程结束 */
+    public static final int END = -1;
+    /** 流转目标无法解析（找不到对应步骤） */
+    public static final int UNRESOLVED = -2;
+
+    private static final int[] NO_IDS = new int[0];
+    private static final FlowRuntimePredicate[] NO_PREDICATES = new FlowRuntimePredicate[0];
+
+    /** 流程名称 */
+    private final String flowName;
+    /** 流程版本号 */
+    private final String flowVersion;
+    /** 步骤定义，下标即步骤ID */
+    private final StepDefinition[] steps;
+    /** 步骤名称到步骤ID的映射，仅用于非热点路径的按名查询 */
+    private final Map<String, Integer> stepIds;
+    /** 实际业务起始步骤ID，无步骤时为END */
+    private final int startStepId;
+    /** 每个步骤的流转目标ID */
+    private final int[][] transitionTargets;
+    /** 每个步骤的流转条件，与transitionTargets一一对应，null表示无条件 */
+    private final FlowRuntimePredicate[][] transitionPredicates;
+    /** 并行步骤的分支目标ID */
+    private final int[][] branchTargets;
+    /** 并行步骤的分支条件，与branchTargets一一对应，null表示无条件 */
+    private final FlowRuntimePredicate[][] branchPredicates;
+    /** 并行步骤需要等待汇合的分支目标ID，null表示等待全部激活分支 */
+    private final int[][] joinTargets;
+    /** 异步步骤的分支目标ID */
+    private final int[][] asyncTargets;
+    /** 参数槽位布局，流程未声明已知参数名时为null */
+    private final FlowParamLayout paramLayout;
+
+    FlowExecutionPlan(String flowName, String flowVersion, StepDefinition[] steps, Map<String, Integer> stepIds,
+        int startStepId, int[][] transitionTargets, FlowRuntimePredicate[][] transitionPredicates,
+        int[][] branchTargets, FlowRuntimePredicate[][] branchPredicates, int[][] joinTargets,
+        int[][] asyncTargets, FlowParamLayout paramLayout) {
+        this.flowName = flowName;
+        this.flowVersion = flowVersion;
+        this.steps = steps;
+        this.stepIds = stepIds;
+        this.startStepId = startStepId;
+        this.transitionTargets = transitionTargets;
+        this.transitionPredicates = transitionPredicates;
+        this.branchTargets = branchTargets;
+        this.branchPredicates = branchPredicates;
+        this.joinTargets = joinTargets;
+        this.asyncTargets = asyncTargets;
+        this.paramLayout = paramLayout;
+    }
+
+    static int[] emptyIds() {
+        return NO_IDS;
+    }
+
+    static FlowRuntimePredicate[] emptyPredicates() {
+        return NO_PREDICATES;
+    }
+
+    public String getFlowName() {
+        return flowName;
+    }
+
+    public String getFlowVersion() {
+        return flowVersion;
+    }
+
+    /**
+     * 参数槽位布局
+     * @return 布局，流程未声明已知参数名时为null
+     */
+    public FlowParamLayout getParamLayout() {
+        return paramLayout;
+    }
+
+    /**
+     * 步骤总数
+     */
+    public int stepCount() {
+        return steps.length;
+    }
+
+    /**
+     * 实际业务起始步骤ID
+     * @return 起始步骤ID，流程没有步骤时返回END
+     */
+    public int startStepId() {
+        return startStepId;
+    }
+
+    /**
+     * 根据步骤ID获取步骤定义
+     */
+    public StepDefinition step(int stepId) {
+        return steps[stepId];
+    }
+
+    /**
+     * 根据步骤ID获取步骤名称
+     */
+    public String stepName(int stepId) {
+        return steps[stepId].getName();
+    }
+
+    /**
+     * 获取流转目标的显示名称（用于日志），END与UNRESOLVED返回占位名称
+     */
+    public String targetName(int targetId) {
+        if (targetId >= 0) {
+            return steps[targetId].getName();
+        }
+        return targetId == END ? END_STEP_NAME : "<unresolved>";
+    }
+
+    /**
+     * 根据步骤名称获取步骤ID（非热点路径使用）
+     * @return 步骤ID，不存在时返回UNRESOLVED
+     */
+    public int stepId(String stepName) {
+        Integer id = stepIds.get(stepName);
+        return id != null ? id : UNRESOLVED;
+    }
+
+    /**
+     * 步骤的流转条件数量
+     */
+    public int transitionCount(int stepId) {
+        return transitionTargets[stepId].length;
+    }
+
+    /**
+     * 第index个流转的目标步骤ID（可能为END或UNRESOLVED）
+     */
+    public int transitionTarget(int stepId, int index) {
+        return transitionTargets[stepId][index];
+    }
+
+    /**
+     * 第index个流转的条件，null表示无条件
+     */
+    public FlowRuntimePredicate transitionPredicate(int stepId, int index) {
+        return transitionPredicates[stepId][index];
+    }
+
+    /**
+     * 判断targetId是否为stepId某个流转的目标（用于识别并行汇合点）
+     */
+    public boolean isTransitionTarget(int stepId, int targetId) {
+        for (int target : transitionTargets[stepId]) {
+            if (target == targetId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 并行步骤的分支数量，非并行步骤返回0
+     */
+    public int branchCount(int stepId) {
+        return branchTargets[stepId].length;
+    }
+
+    /**
+     * 并行步骤第index个分支的目标步骤ID（可能为UNRESOLVED）
+     */
+    public int branchTarget(int stepId, int index) {
+        return branchTargets[stepId][index];
+    }
+
+    /**
+     * 并行步骤第index个分支的条件，null表示无条件
+     */
+    public FlowRuntimePredicate branchPredicate(int stepId, int index) {
+        return branchPredicates[stepId][index];
+    }
+
+    /**
+     * 并行步骤是否声明了汇合分支（waitFor）
+     */
+    public boolean hasJoinSet(int stepId) {
+        return joinTargets[stepId] != null;
+    }
+
+    /**
+     * 判断分支目标是否属于并行步骤的汇合集合；未声明waitFor时所有分支都参与汇合
+     */
+    public boolean isJoinBranch(int stepId, int branchTargetId) {
+        int[] joins = joinTargets[stepId];
+        if (joins == null) {
+            return true;
+        }
+        for (int join : joins) {
+            if (join == branchTargetId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 异步步骤的分支数量，非异步步骤返回0
+     */
+    public int asyncBranchCount(int stepId) {
+        return asyncTargets[stepId].length;
+    }
+
+    /**
+     * 异步步骤第index个分支的目标步骤ID（可能为UNRESOLVED）
+     */
+    public int asyncBranchTarget(int stepId, int index) {
+        return asyncTargets[stepId][index];
+    }
+}
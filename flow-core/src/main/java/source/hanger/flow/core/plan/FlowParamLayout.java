@@ -0,0 +1,106 @@
+package source.hanger.flow.core.plan;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * 参数槽位布局（编译后的只读结构）
+ * <p>
+ * 作用：
+ *   - 由FlowPlanCompiler根据流程声明的已知参数名生成，为每个参数名分配一个数组下标（槽位）
+ *   - 执行时已知参数存放在数组中，按名读写只需一次开放寻址查找和一次数组访问
+ * <p>
+ * 设计说明：
+ *   - 槽位按声明顺序分配，重复声明的参数名只占一个槽位
+ *   - 查找表为2的幂长度的开放寻址表（线性探测），装载因子不超过0.5；
+ *     DSL中的参数名多为字符串常量，先按引用比较，命中时无需逐字符比较
+ *   - 不可变，可被同一流程的所有执行共享
+ */
+public final class FlowParamLayout {
+
+    /** 参数名不在布局中 */
+    public static final int NO_SLOT = -1;
+
+    /** 槽位 -> 参数名 */
+    private final String[] keys;
+    /** 开放寻址查找表：参数名 */
+    private final String[] table;
+    /** 开放寻址查找表：槽位，与table一一对应 */
+    private final int[] tableSlots;
+    /** 查找表长度掩码 */
+    private final int mask;
+
+    private FlowParamLayout(String[] keys) {
+        this.keys = keys;
+        int capacity = Integer.highestOneBit(Math.max(2, keys.length) * 2 - 1) << 1;
+        this.table = new String[capacity];
+        this.tableSlots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int slot = 0; slot < keys.length; slot++) {
+            int index = spread(keys[slot].hashCode()) & mask;
+            while (table[index] != null) {
+                index = (index + 1) & mask;
+            }
+            table[index] = keys[slot];
+            tableSlots[index] = slot;
+        }
+    }
+
+    /**
+     * 根据已知参数名生成布局
+     *
+     * @param keys 参数名（按声明顺序）
+     * @return 参数布局，没有参数名时返回null
+     */
+    public static FlowParamLayout of(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(keys);
+        for (String key : distinct) {
+            if (key == null) {
+                throw new IllegalArgumentException("参数名不能为null");
+            }
+        }
+        return new FlowParamLayout(distinct.toArray(new String[0]));
+    }
+
+    /**
+     * 查找参数名对应的槽位
+     *
+     * @param key 参数名
+     * @return 槽位，不在布局中时返回NO_SLOT
+     */
+    public int slotOf(Object key) {
+        if (!(key instanceof String)) {
+            return NO_SLOT;
+        }
+        int index = spread(key.hashCode()) & mask;
+        String candidate;
+        while ((candidate = table[index]) != null) {
+            if (candidate == key || candidate.equals(key)) {
+                return tableSlots[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * 槽位数量
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * 根据槽位获取参数名
+     */
+    public String key(int slot) {
+        return keys[slot];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
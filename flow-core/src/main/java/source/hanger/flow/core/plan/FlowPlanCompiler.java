@@ -0,0 +1,136 @@
+package source.hanger.flow.core.plan;
+
+import source.hanger.flow.contract.model.AbstractStepDefinition;
+import source.hanger.flow.contract.model.AsyncStepDefinition;
+import source.hanger.flow.contract.model.Branch;
+import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.contract.model.ParallelStepDefinition;
+import source.hanger.flow.contract.model.StepDefinition;
+import source.hanger.flow.contract.model.Transition;
+import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流程计划编译器
+ * <p>
+ * 负责将FlowDefinition编译为只读的FlowExecutionPlan：
+ * - 为每个步骤分配整数ID（声明顺序下标）
+ * - 将按名称引用的流转、并行分支、汇合分支、异步分支解析为ID数组
+ * - 一次性解析__START__指向的实际业务起始步骤
+ * - 根据流程声明的已知参数名生成参数槽位布局
+ * <p>
+ * 设计说明：
+ * - 编译只遍历定义一次，整体为O(步骤数 + 边数)
+ * - 同名步骤以首次出现者为准，与按名查找的语义一致
+ * - 编译结果与运行时实现无关，可被不同引擎复用
+ */
+public final class FlowPlanCompiler {
+
+    private FlowPlanCompiler() {
+    }
+
+    /**
+     * 编译流程定义
+     * @param flowDefinition 流程定义
+     * @return 只读执行计划
+     */
+    public static FlowExecutionPlan compile(FlowDefinition flowDefinition) {
+        List<StepDefinition> stepList = flowDefinition.getStepDefinitions();
+        int size = stepList.size();
+        StepDefinition[] steps = stepList.toArray(new StepDefinition[0]);
+
+        Map<String, Integer> stepIds = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            stepIds.putIfAbsent(steps[i].getName(), i);
+        }
+
+        int[][] transitionTargets = new int[size][];
+        FlowRuntimePredicate[][] transitionPredicates = new FlowRuntimePredicate[size][];
+        int[][] branchTargets = new int[size][];
+        FlowRuntimePredicate[][] branchPredicates = new FlowRuntimePredicate[size][];
+        int[][] joinTargets = new int[size][];
+        int[][] asyncTargets = new int[size][];
+
+        for (int i = 0; i < size; i++) {
+            StepDefinition step = steps[i];
+            transitionTargets[i] = FlowExecutionPlan.emptyIds();
+            transitionPredicates[i] = FlowExecutionPlan.emptyPredicates();
+            branchTargets[i] = FlowExecutionPlan.emptyIds();
+            branchPredicates[i] = FlowExecutionPlan.emptyPredicates();
+            asyncTargets[i] = FlowExecutionPlan.emptyIds();
+
+            if (step instanceof AbstractStepDefinition abstractStep) {
+                List<Transition> transitions = abstractStep.getTransitions();
+                if (transitions != null && !transitions.isEmpty()) {
+                    int count = transitions.size();
+                    transitionTargets[i] = new int[count];
+                    transitionPredicates[i] = new FlowRuntimePredicate[count];
+                    for (int t = 0; t < count; t++) {
+                        Transition transition = transitions.get(t);
+                        transitionTargets[i][t] = resolve(stepIds, transition.nextStepName());
+                        transitionPredicates[i][t] = transition.flowRuntimePredicate();
+                    }
+                }
+            }
+            if (step instanceof ParallelStepDefinition parallelStep) {
+                Collection<Branch> branches = parallelStep.getBranches().values();
+                branchTargets[i] = new int[branches.size()];
+                branchPredicates[i] = new FlowRuntimePredicate[branches.size()];
+                int b = 0;
+                for (Branch branch : branches) {
+                    branchTargets[i][b] = resolve(stepIds, branch.nextStepName());
+                    branchPredicates[i][b] = branch.flowRuntimePredicate();
+                    b++;
+                }
+                List<String> joinNames = parallelStep.getJoinBranchNames();
+                if (joinNames != null) {
+                    joinTargets[i] = new int[joinNames.size()];
+                    for (int j = 0; j < joinNames.size(); j++) {
+                        joinTargets[i][j] = resolve(stepIds, joinNames.get(j));
+                    }
+                }
+            } else if (step instanceof AsyncStepDefinition asyncStep) {
+                List<String> branchNames = asyncStep.getBranchNames();
+                asyncTargets[i] = new int[branchNames.size()];
+                for (int a = 0; a < branchNames.size(); a++) {
+                    asyncTargets[i][a] = resolve(stepIds, branchNames.get(a));
+                }
+            }
+        }
+
+        return new FlowExecutionPlan(flowDefinition.getName(), flowDefinition.getVersion(), steps,
+            Map.copyOf(stepIds), resolveStartStep(stepIds, transitionTargets, size), transitionTargets,
+            transitionPredicates, branchTargets, branchPredicates, joinTargets, asyncTargets,
+            FlowParamLayout.of(flowDefinition.getParamKeys()));
+    }
+
+    /**
+     * 解析实际业务起始步骤：__START__节点的第一个流转目标，没有__START__时取第一个步骤
+     */
+    private static int resolveStartStep(Map<String, Integer> stepIds, int[][] transitionTargets, int size) {
+        if (size == 0) {
+            return FlowExecutionPlan.END;
+        }
+        Integer startId = stepIds.get(FlowExecutionPlan.START_STEP_NAME);
+        if (startId == null) {
+            return 0;
+        }
+        int[] targets = transitionTargets[startId];
+        if (targets.length > 0 && targets[0] >= 0) {
+            return targets[0];
+        }
+        return startId;
+    }
+
+    private static int resolve(Map<String, Integer> stepIds, String stepName) {
+        if (FlowExecutionPlan.END_STEP_NAME.equals(stepName)) {
+            return FlowExecutionPlan.END;
+        }
+        Integer id = stepIds.get(stepName);
+        return id != null ? id : FlowExecutionPlan.UNRESOLVED;
+    }
+}
@@ -0,0 +1,126 @@
+package source.hanger.flow.core.runtime;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 执行事件（事件日志的环形槽位）
+ * <p>
+ * 作用：
+ *   - 记录一次步骤生命周期事件：所属执行、步骤、流转目标、错误和发生时间
+ * <p>
+ * 设计说明：
+ *   - 事件对象由{@link FlowEventJournal}预先分配并循环复用，发布方只写字段，不分配对象
+ *   - 只在{@link FlowEventListener#onEvent(FlowEvent)}回调期间有效，回调返回后槽位即可被覆盖，
+ *     需要保留时由监听器自行复制所需字段
+ *   - sequence以release写、acquire读，发布前写入的字段对读到该序号的消费方可见
+ */
+public final class FlowEvent {
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(FlowEvent.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 已发布的序号，未发布时为-1 */
+    private long sequence = -1;
+    private FlowEventType type;
+    private FlowExecutionState state;
+    private String stepName;
+    private String targetStepName;
+    private Throwable error;
+    private long timestampNanos;
+
+    FlowEvent() {
+    }
+
+    void write(FlowEventType type, FlowExecutionState state, String stepName, String targetStepName,
+        Throwable error) {
+        this.type = type;
+        this.state = state;
+        this.stepName = stepName;
+        this.targetStepName = targetStepName;
+        this.error = error;
+        this.timestampNanos = System.nanoTime();
+    }
+
+    void publish(long sequence) {
+        SEQUENCE.setRelease(this, sequence);
+    }
+
+    long publishedSequence() {
+        return (long) SEQUENCE.getAcquire(this);
+    }
+
+    /**
+     * 消费后释放引用，避免已结束的执行被槽位持有
+     */
+    void clear() {
+        state = null;
+        stepName = null;
+        targetStepName = null;
+        error = null;
+    }
+
+    /**
+     * 事件序号，在同一事件日志内单调递增
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public FlowEventType getType() {
+        return type;
+    }
+
+    /**
+     * 所属执行的状态对象
+     */
+    public FlowExecutionState getExecutionState() {
+        return state;
+    }
+
+    public FlowExecutionId getExecutionId() {
+        return state.getId();
+    }
+
+    public String getFlowName() {
+        return state.getFlowName();
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    /**
+     * 流转目标步骤名称，仅TRANSITION_TAKEN事件有值
+     */
+    public String getTargetStepName() {
+        return targetStepName;
+    }
+
+    /**
+     * 步骤错误，仅STEP_ERROR事件有值
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * 发生时间（System.nanoTime）
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowEvent{" + sequence + ", " + type + ", " + (state != null ? state.getExecutionId() : null)
+            + ", " + stepName + (targetStepName != null ? " -> " + targetStepName : "") + "}";
+    }
+}
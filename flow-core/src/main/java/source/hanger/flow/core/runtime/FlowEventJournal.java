@@ -0,0 +1,281 @@
+package source.hanger.flow.core.runtime;
+
+import source.hanger.flow.core.util.FlowLogger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 执行事件日志（多生产者环形缓冲）
+ * <p>
+ * 作用：
+ *   - 步骤生命周期事件（开始、完成、失败、选中流转）发布到预先分配的环形缓冲，
+ *     由消费线程按序号顺序更新执行状态（{@link FlowExecutionState}）并回调监听器
+ *   - 步骤执行线程只做一次序号认领和一次槽位写入，不查表、不分配对象，监听器不在执行线程上运行
+ * <p>
+ * 设计说明：
+ *   - 容量为2的幂，槽位为预先分配的{@link FlowEvent}；生产者以原子自增认领序号，
+ *     写完字段后以release写入槽位序号完成发布，消费方读到连续的序号才消费
+ *   - 消费线程在首次发布时启动，空闲一段时间后退出，下次发布时重新启动，不需要显式关闭
+ *   - 查询执行状态时先调用{@link #sync()}把已认领的事件全部消费完，查询结果不落后于查询前发生的步骤事件
+ *   - 缓冲写满时生产者只等待消费线程腾出槽位，不在执行线程上回调监听器，事件不丢失；
+ *     容量应按峰值事件速率留足余量，正常负载下生产者不会等待
+ *   - 监听器回调中发布事件且缓冲已满时，消费方无法等待自己腾出槽位，该事件被丢弃并计入{@link #getDroppedCount()}
+ */
+public final class FlowEventJournal {
+
+    /** 默认容量 */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /** 消费线程空闲时每次休眠的时长 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /** 连续空闲多少次后消费线程退出 */
+    private static final int IDLE_PARKS_BEFORE_EXIT = 1000;
+    /** 缓冲写满时生产者自旋的次数，之后转为短暂休眠 */
+    private static final int FULL_SPINS = 100;
+
+    private final FlowEvent[] slots;
+    private final int mask;
+    /** 下一个待认领的序号 */
+    private final AtomicLong claimed = new AtomicLong();
+    /** 下一个待消费的序号，之前的槽位均可复用 */
+    private volatile long consumed;
+    /** 同一时刻只有一方消费 */
+    private final ReentrantLock consumerLock = new ReentrantLock();
+    private final AtomicBoolean consumerRunning = new AtomicBoolean();
+    /** 监听器回调中因缓冲已满而丢弃的事件数 */
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<FlowEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    public FlowEventJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public FlowEventJournal(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须为正数: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        this.slots = new FlowEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new FlowEvent();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 发布一条事件
+     *
+     * @param type           事件类型
+     * @param state          所属执行的状态对象
+     * @param stepName       步骤名称
+     * @param targetStepName 流转目标步骤名称，非TRANSITION_TAKEN事件为null
+     * @param error          步骤错误，非STEP_ERROR事件为null
+     */
+    public void publish(FlowEventType type, FlowExecutionState state, String stepName, String targetStepName,
+        Throwable error) {
+        long sequence;
+        if (consumerLock.isHeldByCurrentThread()) {
+            // 在监听器回调中发布：只在有空槽位时认领，不能等待自己消费
+            sequence = tryClaim();
+            if (sequence < 0) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } else {
+            sequence = claimed.getAndIncrement();
+            if (sequence - slots.length >= consumed) {
+                awaitCapacity(sequence - slots.length);
+            }
+        }
+        FlowEvent event = slots[(int) sequence & mask];
+        event.write(type, state, stepName, targetStepName, error);
+        event.publish(sequence);
+        if (!consumerRunning.get()) {
+            startConsumer();
+        }
+    }
+
+    /**
+     * 把调用前已认领的事件全部消费完（在调用线程上进行）
+     * <p>
+     * 在监听器回调中调用时直接返回，回调看到的是截至当前事件的状态
+     */
+    public void sync() {
+        long target = claimed.get();
+        if (consumed >= target || consumerLock.isHeldByCurrentThread()) {
+            return;
+        }
+        consumerLock.lock();
+        try {
+            while (consumed < target) {
+                if (drain() == 0) {
+                    // 序号已被认领但尚未写完，等待生产者完成发布
+                    Thread.onSpinWait();
+                }
+            }
+        } finally {
+            consumerLock.unlock();
+        }
+    }
+
+    /**
+     * 注册监听器，只接收注册之后消费的事件
+     */
+    public void addListener(FlowEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(FlowEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 容量
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * 累计发布（含正在写入）的事件数
+     */
+    public long getPublishedCount() {
+        return claimed.get();
+    }
+
+    /**
+     * 累计消费的事件数
+     */
+    public long getConsumedCount() {
+        return consumed;
+    }
+
+    /**
+     * 监听器回调中因缓冲已满而丢弃的事件数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 有空槽位时认领一个序号
+     *
+     * @return 认领的序号，缓冲已满时返回-1
+     */
+    private long tryClaim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - slots.length >= consumed) {
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * 消费已发布的连续事件，调用方需持有consumerLock
+     *
+     * @return 本次消费的事件数
+     */
+    private int drain() {
+        long next = consumed;
+        int count = 0;
+        while (true) {
+            FlowEvent event = slots[(int) next & mask];
+            if (event.publishedSequence() != next) {
+                return count;
+            }
+            dispatch(event);
+            event.clear();
+            consumed = ++next;
+            count++;
+        }
+    }
+
+    private void dispatch(FlowEvent event) {
+        FlowExecutionState state = event.getExecutionState();
+        switch (event.getType()) {
+            case STEP_STARTED -> state.updateStepStatus(event.getStepName(), FlowStepStatus.RUNNING);
+            case STEP_COMPLETED -> state.updateStepStatus(event.getStepName(), FlowStepStatus.COMPLETED);
+            case STEP_ERROR -> state.updateStepStatus(event.getStepName(), FlowStepStatus.ERROR);
+            default -> {
+            }
+        }
+        for (FlowEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                FlowLogger.log(FlowLogger.Level.WARNING, new FlowLogger.FlowLogContext(state.getFlowName(), null,
+                    state.getExecutionId(), event.getStepName()), "执行事件监听器异常: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 等待序号为wrapPoint的槽位被消费；只等待，监听器始终由消费方回调
+     */
+    private void awaitCapacity(long wrapPoint) {
+        int spins = 0;
+        while (consumed <= wrapPoint) {
+            if (!consumerRunning.get()) {
+                startConsumer();
+            }
+            if (spins++ < FULL_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1_000);
+            }
+        }
+    }
+
+    private void startConsumer() {
+        if (consumerRunning.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::consume, "flow-event-journal");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 消费线程主循环：有事件时连续消费，空闲时休眠，空闲过久则退出
+     */
+    private void consume() {
+        int idleParks = 0;
+        while (true) {
+            int count = 0;
+            if (consumerLock.tryLock()) {
+                try {
+                    count = drain();
+                } finally {
+                    consumerLock.unlock();
+                }
+            }
+            if (count > 0) {
+                idleParks = 0;
+                continue;
+            }
+            if (idleParks >= IDLE_PARKS_BEFORE_EXIT) {
+                // 先标记退出再检查，与生产者“先发布再检查”配合，不会漏掉退出瞬间发布的事件
+                consumerRunning.set(false);
+                if (claimed.get() == consumed || !consumerRunning.compareAndSet(false, true)) {
+                    return;
+                }
+                idleParks = 0;
+                continue;
+            }
+            idleParks++;
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+}
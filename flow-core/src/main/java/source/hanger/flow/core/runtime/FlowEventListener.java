@@ -0,0 +1,18 @@
+package source.hanger.flow.core.runtime;
+
+/**
+ * 执行事件监听器
+ * <p>
+ * 在事件日志的消费线程（或调用{@link FlowEventJournal#sync()}查询状态的线程）上按序号顺序回调，不占用步骤执行线程。
+ * 回调中发布事件且缓冲已满时该事件被丢弃（见{@link FlowEventJournal#getDroppedCount()}）。
+ * 事件对象只在回调期间有效（见{@link FlowEvent}）；回调抛出的异常被记录后忽略。
+ */
+@FunctionalInterface
+public interface FlowEventListener {
+
+    /**
+     * 处理一条执行事件
+     * @param event 执行事件，回调返回后不可再访问
+     */
+    void onEvent(FlowEvent event);
+}
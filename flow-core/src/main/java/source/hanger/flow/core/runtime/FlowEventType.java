@@ -0,0 +1,23 @@
+package source.hanger.flow.core.runtime;
+
+/**
+ * 执行事件类型
+ */
+public enum FlowEventType {
+    /**
+     * 步骤开始执行
+     */
+    STEP_STARTED,
+    /**
+     * 步骤执行完成
+     */
+    STEP_COMPLETED,
+    /**
+     * 步骤执行失败
+     */
+    STEP_ERROR,
+    /**
+     * 选中流转（stepName为来源步骤，targetStepName为目标步骤）
+     */
+    TRANSITION_TAKEN
+}
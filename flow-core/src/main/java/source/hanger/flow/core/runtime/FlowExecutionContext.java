@@ -1,9 +1,13 @@
 package source.hanger.flow.core.runtime;
 
 import source.hanger.flow.contract.model.FlowDefinition;
+import source.hanger.flow.core.plan.FlowParamLayout;
+import source.hanger.flow.core.util.FlowLogger.FlowLogContext;
 
 import java.io.Serializable;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -13,12 +17,20 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 封装流程执行过程中的上下文信息
  * - 提供参数存储、流程定义访问等功能
  * - 线程安全，支持并发访问
+ * - 记录取消状态：取消后不再启动新的步骤，正在执行任务体的线程被中断
+ * - 执行计划带有参数槽位布局时，参数表为按槽位存放的FlowParams，否则为ConcurrentHashMap
+ * - 并行汇合分支需要隔离参数时通过forBranch()派生分支上下文：参数为写时复制的FlowParamsOverlay，
+ *   取消状态、任务线程登记和日志上下文仍属于整个执行（委托给根上下文）
  */
 public class FlowExecutionContext {
+    /**
+     * 参数表默认容量
+     */
+    private static final int DEFAULT_PARAMS_CAPACITY = 16;
     /**
      * 执行ID
      */
-    private final String executionId;
+    private final FlowExecutionId id;
     /**
      * 流程定义
      */
@@ -27,21 +39,131 @@ public class FlowExecutionContext {
      * 执行参数
      */
     private final Map<String, Serializable> params;
+    /**
+     * 根上下文（整个执行的上下文），非分支上下文为自身
+     */
+    private final FlowExecutionContext root;
+    /**
+     * 流程级日志上下文（首次使用时创建，本次执行内复用）
+     */
+    private FlowLogContext logContext;
+    /**
+     * 取消原因，未取消时为null
+     */
+    private volatile Exception cancellationCause;
+    /**
+     * 正在执行任务体的线程（首次登记时创建，由this加锁保护）
+     */
+    private Set<Thread> taskThreads;
+    /**
+     * 本次执行的状态（只在根上下文上设置），用于记录执行任务体的线程
+     */
+    private volatile FlowExecutionState executionState;
 
-    public FlowExecutionContext(String executionId, FlowDefinition flowDefinition,
+    public FlowExecutionContext(FlowExecutionId id, FlowDefinition flowDefinition,
         Map<String, ? extends Serializable> initialParams) {
-        this.executionId = executionId;
+        this(id, flowDefinition, initialParams, null);
+    }
+
+    /**
+     * @param paramLayout 参数槽位布局，为null时使用ConcurrentHashMap存放参数
+     */
+    public FlowExecutionContext(FlowExecutionId id, FlowDefinition flowDefinition,
+        Map<String, ? extends Serializable> initialParams, FlowParamLayout paramLayout) {
+        this.id = id;
         this.flowDefinition = flowDefinition;
-        params = new ConcurrentHashMap<>();
-        if (initialParams != null) {
-            for (Map.Entry<String, ? extends Serializable> entry : initialParams.entrySet()) {
-                params.put(entry.getKey(), entry.getValue());
-            }
+        this.root = this;
+        if (paramLayout != null) {
+            params = new FlowParams(paramLayout, initialParams);
+            return;
+        }
+        // 按初始参数数量预留容量，步骤写入少量新参数时无需扩容
+        int initialSize = initialParams != null ? initialParams.size() : 0;
+        params = new ConcurrentHashMap<>(Math.max(DEFAULT_PARAMS_CAPACITY, initialSize * 2));
+        if (initialSize > 0) {
+            params.putAll(initialParams);
+        }
+    }
+
+    private FlowExecutionContext(FlowExecutionContext parent) {
+        this.id = parent.id;
+        this.flowDefinition = parent.flowDefinition;
+        this.root = parent.root;
+        this.params = new FlowParamsOverlay(parent.params);
+    }
+
+    /**
+     * 派生分支上下文：参数读取回落到本上下文，写入只对分支可见，直到汇合时合并
+     *
+     * @return 分支上下文，参数表为FlowParamsOverlay
+     */
+    public FlowExecutionContext forBranch() {
+        return new FlowExecutionContext(this);
+    }
+
+    /**
+     * 关联本次执行的状态
+     */
+    public void setExecutionState(FlowExecutionState executionState) {
+        root.executionState = executionState;
+    }
+
+    public FlowExecutionState getExecutionState() {
+        return root.executionState;
+    }
+
+    /**
+     * 记录任务体开始在指定线程上运行，更新执行状态中当前步骤的所属线程；未关联执行状态时忽略
+     *
+     * @param stepName 步骤名称
+     * @param thread   执行（或发起异步）任务体的线程
+     */
+    public void taskStarted(String stepName, Thread thread) {
+        FlowExecutionState state = root.executionState;
+        if (state != null) {
+            state.taskStarted(stepName, thread);
         }
     }
 
+    /**
+     * 是否为forBranch()派生的分支上下文
+     */
+    public boolean isBranch() {
+        return root != this;
+    }
+
+    /**
+     * 执行ID文本（首次调用时生成）
+     */
     public String getExecutionId() {
-        return executionId;
+        return id.toString();
+    }
+
+    public FlowExecutionId getId() {
+        return id;
+    }
+
+    /**
+     * 流程级日志上下文，本次执行内复用
+     */
+    public FlowLogContext getLogContext() {
+        if (root != this) {
+            return root.getLogContext();
+        }
+        FlowLogContext ctx = logContext;
+        if (ctx == null) {
+            // 并发首次调用时可能各自创建，内容相同，无需同步
+            ctx = FlowLogContext.of(flowDefinition, getExecutionId());
+            logContext = ctx;
+        }
+        return ctx;
+    }
+
+    /**
+     * 步骤级日志上下文
+     */
+    public FlowLogContext getLogContext(String stepName) {
+        return getLogContext().withStep(stepName);
     }
 
     public FlowDefinition getFlowDefinition() {
@@ -71,4 +193,79 @@ public class FlowExecutionContext {
     public void clearParams() {
         params.clear();
     }
+
+    /**
+     * 取消本次执行：记录取消原因并中断正在执行任务体的线程，只有第一次调用生效
+     *
+     * @param cause 取消原因（如CancellationException或超时异常）
+     * @return true表示本次调用完成了取消
+     */
+    public boolean cancel(Exception cause) {
+        return root != this ? root.cancel(cause) : cancelRoot(cause);
+    }
+
+    private synchronized boolean cancelRoot(Exception cause) {
+        if (cancellationCause != null) {
+            return false;
+        }
+        cancellationCause = cause;
+        // 持锁中断，保证线程退出登记（exitTask）之后不会再收到本次执行的中断
+        if (taskThreads != null) {
+            for (Thread thread : taskThreads) {
+                thread.interrupt();
+            }
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return root.cancellationCause != null;
+    }
+
+    /**
+     * 取消原因，未取消时为null
+     */
+    public Exception getCancellationCause() {
+        return root.cancellationCause;
+    }
+
+    /**
+     * 登记当前线程开始执行任务体，取消时该线程会被中断
+     *
+     * @param thread 执行任务体的线程
+     * @return false表示执行已取消，任务不应开始
+     */
+    public boolean enterTask(Thread thread) {
+        return root != this ? root.enterTask(thread) : enterRootTask(thread);
+    }
+
+    private synchronized boolean enterRootTask(Thread thread) {
+        if (cancellationCause != null) {
+            return false;
+        }
+        if (taskThreads == null) {
+            taskThreads = new HashSet<>(4);
+        }
+        taskThreads.add(thread);
+        return true;
+    }
+
+    /**
+     * 登记线程结束执行任务体
+     *
+     * @param thread 执行任务体的线程
+     */
+    public void exitTask(Thread thread) {
+        if (root != this) {
+            root.exitTask(thread);
+        } else {
+            exitRootTask(thread);
+        }
+    }
+
+    private synchronized void exitRootTask(Thread thread) {
+        if (taskThreads != null) {
+            taskThreads.remove(thread);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package source.hanger.flow.core.runtime;
+
+import java.io.Serializable;
+
+/**
+ * 流程执行ID
+ * <p>
+ * 作用：
+ *   - 以128位数值（两个long）唯一标识一次流程执行
+ *   - 作为状态表的键，比较和哈希只涉及两个long，不依赖字符串
+ * <p>
+ * 设计说明：
+ *   - 文本形式为26位Crockford Base32（与ULID相同的编码），按数值大小排序与按文本排序一致
+ *   - 文本在首次调用toString()时才生成并缓存，未被打印的ID不产生字符串
+ *   - 可通过parse()从文本还原，解析时大小写不敏感，并按Crockford规则将I/L视为1、O视为0
+ */
+public final class FlowExecutionId implements Comparable<FlowExecutionId>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 文本长度 */
+    public static final int TEXT_LENGTH = 26;
+
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODING = new byte[128];
+
+    static {
+        java.util.Arrays.fill(DECODING, (byte) -1);
+        for (int i = 0; i < ENCODING.length; i++) {
+            DECODING[ENCODING[i]] = (byte) i;
+            DECODING[Character.toLowerCase(ENCODING[i])] = (byte) i;
+        }
+        DECODING['I'] = 1;
+        DECODING['i'] = 1;
+        DECODING['L'] = 1;
+        DECODING['l'] = 1;
+        DECODING['O'] = 0;
+        DECODING['o'] = 0;
+    }
+
+    /** 高64位 */
+    private final long high;
+    /** 低64位 */
+    private final long low;
+    /** 缓存的文本形式 */
+    private transient volatile String text;
+
+    public FlowExecutionId(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * 从文本解析执行ID
+     * @param text 26位Crockford Base32文本
+     * @return 执行ID
+     * @throws IllegalArgumentException 文本格式非法
+     */
+    public static FlowExecutionId parse(String text) {
+        FlowExecutionId id = tryParse(text);
+        if (id == null) {
+            throw new IllegalArgumentException("非法的流程执行ID: " + text);
+        }
+        return id;
+    }
+
+    /**
+     * 从文本解析执行ID，格式非法时返回null
+     */
+    public static FlowExecutionId tryParse(String text) {
+        if (text == null || text.length() != TEXT_LENGTH) {
+            return null;
+        }
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            char c = text.charAt(i);
+            int value = c < DECODING.length ? DECODING[c] : -1;
+            // 26位共130比特，首字符只能占3比特
+            if (value < 0 || (i == 0 && value > 7)) {
+                return null;
+            }
+            high = (high << 5) | (low >>> 59);
+            low = (low << 5) | value;
+        }
+        return new FlowExecutionId(high, low);
+    }
+
+    @Override
+    public String toString() {
+        String result = text;
+        if (result == null) {
+            char[] chars = new char[TEXT_LENGTH];
+            for (int i = 0; i < TEXT_LENGTH; i++) {
+                int position = (TEXT_LENGTH - 1 - i) * 5;
+                long bits;
+                if (position >= 64) {
+                    bits = high >>> (position - 64);
+                } else if (position + 5 <= 64) {
+                    bits = low >>> position;
+                } else {
+                    bits = (low >>> position) | (high << (64 - position));
+                }
+                chars[i] = ENCODING[(int) (bits & 31)];
+            }
+            result = new String(chars);
+            text = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int compareTo(FlowExecutionId other) {
+        int result = Long.compareUnsigned(high, other.high);
+        return result != 0 ? result : Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FlowExecutionId other)) {
+            return false;
+        }
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = high ^ low;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,19 @@
+package source.hanger.flow.core.runtime;
+
+import source.hanger.flow.contract.model.FlowDefinition;
+
+/**
+ * 流程执行ID生成策略
+ * <p>
+ * 实现需保证在同一引擎内唯一且线程安全；默认实现为MonotonicFlowExecutionIdGenerator。
+ */
+@FunctionalInterface
+public interface FlowExecutionIdGenerator {
+    /**
+     * 生成执行ID
+     *
+     * @param flowDefinition 即将执行的流程定义
+     * @return 新的执行ID
+     */
+    FlowExecutionId nextId(FlowDefinition flowDefinition);
+}
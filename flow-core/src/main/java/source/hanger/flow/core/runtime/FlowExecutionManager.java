@@ -1,7 +1,12 @@
 package source.hanger.flow.core.runtime;
 
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * 流程执行管理器
@@ -10,24 +15,87 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 执行状态跟踪
  * - 执行结果缓存
  * - 状态查询和监控
- * 
+ * - 已结束执行的有界保留与淘汰
+ *
  * 设计说明：
  * - 作为核心运行时组件，提供统一的状态管理
  * - 支持并发访问，线程安全
  * - 便于扩展监控和统计功能
+ * - 运行中的执行始终可查询；进入终态后按FlowExecutionRetentionPolicy保留，
+ *   超出数量或保留时长即被淘汰，可选保留精简摘要（首次查询时生成，淘汰本身不同步事件日志），持续负载下内存保持平稳
+ * - 淘汰在执行结束以及查询、遍历执行时顺带进行（按结束顺序先进先出），无需后台线程，
+ *   没有新执行结束时保留时长同样生效；也可由调用方定期调用evictExpired
+ * - 内部以FlowExecutionId为键；以字符串为参数的方法按FlowExecutionId文本格式解析，
+ *   不是合法执行ID的字符串视为不存在的执行：查询返回null，更新和清理被忽略
+ * - 步骤状态变更经执行事件日志（FlowEventJournal）发布，由其消费方异步更新执行状态
  */
 public class FlowExecutionManager {
-    
+
     /**
      * 流程执行状态跟踪
      */
-    private final Map<String, FlowExecutionState> executionStates = new ConcurrentHashMap<>();
-    
+    private final Map<FlowExecutionId, FlowExecutionState> executionStates = new ConcurrentHashMap<>();
+
     /**
      * 流程执行结果缓存
      */
-    private final Map<String, FlowResult> resultCache = new ConcurrentHashMap<>();
-    
+    private final Map<FlowExecutionId, FlowResult> resultCache = new ConcurrentHashMap<>();
+
+    /**
+     * 已结束执行，按结束顺序排列
+     */
+    private final Queue<CompletedExecution> completedExecutions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+
+    /**
+     * 已淘汰执行的摘要，按淘汰顺序排列
+     */
+    private final Map<String, EvictedExecution> summaries = new ConcurrentHashMap<>();
+    private final Queue<String> summaryOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger summaryCount = new AtomicInteger();
+
+    /**
+     * 累计淘汰的执行数
+     */
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * 保留策略
+     */
+    private volatile FlowExecutionRetentionPolicy retentionPolicy;
+
+    /**
+     * 执行事件日志
+     */
+    private final FlowEventJournal eventJournal;
+
+    public FlowExecutionManager() {
+        this(FlowExecutionRetentionPolicy.DEFAULT);
+    }
+
+    public FlowExecutionManager(FlowExecutionRetentionPolicy retentionPolicy) {
+        this(retentionPolicy, new FlowEventJournal());
+    }
+
+    /**
+     * @param retentionPolicy 保留策略
+     * @param eventJournal    执行事件日志，为null时步骤状态在执行线程上直接更新
+     */
+    public FlowExecutionManager(FlowExecutionRetentionPolicy retentionPolicy, FlowEventJournal eventJournal) {
+        this.retentionPolicy = retentionPolicy;
+        this.eventJournal = eventJournal;
+    }
+
+    /**
+     * 登记一次新的执行
+     * @param executionId 执行ID
+     * @param flowName    流程名称
+     * @return 执行状态，调用方可直接持有并更新，避免每次更新都查表
+     */
+    public FlowExecutionState startExecution(FlowExecutionId executionId, String flowName) {
+        return executionStates.computeIfAbsent(executionId, id -> new FlowExecutionState(id, flowName, eventJournal));
+    }
+
     /**
      * 更新执行状态
      * @param executionId 执行ID
@@ -36,60 +104,263 @@ public class FlowExecutionManager {
      * @param status      步骤状态
      */
     public void updateStepStatus(String executionId, String flowName, String stepName, FlowStepStatus status) {
-        FlowExecutionState state = executionStates.computeIfAbsent(executionId, 
-            id -> new FlowExecutionState(executionId, flowName));
-        state.updateStepStatus(stepName, status);
+        FlowExecutionId id = FlowExecutionId.tryParse(executionId);
+        if (id == null) {
+            return;
+        }
+        FlowExecutionState state = startExecution(id, flowName);
+        switch (status) {
+            case RUNNING -> state.publishStepEvent(FlowEventType.STEP_STARTED, stepName, null);
+            case COMPLETED -> state.publishStepEvent(FlowEventType.STEP_COMPLETED, stepName, null);
+            case ERROR -> state.publishStepEvent(FlowEventType.STEP_ERROR, stepName, null);
+            default -> {
+                // 其他状态不对应步骤事件，先同步事件日志再直接写入，保证不被之前的事件覆盖
+                if (eventJournal != null) {
+                    eventJournal.sync();
+                }
+                state.updateStepStatus(stepName, status);
+            }
+        }
+    }
+
+    /**
+     * 标记执行结束：记录终态和结果，并按保留策略淘汰过期的已结束执行
+     * @param executionId 执行ID
+     * @param result      执行结果
+     */
+    public void completeExecution(FlowExecutionId executionId, FlowResult result) {
+        FlowExecutionState state = executionStates.get(executionId);
+        if (state == null || state.isFinished()) {
+            return;
+        }
+        state.markFinished(result != null ? result.getStatus() : FlowStatus.ERROR);
+        if (result != null) {
+            resultCache.put(executionId, result);
+        }
+        completedExecutions.offer(new CompletedExecution(executionId, System.nanoTime()));
+        completedCount.incrementAndGet();
+        evictExpired();
     }
-    
+
     /**
      * 缓存执行结果
      * @param executionId 执行ID
      * @param result      执行结果
      */
     public void cacheExecutionResult(String executionId, FlowResult result) {
-        resultCache.put(executionId, result);
+        FlowExecutionId id = FlowExecutionId.tryParse(executionId);
+        if (id != null) {
+            resultCache.put(id, result);
+        }
     }
-    
+
     /**
      * 获取执行状态
      * @param executionId 执行ID
-     * @return 执行状态
+     * @return 执行状态，已淘汰时为null
      */
     public FlowExecutionState getExecutionState(String executionId) {
+        FlowExecutionId id = FlowExecutionId.tryParse(executionId);
+        return id != null ? getExecutionState(id) : null;
+    }
+
+    /**
+     * 获取执行状态
+     * @param executionId 执行ID
+     * @return 执行状态，已淘汰时为null
+     */
+    public FlowExecutionState getExecutionState(FlowExecutionId executionId) {
+        evictExpired();
         return executionStates.get(executionId);
     }
-    
+
     /**
      * 获取执行结果
      * @param executionId 执行ID
-     * @return 执行结果
+     * @return 执行结果，已淘汰时为null
      */
     public FlowResult getExecutionResult(String executionId) {
-        return resultCache.get(executionId);
+        FlowExecutionId id = FlowExecutionId.tryParse(executionId);
+        if (id == null) {
+            return null;
+        }
+        evictExpired();
+        return resultCache.get(id);
     }
-    
+
+    /**
+     * 获取已淘汰执行的摘要
+     * @param executionId 执行ID
+     * @return 摘要，未淘汰、未开启摘要或摘要已被挤出时为null
+     */
+    public FlowExecutionSummary getExecutionSummary(String executionId) {
+        FlowExecutionId id = FlowExecutionId.tryParse(executionId);
+        if (id == null) {
+            return null;
+        }
+        evictExpired();
+        EvictedExecution evicted = summaries.get(id.toString());
+        return evicted != null ? evicted.summary() : null;
+    }
+
+    /**
+     * 按保留策略淘汰超出数量或超过保留时长的已结束执行
+     * <p>
+     * 没有可淘汰的执行时只查看队首，开销为常数，查询路径可以直接调用
+     * @return 本次淘汰的执行数
+     */
+    public int evictExpired() {
+        FlowExecutionRetentionPolicy policy = retentionPolicy;
+        long ttlNanos = policy.getCompletedTtl().toNanos();
+        long now = System.nanoTime();
+        int evicted = 0;
+        while (true) {
+            CompletedExecution head = completedExecutions.peek();
+            if (head == null) {
+                break;
+            }
+            boolean overCapacity = completedCount.get() > policy.getMaxCompletedExecutions();
+            boolean expired = now - head.finishedAtNanos() >= ttlNanos;
+            if (!overCapacity && !expired) {
+                break;
+            }
+            // 并发淘汰时只有成功出队的线程负责清理该执行
+            if (!completedExecutions.remove(head)) {
+                continue;
+            }
+            completedCount.decrementAndGet();
+            evict(head.executionId(), policy);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private void evict(FlowExecutionId executionId, FlowExecutionRetentionPolicy policy) {
+        FlowExecutionState state = executionStates.remove(executionId);
+        resultCache.remove(executionId);
+        evictedCount.incrementAndGet();
+        if (state == null || policy.getSummaryCapacity() == 0) {
+            return;
+        }
+        // 淘汰可能发生在执行线程上（completeExecution），此时不生成摘要：生成摘要要先同步事件日志，
+        // 会在执行线程上回调监听器，推迟到查询摘要时进行
+        String summaryId = executionId.toString();
+        summaries.put(summaryId, new EvictedExecution(state));
+        summaryOrder.offer(summaryId);
+        if (summaryCount.incrementAndGet() > policy.getSummaryCapacity()) {
+            String oldest = summaryOrder.poll();
+            if (oldest != null) {
+                summaries.remove(oldest);
+                summaryCount.decrementAndGet();
+            }
+        }
+    }
+
     /**
      * 清理执行数据
      * @param executionId 执行ID
      */
     public void cleanupExecution(String executionId) {
-        executionStates.remove(executionId);
-        resultCache.remove(executionId);
+        FlowExecutionId id = FlowExecutionId.tryParse(executionId);
+        if (id != null) {
+            executionStates.remove(id);
+            resultCache.remove(id);
+        }
+    }
+
+    /**
+     * 执行事件日志，可注册监听器订阅步骤事件
+     * @return 事件日志，未启用时为null
+     */
+    public FlowEventJournal getEventJournal() {
+        return eventJournal;
+    }
+
+    /**
+     * 设置保留策略，下次淘汰时生效
+     * @param retentionPolicy 保留策略
+     */
+    public void setRetentionPolicy(FlowExecutionRetentionPolicy retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
     }
-    
+
+    public FlowExecutionRetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    /**
+     * 当前跟踪的执行数（运行中 + 保留中的已结束执行）
+     */
+    public int getTrackedExecutionCount() {
+        evictExpired();
+        return executionStates.size();
+    }
+
+    /**
+     * 累计淘汰的执行数
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * 遍历运行中（未进入终态）的执行，弱一致，不复制
+     * @param action 对每个运行中执行状态的处理
+     */
+    public void forEachRunningExecution(Consumer<FlowExecutionState> action) {
+        evictExpired();
+        for (FlowExecutionState state : executionStates.values()) {
+            if (!state.isFinished()) {
+                action.accept(state);
+            }
+        }
+    }
+
     /**
      * 获取所有执行状态
      * @return 执行状态映射
      */
     public Map<String, FlowExecutionState> getAllExecutionStates() {
-        return new ConcurrentHashMap<>(executionStates);
+        evictExpired();
+        Map<String, FlowExecutionState> states = new ConcurrentHashMap<>();
+        executionStates.forEach((id, state) -> states.put(id.toString(), state));
+        return states;
     }
-    
+
     /**
      * 获取所有执行结果
      * @return 执行结果映射
      */
     public Map<String, FlowResult> getAllExecutionResults() {
-        return new ConcurrentHashMap<>(resultCache);
+        evictExpired();
+        Map<String, FlowResult> results = new ConcurrentHashMap<>();
+        resultCache.forEach((id, result) -> results.put(id.toString(), result));
+        return results;
+    }
+
+    /**
+     * 已结束执行的淘汰队列元素
+     */
+    private record CompletedExecution(FlowExecutionId executionId, long finishedAtNanos) {
+    }
+
+    /**
+     * 已淘汰的执行：淘汰时只保留执行状态，首次查询时生成摘要并释放执行状态
+     */
+    private static final class EvictedExecution {
+        private FlowExecutionState state;
+        private FlowExecutionSummary summary;
+
+        EvictedExecution(FlowExecutionState state) {
+            this.state = state;
+        }
+
+        synchronized FlowExecutionSummary summary() {
+            if (summary == null) {
+                summary = state.toSummary();
+                state = null;
+            }
+            return summary;
+        }
     }
-} 
\ No newline at end of file
+}
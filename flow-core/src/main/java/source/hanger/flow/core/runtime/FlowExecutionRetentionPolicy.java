@@ -0,0 +1,61 @@
+package source.hanger.flow.core.runtime;
+
+import java.time.Duration;
+
+/**
+ * 流程执行状态保留策略
+ * <p>
+ * 作用：
+ *   - 限制FlowExecutionManager中已结束执行的保留数量和保留时长
+ *   - 决定已淘汰的执行是否保留精简摘要（FlowExecutionSummary）
+ * <p>
+ * 设计说明：
+ *   - 运行中的执行不受限制，只有进入终态后才参与淘汰
+ *   - 已结束执行超过maxCompletedExecutions或超过completedTtl即被淘汰
+ *   - summaryCapacity为0时不保留摘要；大于0时按先进先出保留最近的摘要
+ */
+public final class FlowExecutionRetentionPolicy {
+
+    /** 默认策略：保留最近1万个已结束执行，最长5分钟，不保留摘要 */
+    public static final FlowExecutionRetentionPolicy DEFAULT
+        = new FlowExecutionRetentionPolicy(10_000, Duration.ofMinutes(5), 0);
+
+    /** 已结束执行的最大保留数量 */
+    private final int maxCompletedExecutions;
+    /** 已结束执行的保留时长 */
+    private final Duration completedTtl;
+    /** 摘要保留数量，0表示不保留 */
+    private final int summaryCapacity;
+
+    /**
+     * @param maxCompletedExecutions 已结束执行的最大保留数量，0表示结束即淘汰
+     * @param completedTtl           已结束执行的保留时长
+     * @param summaryCapacity        淘汰后保留的摘要数量，0表示不保留
+     */
+    public FlowExecutionRetentionPolicy(int maxCompletedExecutions, Duration completedTtl, int summaryCapacity) {
+        if (maxCompletedExecutions < 0) {
+            throw new IllegalArgumentException("maxCompletedExecutions不能为负数: " + maxCompletedExecutions);
+        }
+        if (completedTtl == null || completedTtl.isNegative()) {
+            throw new IllegalArgumentException("completedTtl不能为空或负数: " + completedTtl);
+        }
+        if (summaryCapacity < 0) {
+            throw new IllegalArgumentException("summaryCapacity不能为负数: " + summaryCapacity);
+        }
+        this.maxCompletedExecutions = maxCompletedExecutions;
+        this.completedTtl = completedTtl;
+        this.summaryCapacity = summaryCapacity;
+    }
+
+    public int getMaxCompletedExecutions() {
+        return maxCompletedExecutions;
+    }
+
+    public Duration getCompletedTtl() {
+        return completedTtl;
+    }
+
+    public int getSummaryCapacity() {
+        return summaryCapacity;
+    }
+}
@@ -1,5 +1,6 @@
 package source.hanger.flow.core.runtime;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -11,38 +12,158 @@ import java.util.concurrent.ConcurrentHashMap;
  *   - 提供状态查询和监控功能
  * <p>
  * 设计说明：
- *   - executionId唯一标识本次执行
+ *   - id唯一标识本次执行
  *   - flowName记录流程名称
  *   - stepStatuses跟踪每个步骤的状态
+ *   - finalStatus记录流程终态，为null表示仍在执行
  *   - 线程安全，支持并发访问
+ *   - 关联事件日志时，步骤状态由事件日志的消费方异步更新；
+ *     读取步骤状态前先同步事件日志（{@link FlowEventJournal#sync()}），不落后于读取前发生的步骤事件
+ *   - 活动步骤（已开始、尚未完成或出错的步骤，含开始时间、所属线程）由执行线程直接写入，供运行中执行的实时查询；
+ *     并行分支同时运行时每个分支的步骤各有一条记录，步骤完成或出错时移除；
+ *     任务步骤的任务体开始运行后，所属线程更新为执行任务体的线程；
+ *     每条记录是不可变的，读到的步骤名称、线程和开始时间总是同一次步骤开始的
  */
 public class FlowExecutionState {
     /** 执行ID */
-    private final String executionId;
+    private final FlowExecutionId id;
     /** 流程名称 */
     private final String flowName;
     /** 步骤状态映射 */
     private final Map<String, FlowStepStatus> stepStatuses = new ConcurrentHashMap<>();
+    /** 开始时间（毫秒时间戳） */
+    private final long startTimeMillis;
+    /** 开始时间（System.nanoTime），用于计算运行时长 */
+    private final long startNanos;
+    /** 活动步骤：步骤名称 -> 活动步骤记录 */
+    private final Map<String, ActiveStep> activeSteps = new ConcurrentHashMap<>(4);
+    /** 结束时间（毫秒时间戳），未结束时为0 */
+    private volatile long endTimeMillis;
+    /** 流程终态，未结束时为null */
+    private volatile FlowStatus finalStatus;
+    /** 更新本状态的事件日志，为null时步骤状态直接更新 */
+    private final FlowEventJournal journal;
 
-    public FlowExecutionState(String executionId, String flowName) {
-        this.executionId = executionId;
+    public FlowExecutionState(FlowExecutionId id, String flowName) {
+        this(id, flowName, null);
+    }
+
+    /**
+     * @param journal 更新本状态的事件日志，可为null
+     */
+    public FlowExecutionState(FlowExecutionId id, String flowName, FlowEventJournal journal) {
+        this.id = id;
         this.flowName = flowName;
+        this.journal = journal;
+        this.startTimeMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
     }
 
     public void updateStepStatus(String stepName, FlowStepStatus status) {
         stepStatuses.put(stepName, status);
     }
 
+    /**
+     * 发布步骤事件：关联事件日志时写入事件日志，否则直接更新步骤状态
+     * @param type     事件类型
+     * @param stepName 步骤名称
+     * @param error    步骤错误，非STEP_ERROR事件为null
+     */
+    public void publishStepEvent(FlowEventType type, String stepName, Throwable error) {
+        if (journal != null) {
+            journal.publish(type, this, stepName, null, error);
+            return;
+        }
+        switch (type) {
+            case STEP_STARTED -> updateStepStatus(stepName, FlowStepStatus.RUNNING);
+            case STEP_COMPLETED -> updateStepStatus(stepName, FlowStepStatus.COMPLETED);
+            case STEP_ERROR -> updateStepStatus(stepName, FlowStepStatus.ERROR);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 发布选中流转事件，未关联事件日志时忽略
+     * @param stepName       来源步骤名称
+     * @param targetStepName 目标步骤名称
+     */
+    public void publishTransition(String stepName, String targetStepName) {
+        if (journal != null) {
+            journal.publish(FlowEventType.TRANSITION_TAKEN, this, stepName, targetStepName, null);
+        }
+    }
+
+    /**
+     * 记录步骤开始（在执行线程上调用）
+     * @param stepName 步骤名称
+     * @param thread   推进该步骤的线程
+     * @return 活动步骤记录，步骤结束时传给{@link #stepFinished}
+     */
+    public ActiveStep stepStarted(String stepName, Thread thread) {
+        ActiveStep step = new ActiveStep(stepName, thread, System.nanoTime());
+        activeSteps.put(stepName, step);
+        return step;
+    }
+
+    /**
+     * 记录步骤完成或出错，移除对应的活动步骤记录
+     * <p>
+     * 只移除同一次步骤开始的记录（按开始时间判断），同名步骤其间已重新开始时保留新的记录
+     * @param step {@link #stepStarted}返回的记录
+     */
+    public void stepFinished(ActiveStep step) {
+        activeSteps.computeIfPresent(step.stepName(),
+            (name, current) -> current.startNanos() == step.startNanos() ? null : current);
+    }
+
+    /**
+     * 记录任务体开始在指定线程上运行（在执行任务体的线程上调用）
+     * <p>
+     * 只在该步骤仍处于活动状态时更新所属线程，步骤开始时间不变
+     * @param stepName 步骤名称
+     * @param thread   执行任务体的线程
+     */
+    public void taskStarted(String stepName, Thread thread) {
+        activeSteps.computeIfPresent(stepName,
+            (name, current) -> current.thread() == thread ? current : new ActiveStep(name, thread, current.startNanos()));
+    }
+
+    /**
+     * 活动步骤
+     * @return 已开始、尚未完成或出错的步骤记录，没有活动步骤时为空列表
+     */
+    public List<ActiveStep> getActiveSteps() {
+        return List.copyOf(activeSteps.values());
+    }
+
+    /**
+     * 执行开始时间（System.nanoTime）
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public FlowEventJournal getJournal() {
+        return journal;
+    }
+
     public FlowStepStatus getStepStatus(String stepName) {
+        sync();
         return stepStatuses.getOrDefault(stepName, FlowStepStatus.PENDING);
     }
 
     public Map<String, FlowStepStatus> getAllStepStatuses() {
+        sync();
         return new ConcurrentHashMap<>(stepStatuses);
     }
 
     public String getExecutionId() {
-        return executionId;
+        return id.toString();
+    }
+
+    public FlowExecutionId getId() {
+        return id;
     }
 
     public String getFlowName() {
@@ -50,12 +171,79 @@ public class FlowExecutionState {
     }
 
     public boolean isAllStepsCompleted() {
+        sync();
         return stepStatuses.values().stream()
             .allMatch(status -> status == FlowStepStatus.COMPLETED || status == FlowStepStatus.ERROR);
     }
 
     public boolean hasError() {
+        sync();
         return stepStatuses.values().stream()
             .anyMatch(status -> status == FlowStepStatus.ERROR);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 标记流程进入终态
+     * @param status 流程终态
+     */
+    public void markFinished(FlowStatus status) {
+        this.endTimeMillis = System.currentTimeMillis();
+        this.finalStatus = status;
+    }
+
+    /**
+     * 流程是否已结束
+     */
+    public boolean isFinished() {
+        return finalStatus != null;
+    }
+
+    /**
+     * 获取流程终态
+     * @return 终态，未结束时为null
+     */
+    public FlowStatus getFinalStatus() {
+        return finalStatus;
+    }
+
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    public long getEndTimeMillis() {
+        return endTimeMillis;
+    }
+
+    /**
+     * 生成精简摘要
+     * <p>
+     * 先同步事件日志，可能在调用线程上回调监听器，不应在执行线程上调用
+     */
+    public FlowExecutionSummary toSummary() {
+        sync();
+        int errorSteps = 0;
+        for (FlowStepStatus status : stepStatuses.values()) {
+            if (status == FlowStepStatus.ERROR) {
+                errorSteps++;
+            }
+        }
+        return new FlowExecutionSummary(id.toString(), flowName, finalStatus, startTimeMillis, endTimeMillis,
+            stepStatuses.size(), errorSteps);
+    }
+
+    private void sync() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * 活动步骤记录（不可变，所属线程变化时整体替换）
+     *
+     * @param stepName   步骤名称
+     * @param thread     所属线程：任务步骤的任务体开始运行后为执行（或发起异步）任务体的线程，否则为推进线程
+     * @param startNanos 步骤开始时间（System.nanoTime）
+     */
+    public record ActiveStep(String stepName, Thread thread, long startNanos) {
+    }
+}
@@ -0,0 +1,27 @@
+package source.hanger.flow.core.runtime;
+
+/**
+ * 已淘汰执行的精简摘要
+ * <p>
+ * 作用：
+ *   - 在完整的FlowExecutionState和FlowResult被淘汰后，保留执行的关键信息
+ *   - 不持有参数、异常等大对象，单条摘要只占用少量内存
+ *
+ * @param executionId    执行ID
+ * @param flowName       流程名称
+ * @param status         最终状态
+ * @param startTimeMillis  开始时间（毫秒时间戳）
+ * @param endTimeMillis    结束时间（毫秒时间戳）
+ * @param stepCount      执行过的步骤数
+ * @param errorStepCount 失败的步骤数
+ */
+public record FlowExecutionSummary(String executionId, String flowName, FlowStatus status, long startTimeMillis,
+                                   long endTimeMillis, int stepCount, int errorStepCount) {
+
+    /**
+     * 执行耗时（毫秒）
+     */
+    public long durationMillis() {
+        return endTimeMillis - startTimeMillis;
+    }
+}
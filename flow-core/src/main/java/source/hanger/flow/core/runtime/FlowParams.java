@@ -0,0 +1,355 @@
+package source.hanger.flow.core.runtime;
+
+import source.hanger.flow.core.plan.FlowParamLayout;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 按槽位存放的执行参数表
+ * <p>
+ * 作用：
+ *   - 流程声明了已知参数名时替代ConcurrentHashMap作为执行参数表
+ *   - 已知参数存放在按{@link FlowParamLayout}分配的数组槽位中，未知参数存放在溢出表中
+ *   - 对外仍是完整的Map视图（getParams()、DSL中的context.params），调用方无需感知存储方式
+ * <p>
+ * 设计说明：
+ *   - 与ConcurrentHashMap语义一致：线程安全，不允许null键和null值，遍历为弱一致
+ *   - 槽位读写使用volatile语义，putIfAbsent/replace/remove(key, value)以CAS实现，
+ *     compute/merge等复合操作沿用ConcurrentMap基于这些原子操作的默认实现
+ *   - 溢出表在首次写入未知参数时创建，只使用已知参数的执行不分配哈希表
+ *   - 序列化为ConcurrentHashMap，反序列化方无需依赖布局
+ *   - 执行结束时由{@link FlowParamsSnapshot#of(Map)}冻结为共享布局的不可变快照
+ *   - 按槽位访问的方法不命名为get/set，避免被Groovy当作通用属性读写方法（context.params.x）
+ */
+public final class FlowParams extends AbstractMap<String, Serializable>
+    implements ConcurrentMap<String, Serializable>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle OVERFLOW;
+
+    static {
+        try {
+            OVERFLOW = MethodHandles.lookup().findVarHandle(FlowParams.class, "overflow", ConcurrentHashMap.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 槽位布局 */
+    private final transient FlowParamLayout layout;
+    /** 已知参数的值，下标为槽位，null表示不存在 */
+    private final transient Object[] values;
+    /** 未知参数，首次写入时创建 */
+    private transient volatile ConcurrentHashMap<String, Serializable> overflow;
+
+    /**
+     * @param layout        槽位布局
+     * @param initialParams 初始参数，可为null
+     */
+    public FlowParams(FlowParamLayout layout, Map<String, ? extends Serializable> initialParams) {
+        this.layout = Objects.requireNonNull(layout, "layout");
+        this.values = new Object[layout.size()];
+        if (initialParams != null) {
+            initialParams.forEach(this::put);
+        }
+    }
+
+    public FlowParamLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 按槽位读取已知参数
+     *
+     * @param slot 槽位，由{@link FlowParamLayout#slotOf(Object)}得到
+     */
+    public Serializable getSlot(int slot) {
+        return (Serializable) SLOTS.getVolatile(values, slot);
+    }
+
+    /**
+     * 按槽位写入已知参数
+     *
+     * @param slot  槽位，由{@link FlowParamLayout#slotOf(Object)}得到
+     * @param value 参数值
+     * @return 原值
+     */
+    public Serializable setSlot(int slot, Serializable value) {
+        return (Serializable) SLOTS.getAndSet(values, slot, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public Serializable get(Object key) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            return getSlot(slot);
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return map != null ? map.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Serializable put(String key, Serializable value) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            return setSlot(slot, value);
+        }
+        return overflow().put(key, value);
+    }
+
+    @Override
+    public Serializable remove(Object key) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            return (Serializable) SLOTS.getAndSet(values, slot, null);
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return map != null ? map.remove(key) : null;
+    }
+
+    @Override
+    public Serializable putIfAbsent(String key, Serializable value) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            return (Serializable) SLOTS.compareAndExchange(values, slot, null, Objects.requireNonNull(value));
+        }
+        return overflow().putIfAbsent(key, value);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            Object current = SLOTS.getVolatile(values, slot);
+            return current != null && value != null && current.equals(value)
+                && SLOTS.compareAndSet(values, slot, current, null);
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return map != null && value != null && map.remove(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Serializable oldValue, Serializable newValue) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            Objects.requireNonNull(oldValue);
+            Objects.requireNonNull(newValue);
+            Object current = SLOTS.getVolatile(values, slot);
+            return current != null && current.equals(oldValue)
+                && SLOTS.compareAndSet(values, slot, current, newValue);
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return map != null && map.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Serializable replace(String key, Serializable value) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        if (slot >= 0) {
+            Objects.requireNonNull(value);
+            while (true) {
+                Object current = SLOTS.getVolatile(values, slot);
+                if (current == null) {
+                    return null;
+                }
+                if (SLOTS.compareAndSet(values, slot, current, value)) {
+                    return (Serializable) current;
+                }
+            }
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return map != null ? map.replace(key, value) : null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (SLOTS.getVolatile(values, slot) != null) {
+                size++;
+            }
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return map != null ? size + map.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < values.length; slot++) {
+            SLOTS.setVolatile(values, slot, null);
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        if (map != null) {
+            map.clear();
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Serializable> action) {
+        for (int slot = 0; slot < values.length; slot++) {
+            Object value = SLOTS.getVolatile(values, slot);
+            if (value != null) {
+                action.accept(layout.key(slot), (Serializable) value);
+            }
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        if (map != null) {
+            map.forEach(action);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Serializable>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Serializable>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return FlowParams.this.size();
+            }
+
+            @Override
+            public void clear() {
+                FlowParams.this.clear();
+            }
+        };
+    }
+
+    /**
+     * 冻结为不可变快照：共享槽位布局，复制值数组和未知参数
+     */
+    FlowParamsSnapshot snapshot() {
+        Serializable[] copy = new Serializable[values.length];
+        for (int slot = 0; slot < values.length; slot++) {
+            copy[slot] = (Serializable) SLOTS.getVolatile(values, slot);
+        }
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        return new FlowParamsSnapshot(layout, copy, map != null ? Map.copyOf(map) : Map.of());
+    }
+
+    private ConcurrentHashMap<String, Serializable> overflow() {
+        ConcurrentHashMap<String, Serializable> map = overflow;
+        if (map == null) {
+            ConcurrentHashMap<String, Serializable> created = new ConcurrentHashMap<>();
+            map = (ConcurrentHashMap<String, Serializable>) OVERFLOW.compareAndExchange(this, null, created);
+            if (map == null) {
+                map = created;
+            }
+        }
+        return map;
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new ConcurrentHashMap<>(this);
+    }
+
+    /**
+     * 先遍历槽位再遍历溢出表，弱一致
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Serializable>> {
+        private int slot;
+        private Iterator<Entry<String, Serializable>> overflowIterator;
+        private Entry<String, Serializable> next;
+        private String lastKey;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (slot < values.length) {
+                int current = slot++;
+                Object value = SLOTS.getVolatile(values, current);
+                if (value != null) {
+                    next = new ParamEntry(layout.key(current), (Serializable) value);
+                    return;
+                }
+            }
+            if (overflowIterator == null) {
+                ConcurrentHashMap<String, Serializable> map = overflow;
+                if (map == null) {
+                    return;
+                }
+                overflowIterator = map.entrySet().iterator();
+            }
+            if (overflowIterator.hasNext()) {
+                Entry<String, Serializable> entry = overflowIterator.next();
+                next = new ParamEntry(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, Serializable> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, Serializable> entry = next;
+            lastKey = entry.getKey();
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            FlowParams.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * 写穿的参数条目：setValue写回参数表
+     */
+    private final class ParamEntry extends SimpleEntry<String, Serializable> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        ParamEntry(String key, Serializable value) {
+            super(key, value);
+        }
+
+        @Override
+        public Serializable setValue(Serializable value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
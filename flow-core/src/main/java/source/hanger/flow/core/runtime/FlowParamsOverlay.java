@@ -0,0 +1,271 @@
+package source.hanger.flow.core.runtime;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 分支参数视图（写时复制）
+ * <p>
+ * 作用：
+ *   - 并行节点按非SHARED策略合并参数时，每个汇合分支读写自己的参数视图
+ *   - 读取未被本分支写入的参数时回落到底层参数表，写入和删除只记录在本视图中
+ *   - 汇合时通过{@link #forEachChange(BiConsumer)}取出本分支的修改，按策略合并回底层参数表
+ * <p>
+ * 设计说明：
+ *   - 与ConcurrentHashMap语义一致：线程安全，不允许null键和null值
+ *   - 本地修改表在首次写入时创建，只读的分支不分配哈希表；删除以占位值记录，遮蔽底层参数
+ *   - 读取无锁；写入方法在本视图上加锁，保证putIfAbsent/replace等原子操作与“先读底层再写本地”的组合一致，
+ *     compute/merge等复合操作沿用ConcurrentMap基于这些原子操作的默认实现
+ *   - 遍历基于调用时的快照，条目的setValue写回本视图
+ *   - 序列化为合并后的ConcurrentHashMap
+ */
+public final class FlowParamsOverlay extends AbstractMap<String, Serializable>
+    implements ConcurrentMap<String, Serializable>, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** 删除占位值 */
+    private static final Object REMOVED = new Object();
+
+    /** 底层参数表 */
+    private final transient Map<String, Serializable> base;
+    /** 本分支的修改，值为REMOVED表示删除；首次写入时创建 */
+    private transient volatile ConcurrentHashMap<String, Object> changes;
+
+    /**
+     * @param base 底层参数表
+     */
+    public FlowParamsOverlay(Map<String, Serializable> base) {
+        this.base = Objects.requireNonNull(base, "base");
+    }
+
+    /**
+     * 遍历本分支的修改
+     *
+     * @param action 参数名与写入的值，值为null表示本分支删除了该参数
+     */
+    public void forEachChange(BiConsumer<String, Serializable> action) {
+        ConcurrentHashMap<String, Object> map = changes;
+        if (map != null) {
+            map.forEach((key, value) -> action.accept(key, value == REMOVED ? null : (Serializable) value));
+        }
+    }
+
+    /**
+     * 本分支是否修改过参数
+     */
+    public boolean hasChanges() {
+        ConcurrentHashMap<String, Object> map = changes;
+        return map != null && !map.isEmpty();
+    }
+
+    @Override
+    public Serializable get(Object key) {
+        Objects.requireNonNull(key);
+        ConcurrentHashMap<String, Object> map = changes;
+        if (map != null) {
+            Object value = map.get(key);
+            if (value != null) {
+                return value == REMOVED ? null : (Serializable) value;
+            }
+        }
+        return base.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public synchronized Serializable put(String key, Serializable value) {
+        Serializable previous = get(key);
+        changes().put(key, Objects.requireNonNull(value));
+        return previous;
+    }
+
+    @Override
+    public synchronized Serializable remove(Object key) {
+        Serializable previous = get(key);
+        if (previous != null) {
+            changes().put((String) key, REMOVED);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized Serializable putIfAbsent(String key, Serializable value) {
+        Objects.requireNonNull(value);
+        Serializable current = get(key);
+        if (current == null) {
+            changes().put(key, value);
+        }
+        return current;
+    }
+
+    @Override
+    public synchronized boolean remove(Object key, Object value) {
+        Serializable current = get(key);
+        if (current == null || value == null || !current.equals(value)) {
+            return false;
+        }
+        changes().put((String) key, REMOVED);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean replace(String key, Serializable oldValue, Serializable newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        Serializable current = get(key);
+        if (current == null || !current.equals(oldValue)) {
+            return false;
+        }
+        changes().put(key, newValue);
+        return true;
+    }
+
+    @Override
+    public synchronized Serializable replace(String key, Serializable value) {
+        Objects.requireNonNull(value);
+        Serializable current = get(key);
+        if (current != null) {
+            changes().put(key, value);
+        }
+        return current;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (String key : snapshot().keySet()) {
+            changes().put(key, REMOVED);
+        }
+    }
+
+    @Override
+    public int size() {
+        return snapshot().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Serializable> action) {
+        snapshot().forEach(action);
+    }
+
+    @Override
+    public Set<Entry<String, Serializable>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Serializable>> iterator() {
+                return new EntryIterator(snapshot().entrySet().iterator());
+            }
+
+            @Override
+            public int size() {
+                return FlowParamsOverlay.this.size();
+            }
+
+            @Override
+            public void clear() {
+                FlowParamsOverlay.this.clear();
+            }
+        };
+    }
+
+    /**
+     * 底层参数叠加本分支修改后的快照
+     */
+    private Map<String, Serializable> snapshot() {
+        Map<String, Serializable> snapshot = new LinkedHashMap<>(base);
+        forEachChange((key, value) -> {
+            if (value == null) {
+                snapshot.remove(key);
+            } else {
+                snapshot.put(key, value);
+            }
+        });
+        return snapshot;
+    }
+
+    private ConcurrentHashMap<String, Object> changes() {
+        // 只在持有本视图锁时调用
+        ConcurrentHashMap<String, Object> map = changes;
+        if (map == null) {
+            map = new ConcurrentHashMap<>();
+            changes = map;
+        }
+        return map;
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new ConcurrentHashMap<>(snapshot());
+    }
+
+    /**
+     * 遍历快照，remove和setValue写回本视图
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Serializable>> {
+        private final Iterator<Entry<String, Serializable>> snapshotIterator;
+        private String lastKey;
+
+        EntryIterator(Iterator<Entry<String, Serializable>> snapshotIterator) {
+            this.snapshotIterator = snapshotIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return snapshotIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Serializable> next() {
+            Entry<String, Serializable> entry = snapshotIterator.next();
+            lastKey = entry.getKey();
+            return new ParamEntry(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            FlowParamsOverlay.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * 写穿的参数条目：setValue写回本视图
+     */
+    private final class ParamEntry extends SimpleEntry<String, Serializable> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        ParamEntry(String key, Serializable value) {
+            super(key, value);
+        }
+
+        @Override
+        public Serializable setValue(Serializable value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package source.hanger.flow.core.runtime;
+
+import source.hanger.flow.core.plan.FlowParamLayout;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 执行参数的不可变快照
+ * <p>
+ * 作用：
+ *   - 引擎在执行到达终态时把执行参数冻结为快照，放入最终的FlowResult
+ *   - 快照之后仍在运行的异步分支对参数的修改不会反映到结果中，结果可被任意线程共享，调用方无需防御性复制
+ * <p>
+ * 设计说明：
+ *   - 按槽位存放的参数（FlowParams）冻结为本类：与参数表共享槽位布局，只复制值数组，未知参数复制为不可变Map
+ *   - 其他参数表冻结为{@link Map#copyOf(Map)}的不可变Map
+ *   - 所有修改方法抛出UnsupportedOperationException
+ *   - 序列化为{@link Map#copyOf(Map)}的不可变Map，反序列化方无需依赖布局
+ */
+public final class FlowParamsSnapshot extends AbstractMap<String, Serializable> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** 槽位布局 */
+    private final transient FlowParamLayout layout;
+    /** 已知参数的值，下标为槽位，null表示不存在 */
+    private final transient Serializable[] values;
+    /** 未知参数（不可变） */
+    private final transient Map<String, Serializable> overflow;
+    /** 参数数量 */
+    private final transient int size;
+
+    FlowParamsSnapshot(FlowParamLayout layout, Serializable[] values, Map<String, Serializable> overflow) {
+        this.layout = layout;
+        this.values = values;
+        this.overflow = overflow;
+        int count = overflow.size();
+        for (Serializable value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * 冻结参数表
+     *
+     * @param params 参数表，可为null
+     * @return 不可变快照，params为null时返回null；已是不可变快照时返回自身
+     */
+    public static Map<String, Serializable> of(Map<String, ? extends Serializable> params) {
+        if (params == null) {
+            return null;
+        }
+        if (params instanceof FlowParamsSnapshot snapshot) {
+            return snapshot;
+        }
+        if (params instanceof FlowParams flowParams) {
+            return flowParams.snapshot();
+        }
+        return Map.copyOf(params);
+    }
+
+    @Override
+    public Serializable get(Object key) {
+        int slot = layout.slotOf(Objects.requireNonNull(key));
+        return slot >= 0 ? values[slot] : overflow.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Serializable>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Serializable>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return Map.copyOf(this);
+    }
+
+    /**
+     * 先遍历槽位再遍历未知参数
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Serializable>> {
+        private int slot;
+        private Iterator<Entry<String, Serializable>> overflowIterator;
+
+        EntryIterator() {
+            skipEmptySlots();
+        }
+
+        private void skipEmptySlots() {
+            while (slot < values.length && values[slot] == null) {
+                slot++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (slot < values.length) {
+                return true;
+            }
+            if (overflowIterator == null) {
+                overflowIterator = overflow.entrySet().iterator();
+            }
+            return overflowIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Serializable> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (slot < values.length) {
+                Entry<String, Serializable> entry = new SimpleImmutableEntry<>(layout.key(slot), values[slot]);
+                slot++;
+                skipEmptySlots();
+                return entry;
+            }
+            return overflowIterator.next();
+        }
+    }
+}
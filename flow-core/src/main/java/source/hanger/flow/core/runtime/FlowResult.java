@@ -9,8 +9,17 @@ import java.util.Map;
  * 作用：
  * - 封装流程执行的最终结果
  * - 包含执行状态、参数、错误信息等
+ * <p>
+ * 设计说明：
+ * - 引擎返回的执行结果在执行到达终态时生成一次，参数为不可变快照（{@link FlowParamsSnapshot}），可被任意线程共享
+ * - 步骤执行器返回的步骤结果只用于传递步骤状态和错误，成功的步骤返回共享的{@link #STEP_SUCCESS}，不逐步分配结果对象
  */
 public class FlowResult {
+    /**
+     * 步骤成功完成的共享结果：不携带执行ID和参数，引擎在终态时以执行上下文的参数生成最终结果
+     */
+    public static final FlowResult STEP_SUCCESS = new FlowResult(null, FlowStatus.SUCCESS, null);
+
     /**
      * 执行ID
      */
@@ -20,7 +29,7 @@ public class FlowResult {
      */
     private final FlowStatus status;
     /**
-     * 执行参数
+     * 执行参数，步骤结果中为null时表示取执行上下文的参数
      */
     private final Map<String, Serializable> params;
     /**
@@ -0,0 +1,95 @@
+package source.hanger.flow.core.runtime;
+
+import source.hanger.flow.contract.model.FlowDefinition;
+
+import java.net.InetAddress;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 默认的流程执行ID生成器
+ * <p>
+ * ID布局（128位）：
+ *   - 高64位：48位毫秒时间戳 + 16位节点ID
+ *   - 低64位：生成器内单调递增的序号，起始值随机（最高位清零，2^63次生成内不会回绕）
+ * <p>
+ * 设计说明：
+ *   - 时间戳只增不减，时钟回拨时沿用上一次的时间戳，保证ID整体按时间有序
+ *   - 序号在生成器内唯一，同一毫秒、同一线程连续生成也不会重复
+ *   - 节点ID区分不同进程，默认由主机名和进程号计算，可通过系统属性hanger.flow.nodeId指定
+ *   - 每次生成只分配一个FlowExecutionId对象，不拼接字符串
+ */
+public final class MonotonicFlowExecutionIdGenerator implements FlowExecutionIdGenerator {
+
+    /** 指定节点ID的系统属性 */
+    public static final String NODE_ID_PROPERTY = "hanger.flow.nodeId";
+
+    private static final int NODE_BITS = 16;
+    private static final long NODE_MASK = (1L << NODE_BITS) - 1;
+    private static final long TIMESTAMP_MASK = (1L << 48) - 1;
+
+    private static final MonotonicFlowExecutionIdGenerator DEFAULT = new MonotonicFlowExecutionIdGenerator(defaultNodeId());
+
+    /** 节点ID（16位） */
+    private final long nodeId;
+    /** 上一次使用的时间戳 */
+    private final AtomicLong lastTimestamp = new AtomicLong();
+    /** 序号 */
+    private final AtomicLong sequence;
+
+    /**
+     * @param nodeId 节点ID，取低16位
+     */
+    public MonotonicFlowExecutionIdGenerator(int nodeId) {
+        this.nodeId = nodeId & NODE_MASK;
+        this.sequence = new AtomicLong(new SecureRandom().nextLong() >>> 1);
+    }
+
+    /**
+     * 进程内共享的默认实例
+     */
+    public static MonotonicFlowExecutionIdGenerator getDefault() {
+        return DEFAULT;
+    }
+
+    @Override
+    public FlowExecutionId nextId(FlowDefinition flowDefinition) {
+        long now = System.currentTimeMillis();
+        long timestamp = lastTimestamp.accumulateAndGet(now, Math::max);
+        return new FlowExecutionId(((timestamp & TIMESTAMP_MASK) << NODE_BITS) | nodeId, sequence.incrementAndGet());
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    /**
+     * 从本生成器格式的ID中取出毫秒时间戳
+     */
+    public static long timestampOf(FlowExecutionId id) {
+        return id.getHigh() >>> NODE_BITS;
+    }
+
+    /**
+     * 从本生成器格式的ID中取出节点ID
+     */
+    public static int nodeIdOf(FlowExecutionId id) {
+        return (int) (id.getHigh() & NODE_MASK);
+    }
+
+    private static int defaultNodeId() {
+        String configured = System.getProperty(NODE_ID_PROPERTY);
+        if (configured != null) {
+            return Integer.parseInt(configured.trim());
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        long pid = ProcessHandle.current().pid();
+        int hash = 31 * host.hashCode() + Long.hashCode(pid);
+        return (hash ^ (hash >>> 16)) & (int) NODE_MASK;
+    }
+}
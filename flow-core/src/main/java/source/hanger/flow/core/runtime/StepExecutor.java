@@ -21,7 +21,7 @@ public interface StepExecutor {
      * @param step    步骤定义
      * @param context 执行上下文
      * @param executor 线程池
-     * @return 异步执行结果
+     * @return 异步执行结果，成功时返回共享的{@link FlowResult#STEP_SUCCESS}即可，最终结果由引擎在终态时生成
      */
     CompletableFuture<FlowResult> execute(StepDefinition step, FlowExecutionContext context, Executor executor);
 } 
\ No newline at end of file
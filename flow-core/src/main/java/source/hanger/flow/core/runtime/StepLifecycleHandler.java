@@ -11,6 +11,7 @@ import source.hanger.flow.contract.model.StepDefinition;
  * - 作为核心运行时接口，定义步骤生命周期处理的标准协议
  * - 支持不同业务场景的差异化生命周期处理
  * - 便于扩展和自定义生命周期处理策略
+ * - 引擎调用带耗时的完成/错误回调，默认实现转交不带耗时的回调，需要耗时的处理器覆盖带耗时的版本即可
  */
 public interface StepLifecycleHandler {
     /**
@@ -27,6 +28,16 @@ public interface StepLifecycleHandler {
      */
     void onStepComplete(StepDefinition step, FlowExecutionContext context);
 
+    /**
+     * 步骤执行完成（带耗时）
+     * @param step          步骤定义
+     * @param context       执行上下文
+     * @param durationNanos 步骤耗时（纳秒，从步骤开始到完成）
+     */
+    default void onStepComplete(StepDefinition step, FlowExecutionContext context, long durationNanos) {
+        onStepComplete(step, context);
+    }
+
     /**
      * 步骤执行错误
      * @param step    步骤定义
@@ -34,4 +45,15 @@ public interface StepLifecycleHandler {
      * @param error   错误信息
      */
     void onStepError(StepDefinition step, FlowExecutionContext context, Exception error);
+
+    /**
+     * 步骤执行错误（带耗时）
+     * @param step          步骤定义
+     * @param context       执行上下文
+     * @param error         错误信息
+     * @param durationNanos 步骤耗时（纳秒，从步骤开始到失败）
+     */
+    default void onStepError(StepDefinition step, FlowExecutionContext context, Exception error, long durationNanos) {
+        onStepError(step, context, error);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,144 @@
+package source.hanger.flow.core.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志输出目标
+ * <p>
+ * 作用：
+ * - 执行线程只把LogRecord放入定长环形缓冲区即返回，格式化和实际输出由后台线程完成
+ * - 缓冲区满时丢弃新记录并计数，执行线程永不因日志阻塞
+ * <p>
+ * 设计说明：
+ * - 多生产者单消费者：生产者以CAS占用写位置，消费者按顺序取出并清空槽位
+ * - 容量向上取整为2的幂，以位运算定位槽位
+ * - 关闭时先停止接收，再输出缓冲区中剩余的记录
+ */
+public class AsyncFlowLogSink implements FlowLogSink, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    /** 缓冲区为空时消费者的最长休眠时间 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final FlowLogSink delegate;
+    private final AtomicReferenceArray<FlowLogger.LogRecord> slots;
+    private final int mask;
+    /** 下一个写位置 */
+    private final AtomicLong tail = new AtomicLong();
+    /** 下一个读位置，仅由消费者推进 */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * 以默认容量（8192）异步写入slf4j
+     */
+    public AsyncFlowLogSink() {
+        this(new Slf4jFlowLogSink(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param delegate 实际输出目标，只在后台线程上调用
+     * @param capacity 缓冲区容量，向上取整为2的幂
+     */
+    public AsyncFlowLogSink(FlowLogSink delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.delegate = delegate;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writer = new Thread(this::drainLoop, "flow-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean isEnabled(FlowLogger.Level level) {
+        return delegate.isEnabled(level);
+    }
+
+    @Override
+    public void write(FlowLogger.LogRecord record) {
+        if (!running) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        while (true) {
+            long position = tail.get();
+            if (position - head.get() > mask) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.set((int) position & mask, record);
+                return;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            FlowLogger.LogRecord record = slots.get(index);
+            if (record == null) {
+                // 缓冲区为空（或生产者已占位尚未写入）
+                if (!running && position == tail.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            slots.set(index, null);
+            head.lazySet(position + 1);
+            try {
+                delegate.write(record);
+            } catch (RuntimeException e) {
+                // 输出失败不影响后续记录
+            }
+        }
+    }
+
+    /**
+     * 尚未输出的记录数
+     */
+    public int getPendingCount() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * 因缓冲区已满或已关闭而丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 停止接收并等待剩余记录输出完毕
+     * @return 是否在超时前输出完毕
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(Math.max(1, unit.toMillis(timeout)));
+        return !writer.isAlive();
+    }
+
+    @Override
+    public void close() {
+        try {
+            shutdown(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
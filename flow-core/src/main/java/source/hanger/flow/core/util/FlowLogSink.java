@@ -0,0 +1,20 @@
+package source.hanger.flow.core.util;
+
+/**
+ * 流程日志输出目标
+ * <p>
+ * FlowLogger在级别检查通过后才构造LogRecord并交给输出目标，
+ * 实现需线程安全，write可能被任意执行线程并发调用。
+ */
+public interface FlowLogSink {
+
+    /**
+     * 指定级别是否输出
+     */
+    boolean isEnabled(FlowLogger.Level level);
+
+    /**
+     * 输出一条日志记录
+     */
+    void write(FlowLogger.LogRecord record);
+}
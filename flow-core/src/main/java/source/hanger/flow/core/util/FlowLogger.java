@@ -1,41 +1,113 @@
 package source.hanger.flow.core.util;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
+
+import source.hanger.flow.contract.model.FlowDefinition;
 
 /**
  * 流程执行日志工具类
  * <p>
  * 提供统一的日志格式，包含时间戳、执行ID、步骤名称、执行状态等信息。
  * 支持不同级别的日志输出，便于调试和监控。
+ * <p>
+ * 设计说明：
+ * - 先检查级别再格式化，级别关闭时不取时间、不分配序号、不拼接字符串
+ * - 消息支持{}占位参数和Supplier，调用方无需预先拼接
+ * - 日志上下文可按执行复用（见FlowExecutionContext#getLogContext），步骤名通过withStep派生
+ * - 输出目标可替换为FlowLogSink，默认同步写入slf4j；AsyncFlowLogSink将格式化和输出移到后台线程
  */
 public class FlowLogger {
 
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+        .withZone(ZoneId.systemDefault());
     private static final AtomicLong LOG_SEQUENCE = new AtomicLong(0);
-    private static final Logger logger = LoggerFactory.getLogger(FlowLogger.class);
+
+    private static volatile FlowLogSink sink = new Slf4jFlowLogSink();
+
+    /**
+     * 指定级别是否输出
+     */
+    public static boolean isEnabled(Level level) {
+        return sink.isEnabled(level);
+    }
 
     /**
      * 新版统一日志输出方法，支持flowName、version、stepName
      */
     public static void log(Level level, FlowLogContext ctx, String message) {
-        String timestamp = LocalDateTime.now().format(FlowLogger.TIME_FORMATTER);
-        String sequence = String.format("%06d", FlowLogger.LOG_SEQUENCE.incrementAndGet());
-        String threadName = Thread.currentThread().getName();
-        String logMessage = String.format("[%s@%s] [%s] [%s] [%s] [%s] [%s] %s %s",
-            ctx.flowName, ctx.version, ctx.executionId, ctx.stepName, timestamp, sequence, threadName, level.getEmoji(),
-            message);
-        if (level == Level.ERROR) {
-            logger.error(logMessage);
-        } else {
-            logger.info(logMessage);
+        FlowLogSink target = sink;
+        if (target.isEnabled(level)) {
+            write(target, level, ctx, message);
+        }
+    }
+
+    /**
+     * 带一个{}占位参数的日志
+     */
+    public static void log(Level level, FlowLogContext ctx, String pattern, Object arg) {
+        FlowLogSink target = sink;
+        if (target.isEnabled(level)) {
+            write(target, level, ctx, MessageFormatter.format(pattern, arg).getMessage());
         }
     }
 
+    /**
+     * 带两个{}占位参数的日志
+     */
+    public static void log(Level level, FlowLogContext ctx, String pattern, Object arg1, Object arg2) {
+        FlowLogSink target = sink;
+        if (target.isEnabled(level)) {
+            write(target, level, ctx, MessageFormatter.format(pattern, arg1, arg2).getMessage());
+        }
+    }
+
+    /**
+     * 带多个{}占位参数的日志
+     */
+    public static void log(Level level, FlowLogContext ctx, String pattern, Object... args) {
+        FlowLogSink target = sink;
+        if (target.isEnabled(level)) {
+            write(target, level, ctx, MessageFormatter.arrayFormat(pattern, args).getMessage());
+        }
+    }
+
+    /**
+     * 延迟构造消息的日志，级别关闭时不调用supplier
+     */
+    public static void log(Level level, FlowLogContext ctx, Supplier<String> messageSupplier) {
+        FlowLogSink target = sink;
+        if (target.isEnabled(level)) {
+            write(target, level, ctx, messageSupplier.get());
+        }
+    }
+
+    private static void write(FlowLogSink target, Level level, FlowLogContext ctx, String message) {
+        target.write(new LogRecord(level, ctx, message, Thread.currentThread().getName(),
+            System.currentTimeMillis(), LOG_SEQUENCE.incrementAndGet()));
+    }
+
+    /**
+     * 替换日志输出目标
+     * @param flowLogSink 输出目标
+     * @return 原输出目标，便于恢复或关闭
+     */
+    public static FlowLogSink setSink(FlowLogSink flowLogSink) {
+        FlowLogSink previous = sink;
+        sink = Objects.requireNonNull(flowLogSink, "flowLogSink");
+        return previous;
+    }
+
+    public static FlowLogSink getSink() {
+        return sink;
+    }
+
     /**
      * 日志级别枚举
      */
@@ -61,5 +133,45 @@ public class FlowLogger {
      * 日志上下文对象，统一封装日志所需所有元信息
      */
     public record FlowLogContext(String flowName, String version, String executionId, String stepName) {
+
+        /**
+         * 流程级上下文（不含步骤名）
+         */
+        public static FlowLogContext of(FlowDefinition flowDefinition, String executionId) {
+            return new FlowLogContext(flowDefinition.getName(), flowDefinition.getVersion(), executionId, null);
+        }
+
+        /**
+         * 派生指定步骤的上下文，步骤名相同时返回自身
+         */
+        public FlowLogContext withStep(String stepName) {
+            return Objects.equals(this.stepName, stepName) ? this
+                : new FlowLogContext(flowName, version, executionId, stepName);
+        }
+    }
+
+    /**
+     * 一条日志记录：消息已完成参数替换，时间戳和序号在产生时取得，统一格式在输出时生成
+     */
+    public record LogRecord(Level level, FlowLogContext context, String message, String threadName,
+                            long timestampMillis, long sequence) {
+
+        /**
+         * 生成统一格式的日志行
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder(128 + (message != null ? message.length() : 4));
+            sb.append('[').append(context.flowName()).append('@').append(context.version()).append("] [")
+                .append(context.executionId()).append("] [").append(context.stepName()).append("] [");
+            TIME_FORMATTER.formatTo(Instant.ofEpochMilli(timestampMillis), sb);
+            sb.append("] [");
+            String seq = Long.toString(sequence);
+            for (int i = seq.length(); i < 6; i++) {
+                sb.append('0');
+            }
+            sb.append(seq).append("] [").append(threadName).append("] ").append(level.getEmoji()).append(' ')
+                .append(message);
+            return sb.toString();
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package source.hanger.flow.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 默认日志输出目标：在调用线程上同步写入slf4j
+ * <p>
+ * 级别映射：DEBUG→debug，INFO/SUCCESS→info，WARNING→warn，ERROR→error
+ */
+public class Slf4jFlowLogSink implements FlowLogSink {
+
+    private final Logger logger;
+
+    public Slf4jFlowLogSink() {
+        this(LoggerFactory.getLogger(FlowLogger.class));
+    }
+
+    public Slf4jFlowLogSink(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean isEnabled(FlowLogger.Level level) {
+        return switch (level) {
+            case DEBUG -> logger.isDebugEnabled();
+            case INFO, SUCCESS -> logger.isInfoEnabled();
+            case WARNING -> logger.isWarnEnabled();
+            case ERROR -> logger.isErrorEnabled();
+        };
+    }
+
+    @Override
+    public void write(FlowLogger.LogRecord record) {
+        String line = record.format();
+        switch (record.level()) {
+            case DEBUG -> logger.debug(line);
+            case INFO, SUCCESS -> logger.info(line);
+            case WARNING -> logger.warn(line);
+            case ERROR -> logger.error(line);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package source.hanger.flow.core.plan;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlowParamLayout单元测试：槽位分配与查找
+ */
+public class FlowParamLayoutTest {
+
+    @Test
+    public void testSlotsFollowDeclarationOrderAndDeduplicate() {
+        FlowParamLayout layout = FlowParamLayout.of(List.of("orderId", "amount", "orderId", "status"));
+        assertEquals(3, layout.size());
+        assertEquals(0, layout.slotOf("orderId"));
+        assertEquals(1, layout.slotOf("amount"));
+        assertEquals(2, layout.slotOf("status"));
+        for (int slot = 0; slot < layout.size(); slot++) {
+            assertEquals(slot, layout.slotOf(layout.key(slot)));
+        }
+    }
+
+    @Test
+    public void testLookupByEqualityAndMisses() {
+        FlowParamLayout layout = FlowParamLayout.of(List.of("orderId"));
+        // 非同一引用的相等字符串同样命中
+        assertEquals(0, layout.slotOf(new String("orderId")));
+        assertEquals(FlowParamLayout.NO_SLOT, layout.slotOf("unknown"));
+        assertEquals(FlowParamLayout.NO_SLOT, layout.slotOf(42));
+        assertEquals(FlowParamLayout.NO_SLOT, layout.slotOf(null));
+    }
+
+    @Test
+    public void testCollidingHashesGetDistinctSlots() {
+        // "Aa"、"BB"及其组合的hashCode相同，线性探测后各自占用一个槽位
+        List<String> keys = List.of("Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa");
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        FlowParamLayout layout = FlowParamLayout.of(keys);
+        for (int slot = 0; slot < keys.size(); slot++) {
+            assertEquals(slot, layout.slotOf(keys.get(slot)));
+        }
+        assertEquals(FlowParamLayout.NO_SLOT, layout.slotOf("AaAaAa"));
+    }
+
+    @Test
+    public void testManyKeysRemainResolvable() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("param" + i);
+        }
+        FlowParamLayout layout = FlowParamLayout.of(keys);
+        assertEquals(1000, layout.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, layout.slotOf("param" + i));
+        }
+        assertEquals(FlowParamLayout.NO_SLOT, layout.slotOf("param1000"));
+    }
+
+    @Test
+    public void testEmptyAndNullKeys() {
+        assertNull(FlowParamLayout.of(null));
+        assertNull(FlowParamLayout.of(List.of()));
+        List<String> withNull = new ArrayList<>();
+        withNull.add("a");
+        withNull.add(null);
+        try {
+            FlowParamLayout.of(withNull);
+            fail("参数名为null时应被拒绝");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
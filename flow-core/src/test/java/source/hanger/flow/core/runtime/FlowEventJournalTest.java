@@ -0,0 +1,136 @@
+package source.hanger.flow.core.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlowEventJournal单元测试：环形缓冲回绕、sync可见性与回调中满缓冲丢弃
+ */
+public class FlowEventJournalTest {
+
+    @Test
+    public void testCapacityRoundsUpToPowerOfTwo() {
+        assertEquals(1, new FlowEventJournal(1).getCapacity());
+        assertEquals(4, new FlowEventJournal(3).getCapacity());
+        assertEquals(8, new FlowEventJournal(8).getCapacity());
+        try {
+            new FlowEventJournal(0);
+            fail("容量为0时应被拒绝");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWraparoundDeliversEveryEventInOrder() throws Exception {
+        FlowEventJournal journal = new FlowEventJournal(4);
+        FlowExecutionState state = new FlowExecutionState(new FlowExecutionId(1, 1), "回绕流程", journal);
+        List<String> seen = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        journal.addListener(event -> {
+            seen.add(event.getStepName());
+            sequences.add(event.getSequence());
+        });
+
+        // 两个生产者各发布远超容量的事件，槽位被反复复用
+        int perProducer = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (String prefix : List.of("a", "b")) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    journal.publish(FlowEventType.STEP_STARTED, state, prefix + i, null, null);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join(10_000);
+        }
+        journal.sync();
+
+        assertEquals(2L * perProducer, journal.getPublishedCount());
+        assertEquals(2L * perProducer, journal.getConsumedCount());
+        assertEquals(0, journal.getDroppedCount());
+        assertEquals(2 * perProducer, seen.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i, sequences.get(i).longValue());
+        }
+        // 同一生产者的事件保持发布顺序
+        for (String prefix : List.of("a", "b")) {
+            List<String> own = seen.stream().filter(name -> name.startsWith(prefix)).toList();
+            for (int i = 0; i < perProducer; i++) {
+                assertEquals(prefix + i, own.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSyncAppliesPublishedEventsToState() {
+        FlowEventJournal journal = new FlowEventJournal(16);
+        FlowExecutionState state = new FlowExecutionState(new FlowExecutionId(1, 2), "同步流程", journal);
+        journal.publish(FlowEventType.STEP_STARTED, state, "step", null, null);
+        assertEquals(FlowStepStatus.RUNNING, state.getStepStatus("step"));
+        journal.publish(FlowEventType.STEP_ERROR, state, "step", null, new IllegalStateException("boom"));
+        assertEquals(FlowStepStatus.ERROR, state.getStepStatus("step"));
+        journal.publish(FlowEventType.STEP_COMPLETED, state, "other", null, null);
+        assertEquals(FlowStepStatus.COMPLETED, state.getStepStatus("other"));
+        assertEquals(journal.getPublishedCount(), journal.getConsumedCount());
+    }
+
+    @Test
+    public void testPublishFromListenerIsDroppedWhenFull() {
+        FlowEventJournal journal = new FlowEventJournal(2);
+        FlowExecutionState state = new FlowExecutionState(new FlowExecutionId(1, 3), "丢弃流程", journal);
+        AtomicBoolean republished = new AtomicBoolean();
+        List<String> seen = new ArrayList<>();
+        journal.addListener(event -> {
+            seen.add(event.getStepName());
+            if (republished.compareAndSet(false, true)) {
+                // 正在消费序号0：只剩一个空槽位，其余事件不能等待自己消费，直接丢弃
+                for (int i = 0; i < 3; i++) {
+                    journal.publish(FlowEventType.TRANSITION_TAKEN, state, "nested" + i, "next", null);
+                }
+            }
+        });
+
+        journal.publish(FlowEventType.STEP_STARTED, state, "outer", null, null);
+        journal.sync();
+
+        assertEquals(2, journal.getDroppedCount());
+        assertEquals(List.of("outer", "nested0"), seen);
+        assertEquals(journal.getPublishedCount(), journal.getConsumedCount());
+    }
+
+    @Test
+    public void testListenerFailureDoesNotStopDelivery() {
+        FlowEventJournal journal = new FlowEventJournal(8);
+        FlowExecutionState state = new FlowExecutionState(new FlowExecutionId(1, 4), "异常流程", journal);
+        List<String> seen = new ArrayList<>();
+        journal.addListener(event -> {
+            throw new IllegalStateException("listener failure");
+        });
+        journal.addListener(event -> seen.add(event.getStepName()));
+
+        journal.publish(FlowEventType.STEP_STARTED, state, "first", null, null);
+        journal.publish(FlowEventType.STEP_COMPLETED, state, "first", null, null);
+        journal.sync();
+
+        assertEquals(List.of("first", "first"), seen);
+        assertEquals(FlowStepStatus.COMPLETED, state.getStepStatus("first"));
+    }
+}
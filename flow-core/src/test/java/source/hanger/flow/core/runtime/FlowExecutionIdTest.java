@@ -0,0 +1,118 @@
+package source.hanger.flow.core.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlowExecutionId及MonotonicFlowExecutionIdGenerator单元测试
+ */
+public class FlowExecutionIdTest {
+
+    @Test
+    public void testToStringParseRoundTrip() {
+        assertEquals("00000000000000000000000000", new FlowExecutionId(0, 0).toString());
+        // 26位共130比特，最大值首字符为7
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", new FlowExecutionId(-1, -1).toString());
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            FlowExecutionId id = new FlowExecutionId(random.nextLong(), random.nextLong());
+            String text = id.toString();
+            assertEquals(FlowExecutionId.TEXT_LENGTH, text.length());
+            FlowExecutionId parsed = FlowExecutionId.parse(text);
+            assertEquals(id, parsed);
+            assertEquals(id.hashCode(), parsed.hashCode());
+            assertEquals(id.getHigh(), parsed.getHigh());
+            assertEquals(id.getLow(), parsed.getLow());
+            // 文本缓存：重复调用返回同一个字符串
+            assertSame(text, id.toString());
+        }
+    }
+
+    @Test
+    public void testTextOrderMatchesNumericOrder() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            FlowExecutionId a = new FlowExecutionId(random.nextLong(), random.nextLong());
+            // 高位相同时由低位决定顺序，低位按无符号比较
+            FlowExecutionId b = random.nextBoolean()
+                ? new FlowExecutionId(a.getHigh(), random.nextLong())
+                : new FlowExecutionId(random.nextLong(), random.nextLong());
+            assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(a.toString().compareTo(b.toString())));
+        }
+    }
+
+    @Test
+    public void testParseIsCaseInsensitiveAndAcceptsCrockfordAliases() {
+        FlowExecutionId id = FlowExecutionId.parse("01ARZ3NDEKTSV4RRFFQ69G5FAV");
+        assertEquals(id, FlowExecutionId.parse("01arz3ndektsv4rrffq69g5fav"));
+        // I/L视为1，O视为0
+        assertEquals(FlowExecutionId.parse("01111111111111111111111110"),
+            FlowExecutionId.parse("OIiLl1111111111111111111Io"));
+    }
+
+    @Test
+    public void testInvalidTextIsRejected() {
+        String[] invalid = {null, "", "0123", "000000000000000000000000000", "0000000000000000000000000U",
+            "8ZZZZZZZZZZZZZZZZZZZZZZZZZ", "0000000000000000000000000-", "000000000000000000000000é0"};
+        for (String text : invalid) {
+            assertNull(text, FlowExecutionId.tryParse(text));
+            try {
+                FlowExecutionId.parse(text);
+                fail("应拒绝非法文本: " + text);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratorIsUniqueOrderedAndEncodesNode() throws Exception {
+        MonotonicFlowExecutionIdGenerator generator = new MonotonicFlowExecutionIdGenerator(0x1_2345);
+        assertEquals(0x2345, generator.getNodeId());
+
+        long before = System.currentTimeMillis();
+        FlowExecutionId previous = generator.nextId(null);
+        assertEquals(0x2345, MonotonicFlowExecutionIdGenerator.nodeIdOf(previous));
+        assertTrue(MonotonicFlowExecutionIdGenerator.timestampOf(previous) >= before);
+        for (int i = 0; i < 1000; i++) {
+            FlowExecutionId next = generator.nextId(null);
+            assertTrue(next.compareTo(previous) > 0);
+            previous = next;
+        }
+
+        Set<FlowExecutionId> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        ids.add(generator.nextId(null));
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(80_000, ids.size());
+        Set<String> texts = new HashSet<>();
+        for (FlowExecutionId id : ids) {
+            texts.add(id.toString());
+        }
+        assertEquals(80_000, texts.size());
+    }
+}
@@ -0,0 +1,120 @@
+package source.hanger.flow.core.runtime;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlowExecutionManager单元测试：查询时的保留时长淘汰、淘汰时不同步事件日志与非法执行ID
+ */
+public class FlowExecutionManagerTest {
+
+    @Test
+    public void testTtlIsEnforcedOnLookupWithoutFurtherCompletions() throws Exception {
+        FlowExecutionManager manager = new FlowExecutionManager(
+            new FlowExecutionRetentionPolicy(100, Duration.ofMillis(50), 10), null);
+        FlowExecutionId id = new FlowExecutionId(7, 1);
+        manager.startExecution(id, "保留流程");
+        manager.completeExecution(id, new FlowResult(id.toString(), FlowStatus.SUCCESS, null));
+
+        // 保留时长内仍可查询
+        assertNotNull(manager.getExecutionState(id));
+        assertNotNull(manager.getExecutionResult(id.toString()));
+
+        // 之后不再有执行结束，查询本身触发淘汰
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (manager.getExecutionState(id) != null) {
+            assertTrue("过期的执行未被淘汰", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        assertNull(manager.getExecutionResult(id.toString()));
+        assertEquals(0, manager.getTrackedExecutionCount());
+        assertEquals(1, manager.getEvictedCount());
+        assertEquals(FlowStatus.SUCCESS, manager.getExecutionSummary(id.toString()).status());
+    }
+
+    @Test
+    public void testEvictionOnCompletionDoesNotDrainJournal() throws Exception {
+        FlowEventJournal journal = new FlowEventJournal(16);
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> listenerThreads = ConcurrentHashMap.newKeySet();
+        journal.addListener(event -> {
+            listenerThreads.add(Thread.currentThread().getName());
+            consuming.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // 结束即淘汰并保留摘要
+        FlowExecutionManager manager = new FlowExecutionManager(
+            new FlowExecutionRetentionPolicy(0, Duration.ofHours(1), 10), journal);
+        FlowExecutionId id = new FlowExecutionId(7, 5);
+        FlowExecutionState state = manager.startExecution(id, "淘汰流程");
+        state.publishStepEvent(FlowEventType.STEP_STARTED, "step", null);
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        state.publishStepEvent(FlowEventType.STEP_ERROR, "step", new IllegalStateException("失败"));
+
+        // 消费方仍阻塞在监听器中：执行线程上的淘汰不等待、也不代为消费事件日志
+        long start = System.nanoTime();
+        manager.completeExecution(id, new FlowResult(id.toString(), FlowStatus.ERROR, null));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        assertNull(manager.getExecutionState(id));
+        assertFalse(listenerThreads.contains(Thread.currentThread().getName()));
+        release.countDown();
+
+        // 查询时生成摘要，包含淘汰前发布的全部步骤事件
+        FlowExecutionSummary summary = manager.getExecutionSummary(id.toString());
+        assertEquals(FlowStatus.ERROR, summary.status());
+        assertEquals(1, summary.stepCount());
+        assertEquals(1, summary.errorStepCount());
+    }
+
+    @Test
+    public void testRunningExecutionsAreNeverExpired() {
+        FlowExecutionManager manager = new FlowExecutionManager(
+            new FlowExecutionRetentionPolicy(100, Duration.ZERO, 0), null);
+        FlowExecutionId running = new FlowExecutionId(7, 2);
+        FlowExecutionId finished = new FlowExecutionId(7, 3);
+        manager.startExecution(running, "运行中流程");
+        manager.startExecution(finished, "已结束流程");
+        manager.completeExecution(finished, new FlowResult(finished.toString(), FlowStatus.SUCCESS, null));
+
+        int[] visited = new int[1];
+        manager.forEachRunningExecution(state -> visited[0]++);
+        assertEquals(1, visited[0]);
+        assertNotNull(manager.getExecutionState(running));
+        assertNull(manager.getExecutionState(finished));
+    }
+
+    @Test
+    public void testNonUlidIdsAreTreatedAsUnknown() {
+        FlowExecutionManager manager = new FlowExecutionManager(FlowExecutionRetentionPolicy.DEFAULT, null);
+        String invalid = "not-an-execution-id";
+
+        assertNull(manager.getExecutionState(invalid));
+        assertNull(manager.getExecutionResult(invalid));
+        assertNull(manager.getExecutionSummary(invalid));
+        assertNull(manager.getExecutionState((String) null));
+
+        // 更新和清理被忽略，不抛出异常也不登记执行
+        manager.updateStepStatus(invalid, "流程", "step", FlowStepStatus.RUNNING);
+        manager.cacheExecutionResult(invalid, new FlowResult(invalid, FlowStatus.SUCCESS, null));
+        manager.cleanupExecution(invalid);
+        assertEquals(0, manager.getTrackedExecutionCount());
+        assertTrue(manager.getAllExecutionResults().isEmpty());
+
+        // 合法ID的文本形式照常使用
+        FlowExecutionId id = new FlowExecutionId(7, 4);
+        manager.updateStepStatus(id.toString(), "流程", "step", FlowStepStatus.RUNNING);
+        assertEquals(FlowStepStatus.RUNNING, manager.getExecutionState(id.toString()).getStepStatus("step"));
+    }
+}
@@ -0,0 +1,65 @@
+package source.hanger.flow.core.runtime;
+
+import org.junit.Test;
+import source.hanger.flow.core.plan.FlowParamLayout;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlowParams单元测试：已知参数按槽位存放，未知参数进入溢出表，对外是完整的Map
+ */
+public class FlowParamsTest {
+
+    private static final FlowParamLayout LAYOUT = FlowParamLayout.of(List.of("known", "other"));
+
+    @Test
+    public void testKnownParamsUseSlotsAndUnknownParamsOverflow() {
+        FlowParams params = new FlowParams(LAYOUT, Map.of("known", 1, "extra", "x"));
+        assertEquals(1, params.getSlot(LAYOUT.slotOf("known")));
+        assertNull(params.getSlot(LAYOUT.slotOf("other")));
+        assertEquals("x", params.get("extra"));
+        assertEquals(2, params.size());
+
+        // 按槽位写入与按名读取是同一份数据
+        params.setSlot(LAYOUT.slotOf("other"), "slot");
+        assertEquals("slot", params.get("other"));
+        assertEquals(Map.of("known", 1, "other", "slot", "extra", "x"), new HashMap<>(params));
+
+        assertEquals("slot", params.remove("other"));
+        assertFalse(params.containsKey("other"));
+        assertEquals(2, params.size());
+        params.clear();
+        assertTrue(params.isEmpty());
+    }
+
+    @Test
+    public void testAtomicOperationsMatchConcurrentMapSemantics() {
+        FlowParams params = new FlowParams(LAYOUT, null);
+        for (String key : List.of("known", "unknown")) {
+            assertNull(params.putIfAbsent(key, 1));
+            assertEquals(1, params.putIfAbsent(key, 2));
+            assertFalse(params.replace(key, 2, 3));
+            assertTrue(params.replace(key, 1, 3));
+            assertEquals(3, params.replace(key, 4));
+            assertFalse(params.remove(key, 3));
+            assertTrue(params.remove(key, 4));
+            assertNull(params.replace(key, 5));
+            assertEquals(Integer.valueOf(7), params.merge(key, 7, (a, b) -> (Integer) a + (Integer) b));
+            assertEquals(Integer.valueOf(10), params.merge(key, 3, (a, b) -> (Integer) a + (Integer) b));
+        }
+        Map<String, Serializable> seen = new HashMap<>();
+        params.forEach(seen::put);
+        assertEquals(Map.of("known", 10, "unknown", 10), seen);
+        try {
+            params.put("known", null);
+            fail("不允许null值");
+        } catch (NullPointerException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package source.hanger.flow.core.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * AsyncFlowLogSink及FlowLogger级别检查的单元测试
+ */
+public class AsyncFlowLogSinkTest {
+
+    private static final FlowLogger.FlowLogContext CONTEXT
+        = new FlowLogger.FlowLogContext("日志流程", "1", "exec", "step");
+
+    @Test
+    public void testDisabledLevelNeitherFormatsNorEnqueues() throws Exception {
+        CapturingSink capture = new CapturingSink(FlowLogger.Level.ERROR);
+        AsyncFlowLogSink asyncSink = new AsyncFlowLogSink(capture, 16);
+        FlowLogSink previous = FlowLogger.setSink(asyncSink);
+        AtomicInteger formatted = new AtomicInteger();
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "arg";
+            }
+        };
+        try {
+            assertFalse(FlowLogger.isEnabled(FlowLogger.Level.INFO));
+            FlowLogger.log(FlowLogger.Level.INFO, CONTEXT, "关闭的级别: {}", argument);
+            FlowLogger.log(FlowLogger.Level.DEBUG, CONTEXT, "关闭的级别: {} {}", argument, argument);
+            FlowLogger.log(FlowLogger.Level.INFO, CONTEXT, () -> "供应方: " + argument);
+            assertEquals(0, formatted.get());
+            assertEquals(0, asyncSink.getPendingCount());
+
+            FlowLogger.log(FlowLogger.Level.ERROR, CONTEXT, "开启的级别: {}", argument);
+            assertEquals(1, formatted.get());
+            assertTrue(asyncSink.shutdown(5, TimeUnit.SECONDS));
+        } finally {
+            FlowLogger.setSink(previous);
+        }
+        assertEquals(1, capture.records.size());
+        FlowLogger.LogRecord record = capture.records.get(0);
+        assertEquals(FlowLogger.Level.ERROR, record.level());
+        assertEquals("开启的级别: arg", record.message());
+        // 线程名在产生时取得，实际输出在后台线程上
+        assertEquals(Thread.currentThread().getName(), record.threadName());
+        assertEquals("flow-log-writer", capture.writerThreads.get(0));
+        assertEquals(0, asyncSink.getDroppedCount());
+    }
+
+    @Test
+    public void testFullBufferDropsNewRecordsWithoutBlocking() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CapturingSink capture = new CapturingSink(FlowLogger.Level.DEBUG) {
+            @Override
+            public void write(FlowLogger.LogRecord record) {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(record);
+            }
+        };
+        // 容量向上取整为4
+        AsyncFlowLogSink asyncSink = new AsyncFlowLogSink(capture, 3);
+        try {
+            asyncSink.write(record(0));
+            // 第一条记录已被取出，后台线程阻塞在输出上
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= 6; i++) {
+                asyncSink.write(record(i));
+            }
+            assertEquals(4, asyncSink.getPendingCount());
+            assertEquals(2, asyncSink.getDroppedCount());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(asyncSink.shutdown(5, TimeUnit.SECONDS));
+        // 被接收的记录按写入顺序输出，丢弃的是缓冲区满之后的新记录
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), capture.records.stream().map(FlowLogger.LogRecord::sequence).toList());
+        assertEquals(0, asyncSink.getPendingCount());
+
+        // 关闭后写入的记录直接丢弃
+        asyncSink.write(record(7));
+        assertEquals(3, asyncSink.getDroppedCount());
+        assertEquals(5, capture.records.size());
+    }
+
+    @Test
+    public void testFailingDelegateDoesNotStopLaterRecords() throws Exception {
+        CapturingSink capture = new CapturingSink(FlowLogger.Level.DEBUG) {
+            @Override
+            public void write(FlowLogger.LogRecord record) {
+                if (record.sequence() == 0) {
+                    throw new IllegalStateException("输出失败");
+                }
+                super.write(record);
+            }
+        };
+        AsyncFlowLogSink asyncSink = new AsyncFlowLogSink(capture, 8);
+        asyncSink.write(record(0));
+        asyncSink.write(record(1));
+        assertTrue(asyncSink.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L), capture.records.stream().map(FlowLogger.LogRecord::sequence).toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveCapacityIsRejected() {
+        new AsyncFlowLogSink(new CapturingSink(FlowLogger.Level.DEBUG), 0);
+    }
+
+    private static FlowLogger.LogRecord record(long sequence) {
+        return new FlowLogger.LogRecord(FlowLogger.Level.INFO, CONTEXT, "消息" + sequence, "producer",
+            System.currentTimeMillis(), sequence);
+    }
+
+    /**
+     * 记录输出内容和输出线程的目标，只开启指定的级别（DEBUG表示全部开启）
+     */
+    private static class CapturingSink implements FlowLogSink {
+        final List<FlowLogger.LogRecord> records = new CopyOnWriteArrayList<>();
+        final List<String> writerThreads = new CopyOnWriteArrayList<>();
+        private final FlowLogger.Level minimum;
+
+        CapturingSink(FlowLogger.Level minimum) {
+            this.minimum = minimum;
+        }
+
+        @Override
+        public boolean isEnabled(FlowLogger.Level level) {
+            return minimum == FlowLogger.Level.DEBUG || level == minimum;
+        }
+
+        @Override
+        public void write(FlowLogger.LogRecord record) {
+            writerThreads.add(Thread.currentThread().getName());
+            records.add(record);
+        }
+    }
+}
@@ -11,18 +11,22 @@ import source.hanger.flow.contract.runtime.flow.access.FlowErrorHandlingAccess
 import source.hanger.flow.contract.runtime.flow.function.FlowEnterHandingRunnable
 import source.hanger.flow.contract.runtime.flow.function.FlowErrorHandingRunnable
 import source.hanger.flow.dsl.hint.FlowHint
+import source.hanger.flow.util.ClosureInvoker
 import source.hanger.flow.util.ClosureUtils
 
+import java.time.Duration
 import java.util.concurrent.atomic.AtomicBoolean
 
 import static groovy.lang.Closure.DELEGATE_FIRST
 import static source.hanger.flow.util.DslValidationUtils.ensureSingleDefinition
 import static source.hanger.flow.util.DslValidationUtils.getUnknownPropertyReadErrorMessage
+import static source.hanger.flow.util.DslValidationUtils.parseDuration
 
 /**
  * 流程DSL主构建器
  * 负责解析flow { ... } DSL块，将Groovy闭包映射为流程模型（FlowDefinition）
- * 支持流程元信息、全局onEnter/onError、任务、并行、异步等DSL语法
+ * 支持流程元信息、timeout、params、全局onEnter/onError、任务、并行、异步等DSL语法
+ * 运行期回调经ClosureInvoker调用，不修改DSL闭包本身，解析得到的流程定义可被并发执行共享
  */
 @CompileStatic
 class FlowBuilder implements FlowHint {
@@ -70,6 +74,39 @@ class FlowBuilder implements FlowHint {
         flowDefinition.description = text.stripIndent().strip()
     }
 
+    /**
+     * DSL关键词：timeout
+     * 设置整个执行的超时时间，如 timeout '5m'
+     */
+    void timeout(String text) {
+        flowDefinition.timeout = parseDuration(text, 'flow.timeout')
+    }
+
+    /**
+     * DSL关键词：timeout
+     * 设置整个执行的超时时间
+     */
+    void timeout(Duration duration) {
+        flowDefinition.timeout = duration
+    }
+
+    /**
+     * DSL关键词：params
+     * 声明已知参数名，可多次声明，按声明顺序分配槽位
+     */
+    void params(String... keys) {
+        List<String> paramKeys = flowDefinition.paramKeys != null ? new ArrayList<String>(flowDefinition.paramKeys) : new ArrayList<String>()
+        for (String key : keys) {
+            if (!key) {
+                throw new IllegalArgumentException("The 'params' keyword requires non-empty parameter names.")
+            }
+            if (!paramKeys.contains(key)) {
+                paramKeys.add(key)
+            }
+        }
+        flowDefinition.paramKeys = paramKeys
+    }
+
     /**
      * DSL关键词：start
      * 定义流程起始任务（自动命名为START）
@@ -91,12 +128,11 @@ class FlowBuilder implements FlowHint {
     void onEnter(@DelegatesTo(value = FlowEnterHandlingAccess, strategy = DELEGATE_FIRST) Closure<?> enterClosure) {
         // 适配闭包的执行逻辑为java的实现
         ensureSingleDefinition(hasOnEnterDefined, "flow.onEnter", {
+            def invoker = new ClosureInvoker<?>(enterClosure)
             flowDefinition.enterHandingRunnable = new FlowEnterHandingRunnable() {
                 @Override
                 void handle(FlowEnterHandlingAccess access) {
-                    enterClosure.delegate = access
-                    enterClosure.resolveStrategy = DELEGATE_FIRST
-                    enterClosure.call()
+                    invoker.call(access)
                 }
             }
         })
@@ -110,12 +146,11 @@ class FlowBuilder implements FlowHint {
      */
     NextBuilder onError(@DelegatesTo(value = FlowErrorHandlingAccess, strategy = DELEGATE_FIRST) Closure<?> errorClosure) {
         ensureSingleDefinition(hasOnErrorDefined, "flow.onError", {
+            def invoker = new ClosureInvoker<?>(errorClosure)
             flowDefinition.errorHandingRunnable = new FlowErrorHandingRunnable() {
                 @Override
                 void handle(FlowErrorHandlingAccess access) {
-                    errorClosure.delegate = access
-                    errorClosure.resolveStrategy = DELEGATE_FIRST
-                    errorClosure.call()
+                    invoker.call(access)
                 }
             }
         })
@@ -0,0 +1,575 @@
+package source.hanger.flow.dsl
+
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.runtime.InvokerHelper
+import source.hanger.flow.contract.model.FlowDefinition
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.ClosedWatchServiceException
+import java.nio.file.DirectoryStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardWatchEventKinds
+import java.nio.file.WatchEvent
+import java.nio.file.WatchKey
+import java.nio.file.WatchService
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 流程定义注册表
+ * <p>
+ * 作用：
+ *   - 编译并执行DSL脚本，按流程名称和版本登记得到的流程定义
+ *   - 按脚本内容哈希缓存编译结果，相同内容的脚本只编译一次
+ *   - 监听脚本目录，只重新编译内容发生变化的文件，删除文件时注销对应的流程定义
+ *   - 登记构建期由{@link FlowScriptPrecompiler}预编译的脚本类，启动路径上不经过Groovy编译器
+ * <p>
+ * 设计说明：
+ *   - 查询（get）只读ConcurrentHashMap，不加锁、不编译，可直接用于执行热路径
+ *   - 注册、重载、注销在注册表上串行进行，写操作稀少，串行可避免同一内容被重复编译
+ *   - 所有脚本在同一个GroovyClassLoader中编译，类名带内容哈希，不同版本的脚本互不覆盖；
+ *     某个哈希不再被任何脚本引用时，从类加载器缓存中移除其生成的类，
+ *     旧流程定义不再被引用后这些类即可被卸载，反复重载不会使Metaspace持续增长
+ *   - 重载失败（如编辑器写入了半个文件）时保留原有定义，并记录错误，下次变更时再尝试
+ *   - 流程定义可被多个执行并发共享，重载不影响正在使用旧定义的执行
+ */
+@CompileStatic
+class FlowDefinitionRegistry implements Closeable {
+
+    /** 未声明version的流程定义使用的版本键 */
+    public static final String UNVERSIONED = ''
+
+    private static final String SCRIPT_EXTENSION = '.groovy'
+    /** 预编译脚本类的来源名称前缀 */
+    private static final String PRECOMPILED_SOURCE_PREFIX = 'class:'
+
+    /** 父类加载器 */
+    private final ClassLoader parent
+    /** 所有运行期编译的脚本共享的类加载器，首次编译时创建 */
+    private ScriptClassLoader classLoader
+    /** 内容哈希 -> 编译结果 */
+    private final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>()
+    /** 来源名称 -> 编译结果 */
+    private final Map<String, CompiledScript> sources = new ConcurrentHashMap<>()
+    /** 流程名称 -> (版本 -> 流程定义) */
+    private final Map<String, Map<String, FlowDefinition>> definitions = new ConcurrentHashMap<>()
+    /** 流程名称 -> 最新版本的流程定义 */
+    private final Map<String, FlowDefinition> latestDefinitions = new ConcurrentHashMap<>()
+    /** 来源名称 -> 最近一次加载失败的异常 */
+    private final Map<String, Exception> loadErrors = new ConcurrentHashMap<>()
+    /** 累计编译次数 */
+    private final AtomicLong compileCount = new AtomicLong()
+
+    private WatchService watchService
+    private Thread watchThread
+
+    FlowDefinitionRegistry() {
+        this(FlowDefinitionRegistry.class.getClassLoader())
+    }
+
+    /**
+     * @param parent 脚本类加载器的父加载器，需能加载DSL及脚本引用的业务类
+     */
+    FlowDefinitionRegistry(ClassLoader parent) {
+        this.parent = parent
+    }
+
+    /**
+     * 获取指定流程的最新版本定义
+     *
+     * @param name 流程名称
+     * @return 流程定义，不存在时返回null
+     */
+    FlowDefinition get(String name) {
+        latestDefinitions.get(name)
+    }
+
+    /**
+     * 获取指定流程的指定版本定义
+     *
+     * @param name 流程名称
+     * @param version 版本，null表示未声明version的定义
+     * @return 流程定义，不存在时返回null
+     */
+    FlowDefinition get(String name, String version) {
+        Map<String, FlowDefinition> versions = definitions.get(name)
+        versions != null ? versions.get(version != null ? version : UNVERSIONED) : null
+    }
+
+    /**
+     * 获取指定流程已注册的所有版本
+     */
+    Set<String> getVersions(String name) {
+        Map<String, FlowDefinition> versions = definitions.get(name)
+        versions != null ? Collections.unmodifiableSet(new TreeSet<String>(versions.keySet())) : Collections.<String> emptySet()
+    }
+
+    /**
+     * 已注册的流程名称
+     */
+    Set<String> getNames() {
+        Collections.unmodifiableSet(new TreeSet<String>(definitions.keySet()))
+    }
+
+    /**
+     * 加载（或重新加载）一个脚本文件
+     * <p>
+     * 文件内容未变化时直接返回已注册的定义，不重新编译
+     *
+     * @param file 脚本文件
+     * @return 脚本定义的流程
+     */
+    FlowDefinition load(Path file) {
+        String sourceName = sourceName(file)
+        try {
+            FlowDefinition definition = register(sourceName, new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+            loadErrors.remove(sourceName)
+            definition
+        } catch (Exception e) {
+            loadErrors.put(sourceName, e)
+            throw e
+        }
+    }
+
+    /**
+     * 加载目录下所有脚本文件（不含子目录）
+     * <p>
+     * 单个文件加载失败不影响其他文件，失败原因可通过{@link #getLoadErrors()}查看
+     *
+     * @param directory 脚本目录
+     * @return 加载成功的流程定义
+     */
+    List<FlowDefinition> loadDirectory(Path directory) {
+        List<FlowDefinition> loaded = []
+        DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*${SCRIPT_EXTENSION}")
+        try {
+            for (Path file : stream) {
+                FlowDefinition definition = loadQuietly(file)
+                if (definition != null) {
+                    loaded.add(definition)
+                }
+            }
+        } finally {
+            stream.close()
+        }
+        loaded
+    }
+
+    /**
+     * 注册（或替换）一段脚本
+     * <p>
+     * 同一来源再次注册时替换其原有定义；内容哈希已编译过时复用编译结果
+     *
+     * @param sourceName 来源名称，如文件路径，用于重载和注销
+     * @param scriptText 脚本内容
+     * @return 脚本定义的流程
+     * @throws IllegalArgumentException 脚本未返回流程定义，或流程未声明name
+     * @throws IllegalStateException 同名同版本的流程已由其他来源注册
+     */
+    synchronized FlowDefinition register(String sourceName, String scriptText) {
+        String hash = sha256(scriptText)
+        CompiledScript previous = sources.get(sourceName)
+        if (previous != null && previous.hash == hash) {
+            return previous.definition
+        }
+        CompiledScript compiled = compiledScripts.get(hash)
+        if (compiled == null) {
+            compiled = compile(sourceName, scriptText, hash)
+        }
+        install(sourceName, previous, compiled)
+    }
+
+    /**
+     * 登记一个已编译的脚本类（如构建期预编译的脚本）
+     * <p>
+     * 直接实例化并执行脚本类得到流程定义，不经过Groovy编译器；同一个类重复登记时直接返回已有定义
+     *
+     * @param scriptClass 脚本类，需为{@link Script}子类
+     * @return 脚本定义的流程
+     * @throws IllegalArgumentException 脚本未返回流程定义，或流程未声明name
+     * @throws IllegalStateException 同名同版本的流程已由其他来源注册
+     */
+    synchronized FlowDefinition register(Class<?> scriptClass) {
+        String sourceName = PRECOMPILED_SOURCE_PREFIX + scriptClass.name
+        CompiledScript previous = sources.get(sourceName)
+        if (previous != null && previous.scriptClass == scriptClass) {
+            return previous.definition
+        }
+        install(sourceName, previous, new CompiledScript(sourceName, scriptClass, runScript(scriptClass, sourceName)))
+    }
+
+    /**
+     * 登记类路径上所有预编译的脚本类
+     * <p>
+     * 读取{@link FlowScriptPrecompiler#INDEX_RESOURCE}索引中列出的脚本类并逐个登记
+     *
+     * @return 登记的流程定义
+     */
+    List<FlowDefinition> loadPrecompiled() {
+        loadPrecompiled(parent)
+    }
+
+    /**
+     * 登记指定类加载器可见的所有预编译的脚本类
+     *
+     * @param loader 用于查找索引和加载脚本类的类加载器
+     * @return 登记的流程定义
+     */
+    List<FlowDefinition> loadPrecompiled(ClassLoader loader) {
+        List<FlowDefinition> loaded = []
+        for (String className : FlowScriptPrecompiler.readIndex(loader)) {
+            loaded.add(register(Class.forName(className, true, loader)))
+        }
+        loaded
+    }
+
+    private FlowDefinition install(String sourceName, CompiledScript previous, CompiledScript compiled) {
+        String version = versionKey(compiled.definition)
+        String owner = findOwner(compiled.definition.name, version)
+        if (owner != null && owner != sourceName) {
+            releaseIfUnused(compiled)
+            throw new IllegalStateException("流程 ${compiled.definition.name}@${version} 已由 ${owner} 注册")
+        }
+        // 先登记新定义再移除旧版本，重载期间并发的get/getLatest不会读到null
+        sources.put(sourceName, compiled)
+        definitions.computeIfAbsent(compiled.definition.name) { new ConcurrentHashMap<String, FlowDefinition>() }
+            .put(version, compiled.definition)
+        if (previous != null) {
+            FlowDefinition old = previous.definition
+            if (old.name != compiled.definition.name) {
+                removeDefinition(old)
+            } else if (versionKey(old) != version) {
+                removeVersion(old)
+            }
+        }
+        refreshLatest(compiled.definition.name)
+        if (previous != null) {
+            releaseIfUnused(previous)
+        }
+        compiled.definition
+    }
+
+    /**
+     * 注销某个来源注册的流程定义
+     *
+     * @param sourceName 来源名称
+     * @return 是否存在该来源
+     */
+    synchronized boolean unregister(String sourceName) {
+        loadErrors.remove(sourceName)
+        CompiledScript removed = sources.remove(sourceName)
+        if (removed == null) {
+            return false
+        }
+        removeDefinition(removed.definition)
+        releaseIfUnused(removed)
+        true
+    }
+
+    /**
+     * 注销某个脚本文件注册的流程定义
+     */
+    boolean unregister(Path file) {
+        unregister(sourceName(file))
+    }
+
+    /**
+     * 加载目录下的脚本，并在后台守护线程中监听该目录
+     * <p>
+     * 新增或修改的脚本文件被重新加载（内容未变化时不重新编译），删除的文件注销其流程定义
+     *
+     * @param directory 脚本目录
+     */
+    synchronized void watch(Path directory) {
+        if (watchService != null) {
+            throw new IllegalStateException('注册表已在监听脚本目录')
+        }
+        Path dir = directory.toAbsolutePath().normalize()
+        watchService = dir.fileSystem.newWatchService()
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE)
+        loadDirectory(dir)
+        WatchService service = watchService
+        watchThread = new Thread({ watchLoop(dir, service) } as Runnable, 'flow-definition-watcher')
+        watchThread.daemon = true
+        watchThread.start()
+    }
+
+    /**
+     * 最近一次加载失败的来源及异常（加载成功或注销后移除）
+     */
+    Map<String, Exception> getLoadErrors() {
+        Collections.unmodifiableMap(loadErrors)
+    }
+
+    /**
+     * 当前缓存的编译结果数量（不同的脚本内容数量）
+     */
+    int getCompiledScriptCount() {
+        compiledScripts.size()
+    }
+
+    /**
+     * 累计编译次数
+     */
+    long getCompileCount() {
+        compileCount.get()
+    }
+
+    /**
+     * 停止目录监听并释放所有编译结果
+     */
+    @Override
+    synchronized void close() {
+        if (watchService != null) {
+            watchService.close()
+            watchThread.interrupt()
+            watchService = null
+            watchThread = null
+        }
+        sources.clear()
+        definitions.clear()
+        latestDefinitions.clear()
+        loadErrors.clear()
+        compiledScripts.values().each { CompiledScript compiled -> evict(compiled) }
+        compiledScripts.clear()
+        if (classLoader != null) {
+            classLoader.close()
+            classLoader = null
+        }
+    }
+
+    private void watchLoop(Path directory, WatchService service) {
+        while (true) {
+            WatchKey key
+            try {
+                key = service.take()
+            } catch (InterruptedException | ClosedWatchServiceException ignored) {
+                return
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // 事件丢失时整体重新扫描，内容未变化的文件不会重新编译
+                    rescan(directory)
+                    continue
+                }
+                Path file = directory.resolve((Path) event.context())
+                if (!file.fileName.toString().endsWith(SCRIPT_EXTENSION)) {
+                    continue
+                }
+                if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    unregister(file)
+                } else {
+                    loadQuietly(file)
+                }
+            }
+            if (!key.reset()) {
+                return
+            }
+        }
+    }
+
+    private void rescan(Path directory) {
+        for (String sourceName : new ArrayList<String>(sources.keySet())) {
+            Path file = Path.of(sourceName)
+            if (file.parent == directory && !Files.exists(file)) {
+                unregister(sourceName)
+            }
+        }
+        loadDirectory(directory)
+    }
+
+    private FlowDefinition loadQuietly(Path file) {
+        try {
+            return load(file)
+        } catch (Exception ignored) {
+            // 错误已记录在loadErrors中，保留原有定义
+            return null
+        }
+    }
+
+    private CompiledScript compile(String sourceName, String scriptText, String hash) {
+        String className = scriptClassName(sourceName, hash)
+        GroovyCodeSource codeSource = new GroovyCodeSource(scriptText, className + SCRIPT_EXTENSION, GroovyShell.DEFAULT_CODE_BASE)
+        // 不按来源名称缓存，类的生命周期由内容哈希管理
+        codeSource.cachable = false
+        if (classLoader == null) {
+            classLoader = new ScriptClassLoader(parent)
+        }
+        Class<?> scriptClass = classLoader.parseClass(codeSource)
+        compileCount.incrementAndGet()
+        CompiledScript compiled
+        try {
+            compiled = new CompiledScript(hash, scriptClass, runScript(scriptClass, sourceName))
+        } catch (Exception e) {
+            evictClasses(scriptClass)
+            throw e
+        }
+        compiledScripts.put(hash, compiled)
+        compiled
+    }
+
+    /**
+     * 实例化并执行脚本类，得到其定义的流程
+     *
+     * @param scriptClass 脚本类，需为{@link Script}子类
+     * @param sourceName 来源名称，用于错误消息
+     * @return 流程定义
+     * @throws IllegalArgumentException 不是脚本类、脚本未返回流程定义，或流程未声明name
+     */
+    static FlowDefinition runScript(Class<?> scriptClass, String sourceName) {
+        if (!Script.isAssignableFrom(scriptClass)) {
+            throw new IllegalArgumentException("${scriptClass.name} 不是Groovy脚本类")
+        }
+        Object result = ((Script) scriptClass.getDeclaredConstructor().newInstance()).run()
+        if (!(result instanceof FlowDefinition)) {
+            throw new IllegalArgumentException("脚本 ${sourceName} 未返回流程定义: ${result?.getClass()?.name}")
+        }
+        FlowDefinition definition = (FlowDefinition) result
+        if (!definition.name) {
+            throw new IllegalArgumentException("脚本 ${sourceName} 定义的流程未声明name")
+        }
+        definition
+    }
+
+    private String findOwner(String name, String version) {
+        for (Map.Entry<String, CompiledScript> entry : sources.entrySet()) {
+            FlowDefinition definition = entry.value.definition
+            if (definition.name == name && versionKey(definition) == version) {
+                return entry.key
+            }
+        }
+        null
+    }
+
+    private void removeDefinition(FlowDefinition definition) {
+        removeVersion(definition)
+        refreshLatest(definition.name)
+    }
+
+    private void removeVersion(FlowDefinition definition) {
+        Map<String, FlowDefinition> versions = definitions.get(definition.name)
+        if (versions == null) {
+            return
+        }
+        versions.remove(versionKey(definition), definition)
+        if (versions.isEmpty()) {
+            definitions.remove(definition.name, versions)
+        }
+    }
+
+    private void refreshLatest(String name) {
+        Map<String, FlowDefinition> versions = definitions.get(name)
+        if (versions == null || versions.isEmpty()) {
+            latestDefinitions.remove(name)
+            return
+        }
+        String latest = versions.keySet().max { String a, String b -> compareVersions(a, b) }
+        latestDefinitions.put(name, versions.get(latest))
+    }
+
+    private void releaseIfUnused(CompiledScript compiled) {
+        if (!sources.values().any { CompiledScript it -> it.hash == compiled.hash }) {
+            compiledScripts.remove(compiled.hash)
+            evict(compiled)
+        }
+    }
+
+    private void evict(CompiledScript compiled) {
+        evictClasses(compiled.scriptClass)
+    }
+
+    /**
+     * 从类加载器缓存中移除脚本类及其闭包类，使其在不再被引用后可被卸载
+     */
+    private void evictClasses(Class<?> scriptClass) {
+        if (classLoader == null) {
+            return
+        }
+        String prefix = scriptClass.name
+        for (Class<?> loaded : classLoader.loadedClasses) {
+            if (loaded.name == prefix || loaded.name.startsWith(prefix + '$')) {
+                classLoader.evict(loaded.name)
+                InvokerHelper.removeClass(loaded)
+            }
+        }
+    }
+
+    private static String versionKey(FlowDefinition definition) {
+        definition.version != null ? definition.version : UNVERSIONED
+    }
+
+    /**
+     * 按点号/短横线分段比较版本，数字段按数值比较，未声明版本最小
+     */
+    static int compareVersions(String a, String b) {
+        String[] left = a.split(/[.\-]/)
+        String[] right = b.split(/[.\-]/)
+        int length = Math.max(left.length, right.length)
+        for (int i = 0; i < length; i++) {
+            String l = i < left.length ? left[i] : ''
+            String r = i < right.length ? right[i] : ''
+            int result
+            if (l.isLong() && r.isLong()) {
+                result = Long.compare(l.toLong(), r.toLong())
+            } else {
+                result = l <=> r
+            }
+            if (result != 0) {
+                return result
+            }
+        }
+        0
+    }
+
+    private static String sourceName(Path file) {
+        file.toAbsolutePath().normalize().toString()
+    }
+
+    private static String scriptClassName(String sourceName, String hash) {
+        String base = sourceName.substring(Math.max(sourceName.lastIndexOf('/'), sourceName.lastIndexOf('\\')) + 1)
+        if (base.endsWith(SCRIPT_EXTENSION)) {
+            base = base.substring(0, base.length() - SCRIPT_EXTENSION.length())
+        }
+        base = base.replaceAll(/[^A-Za-z0-9_$]/, '_')
+        if (!base || !Character.isJavaIdentifierStart(base.charAt(0))) {
+            base = 'FlowScript_' + base
+        }
+        base + '_' + hash.substring(0, 16)
+    }
+
+    private static String sha256(String text) {
+        MessageDigest.getInstance('SHA-256').digest(text.getBytes(StandardCharsets.UTF_8)).encodeHex().toString()
+    }
+
+    /**
+     * 一份脚本内容的编译结果
+     */
+    private static final class CompiledScript {
+        final String hash
+        final Class<?> scriptClass
+        final FlowDefinition definition
+
+        CompiledScript(String hash, Class<?> scriptClass, FlowDefinition definition) {
+            this.hash = hash
+            this.scriptClass = scriptClass
+            this.definition = definition
+        }
+    }
+
+    /**
+     * 脚本类加载器，开放类缓存的移除操作
+     */
+    private static final class ScriptClassLoader extends GroovyClassLoader {
+
+        ScriptClassLoader(ClassLoader parent) {
+            super(parent)
+        }
+
+        void evict(String className) {
+            removeClassCacheEntry(className)
+        }
+    }
+}
@@ -37,7 +37,12 @@ class FlowDslEntry {
         closure.delegate = builder
         closure.resolveStrategy = DELEGATE_FIRST
         // 执行 DSL 闭包，开始构建流程
-        closure.call()
+        try {
+            closure.call()
+        } finally {
+            // 运行期闭包以该闭包为owner，解除与构建器的关联，避免步骤闭包经owner链反向持有流程定义
+            closure.delegate = null
+        }
         builder.getFlowDefinition()
     }
 }
\ No newline at end of file
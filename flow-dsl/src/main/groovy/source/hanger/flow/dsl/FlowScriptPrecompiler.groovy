@@ -0,0 +1,177 @@
+package source.hanger.flow.dsl
+
+import groovy.io.FileType
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.ast.ClassNode
+import org.codehaus.groovy.control.CompilationUnit
+import org.codehaus.groovy.control.CompilerConfiguration
+import org.codehaus.groovy.control.SourceUnit
+import source.hanger.flow.contract.model.FlowDefinition
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * 流程脚本预编译器
+ * <p>
+ * 作用：
+ *   - 构建期把脚本目录下的DSL脚本编译为class文件，输出到构建产物目录
+ *   - 编译后逐个执行脚本类构建流程定义，DSL校验错误（{@link source.hanger.flow.util.DslValidationUtils}）、
+ *     未返回流程定义、同名同版本重复定义都会使构建失败
+ *   - 生成索引资源{@link #INDEX_RESOURCE}，运行期由{@link FlowDefinitionRegistry#loadPrecompiled()}读取，
+ *     直接实例化脚本类，启动路径上不经过Groovy编译器
+ * <p>
+ * 使用方式（gmavenplus-plugin的execute目标，绑定在process-classes阶段）：
+ * <pre>
+ * source.hanger.flow.dsl.FlowScriptPrecompiler.precompile(
+ *     new File(project.basedir, 'src/main/resources/script'), new File(project.build.outputDirectory))
+ * </pre>
+ * 也可通过{@link #main(String[])}以命令行方式调用
+ */
+@CompileStatic
+class FlowScriptPrecompiler {
+
+    /** 预编译脚本类索引（类路径资源），每行一个脚本类名 */
+    public static final String INDEX_RESOURCE = 'META-INF/hangerflow/flow-scripts.list'
+
+    /**
+     * 命令行入口
+     *
+     * @param args 脚本目录、输出目录
+     */
+    static void main(String[] args) {
+        if (args.length != 2) {
+            throw new IllegalArgumentException('用法: FlowScriptPrecompiler <脚本目录> <输出目录>')
+        }
+        precompile(new File(args[0]), new File(args[1]))
+    }
+
+    /**
+     * 预编译脚本目录（含子目录）下的所有DSL脚本
+     *
+     * @param scriptDirectory 脚本目录
+     * @param outputDirectory class文件及索引的输出目录
+     * @return 脚本类名
+     */
+    static List<String> precompile(File scriptDirectory, File outputDirectory) {
+        precompile(scriptDirectory, outputDirectory, FlowScriptPrecompiler.class.getClassLoader())
+    }
+
+    /**
+     * 预编译脚本目录（含子目录）下的所有DSL脚本
+     *
+     * @param scriptDirectory 脚本目录
+     * @param outputDirectory class文件及索引的输出目录
+     * @param parent 编译及校验使用的父类加载器，需能加载DSL及脚本引用的业务类
+     * @return 脚本类名
+     * @throws org.codehaus.groovy.control.CompilationFailedException 脚本编译失败
+     * @throws IllegalStateException 流程定义校验失败
+     */
+    static List<String> precompile(File scriptDirectory, File outputDirectory, ClassLoader parent) {
+        List<File> scripts = []
+        if (scriptDirectory.isDirectory()) {
+            scriptDirectory.eachFileRecurse(FileType.FILES) { File file ->
+                if (file.name.endsWith('.groovy')) {
+                    scripts.add(file)
+                }
+            }
+        }
+        scripts.sort { File file -> file.path }
+
+        Map<String, File> scriptClasses = compile(scripts, outputDirectory, parent)
+        validate(scriptClasses, outputDirectory, parent)
+        List<String> classNames = new ArrayList<>(scriptClasses.keySet())
+        writeIndex(outputDirectory, classNames)
+        classNames
+    }
+
+    /**
+     * 读取类加载器可见的所有预编译索引
+     *
+     * @param loader 类加载器
+     * @return 脚本类名（按索引出现顺序去重）
+     */
+    static List<String> readIndex(ClassLoader loader) {
+        Set<String> classNames = new LinkedHashSet<>()
+        for (URL resource : Collections.list(loader.getResources(INDEX_RESOURCE))) {
+            resource.withReader(StandardCharsets.UTF_8.name()) { Reader reader ->
+                reader.eachLine { String line ->
+                    String className = line.trim()
+                    if (className && !className.startsWith('#')) {
+                        classNames.add(className)
+                    }
+                }
+            }
+        }
+        new ArrayList<>(classNames)
+    }
+
+    /**
+     * 编译脚本并输出class文件
+     *
+     * @return 脚本类名 -> 脚本文件
+     */
+    private static Map<String, File> compile(List<File> scripts, File outputDirectory, ClassLoader parent) {
+        Map<String, File> scriptClasses = new LinkedHashMap<>()
+        if (scripts.isEmpty()) {
+            return scriptClasses
+        }
+        CompilerConfiguration configuration = new CompilerConfiguration()
+        configuration.targetDirectory = outputDirectory
+        configuration.sourceEncoding = StandardCharsets.UTF_8.name()
+        GroovyClassLoader compileLoader = new GroovyClassLoader(parent, configuration)
+        try {
+            CompilationUnit unit = new CompilationUnit(configuration, null, compileLoader)
+            Map<String, File> files = [:]
+            for (File script : scripts) {
+                files.put(unit.addSource(script).name, script)
+            }
+            unit.compile()
+            Iterator<SourceUnit> sourceUnits = unit.iterator()
+            while (sourceUnits.hasNext()) {
+                SourceUnit sourceUnit = sourceUnits.next()
+                ClassNode scriptClass = sourceUnit.AST.classes.find { ClassNode node -> node.script }
+                if (scriptClass == null) {
+                    throw new IllegalStateException("${sourceUnit.name} 不是DSL脚本（未生成脚本类）")
+                }
+                scriptClasses.put(scriptClass.name, files.get(sourceUnit.name))
+            }
+        } finally {
+            compileLoader.close()
+        }
+        scriptClasses
+    }
+
+    /**
+     * 执行编译出的脚本类，汇总所有校验错误后统一失败
+     */
+    private static void validate(Map<String, File> scriptClasses, File outputDirectory, ClassLoader parent) {
+        List<String> errors = []
+        Map<String, String> owners = [:]
+        URLClassLoader loader = new URLClassLoader([outputDirectory.toURI().toURL()] as URL[], parent)
+        try {
+            scriptClasses.each { String className, File script ->
+                try {
+                    FlowDefinition definition = FlowDefinitionRegistry.runScript(loader.loadClass(className), script.name)
+                    String key = "${definition.name}@${definition.version ?: FlowDefinitionRegistry.UNVERSIONED}"
+                    String owner = owners.putIfAbsent(key, script.name)
+                    if (owner != null) {
+                        errors.add("${script.name}: 流程 ${key} 已由 ${owner} 定义".toString())
+                    }
+                } catch (Exception e) {
+                    errors.add("${script.name}: ${e.message}".toString())
+                }
+            }
+        } finally {
+            loader.close()
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("流程脚本校验失败:\n  " + errors.join('\n  '))
+        }
+    }
+
+    private static void writeIndex(File outputDirectory, List<String> classNames) {
+        File index = new File(outputDirectory, INDEX_RESOURCE)
+        index.parentFile.mkdirs()
+        index.setText(classNames.collect { String className -> className + '\n' }.join(''), StandardCharsets.UTF_8.name())
+    }
+}
@@ -3,6 +3,8 @@ package source.hanger.flow.dsl
 import groovy.transform.Internal
 import source.hanger.flow.contract.model.Branch
 import source.hanger.flow.contract.model.ParallelStepDefinition
+import source.hanger.flow.contract.model.ParamMergeStrategy
+import source.hanger.flow.contract.model.ParamMerger
 import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicateAccess
 import source.hanger.flow.dsl.hint.BranchHint
 import source.hanger.flow.dsl.hint.ParallelHint
@@ -14,13 +16,20 @@ import static source.hanger.flow.util.ClosureUtils.defaultFlowRuntimePredicate
 /**
  * 并行块DSL构建器
  * 负责解析parallel { ... } DSL块，将Groovy闭包映射为并行模型（ParallelStepDefinition）
- * 支持并行分支、汇合、描述等DSL语法
+ * 支持并行分支、汇合、汇合分支参数合并、描述等DSL语法
  */
 class ParallelBuilder implements ParallelHint {
     @Internal
     /** 当前正在构建的并行节点模型 */
     private ParallelStepDefinition parallelStepDefinition // 当前并行节点模型
 
+    /** merge关键词支持的策略名称 */
+    private static final Map<String, ParamMergeStrategy> MERGE_STRATEGIES = [
+        shared        : ParamMergeStrategy.SHARED,
+        lastWins      : ParamMergeStrategy.LAST_WINS,
+        failOnConflict: ParamMergeStrategy.FAIL_ON_CONFLICT
+    ]
+
     /**
      * 构造方法，初始化并行节点模型
      * @param parallelStepDefinition 并行节点模型
@@ -66,6 +75,35 @@ class ParallelBuilder implements ParallelHint {
         return new JoinBuilder(parallelStepDefinition)
     }
 
+    /**
+     * DSL关键词：merge
+     * 指定汇合分支的参数合并策略：shared（默认）、lastWins、failOnConflict
+     * @param strategyName 策略名称
+     */
+    void merge(String strategyName) {
+        def strategy = MERGE_STRATEGIES[strategyName]
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown merge strategy '${strategyName}', expected one of ${MERGE_STRATEGIES.keySet()}.")
+        }
+        parallelStepDefinition.paramMergeStrategy = strategy
+    }
+
+    /**
+     * DSL关键词：merge
+     * 以闭包自定义被多个汇合分支修改的参数的合并结果
+     * 闭包参数为参数名、汇合时的当前值、各分支写入的值（按分支声明顺序，null表示删除），返回null表示删除
+     * 闭包直接调用，不设置委托，可被并发执行共享
+     * @param mergeClosure 合并闭包
+     */
+    void merge(Closure<?> mergeClosure) {
+        if (mergeClosure.maximumNumberOfParameters != 3) {
+            throw new IllegalArgumentException("The 'merge' closure must declare three parameters: key, base, values.")
+        }
+        parallelStepDefinition.paramMerger = { String key, Serializable base, List<Serializable> values ->
+            mergeClosure.call(key, base, values) as Serializable
+        } as ParamMerger
+    }
+
     /**
      * DSL关键词：next
      * 定义并行块的汇合后跳转分支
@@ -1,26 +1,32 @@
 package source.hanger.flow.dsl
 
 import groovy.transform.Internal
+import source.hanger.flow.contract.model.TaskRetryPolicy
 import source.hanger.flow.contract.model.TaskStepDefinition
 import source.hanger.flow.contract.runtime.common.predicate.FlowRuntimePredicateAccess
 import source.hanger.flow.contract.runtime.task.access.FlowTaskEnterHandingAccess
 import source.hanger.flow.contract.runtime.task.access.FlowTaskErrorHandlingAccess
 import source.hanger.flow.contract.runtime.task.access.FlowTaskRunAccess
+import source.hanger.flow.contract.runtime.task.function.AsyncFlowTaskRunnable
 import source.hanger.flow.contract.runtime.task.function.FlowTaskEnterHandingRunnable
 import source.hanger.flow.contract.runtime.task.function.FlowTaskErrorHandingRunnable
 import source.hanger.flow.contract.runtime.task.function.FlowTaskRunnable
 import source.hanger.flow.dsl.hint.TaskHint
+import source.hanger.flow.util.ClosureInvoker
 import source.hanger.flow.util.ClosureUtils
 
+import java.time.Duration
+import java.util.concurrent.CompletionStage
 import java.util.concurrent.atomic.AtomicBoolean
 
 import static groovy.lang.Closure.DELEGATE_FIRST
 import static source.hanger.flow.util.DslValidationUtils.ensureSingleDefinition
+import static source.hanger.flow.util.DslValidationUtils.parseDuration
 
 /**
  * 任务节点DSL构建器
  * 负责解析task { ... } DSL块，将Groovy闭包映射为任务模型（TaskStepDefinition）
- * 支持任务元信息、onEnter、run、next、onError等DSL语法
+ * 支持任务元信息、timeout、retry、onEnter、run、next、onError等DSL语法
  */
 class TaskBuilder implements TaskHint {
     @Internal
@@ -33,7 +39,7 @@ class TaskBuilder implements TaskHint {
     /** 标记是否已定义onError，保证DSL唯一性 */
     private AtomicBoolean hasOnErrorDefined = new AtomicBoolean(false)
     @Internal
-    /** 标记是否已定义run，保证DSL唯一性 */
+    /** 标记是否已定义run或runAsync，保证DSL唯一性（两者互斥） */
     private AtomicBoolean hasRunDefined = new AtomicBoolean(false)
 
     /**
@@ -60,6 +66,58 @@ class TaskBuilder implements TaskHint {
         taskStepDefinition.description = text
     }
 
+    /**
+     * DSL关键词：timeout
+     * 设置任务超时时间，如 timeout '30s'
+     */
+    void timeout(String text) {
+        taskStepDefinition.timeout = parseDuration(text, 'task.timeout')
+    }
+
+    /**
+     * DSL关键词：timeout
+     * 设置任务超时时间
+     */
+    void timeout(Duration duration) {
+        taskStepDefinition.timeout = duration
+    }
+
+    /**
+     * DSL关键词：retry
+     * 设置任务失败后的重试次数（含第一次的最大尝试次数），使用默认退避参数，重试所有异常
+     */
+    void retry(int maxAttempts) {
+        taskStepDefinition.retryPolicy = TaskRetryPolicy.of(maxAttempts)
+    }
+
+    /**
+     * DSL关键词：retry
+     * 设置任务重试策略，如 retry maxAttempts: 3, delay: '200ms', maxDelay: '5s', multiplier: 2, jitter: 0.2, on: [IOException]
+     * 未给出的参数使用TaskRetryPolicy的默认值
+     */
+    void retry(Map<String, ?> options) {
+        def unknown = options.keySet() - ['maxAttempts', 'delay', 'maxDelay', 'multiplier', 'jitter', 'on']
+        if (unknown) {
+            throw new IllegalArgumentException("task.retry 不支持的参数: ${unknown.join(', ')}。支持的参数包括: maxAttempts, delay, maxDelay, multiplier, jitter, on。")
+        }
+        def retryOn = options.on
+        taskStepDefinition.retryPolicy = new TaskRetryPolicy(
+            options.containsKey('maxAttempts') ? options.maxAttempts as int : 3,
+            toDuration(options.delay, 'task.retry.delay', TaskRetryPolicy.DEFAULT_INITIAL_DELAY),
+            toDuration(options.maxDelay, 'task.retry.maxDelay', TaskRetryPolicy.DEFAULT_MAX_DELAY),
+            options.multiplier != null ? options.multiplier as double : TaskRetryPolicy.DEFAULT_MULTIPLIER,
+            options.jitter != null ? options.jitter as double : TaskRetryPolicy.DEFAULT_JITTER,
+            retryOn == null ? null : (retryOn instanceof Collection ? retryOn as List : [retryOn]) as List<Class<? extends Throwable>>)
+    }
+
+    @Internal
+    private static Duration toDuration(Object value, String keyword, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue
+        }
+        return value instanceof Duration ? (Duration) value : parseDuration(value.toString(), keyword)
+    }
+
     /**
      * DSL关键词：onEnter
      * 定义任务进入时的处理逻辑
@@ -68,12 +126,11 @@ class TaskBuilder implements TaskHint {
     void onEnter(@DelegatesTo(value = FlowTaskEnterHandingAccess, strategy = DELEGATE_FIRST) Closure<?> enterClosure) {
         // 适配闭包的执行逻辑为java的实现
         ensureSingleDefinition(hasOnEnterDefined, "task.onEnter", {
+            def invoker = new ClosureInvoker<?>(enterClosure)
             taskStepDefinition.enterHandingRunnable = new FlowTaskEnterHandingRunnable() {
                 @Override
                 void handle(FlowTaskEnterHandingAccess access) {
-                    enterClosure.delegate = access
-                    enterClosure.resolveStrategy = DELEGATE_FIRST
-                    enterClosure.call()
+                    invoker.call(access)
                 }
             }
         })
@@ -86,13 +143,34 @@ class TaskBuilder implements TaskHint {
      */
     void run(@DelegatesTo(value = FlowTaskRunAccess, strategy = DELEGATE_FIRST) Closure<?> runClosure) {
         // 适配闭包的执行逻辑为java的实现
-        ensureSingleDefinition(hasRunDefined, "task.run", {
+        ensureSingleDefinition(hasRunDefined, "task.run/runAsync", {
+            def invoker = new ClosureInvoker<?>(runClosure)
             taskStepDefinition.taskRunnable = new FlowTaskRunnable() {
                 @Override
                 void run(FlowTaskRunAccess access) {
-                    runClosure.delegate = access
-                    runClosure.resolveStrategy = DELEGATE_FIRST
-                    runClosure.call()
+                    invoker.call(access)
+                }
+            }
+        })
+    }
+
+    /**
+     * DSL关键词：runAsync
+     * 定义任务的非阻塞执行逻辑，闭包需返回CompletionStage，完成即视为任务完成；与run互斥
+     * @param runClosure Groovy闭包，最终封装为Java接口
+     */
+    void runAsync(@DelegatesTo(value = FlowTaskRunAccess, strategy = DELEGATE_FIRST) Closure<?> runClosure) {
+        // 适配闭包的执行逻辑为java的实现
+        ensureSingleDefinition(hasRunDefined, "task.run/runAsync", {
+            def invoker = new ClosureInvoker<?>(runClosure)
+            taskStepDefinition.asyncTaskRunnable = new AsyncFlowTaskRunnable() {
+                @Override
+                CompletionStage<?> run(FlowTaskRunAccess access) {
+                    def result = invoker.call(access)
+                    if (result == null || result instanceof CompletionStage) {
+                        return (CompletionStage<?>) result
+                    }
+                    throw new IllegalStateException("task.runAsync闭包必须返回CompletionStage，实际返回: ${result.getClass().name}")
                 }
             }
         })
@@ -125,12 +203,11 @@ class TaskBuilder implements TaskHint {
      */
     NextBuilder onError(@DelegatesTo(value = FlowTaskErrorHandlingAccess, strategy = DELEGATE_FIRST) Closure<?> errorClosure) {
         ensureSingleDefinition(hasOnErrorDefined, "Flow.onError", {
+            def invoker = new ClosureInvoker<?>(errorClosure)
             taskStepDefinition.errorHandingRunnable = new FlowTaskErrorHandingRunnable() {
                 @Override
                 void handle(FlowTaskErrorHandlingAccess access) {
-                    errorClosure.delegate = access
-                    errorClosure.resolveStrategy = DELEGATE_FIRST
-                    errorClosure.call()
+                    invoker.call(access)
                 }
             }
         })
@@ -4,6 +4,8 @@ import groovy.transform.CompileStatic
 import source.hanger.flow.contract.runtime.flow.access.FlowEnterHandlingAccess
 import source.hanger.flow.contract.runtime.flow.access.FlowErrorHandlingAccess
 
+import java.time.Duration
+
 import static groovy.lang.Closure.DELEGATE_FIRST
 
 /**
@@ -20,6 +22,8 @@ import static groovy.lang.Closure.DELEGATE_FIRST
  *   version '1.0.0'
  *   name '订单流程'
  *   description '处理订单的主流程'
+ *   timeout '5m'
+ *   params 'orderId', 'status'
  *   start '初始化'
  *   onEnter { ... }
  *   onError { ... } to '错误处理'
@@ -57,6 +61,27 @@ trait FlowHint {
      */
     abstract void description(String text)
 
+    /**
+     * DSL关键词：timeout
+     * 设置整个执行的超时时间，超时后执行被取消并以失败结束
+     * @param text 时长文本，如 500ms、30s、5m、1h 或 PT30S
+     */
+    abstract void timeout(String text)
+
+    /**
+     * DSL关键词：timeout
+     * 设置整个执行的超时时间
+     * @param duration 时长
+     */
+    abstract void timeout(Duration duration)
+
+    /**
+     * DSL关键词：params
+     * 声明流程使用的已知参数名，执行时这些参数存放在数组槽位中，读写不经过哈希表
+     * @param keys 参数名
+     */
+    abstract void params(String... keys)
+
     /**
      * DSL关键词：start
      * 设置流程的起始任务节点
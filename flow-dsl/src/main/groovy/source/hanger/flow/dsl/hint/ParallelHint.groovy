@@ -22,6 +22,7 @@ import static groovy.lang.Closure.DELEGATE_FIRST
  *   branch '拣货打包'
  *   branch '发送邮件' when { context.needEmail }
  *   waitFor '物流分配', '拣货打包' nextTo '订单完成'
+ *   merge 'failOnConflict'
  *   next { ... } to '下一步'
  *   nextTo '默认跳转'
  * }
@@ -64,6 +65,20 @@ trait ParallelHint {
      */
     abstract JoinHint waitFor(String[] branchNames)
 
+    /**
+     * DSL关键词：merge
+     * 指定汇合分支的参数合并策略：shared（默认）、lastWins、failOnConflict
+     * @param strategyName 策略名称
+     */
+    abstract void merge(String strategyName)
+
+    /**
+     * DSL关键词：merge
+     * 以闭包 { key, base, values -> ... } 自定义被多个汇合分支修改的参数的合并结果
+     * @param mergeClosure 合并闭包
+     */
+    abstract void merge(Closure<?> mergeClosure)
+
     /**
      * DSL关键词：next
      * 定义并行块的汇合后跳转分支
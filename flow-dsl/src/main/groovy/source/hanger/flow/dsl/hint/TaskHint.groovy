@@ -6,6 +6,8 @@ import source.hanger.flow.contract.runtime.task.access.FlowTaskEnterHandingAcces
 import source.hanger.flow.contract.runtime.task.access.FlowTaskErrorHandlingAccess
 import source.hanger.flow.contract.runtime.task.access.FlowTaskRunAccess
 
+import java.time.Duration
+
 import static groovy.lang.Closure.DELEGATE_FIRST
 
 /**
@@ -21,8 +23,10 @@ import static groovy.lang.Closure.DELEGATE_FIRST
  * task {
  *   name '初始化'
  *   description '准备订单数据'
+ *   timeout '30s'            // 超时后任务失败，任务线程被中断
+ *   retry maxAttempts: 3, delay: '200ms', on: [IOException]   // 或 retry 3
  *   onEnter { ... }
- *   run { ... }
+ *   run { ... }              // 或 runAsync { ... }，返回CompletionStage
  *   next { context.flag } to '下一步'
  *   nextTo '直接跳转'
  *   onError { ... } to '错误处理'
@@ -50,6 +54,34 @@ trait TaskHint {
      */
     abstract void description(String text)
 
+    /**
+     * DSL关键词：timeout
+     * 设置任务超时时间
+     * @param text 时长文本，如 500ms、30s、5m、1h 或 PT30S
+     */
+    abstract void timeout(String text)
+
+    /**
+     * DSL关键词：timeout
+     * 设置任务超时时间
+     * @param duration 时长
+     */
+    abstract void timeout(Duration duration)
+
+    /**
+     * DSL关键词：retry
+     * 设置最大尝试次数（含第一次），使用默认退避参数
+     * @param maxAttempts 最大尝试次数
+     */
+    abstract void retry(int maxAttempts)
+
+    /**
+     * DSL关键词：retry
+     * 设置重试策略
+     * @param options maxAttempts、delay、maxDelay、multiplier、jitter、on（可重试的异常类型）
+     */
+    abstract void retry(Map<String, ?> options)
+
     /**
      * DSL关键词：onEnter
      * 定义任务进入时的处理逻辑
@@ -64,6 +96,13 @@ trait TaskHint {
      */
     abstract void run(@DelegatesTo(value = FlowTaskRunAccess, strategy = DELEGATE_FIRST) Closure<?> runClosure)
 
+    /**
+     * DSL关键词：runAsync
+     * 定义任务的非阻塞执行逻辑，与run互斥
+     * @param runClosure 执行闭包，委托为FlowTaskRunAccess，需返回CompletionStage
+     */
+    abstract void runAsync(@DelegatesTo(value = FlowTaskRunAccess, strategy = DELEGATE_FIRST) Closure<?> runClosure)
+
     /**
      * DSL关键词：next
      * 定义任务的条件跳转分支
@@ -0,0 +1,43 @@
+package source.hanger.flow.util
+
+import groovy.transform.CompileStatic
+
+/**
+ * DSL闭包调用器
+ * <p>
+ * 作用：
+ *   - 以指定的delegate（运行时访问对象）调用DSL中定义的闭包，委托策略为DELEGATE_FIRST
+ *   - 解析得到的流程定义可被任意多个执行并发共享，无需为每次执行重新解析脚本
+ * <p>
+ * 设计说明：
+ *   - 原始闭包只在构建期使用，运行期从不修改；每次调用通过rehydrate得到一份绑定本次delegate的浅拷贝
+ *   - 拷贝的delegate在调用结束后不恢复、也不会被复用：闭包内创建并延后执行的嵌套闭包
+ *     （如runAsync中的thenApply回调）以该拷贝为owner，调用返回后在任意线程执行仍解析到本次调用的delegate
+ *   - 每次调用分配一个闭包拷贝，不依赖ThreadLocal缓存，拷贝随本次调用及其延后的回调一起被回收
+ *
+ * @param <V> 闭包返回值类型
+ */
+@CompileStatic
+final class ClosureInvoker<V> {
+
+    private final Closure<V> closure
+
+    /**
+     * @param closure DSL中定义的闭包
+     */
+    ClosureInvoker(Closure<V> closure) {
+        this.closure = closure
+    }
+
+    /**
+     * 以指定delegate调用闭包
+     *
+     * @param delegate 本次调用的委托对象
+     * @return 闭包返回值
+     */
+    V call(Object delegate) {
+        Closure<V> copy = closure.rehydrate(delegate, closure.owner, closure.thisObject)
+        copy.resolveStrategy = Closure.DELEGATE_FIRST
+        return copy.call()
+    }
+}
@@ -10,13 +10,15 @@ class ClosureUtils {
 
     public static final Closure<?> TRUE = { true }
 
+    /**
+     * 将条件闭包适配为FlowRuntimePredicate，可被并发执行共享（见ClosureInvoker）
+     */
     static FlowRuntimePredicate defaultFlowRuntimePredicate(Closure<?> booleanClosure) {
+        def invoker = new ClosureInvoker<?>(booleanClosure)
         return new FlowRuntimePredicate() {
             @Override
             boolean test(FlowRuntimePredicateAccess access) {
-                booleanClosure.setDelegate(access)
-                booleanClosure.setResolveStrategy(Closure.DELEGATE_FIRST)
-                def result = booleanClosure.call()
+                def result = invoker.call(access)
                 if (!(result instanceof Boolean)) {
                     throw new IllegalArgumentException("Condition closure must return a boolean value, but returned: ${result?.getClass()?.name} (${result})")
                 }
@@ -2,6 +2,8 @@ package source.hanger.flow.util
 
 import groovy.transform.CompileStatic
 
+import java.time.Duration
+import java.time.format.DateTimeParseException
 import java.util.concurrent.atomic.AtomicBoolean
 
 /**
@@ -49,4 +51,38 @@ class DslValidationUtils {
         更多信息请参考官方hanger Flow DSL文档。
         """.stripIndent().strip()
     }
+
+    /**
+     * 解析DSL中的时长文本，支持 500ms / 30s / 5m / 1h 形式和ISO-8601格式（如 PT30S）。
+     *
+     * @param text 时长文本
+     * @param keyword 使用该时长的DSL关键词，用于错误消息
+     * @return 大于0的时长
+     * @throws IllegalArgumentException 文本无法解析或时长不大于0
+     */
+    static Duration parseDuration(String text, String keyword) {
+        String value = text?.trim()?.toLowerCase()
+        Duration duration = null
+        if (value) {
+            try {
+                if (value.startsWith('pt')) {
+                    duration = Duration.parse(value.toUpperCase())
+                } else if (value.endsWith('ms')) {
+                    duration = Duration.ofMillis(Long.parseLong(value[0..-3].trim()))
+                } else if (value.endsWith('s')) {
+                    duration = Duration.ofSeconds(Long.parseLong(value[0..-2].trim()))
+                } else if (value.endsWith('m')) {
+                    duration = Duration.ofMinutes(Long.parseLong(value[0..-2].trim()))
+                } else if (value.endsWith('h')) {
+                    duration = Duration.ofHours(Long.parseLong(value[0..-2].trim()))
+                }
+            } catch (NumberFormatException | DateTimeParseException ignored) {
+                duration = null
+            }
+        }
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("'${keyword}' 的取值 '${text}' 无效，应为大于0的时长，如 500ms、30s、5m、1h 或 PT30S。")
+        }
+        return duration
+    }
 }
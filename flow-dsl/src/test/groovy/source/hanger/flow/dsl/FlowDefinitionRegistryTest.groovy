@@ -0,0 +1,270 @@
+package source.hanger.flow.dsl
+
+import org.junit.Test
+import source.hanger.flow.contract.model.FlowDefinition
+import source.hanger.flow.contract.model.TaskStepDefinition
+import source.hanger.flow.contract.runtime.task.access.FlowTaskRunAccess
+import source.hanger.flow.contract.runtime.task.context.FlowTaskRunAccessContext
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+import static org.junit.Assert.*
+
+/**
+ * FlowDefinitionRegistry、FlowScriptPrecompiler及DSL闭包并发调用的单元测试
+ */
+class FlowDefinitionRegistryTest {
+
+    @Test
+    void testDefinitionInvokedConcurrentlyFromManyThreads() {
+        FlowDefinitionRegistry registry = new FlowDefinitionRegistry()
+        try {
+            FlowDefinition definition = registry.register('echo', echoScript('回显流程', '1', 'echo'))
+            TaskStepDefinition task = (TaskStepDefinition) definition.stepDefinitions.find { it.name == 'echo' }
+            ExecutorService pool = Executors.newFixedThreadPool(16)
+            CountDownLatch start = new CountDownLatch(1)
+            Queue<String> mismatches = new ConcurrentLinkedQueue<>()
+            try {
+                List<CompletableFuture<Void>> futures = []
+                for (int t = 0; t < 16; t++) {
+                    int thread = t
+                    futures.add(CompletableFuture.runAsync({
+                        start.await()
+                        for (int i = 0; i < 500; i++) {
+                            String expected = "t${thread}-${i}".toString()
+                            RecordingAccess access = new RecordingAccess(expected)
+                            task.taskRunnable.run(access)
+                            // 闭包及其嵌套闭包都应解析到本次调用的delegate
+                            if (access.logs != [expected, expected]) {
+                                mismatches.add("${expected}: ${access.logs}".toString())
+                            }
+                        }
+                    } as Runnable, pool))
+                }
+                start.countDown()
+                CompletableFuture.allOf(futures as CompletableFuture[]).get(30, TimeUnit.SECONDS)
+            } finally {
+                pool.shutdown()
+            }
+            assertTrue(mismatches.take(5).toString(), mismatches.isEmpty())
+        } finally {
+            registry.close()
+        }
+    }
+
+    @Test
+    void testReRegisterReusesCacheForIdenticalSourceAndReplacesChangedSource() {
+        FlowDefinitionRegistry registry = new FlowDefinitionRegistry()
+        try {
+            String original = echoScript('重载流程', '1', 'echo')
+            FlowDefinition first = registry.register('a.groovy', original)
+            assertEquals(1, registry.compileCount)
+
+            // 同一来源、相同内容：直接返回已注册的定义
+            assertSame(first, registry.register('a.groovy', original))
+            assertEquals(1, registry.compileCount)
+
+            // 不同来源、相同内容：复用编译结果，但同名同版本不能由两个来源注册
+            try {
+                registry.register('b.groovy', original)
+                fail('同名同版本的流程应只能由一个来源注册')
+            } catch (IllegalStateException expected) {
+                assertEquals(1, registry.compileCount)
+            }
+
+            // 内容变化：重新编译并替换，旧版本和旧编译结果被移除
+            FlowDefinition second = registry.register('a.groovy', echoScript('重载流程', '2', 'echo'))
+            assertEquals(2, registry.compileCount)
+            assertSame(second, registry.get('重载流程'))
+            assertNull(registry.get('重载流程', '1'))
+            assertEquals(['2'] as Set, registry.getVersions('重载流程'))
+            assertEquals(1, registry.compiledScriptCount)
+
+            // 旧内容的类已被逐出，再次注册时重新编译
+            registry.register('a.groovy', original)
+            assertEquals(3, registry.compileCount)
+
+            assertTrue(registry.unregister('a.groovy'))
+            assertNull(registry.get('重载流程'))
+            assertEquals(0, registry.compiledScriptCount)
+        } finally {
+            registry.close()
+        }
+    }
+
+    @Test
+    void testReloadNeverHidesLiveDefinitionFromConcurrentGet() {
+        FlowDefinitionRegistry registry = new FlowDefinitionRegistry()
+        try {
+            String[] scripts = [echoScript('热点流程', '1', 'echo'), echoScript('热点流程', '2', 'echo'),
+                                echoScript('热点流程', '2', 'echo2')]
+            registry.register('hot.groovy', scripts[0])
+
+            AtomicBoolean running = new AtomicBoolean(true)
+            Queue<String> misses = new ConcurrentLinkedQueue<>()
+            Thread reader = new Thread({
+                while (running.get()) {
+                    if (registry.get('热点流程') == null) {
+                        misses.add('get(name)')
+                    }
+                    if (registry.getNames().isEmpty()) {
+                        misses.add('getNames()')
+                    }
+                }
+            } as Runnable)
+            reader.start()
+            try {
+                // 版本号变化（1 -> 2）与同版本内容变化（2 -> 2）交替出现
+                for (int i = 0; i < 150; i++) {
+                    registry.register('hot.groovy', scripts[(i + 1) % scripts.length])
+                }
+            } finally {
+                running.set(false)
+                reader.join(10_000)
+            }
+            assertTrue(misses.take(5).toString(), misses.isEmpty())
+        } finally {
+            registry.close()
+        }
+    }
+
+    @Test
+    void testWatchReloadsChangedFilesAndUnregistersDeletedOnes() {
+        Path directory = Files.createTempDirectory('flow-scripts')
+        FlowDefinitionRegistry registry = new FlowDefinitionRegistry()
+        try {
+            Path file = directory.resolve('watched.groovy')
+            Files.write(file, echoScript('监听流程', '1', 'echo').getBytes(StandardCharsets.UTF_8))
+            registry.watch(directory)
+            assertEquals('1', registry.get('监听流程').version)
+
+            Files.write(file, echoScript('监听流程', '2', 'echo').getBytes(StandardCharsets.UTF_8))
+            awaitCondition('修改后的脚本未被重新加载') { registry.get('监听流程')?.version == '2' }
+            assertEquals(['2'] as Set, registry.getVersions('监听流程'))
+
+            // 写入无法编译的内容：保留原有定义并记录错误
+            Files.write(file, 'flow {'.getBytes(StandardCharsets.UTF_8))
+            awaitCondition('加载失败未被记录') { !registry.loadErrors.isEmpty() }
+            assertEquals('2', registry.get('监听流程').version)
+
+            Files.delete(file)
+            awaitCondition('删除的脚本未被注销') { registry.get('监听流程') == null }
+            assertTrue(registry.loadErrors.isEmpty())
+        } finally {
+            registry.close()
+            directory.toFile().deleteDir()
+        }
+    }
+
+    @Test
+    void testPrecompiledIndexRoundTrip() {
+        Path scriptDirectory = Files.createTempDirectory('flow-precompile-src')
+        Path outputDirectory = Files.createTempDirectory('flow-precompile-out')
+        try {
+            Files.createDirectories(scriptDirectory.resolve('nested'))
+            Files.write(scriptDirectory.resolve('First.groovy'),
+                echoScript('预编译流程A', '1', 'echo').getBytes(StandardCharsets.UTF_8))
+            Files.write(scriptDirectory.resolve('nested/Second.groovy'),
+                echoScript('预编译流程B', '1', 'echo').getBytes(StandardCharsets.UTF_8))
+
+            List<String> classNames = FlowScriptPrecompiler.precompile(scriptDirectory.toFile(), outputDirectory.toFile())
+            assertEquals(2, classNames.size())
+            assertTrue(Files.exists(outputDirectory.resolve(FlowScriptPrecompiler.INDEX_RESOURCE)))
+
+            URLClassLoader loader = new URLClassLoader([outputDirectory.toUri().toURL()] as URL[],
+                FlowDefinitionRegistryTest.classLoader)
+            FlowDefinitionRegistry registry = new FlowDefinitionRegistry(loader)
+            try {
+                assertEquals(classNames, FlowScriptPrecompiler.readIndex(loader))
+                List<FlowDefinition> loaded = registry.loadPrecompiled()
+                assertEquals(['预编译流程A', '预编译流程B'] as Set, loaded*.name as Set)
+                assertEquals(['预编译流程A', '预编译流程B'] as Set, registry.names)
+                // 登记预编译的类不经过Groovy编译器
+                assertEquals(0, registry.compileCount)
+
+                // 同一个类重复登记时返回已有定义
+                FlowDefinition again = registry.register(loader.loadClass(classNames[0]))
+                assertSame(registry.get(again.name), again)
+                assertEquals(2, registry.loadPrecompiled().size())
+            } finally {
+                registry.close()
+                loader.close()
+            }
+
+            // 同名同版本重复定义使预编译失败
+            Files.write(scriptDirectory.resolve('Duplicate.groovy'),
+                echoScript('预编译流程A', '1', 'echo').getBytes(StandardCharsets.UTF_8))
+            try {
+                FlowScriptPrecompiler.precompile(scriptDirectory.toFile(), Files.createTempDirectory('flow-dup').toFile())
+                fail('重复定义应使预编译失败')
+            } catch (IllegalStateException expected) {
+                assertTrue(expected.message.contains('预编译流程A@1'))
+            }
+        } finally {
+            scriptDirectory.toFile().deleteDir()
+            outputDirectory.toFile().deleteDir()
+        }
+    }
+
+    /**
+     * 单任务流程脚本：任务在闭包和嵌套闭包中各记录一次context.stepName
+     */
+    private static String echoScript(String flowName, String version, String taskName) {
+        """\
+import static source.hanger.flow.dsl.FlowDslEntry.*
+
+flow {
+    name '${flowName}'
+    version '${version}'
+    start '${taskName}'
+    task {
+        name '${taskName}'
+        run {
+            log context.stepName
+            [1].each { log context.stepName }
+        }
+        nextTo END
+    }
+}
+"""
+    }
+
+    private static void awaitCondition(String message, Closure<Boolean> condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+        while (!condition.call()) {
+            assertTrue(message, System.nanoTime() < deadline)
+            Thread.sleep(20)
+        }
+    }
+
+    /**
+     * 记录日志的任务访问对象，context.stepName为构造时指定的值
+     */
+    private static final class RecordingAccess implements FlowTaskRunAccess {
+        private final FlowTaskRunAccessContext context = new FlowTaskRunAccessContext()
+        private final List<String> logs = []
+
+        RecordingAccess(String stepName) {
+            context.stepName = stepName
+        }
+
+        @Override
+        FlowTaskRunAccessContext getContext() {
+            context
+        }
+
+        @Override
+        void log(String message) {
+            logs.add(message)
+        }
+    }
+}
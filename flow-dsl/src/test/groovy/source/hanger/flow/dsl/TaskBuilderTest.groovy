@@ -0,0 +1,40 @@
+package source.hanger.flow.dsl
+
+import org.junit.Test
+import source.hanger.flow.contract.model.TaskRetryPolicy
+import source.hanger.flow.contract.model.TaskStepDefinition
+
+import java.time.Duration
+
+import static org.junit.Assert.*
+
+/**
+ * TaskBuilder的单元测试
+ */
+class TaskBuilderTest {
+
+    @Test
+    void testRetryMapDefaultsMaxAttemptsOnlyWhenOmitted() {
+        TaskStepDefinition task = new TaskStepDefinition()
+        new TaskBuilder(task).retry(delay: '100ms')
+        assertEquals(3, task.retryPolicy.maxAttempts)
+        assertEquals(Duration.ofMillis(100), task.retryPolicy.initialDelay)
+
+        new TaskBuilder(task).retry(maxAttempts: 1)
+        assertEquals(1, task.retryPolicy.maxAttempts)
+        assertEquals(TaskRetryPolicy.DEFAULT_INITIAL_DELAY, task.retryPolicy.initialDelay)
+    }
+
+    @Test
+    void testRetryMapRejectsExplicitZeroMaxAttempts() {
+        TaskStepDefinition task = new TaskStepDefinition()
+        // 显式的0不能被当作未设置而回退到默认的3次
+        try {
+            new TaskBuilder(task).retry(maxAttempts: 0)
+            fail('maxAttempts: 0应被拒绝')
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.message.contains('maxAttempts'))
+        }
+        assertNull(task.retryPolicy)
+    }
+}
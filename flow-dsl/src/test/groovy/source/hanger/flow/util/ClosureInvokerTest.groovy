@@ -0,0 +1,143 @@
+package source.hanger.flow.util
+
+import org.junit.Test
+import source.hanger.flow.contract.model.FlowDefinition
+import source.hanger.flow.contract.model.TaskStepDefinition
+import source.hanger.flow.contract.runtime.task.access.FlowTaskRunAccess
+import source.hanger.flow.contract.runtime.task.context.FlowTaskRunAccessContext
+import source.hanger.flow.dsl.FlowDefinitionRegistry
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static org.junit.Assert.*
+
+/**
+ * ClosureInvoker的单元测试：延后执行的嵌套闭包及共享定义的并发调用
+ */
+class ClosureInvokerTest {
+
+    @Test
+    void testDeferredNestedClosureKeepsItsOwnDelegate() {
+        ClosureInvoker<Closure<String>> invoker = new ClosureInvoker<>({ -> { -> name } })
+        Closure<String> first = invoker.call([name: 'first'])
+        Closure<String> second = invoker.call([name: 'second'])
+
+        // 调用返回后再执行：各自解析到创建时那次调用的delegate
+        assertEquals('first', first.call())
+        assertEquals('second', second.call())
+        assertEquals('first', first.call())
+    }
+
+    @Test
+    void testDeferredNestedClosureRunsOnAnotherThreadAfterCallReturns() {
+        ClosureInvoker<Closure<String>> invoker = new ClosureInvoker<>({ -> { -> name } })
+        Closure<String> deferred = invoker.call([name: 'deferred'])
+        // 同一线程上的后续调用不影响已返回的闭包
+        invoker.call([name: 'other'])
+
+        ExecutorService pool = Executors.newSingleThreadExecutor()
+        try {
+            assertEquals('deferred', pool.submit(deferred as Callable<String>).get(5, TimeUnit.SECONDS))
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    void testRunAsyncContinuationsOfSharedDefinitionResolveToTheirOwnAccess() {
+        FlowDefinitionRegistry registry = new FlowDefinitionRegistry()
+        ExecutorService callers = Executors.newFixedThreadPool(16)
+        ExecutorService continuations = Executors.newFixedThreadPool(4)
+        try {
+            FlowDefinition definition = registry.register('async.groovy', asyncScript())
+            TaskStepDefinition task = (TaskStepDefinition) definition.stepDefinitions.find { it.name == 'echo' }
+            CountDownLatch start = new CountDownLatch(1)
+            Queue<String> mismatches = new ConcurrentLinkedQueue<>()
+            List<CompletableFuture<Void>> futures = []
+            for (int t = 0; t < 16; t++) {
+                int thread = t
+                futures.add(CompletableFuture.runAsync({
+                    start.await()
+                    for (int i = 0; i < 200; i++) {
+                        String expected = "t${thread}-${i}".toString()
+                        RecordingAccess access = new RecordingAccess(expected, continuations)
+                        Object result = task.asyncTaskRunnable.run(access).toCompletableFuture().get(5, TimeUnit.SECONDS)
+                        // runAsync闭包返回后，supplyAsync与thenApply回调仍应解析到本次执行的context与log
+                        if (result != expected || access.logs != [expected]) {
+                            mismatches.add("${expected}: ${result} ${access.logs}".toString())
+                        }
+                    }
+                } as Runnable, callers))
+            }
+            start.countDown()
+            CompletableFuture.allOf(futures as CompletableFuture[]).get(60, TimeUnit.SECONDS)
+            assertTrue(mismatches.take(5).toString(), mismatches.isEmpty())
+        } finally {
+            callers.shutdown()
+            continuations.shutdown()
+            registry.close()
+        }
+    }
+
+    /**
+     * 单任务流程脚本：runAsync在其他线程上读取context，并在thenApply回调中记录日志
+     */
+    private static String asyncScript() {
+        """\
+import static source.hanger.flow.dsl.FlowDslEntry.*
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+
+flow {
+    name '异步回调流程'
+    version '1'
+    start 'echo'
+    task {
+        name 'echo'
+        runAsync {
+            CompletableFuture.supplyAsync({ context.stepName }, context.executor)
+                .thenApply { String value -> log context.stepName; value }
+        }
+        nextTo END
+    }
+}
+"""
+    }
+
+    /**
+     * 记录日志的任务访问对象，context.stepName为构造时指定的值
+     */
+    private static final class RecordingAccess implements FlowTaskRunAccess {
+        private final AsyncContext context = new AsyncContext()
+        private final List<String> logs = new CopyOnWriteArrayList<>()
+
+        RecordingAccess(String stepName, ExecutorService executor) {
+            context.stepName = stepName
+            context.executor = executor
+        }
+
+        @Override
+        FlowTaskRunAccessContext getContext() {
+            context
+        }
+
+        @Override
+        void log(String message) {
+            logs.add(message)
+        }
+    }
+
+    /**
+     * 附带续体执行线程池的任务上下文
+     */
+    private static final class AsyncContext extends FlowTaskRunAccessContext {
+        transient ExecutorService executor
+    }
+}
@@ -1,12 +1,11 @@
 package source.hanger.flow.example.complex;
 
-import groovy.lang.GroovyShell;
-import groovy.lang.Script;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import source.hanger.flow.completable.runtime.CompletableFlowEngine;
 import source.hanger.flow.contract.model.FlowDefinition;
 import source.hanger.flow.core.runtime.FlowResult;
+import source.hanger.flow.dsl.FlowDefinitionRegistry;
 
 import java.io.File;
 import java.io.Serializable;
@@ -18,6 +17,11 @@ import java.util.concurrent.Executors;
 
 public class SuperComplexFlowExample {
     private static final Logger logger = LoggerFactory.getLogger(SuperComplexFlowExample.class);
+    /**
+     * SuperComplexProcess.groovy中声明的流程名称
+     */
+    private static final String FLOW_NAME = "超级复杂订单处理";
+    private final FlowDefinitionRegistry registry = new FlowDefinitionRegistry();
 
     public static void main(String[] args) {
         SuperComplexFlowExample example = new SuperComplexFlowExample();
@@ -64,20 +68,27 @@ public class SuperComplexFlowExample {
     }
 
     private FlowDefinition parseDslScript() throws Exception {
+        // 优先使用构建期预编译的脚本类（按预编译索引登记），不经过Groovy编译器
+        registry.loadPrecompiled();
+        FlowDefinition precompiled = registry.get(FLOW_NAME);
+        if (precompiled != null) {
+            logger.info("使用预编译的DSL脚本，流程名称: {}", precompiled.getName());
+            return precompiled;
+        }
+        logger.info("未找到预编译的DSL脚本，改为运行期编译");
         String scriptPath = "flow-examples/src/main/resources/script/SuperComplexProcess.groovy";
         File scriptFile = new File(scriptPath);
         if (!scriptFile.exists()) {
             throw new RuntimeException("找不到DSL脚本文件: " + scriptPath);
         }
         logger.info("开始解析DSL脚本: {}", scriptFile.getAbsolutePath());
-        GroovyShell shell = new GroovyShell();
-        Script script = shell.parse(scriptFile);
-        Object result = script.run();
-        if (!(result instanceof FlowDefinition)) {
-            logger.warn("DSL脚本执行结果不是FlowDefinition类型: {}, 使用模拟流程定义", result != null ? result.getClass().getSimpleName() : "null");
+        FlowDefinition flowDefinition;
+        try {
+            flowDefinition = registry.load(scriptFile.toPath());
+        } catch (IllegalArgumentException e) {
+            logger.warn("DSL脚本执行结果不是FlowDefinition类型: {}, 使用模拟流程定义", e.getMessage());
             return createMockFlowDefinition();
         }
-        FlowDefinition flowDefinition = (FlowDefinition)result;
         logger.info("DSL脚本解析成功，流程名称: {}", flowDefinition.getName());
         return flowDefinition;
     }
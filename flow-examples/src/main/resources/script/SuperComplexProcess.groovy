@@ -6,7 +6,7 @@ flow {
     version '2.0.0'
     name '超级复杂订单处理'
     description '''
-    演示多层嵌套、动态分支、循环重试、聚合、全链路参数流转、全局与局部onError等极致复杂流程
+    演示多层嵌套、动态分支、循环重试、任务级退避重试与超时、聚合、全链路参数流转、全局与局部onError等极致复杂流程
     '''
 
     onEnter {
@@ -124,8 +124,15 @@ flow {
 
     task {
         name '支付处理'
+        // 支付网关的瞬时故障在步骤内按退避重试，不经过流转回环
+        timeout '5s'
+        retry maxAttempts: 3, delay: '100ms', on: [IOException]
         run {
-            log "支付处理"
+            context.params.paymentAttempts = (context.params.paymentAttempts ?: 0) + 1
+            if (context.params.paymentAttempts == 1) {
+                throw new IOException("支付网关暂时不可用")
+            }
+            log "支付处理，第${context.params.paymentAttempts}次尝试"
             context.params.paid = true
         }
         nextTo '订单完成'